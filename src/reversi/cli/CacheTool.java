@@ -0,0 +1,163 @@
+package reversi.cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import reversi.model.Board;
+import reversi.model.PositionCache;
+
+/**
+ * Command line tool to inspect and compact the persistent position cache.
+ */
+public final class CacheTool {
+
+    /**
+     * Private constructor to ensure no CacheTool object can be initialized.
+     */
+    private CacheTool() {
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when starting the
+     * tool. The first argument is the command, the optional second one the
+     * cache file, which defaults to the cache of the current user.
+     * <ul>
+     * <li>{@code stats [file]} - prints the fill level and depth histogram</li>
+     * <li>{@code dump [file]} - prints every entry</li>
+     * <li>{@code compact [file] [slots] [minDepth]} - rewrites the cache,
+     * dropping torn and shallow entries</li>
+     * </ul>
+     *
+     * @param args The command and its parameters.
+     * @throws IOException If the cache can't be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            printHelp();
+            return;
+        }
+        Path file = args.length > 1 ? Paths.get(args[1])
+                : PositionCache.defaultFile();
+        if (!Files.exists(file)) {
+            System.out.println("Error! No cache at " + file);
+            return;
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "stats":
+                cmdStats(file);
+                break;
+            case "dump":
+                cmdDump(file);
+                break;
+            case "compact":
+                int slots = args.length > 2 ? Integer.parseInt(args[2]) : -1;
+                int minDepth = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+                cmdCompact(file, slots, minDepth);
+                break;
+            default:
+                printHelp();
+                break;
+        }
+    }
+
+    /**
+     * Prints the number of entries and how many of them were searched at
+     * each depth.
+     *
+     * @param file The cache file.
+     * @throws IOException If the cache can't be read.
+     */
+    private static void cmdStats(Path file) throws IOException {
+        try (PositionCache cache = PositionCache.open(file,
+                PositionCache.DEFAULT_SLOTS)) {
+            int[] depths = new int[256];
+            int[] entries = {0};
+            cache.forEach(entry -> {
+                ++depths[entry.getDepth()];
+                ++entries[0];
+            });
+            System.out.println(file + ": " + entries[0] + " of "
+                    + cache.capacity() + " slots used");
+            for (int depth = 0; depth < depths.length; ++depth) {
+                if (depths[depth] > 0) {
+                    System.out.println("depth " + depth + ": "
+                            + depths[depth]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints every entry as position, side to move, depth, move and score.
+     *
+     * @param file The cache file.
+     * @throws IOException If the cache can't be read.
+     */
+    private static void cmdDump(Path file) throws IOException {
+        try (PositionCache cache = PositionCache.open(file,
+                PositionCache.DEFAULT_SLOTS)) {
+            cache.forEach(entry -> {
+                StringBuilder line = new StringBuilder();
+                for (int square = 0; square < Board.SIZE * Board.SIZE;
+                     ++square) {
+                    if ((entry.getAiTiles() >>> square & 1) != 0) {
+                        line.append('O');
+                    } else if ((entry.getHumanTiles() >>> square & 1) != 0) {
+                        line.append('X');
+                    } else {
+                        line.append('.');
+                    }
+                }
+                line.append(entry.isHumanToMove() ? " X " : " O ");
+                line.append(entry.getDepth()).append(' ');
+                line.append(entry.getMove() / Board.SIZE + 1).append(' ');
+                line.append(entry.getMove() % Board.SIZE + 1).append(' ');
+                line.append(entry.getScore());
+                System.out.println(line);
+            });
+        }
+    }
+
+    /**
+     * Rewrites the cache into a new file, which then replaces the old one.
+     *
+     * @param file     The cache file.
+     * @param slots    The number of slots of the new file, negative to keep
+     *                 the current number.
+     * @param minDepth The minimal depth of entries that are kept.
+     * @throws IOException If the cache can't be read or written.
+     */
+    private static void cmdCompact(Path file, int slots, int minDepth)
+            throws IOException {
+        Path target = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(target);
+        int kept;
+        int before;
+        try (PositionCache cache = PositionCache.open(file,
+                PositionCache.DEFAULT_SLOTS)) {
+            before = cache.size();
+            int newSlots = slots > 0 ? slots : cache.capacity();
+            kept = cache.compactTo(target, newSlots, minDepth);
+        }
+        Files.move(target, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("Kept " + kept + " of " + before + " entries");
+    }
+
+    /**
+     * Prints the usage of the tool.
+     */
+    private static void printHelp() {
+        System.out.println("Reversi position cache tool\n"
+                + "STATS [file] - prints the fill level of the cache\n"
+                + "DUMP [file] - prints every entry of the cache\n"
+                + "COMPACT [file] [slots] [minDepth] - rewrites the cache "
+                + "without torn or shallow entries\n"
+                + "Without file the cache in the home directory is used.");
+    }
+
+}
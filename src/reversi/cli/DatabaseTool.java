@@ -0,0 +1,212 @@
+package reversi.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import reversi.model.Board;
+import reversi.model.Player;
+import reversi.model.PositionDatabase;
+import reversi.model.PositionDatabaseBuilder;
+import reversi.model.ReversiBoard;
+
+/**
+ * Command line tool to build and query the database of positions reached in
+ * earlier games.
+ */
+public final class DatabaseTool {
+
+    /**
+     * Number of games after which the progress of a build is printed.
+     */
+    private static final int PROGRESS = 100000;
+
+    /**
+     * Number of lookups timed by a query.
+     */
+    private static final int TIMED_LOOKUPS = 10000;
+
+    /**
+     * Private constructor to ensure no DatabaseTool object can be
+     * initialized.
+     */
+    private DatabaseTool() {
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when starting the
+     * tool. The first argument is the command, the database file defaults to
+     * the database of the current user.
+     * <ul>
+     * <li>{@code build transcripts [file]} - builds the database out of a
+     * file with one transcript like {@code f5d6c3} per line</li>
+     * <li>{@code stats [file]} - prints the size of the database</li>
+     * <li>{@code query moves [file]} - prints the games of the position
+     * after the moves</li>
+     * </ul>
+     *
+     * @param args The command and its parameters.
+     * @throws IOException If a file can't be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            printHelp();
+            return;
+        }
+        String command = args[0].toLowerCase();
+        int fileIndex = command.equals("stats") ? 1 : 2;
+        Path file = args.length > fileIndex ? Paths.get(args[fileIndex])
+                : PositionDatabase.defaultFile();
+
+        switch (command) {
+            case "build":
+                if (args.length < 2) {
+                    printHelp();
+                } else {
+                    cmdBuild(Paths.get(args[1]), file);
+                }
+                break;
+            case "stats":
+                cmdStats(file);
+                break;
+            case "query":
+                if (args.length < 2) {
+                    printHelp();
+                } else {
+                    cmdQuery(args[1], file);
+                }
+                break;
+            default:
+                printHelp();
+                break;
+        }
+    }
+
+    /**
+     * Builds the database out of a file of transcripts. Lines with illegal
+     * moves are skipped.
+     *
+     * @param transcripts The file with one game per line.
+     * @param file        The database file, that is replaced.
+     * @throws IOException If a file can't be read or written.
+     */
+    private static void cmdBuild(Path transcripts, Path file)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        long skipped = 0;
+        long records;
+        try (PositionDatabaseBuilder builder = new PositionDatabaseBuilder(
+                file, PositionDatabaseBuilder.DEFAULT_RUN);
+             BufferedReader in = Files.newBufferedReader(transcripts,
+                     StandardCharsets.US_ASCII)) {
+            String line;
+            int number = 0;
+            while ((line = in.readLine()) != null) {
+                ++number;
+                try {
+                    builder.addTranscript(line);
+                } catch (IllegalArgumentException illegal) {
+                    System.out.println("Error! Line " + number + ": "
+                            + illegal.getMessage());
+                    ++skipped;
+                }
+                if (number % PROGRESS == 0) {
+                    System.out.println(number + " games read");
+                }
+            }
+            records = builder.finish();
+            System.out.println("Built " + file + " out of "
+                    + builder.getGames() + " games (" + skipped
+                    + " skipped): " + records + " records in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    /**
+     * Prints the number of games and records of the database.
+     *
+     * @param file The database file.
+     * @throws IOException If the database can't be read.
+     */
+    private static void cmdStats(Path file) throws IOException {
+        try (PositionDatabase database = PositionDatabase.open(file)) {
+            System.out.println(file + ": " + database.getGames() + " games, "
+                    + database.size() + " positions and moves");
+        }
+    }
+
+    /**
+     * Prints the moves played in the position after a transcript with their
+     * games and the time of a lookup.
+     *
+     * @param moves The transcript of the position, {@code -} for the start.
+     * @param file  The database file.
+     * @throws IOException If the database can't be read.
+     */
+    private static void cmdQuery(String moves, Path file) throws IOException {
+        Board position = new ReversiBoard(Player.HUMAN);
+        String transcript = moves.equals("-") ? "" : moves;
+        for (int i = 0; i + 1 < transcript.length(); i += 2) {
+            int col = Character.toLowerCase(transcript.charAt(i)) - 'a';
+            int row = transcript.charAt(i + 1) - '1';
+            Board executed = row < 0 || row >= Board.SIZE || col < 0
+                    || col >= Board.SIZE ? null : position.play(row, col);
+            if (executed != null && executed.getSlot(row, col) == null) {
+
+                // The player had to pass, so the move belongs to the other.
+                executed = executed.play(row, col);
+            }
+            if (executed == null) {
+                System.out.println("Error! Illegal move "
+                        + transcript.substring(i, i + 2));
+                return;
+            }
+            position = executed;
+        }
+
+        try (PositionDatabase database = PositionDatabase.open(file)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < TIMED_LOOKUPS; ++i) {
+                database.lookup(position);
+            }
+            long nanos = (System.nanoTime() - start) / TIMED_LOOKUPS;
+            print(database.lookup(position));
+            System.out.printf("Lookup in %.1f us%n", nanos / 1000.0);
+        }
+    }
+
+    /**
+     * Prints the moves of a position with their games, one per line.
+     *
+     * @param moves The moves, the most played first.
+     */
+    static void print(List<PositionDatabase.MoveStatistics> moves) {
+        if (moves.isEmpty()) {
+            System.out.println("Position not in the database");
+        }
+        for (PositionDatabase.MoveStatistics move : moves) {
+            System.out.printf("(%d, %d) %8d games %8d won %8d drawn %8d lost"
+                    + " %5.1f%%%n", move.getRow() + 1, move.getColumn() + 1,
+                    move.getGames(), move.getWins(), move.getDraws(),
+                    move.getLosses(), move.getScore() * 100);
+        }
+    }
+
+    /**
+     * Prints the usage of the tool.
+     */
+    private static void printHelp() {
+        System.out.println("Reversi position database tool\n"
+                + "BUILD transcripts [file] - builds the database out of "
+                + "one game like f5d6c3 per line\n"
+                + "STATS [file] - prints the size of the database\n"
+                + "QUERY moves [file] - prints the games of the position "
+                + "after the moves, - for the start\n"
+                + "Without file the database in the home directory is used.");
+    }
+
+}
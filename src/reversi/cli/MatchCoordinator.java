@@ -0,0 +1,518 @@
+package reversi.cli;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import reversi.model.Board;
+import reversi.model.EngineMatch;
+
+/**
+ * Plays games between two contestants on worker processes. The coordinator
+ * listens on a local socket, starts the {@link MatchWorker workers} as
+ * separate JVMs and hands out one game at a time to each of them. Workers
+ * started elsewhere may connect to the port as well.
+ * <p>
+ * The games are played in pairs from the same random opening, each
+ * contestant moving first once. A game, whose worker fails, times out or
+ * loses its connection, is handed out again up to {@link #MAX_ATTEMPTS}
+ * times. Workers, that ended, are started again. The results are counted
+ * from the view of the first contestant; with a single contestant the
+ * games are self-play.
+ */
+public final class MatchCoordinator {
+
+    /**
+     * Number of random moves of each opening.
+     */
+    private static final int OPENING_PLIES = 8;
+
+    /**
+     * Most milliseconds a worker may take for a single game.
+     */
+    private static final int GAME_TIMEOUT = 600000;
+
+    /**
+     * Number of times a game is handed out, before it counts as failed.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Milliseconds between two reports of the progress.
+     */
+    private static final long PROGRESS_MILLIS = 5000;
+
+    /**
+     * Milliseconds a connection waits for a game, before it checks if the
+     * match is over.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * The first contestant, whose view the results are counted from.
+     */
+    private final EngineMatch.Contestant first;
+
+    /**
+     * The second contestant.
+     */
+    private final EngineMatch.Contestant second;
+
+    /**
+     * The games not yet handed out, including those handed out again.
+     */
+    private final BlockingQueue<Job> jobs = new LinkedBlockingQueue<>();
+
+    /**
+     * Counts down with each game, that is finished or failed.
+     */
+    private final CountDownLatch remaining;
+
+    /**
+     * Set when all games are finished, so the connections end.
+     */
+    private volatile boolean done;
+
+    /**
+     * Games won by the first contestant.
+     */
+    private long wins;
+
+    /**
+     * Games ended in a tie.
+     */
+    private long ties;
+
+    /**
+     * Games lost by the first contestant.
+     */
+    private long losses;
+
+    /**
+     * Sum of the final tile differences from the view of the first
+     * contestant.
+     */
+    private long difference;
+
+    /**
+     * Sum of the moves of the finished games.
+     */
+    private long moves;
+
+    /**
+     * Number of games handed out again.
+     */
+    private long retries;
+
+    /**
+     * Number of games, that failed too often.
+     */
+    private long failed;
+
+    /**
+     * Number of finished games of each worker.
+     */
+    private final Map<String, Long> workerGames = new TreeMap<>();
+
+    /**
+     * Creates a coordinator and the games of the match.
+     *
+     * @param first  The first contestant.
+     * @param second The second contestant.
+     * @param games  The number of games.
+     * @param random Chooses the openings.
+     */
+    private MatchCoordinator(EngineMatch.Contestant first,
+                             EngineMatch.Contestant second, int games,
+                             Random random) {
+        this.first = first;
+        this.second = second;
+        this.remaining = new CountDownLatch(games);
+        int[] opening = null;
+        for (int id = 0; id < games; ++id) {
+            if (id % 2 == 0) {
+                opening = EngineMatch.randomOpening(random, OPENING_PLIES);
+            }
+            jobs.add(new Job(id, id % 2 == 0, opening));
+        }
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when starting a
+     * match: {@code games first [second [workers [seed]]]}. The contestants
+     * are given as {@code engine:level[:millis]}, the second defaults to the
+     * first, the workers to the number of cores and the seed of the
+     * openings to the current time. With {@code 0} workers the coordinator
+     * only waits for workers to connect.
+     *
+     * @param args The parameters.
+     * @throws IOException          If the socket can't be opened or a worker
+     *                              can't be started.
+     * @throws InterruptedException If the match is interrupted.
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        if (args.length < 2) {
+            printHelp();
+            return;
+        }
+        int games = Integer.parseInt(args[0]);
+        EngineMatch.Contestant first = EngineMatch.Contestant.parse(args[1]);
+        EngineMatch.Contestant second = args.length > 2
+                ? EngineMatch.Contestant.parse(args[2]) : first;
+        int workers = args.length > 3 ? Integer.parseInt(args[3])
+                : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4])
+                : System.currentTimeMillis();
+        if (games < 1 || workers < 0) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+
+        MatchCoordinator coordinator = new MatchCoordinator(first, second,
+                games, new Random(seed));
+        long start = System.currentTimeMillis();
+        coordinator.run(workers);
+        coordinator.report(System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Plays all games on the workers.
+     *
+     * @param workers The number of local workers to start.
+     * @throws IOException          If the socket can't be opened or a worker
+     *                              can't be started.
+     * @throws InterruptedException If the match is interrupted.
+     * @throws IllegalStateException If the workers keep ending.
+     */
+    private void run(int workers) throws IOException, InterruptedException {
+        List<Process> processes = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, 0,
+                InetAddress.getLoopbackAddress())) {
+            System.out.println("Coordinator listening on "
+                    + server.getInetAddress().getHostAddress() + " port "
+                    + server.getLocalPort());
+            Thread acceptor = new Thread(() -> accept(server),
+                    "match-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            for (int i = 0; i < workers; ++i) {
+                processes.add(startWorker(server, i));
+            }
+
+            int restarts = 0;
+            while (!remaining.await(PROGRESS_MILLIS, TimeUnit.MILLISECONDS)) {
+                for (int i = 0; i < processes.size(); ++i) {
+                    if (!processes.get(i).isAlive()) {
+                        if (++restarts > MAX_ATTEMPTS * workers) {
+                            throw new IllegalStateException("Workers keep "
+                                    + "ending, last exit code "
+                                    + processes.get(i).exitValue());
+                        }
+                        processes.set(i, startWorker(server, i));
+                    }
+                }
+                printProgress();
+            }
+        } finally {
+            done = true;
+            for (Process process : processes) {
+                if (!process.waitFor(PROGRESS_MILLIS,
+                        TimeUnit.MILLISECONDS)) {
+                    process.destroy();
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a worker in a new JVM with the class path of this one.
+     *
+     * @param server The socket the worker connects to.
+     * @param index  The index of the worker, that names it.
+     * @return The process of the worker.
+     * @throws IOException If the process can't be started.
+     */
+    private static Process startWorker(ServerSocket server, int index)
+            throws IOException {
+        String java = System.getProperty("java.home") + File.separator
+                + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp",
+                System.getProperty("java.class.path"),
+                MatchWorker.class.getName(),
+                server.getInetAddress().getHostAddress(),
+                Integer.toString(server.getLocalPort()), "worker-" + index)
+                .inheritIO().start();
+    }
+
+    /**
+     * Accepts connections of workers until the socket is closed, each
+     * served by its own thread.
+     *
+     * @param server The socket.
+     */
+    private void accept(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread connection = new Thread(() -> serve(socket),
+                        "match-" + socket.getPort());
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException closed) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hands out games to a worker and collects their results, until the
+     * match is over or the connection fails.
+     *
+     * @param socket The connection of the worker.
+     */
+    private void serve(Socket socket) {
+        String worker = socket.getRemoteSocketAddress().toString();
+        Job job = null;
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     connection.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter out = new PrintWriter(connection.getOutputStream(),
+                     true)) {
+            connection.setSoTimeout(GAME_TIMEOUT);
+            String hello = in.readLine();
+            if (hello == null || !hello.startsWith("hello ")) {
+                throw new IOException("No worker");
+            }
+            worker = hello.substring("hello ".length());
+            while (!done) {
+                job = jobs.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (job == null) {
+                    continue;
+                }
+                out.println("game " + job.id + " "
+                        + (job.firstStarts ? first : second) + " "
+                        + (job.firstStarts ? second : first) + " "
+                        + formatOpening(job.opening));
+                String answer = in.readLine();
+                if (answer == null) {
+                    throw new IOException("Connection lost");
+                }
+                String[] tokens = answer.split(" ");
+                if (tokens.length == 5 && tokens[0].equals("result")
+                        && tokens[1].equals(Integer.toString(job.id))) {
+                    record(job, worker, Integer.parseInt(tokens[2]),
+                            Integer.parseInt(tokens[3]));
+                } else {
+                    retry(job, worker, answer);
+                }
+                job = null;
+            }
+            out.println("quit");
+        } catch (IOException | NumberFormatException lost) {
+            if (job != null) {
+                retry(job, worker, lost.toString());
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counts the result of a game.
+     *
+     * @param job        The game.
+     * @param worker     The name of the worker, that played it.
+     * @param difference The final tile difference from the view of the
+     *                   contestant who moved first.
+     * @param gameMoves  The number of moves of the game.
+     */
+    private synchronized void record(Job job, String worker, int difference,
+                                     int gameMoves) {
+        int own = job.firstStarts ? difference : -difference;
+        if (own > 0) {
+            ++wins;
+        } else if (own < 0) {
+            ++losses;
+        } else {
+            ++ties;
+        }
+        this.difference += own;
+        moves += gameMoves;
+        workerGames.merge(worker, 1L, Long::sum);
+        remaining.countDown();
+    }
+
+    /**
+     * Hands out a game again, that a worker did not finish, or counts it as
+     * failed, if it was handed out too often.
+     *
+     * @param job    The game.
+     * @param worker The name of the worker.
+     * @param reason Why the game was not finished.
+     */
+    private synchronized void retry(Job job, String worker, String reason) {
+        if (++job.attempts >= MAX_ATTEMPTS) {
+            System.out.println("Error! Game " + job.id + " failed on "
+                    + worker + ": " + reason);
+            ++failed;
+            remaining.countDown();
+        } else {
+            System.out.println("Game " + job.id + " lost by " + worker
+                    + ", retrying: " + reason);
+            ++retries;
+            jobs.add(job);
+        }
+    }
+
+    /**
+     * Prints the number of finished games and the score so far.
+     */
+    private synchronized void printProgress() {
+        long played = wins + ties + losses;
+        System.out.printf(Locale.ROOT, "%d games, +%d =%d -%d, %d open%n",
+                played, wins, ties, losses, remaining.getCount());
+    }
+
+    /**
+     * Prints the statistics of the match.
+     *
+     * @param millis The duration of the match in milliseconds.
+     */
+    private synchronized void report(long millis) {
+        long played = wins + ties + losses;
+        System.out.println(first + " vs " + second + ": " + played
+                + " games in " + millis + " ms");
+        if (played > 0) {
+            double score = (wins + 0.5 * ties) / played;
+            System.out.printf(Locale.ROOT, "+%d =%d -%d, score %.1f%%, "
+                    + "Elo %+.0f, mean difference %+.2f, %.1f moves per"
+                    + " game, %.2f games/s%n", wins, ties, losses,
+                    score * 100, -400 * Math.log10(1 / score - 1),
+                    (double) difference / played, (double) moves / played,
+                    played * 1000.0 / Math.max(1, millis));
+        }
+        System.out.println(retries + " games retried, " + failed
+                + " failed");
+        for (Map.Entry<String, Long> worker : workerGames.entrySet()) {
+            System.out.println(worker.getKey() + ": " + worker.getValue()
+                    + " games");
+        }
+    }
+
+    /**
+     * Writes the moves of an opening like {@code f5d6c3}.
+     *
+     * @param opening The squares {@code row * SIZE + col} of the moves.
+     * @return The moves, {@code -} for none.
+     */
+    static String formatOpening(int[] opening) {
+        if (opening.length == 0) {
+            return "-";
+        }
+        StringBuilder text = new StringBuilder(2 * opening.length);
+        for (int square : opening) {
+            text.append((char) ('a' + square % Board.SIZE))
+                    .append(square / Board.SIZE + 1);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads the moves of an opening written by
+     * {@link #formatOpening(int[])}.
+     *
+     * @param text The moves.
+     * @return The squares {@code row * SIZE + col} of the moves.
+     * @throws IllegalArgumentException If a move is off the board.
+     */
+    static int[] parseOpening(String text) {
+        if (text.equals("-")) {
+            return new int[0];
+        } else if (text.length() % 2 != 0) {
+            throw new IllegalArgumentException("Invalid opening " + text);
+        }
+        int[] opening = new int[text.length() / 2];
+        for (int i = 0; i < opening.length; ++i) {
+            int col = Character.toLowerCase(text.charAt(2 * i)) - 'a';
+            int row = text.charAt(2 * i + 1) - '1';
+            if (row < 0 || row >= Board.SIZE || col < 0
+                    || col >= Board.SIZE) {
+                throw new IllegalArgumentException("Invalid opening "
+                        + text);
+            }
+            opening[i] = row * Board.SIZE + col;
+        }
+        return opening;
+    }
+
+    /**
+     * Prints the usage of the tool.
+     */
+    private static void printHelp() {
+        System.out.println("Reversi match coordinator\n"
+                + "games first [second [workers [seed]]] - plays the games "
+                + "on worker processes\n"
+                + "Contestants are given as engine:level[:millis], without "
+                + "second the games are self-play.\n"
+                + "With 0 workers only workers connecting to the printed "
+                + "port play.");
+    }
+
+    /**
+     * A game of the match.
+     */
+    private static final class Job {
+
+        /**
+         * The index of the game.
+         */
+        private final int id;
+
+        /**
+         * Indicates, if the first contestant moves first.
+         */
+        private final boolean firstStarts;
+
+        /**
+         * The moves of the opening.
+         */
+        private final int[] opening;
+
+        /**
+         * Number of times the game was handed out without result.
+         */
+        private int attempts;
+
+        /**
+         * Creates a game.
+         *
+         * @param id          The index of the game.
+         * @param firstStarts {@code True} if the first contestant moves
+         *                    first.
+         * @param opening     The moves of the opening.
+         */
+        Job(int id, boolean firstStarts, int[] opening) {
+            this.id = id;
+            this.firstStarts = firstStarts;
+            this.opening = opening;
+        }
+
+    }
+
+}
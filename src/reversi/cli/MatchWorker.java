@@ -0,0 +1,92 @@
+package reversi.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import reversi.model.EngineMatch;
+
+/**
+ * Worker process of a {@link MatchCoordinator}. It connects to the
+ * coordinator and plays the games it is sent, one at a time, until it is
+ * told to quit or the connection is lost. The protocol is line based:
+ * <ul>
+ * <li>{@code hello <name>} - sent by the worker after connecting</li>
+ * <li>{@code game <id> <first> <second> <opening>} - a game from the
+ * coordinator, the contestants as {@code engine:level:millis} and the
+ * opening like {@code f5d6c3}, {@code -} for none</li>
+ * <li>{@code result <id> <difference> <moves> <millis>} - the answer, the
+ * difference from the view of the first contestant</li>
+ * <li>{@code error <id> <message>} - the answer, if the game failed</li>
+ * <li>{@code quit} - ends the worker</li>
+ * </ul>
+ */
+public final class MatchWorker {
+
+    /**
+     * Private constructor to ensure no MatchWorker object can be
+     * initialized.
+     */
+    private MatchWorker() {
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when starting a
+     * worker: {@code host port [name]}. The name defaults to the process.
+     *
+     * @param args The address of the coordinator and the name.
+     * @throws IOException If the connection fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Reversi match worker\n"
+                    + "host port [name] - plays the games of the coordinator"
+                    + " listening at the address");
+            return;
+        }
+        String name = args.length > 2 ? args[2]
+                : ManagementFactory.getRuntimeMXBean().getName();
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]));
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(),
+                     true)) {
+            out.println("hello " + name.replace(' ', '_'));
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].equals("quit")) {
+                    break;
+                } else if (tokens[0].equals("game") && tokens.length == 5) {
+                    out.println(play(tokens));
+                } else {
+                    out.println("error - unknown command " + line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Plays a game sent by the coordinator.
+     *
+     * @param tokens The tokens of the {@code game} line.
+     * @return The answer.
+     */
+    private static String play(String[] tokens) {
+        try {
+            EngineMatch.Result result = EngineMatch.play(
+                    EngineMatch.Contestant.parse(tokens[2]),
+                    EngineMatch.Contestant.parse(tokens[3]),
+                    MatchCoordinator.parseOpening(tokens[4]));
+            return "result " + tokens[1] + " " + result.getDifference() + " "
+                    + result.getMoves() + " " + result.getMillis();
+        } catch (RuntimeException failed) {
+            return "error " + tokens[1] + " " + failed;
+        }
+    }
+
+}
@@ -0,0 +1,332 @@
+package reversi.cli;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end check of the {@link NBoardEngine}. Starts the engine as a
+ * child process with the class path of this JVM, drives it through its
+ * stdin and stdout like an NBoard GUI and checks the replies: the greeting,
+ * {@code ping}, {@code go} and {@code hint} on a game set with
+ * {@code set game}, evaluations that stay in range from depth to depth, a
+ * move, an exact score of a solved position and a pass. Exits with status
+ * 1, if a check fails.
+ */
+public final class NBoardCheck {
+
+    /**
+     * Seconds to wait for a reply of the engine.
+     */
+    private static final long TIMEOUT = 60;
+
+    /**
+     * Depth of the searches.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Most tiles the evaluations of the depths of a search may differ.
+     */
+    private static final double DRIFT = 8;
+
+    /**
+     * Board of the initial position in the Generic Game Format, black to
+     * move.
+     */
+    private static final String START = "8 " + repeat('-', 27)
+            + "O*------*O" + repeat('-', 27) + " *";
+
+    /**
+     * Board of a midgame, in which black holds the corner A1 and white is
+     * to move, clearly behind.
+     */
+    private static final String MIDGAME = "8 ***-----**------*-OOO---"
+            + "-OO*O----OOO*O----O**---" + repeat('-', 16) + " O";
+
+    /**
+     * Board with a single free slot at A1, that black takes with all tiles
+     * of white.
+     */
+    private static final String SOLVED = "8 -O" + repeat('*', 62) + " *";
+
+    /**
+     * Board with a single free slot at A1 and white to move without tiles.
+     */
+    private static final String PASS = "8 -" + repeat('*', 63) + " O";
+
+    /**
+     * Lines of the engine, filled by a reader thread.
+     */
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+
+    /**
+     * Commands to the engine.
+     */
+    private final PrintWriter commands;
+
+    /**
+     * Descriptions of the failed checks.
+     */
+    private final List<String> failures = new ArrayList<>();
+
+    /**
+     * Creates a check of a started engine.
+     *
+     * @param engine The engine process.
+     */
+    private NBoardCheck(Process engine) {
+        commands = new PrintWriter(engine.getOutputStream(), true);
+        BufferedReader output = new BufferedReader(new InputStreamReader(
+                engine.getInputStream(), StandardCharsets.UTF_8));
+        Thread reader = new Thread(() -> {
+            try {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    replies.add(line);
+                }
+            } catch (IOException closed) {
+                // The engine ended, the checks time out.
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when starting the
+     * check. Starts the engine, runs the checks and prints them.
+     *
+     * @param args Not in use.
+     * @throws IOException          If the engine can't be started.
+     * @throws InterruptedException If the check is interrupted.
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator
+                + "bin" + File.separator + "java";
+        Process engine = new ProcessBuilder(java, "-cp",
+                System.getProperty("java.class.path"),
+                NBoardEngine.class.getName())
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        NBoardCheck check = new NBoardCheck(engine);
+        try {
+            check.run();
+        } finally {
+            check.commands.println("quit");
+            if (!engine.waitFor(TIMEOUT, TimeUnit.SECONDS)) {
+                engine.destroyForcibly();
+                check.failures.add("quit: engine still running");
+            }
+        }
+
+        if (check.failures.isEmpty()) {
+            System.out.println("Passed");
+        } else {
+            for (String failure : check.failures) {
+                System.out.println(failure);
+            }
+            System.out.println("Failed with " + check.failures.size()
+                    + " differences");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the checks one after another.
+     *
+     * @throws InterruptedException If the check is interrupted.
+     */
+    private void run() throws InterruptedException {
+        send("nboard 2");
+        verify("nboard", next("set myname"), "set myname Reversi");
+        send("ping 1");
+        verify("ping", next("pong"), "pong 1");
+
+        // White answers F5 with D6, F4 or F6.
+        send("set depth " + DEPTH);
+        send("set game (;GM[Othello]PC[check]BO[" + START + "]B[F5];)");
+        send("go");
+        String[] best = field("go", next("==="), "/", 3);
+        if (best != null) {
+            verify("go move", best[0].substring(4), "D6", "F4", "F6");
+            verifyTiles("go eval", best[1]);
+        }
+
+        send("hint 3");
+        double last = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < 3; ++i) {
+            String[] hint = field("hint", next("search"), " ", 5);
+            if (hint == null) {
+                break;
+            }
+            verify("hint move", hint[1], "D6", "F4", "F6");
+            verify("hint depth", hint[4], Integer.toString(DEPTH));
+            double tiles = verifyTiles("hint eval", hint[2]);
+            if (tiles > last) {
+                failures.add("hint order: " + tiles + " after " + last);
+            }
+            last = tiles;
+        }
+        verify("hint end", next("status"), "status");
+
+        send("move D6");
+        send("ping 2");
+        verify("move", next("pong"), "pong 2");
+
+        send("set game (;GM[Othello]PC[check]BO[" + MIDGAME + "];)");
+        send("go");
+        verifyDepths("midgame");
+        field("midgame", next("==="), "/", 3);
+
+        // Only the alpha-beta engines solve endgames.
+        send("set engine pvs");
+        send("set game (;GM[Othello]PC[check]BO[" + SOLVED + "];)");
+        send("go");
+        String[] solved = field("solved", next("==="), "/", 3);
+        if (solved != null) {
+            verify("solved move", solved[0], "=== A1");
+            verify("solved eval", solved[1], "64.00");
+        }
+
+        send("set game (;GM[Othello]PC[check]BO[" + PASS + "];)");
+        send("go");
+        verify("pass", next("==="), "=== PA");
+    }
+
+    /**
+     * Sends a command to the engine.
+     *
+     * @param command The command line.
+     */
+    private void send(String command) {
+        commands.println(command);
+    }
+
+    /**
+     * Waits for the next reply of a kind, skipping progress and other
+     * lines. Errors of the engine fail the check.
+     *
+     * @param prefix The start of the reply.
+     * @return The reply, {@code null} if it did not come in time.
+     * @throws InterruptedException If the check is interrupted.
+     */
+    private String next(String prefix) throws InterruptedException {
+        while (true) {
+            String line = replies.poll(TIMEOUT, TimeUnit.SECONDS);
+            if (line == null) {
+                return null;
+            } else if (line.startsWith("status Error!")) {
+                failures.add("engine: " + line);
+            } else if (line.startsWith(prefix)) {
+                return line;
+            }
+        }
+    }
+
+    /**
+     * Checks a reply against the expected values.
+     *
+     * @param name     The name of the check.
+     * @param actual   The reply, {@code null} if it is missing.
+     * @param expected The allowed replies.
+     */
+    private void verify(String name, String actual, String... expected) {
+        if (!Arrays.asList(expected).contains(actual)) {
+            failures.add(name + ": expected " + String.join(" or ", expected)
+                    + ", got " + actual);
+        }
+    }
+
+    /**
+     * Checks that an evaluation is a tile difference.
+     *
+     * @param name The name of the check.
+     * @param eval The evaluation of a reply.
+     * @return The evaluation, {@code NaN} if it is not a number.
+     */
+    private double verifyTiles(String name, String eval) {
+        double tiles;
+        try {
+            tiles = Double.parseDouble(eval);
+        } catch (NumberFormatException invalid) {
+            failures.add(name + ": not a number " + eval);
+            return Double.NaN;
+        }
+        if (Math.abs(tiles) > 64) {
+            failures.add(name + ": " + eval + " is not in tiles");
+        }
+        return tiles;
+    }
+
+    /**
+     * Checks the progress of a search: a status line for each depth up to
+     * the search depth, whose evaluations are tile differences that stay
+     * in range of each other.
+     *
+     * @param name The name of the check.
+     * @throws InterruptedException If the check is interrupted.
+     */
+    private void verifyDepths(String name) throws InterruptedException {
+        double low = Double.POSITIVE_INFINITY;
+        double high = Double.NEGATIVE_INFINITY;
+        for (int d = 1; d <= DEPTH; ++d) {
+            String[] status = field(name + " status",
+                    next("status depth"), " ", 5);
+            if (status == null) {
+                return;
+            }
+            verify(name + " depth", status[2], Integer.toString(d));
+            double tiles = verifyTiles(name + " depth " + d, status[4]);
+            low = Math.min(low, tiles);
+            high = Math.max(high, tiles);
+        }
+        if (high - low > DRIFT) {
+            failures.add(name + " depths: evaluations from " + low + " to "
+                    + high);
+        }
+    }
+
+    /**
+     * Splits a reply into its fields.
+     *
+     * @param name   The name of the check.
+     * @param reply  The reply, {@code null} if it is missing.
+     * @param regex  The separator of the fields.
+     * @param fields The number of fields expected.
+     * @return The fields, {@code null} if the reply is missing or has
+     *         another number of fields.
+     */
+    private String[] field(String name, String reply, String regex,
+                           int fields) {
+        String[] split = reply == null ? new String[0] : reply.split(regex);
+        if (split.length != fields) {
+            failures.add(name + ": malformed reply " + reply);
+            return null;
+        }
+        return split;
+    }
+
+    /**
+     * Repeats a char.
+     *
+     * @param slot  The char.
+     * @param count The number of repetitions.
+     * @return The chars.
+     */
+    private static String repeat(char slot, int count) {
+        char[] slots = new char[count];
+        Arrays.fill(slots, slot);
+        return new String(slots);
+    }
+
+}
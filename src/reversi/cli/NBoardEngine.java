@@ -0,0 +1,437 @@
+package reversi.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import reversi.model.Board;
+import reversi.model.IllegalMoveException;
+import reversi.model.Player;
+import reversi.model.ReversiBoard;
+import reversi.model.SearchEngine;
+import reversi.model.SearchEngines;
+import reversi.model.SearchLimits;
+import reversi.model.SearchResult;
+
+/**
+ * Engine mode that speaks the NBoard protocol on stdin/stdout, so the engine
+ * can be plugged into Reversi GUIs, match managers or another copy of itself.
+ * Supported commands:
+ * <ul>
+ * <li>{@code nboard <version>} - answered with {@code set myname}</li>
+ * <li>{@code set depth <n>} - maximal search depth</li>
+ * <li>{@code set game <ggf>} - sets the position and moves of a game</li>
+ * <li>{@code set contempt <n>} - accepted and ignored</li>
+ * <li>{@code set time <ms>} - time per move (extension)</li>
+ * <li>{@code set engine <name>} - selects the search engine (extension)</li>
+ * <li>{@code move <mv>[/eval/time]} - executes a move of the game</li>
+ * <li>{@code go} - searches, answered with {@code === <mv>/<eval>/<time>}</li>
+ * <li>{@code hint <n>} - answered with the best n {@code search} lines</li>
+ * <li>{@code ping <n>} - answered with {@code pong <n>}</li>
+ * <li>{@code learn} - answered with {@code learned}</li>
+ * <li>{@code quit} - ends the engine</li>
+ * </ul>
+ * While searching, {@code nodestats} and {@code status} lines report the
+ * progress after each finished depth. Evaluations are given in tiles, as
+ * the expected final tile difference from the view of the player to move.
+ * Black is mapped to the human and white to the machine of the model.
+ */
+public final class NBoardEngine {
+
+    /**
+     * Name of the engine as reported to the GUI.
+     */
+    private static final String NAME = "Reversi";
+
+    /**
+     * Factor the duration of the next depth is estimated with, compared to
+     * the last one.
+     */
+    private static final int GROWTH = 4;
+
+    /**
+     * Output to the GUI.
+     */
+    private static final PrintStream OUT = new PrintStream(System.out, true);
+
+    /**
+     * Maximal depth of a search.
+     */
+    private static int depth = 3;
+
+    /**
+     * Time per move in milliseconds.
+     */
+    private static long timeLimit = 10000;
+
+    /**
+     * Engine that searches the moves.
+     */
+    private static SearchEngine engine = SearchEngines.getDefault();
+
+    /**
+     * The current position of the game.
+     */
+    private static Board game = new ReversiBoard(Player.HUMAN);
+
+    /**
+     * Private constructor to ensure no NBoardEngine object can be
+     * initialized.
+     */
+    private NBoardEngine() {
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when starting the
+     * engine. Reads commands from stdin until {@code quit} or its end.
+     *
+     * @param args Not in use.
+     * @throws IOException Input exception to be handled by the OS.
+     */
+    public static void main(String[] args) throws IOException {
+        BufferedReader input = new BufferedReader(new InputStreamReader(
+                System.in));
+        String line = input.readLine();
+        while (line != null) {
+            String[] words = line.trim().split("\\s+", 3);
+            if (words[0].equals("quit")) {
+                break;
+            }
+            try {
+                execute(words, line.trim());
+            } catch (IllegalArgumentException | IllegalStateException
+                    | IllegalMoveException fail) {
+                OUT.println("status Error! " + fail.getMessage());
+            }
+            line = input.readLine();
+        }
+    }
+
+    /**
+     * Executes a single command.
+     *
+     * @param words The first words of the command line.
+     * @param line  The complete command line.
+     */
+    private static void execute(String[] words, String line) {
+        switch (words[0]) {
+            case "nboard":
+                OUT.println("set myname " + NAME);
+                break;
+            case "set":
+                cmdSet(words, line);
+                break;
+            case "move":
+                game = applyMove(game, argument(words, 1));
+                break;
+            case "go":
+                cmdGo();
+                break;
+            case "hint":
+                cmdHint(Integer.parseInt(argument(words, 1)));
+                break;
+            case "ping":
+                OUT.println("pong " + argument(words, 1));
+                break;
+            case "learn":
+                OUT.println("learned");
+                break;
+            case "analyze":
+            case "":
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command "
+                        + words[0]);
+        }
+    }
+
+    /**
+     * Changes a setting or the game.
+     *
+     * @param words The first words of the command line.
+     * @param line  The complete command line.
+     */
+    private static void cmdSet(String[] words, String line) {
+        String value = argument(words, 2);
+        switch (argument(words, 1)) {
+            case "depth":
+                depth = Math.max(1, Math.min(SearchLimits.MAX_DEPTH,
+                        Integer.parseInt(value)));
+                break;
+            case "time":
+                timeLimit = Math.max(1, Math.min(SearchLimits.MAX_MILLIS,
+                        Long.parseLong(value)));
+                break;
+            case "engine":
+                engine = SearchEngines.forName(value);
+                break;
+            case "game":
+                game = parseGame(line.substring(line.indexOf("game") + 4));
+                break;
+            case "contempt":
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown setting "
+                        + words[1]);
+        }
+    }
+
+    /**
+     * Searches with increasing depth until the maximal depth is reached or
+     * the next depth would exceed the time per move. Each depth may only
+     * use the time left, a depth the engine could not finish ends the
+     * search. The progress is reported after each depth.
+     *
+     * @param allMoves {@code True} to score all moves, {@code false} to
+     *                 only search the best one.
+     * @return The lines of the deepest finished search, the best first.
+     *         Empty, if the player with the turn has to pass.
+     */
+    private static List<SearchResult> search(boolean allMoves) {
+        if (!canMove(game)) {
+            return Collections.emptyList();
+        }
+        long start = System.currentTimeMillis();
+        long nodes = 0;
+        List<SearchResult> lines = null;
+        for (int d = 1; d <= depth; ++d) {
+            long before = System.currentTimeMillis();
+            SearchLimits limits = new SearchLimits(d, SearchLimits.MAX_NODES,
+                    Math.max(1, timeLimit - (before - start)));
+            lines = allMoves ? engine.analyze(game, limits)
+                    : Collections.singletonList(engine.search(game, limits));
+            long now = System.currentTimeMillis();
+            SearchResult best = lines.get(0);
+            nodes += best.getNodes();
+            OUT.println("nodestats " + nodes + " " + seconds(now - start));
+            OUT.println("status depth " + best.getDepth() + " "
+                    + format(best) + " " + score(best));
+            if (best.getDepth() < d
+                    || now - start + (now - before) * GROWTH > timeLimit) {
+                break;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Searches the best move and sends it to the GUI.
+     */
+    private static void cmdGo() {
+        long start = System.currentTimeMillis();
+        List<SearchResult> lines = search(false);
+        String time = seconds(System.currentTimeMillis() - start);
+        if (lines.isEmpty()) {
+            OUT.println("=== PA");
+        } else {
+            SearchResult best = lines.get(0);
+            OUT.println("=== " + format(best) + "/" + score(best) + "/"
+                    + time);
+        }
+        OUT.println("status");
+    }
+
+    /**
+     * Scores all moves and sends the best ones as hints to the GUI.
+     *
+     * @param count The number of hints the GUI wants.
+     */
+    private static void cmdHint(int count) {
+        List<SearchResult> lines = search(true);
+        for (int i = 0; i < Math.min(count, lines.size()); ++i) {
+            SearchResult line = lines.get(i);
+            OUT.println("search " + format(line) + " " + score(line)
+                    + " 0 " + line.getDepth());
+        }
+        OUT.println("status");
+    }
+
+    /**
+     * Parses a game in the Generic Game Format. The start position is taken
+     * from the {@code BO} tag, then the moves of the {@code B} and {@code W}
+     * tags are executed in their order.
+     *
+     * @param ggf The game.
+     * @return The position after the last move.
+     */
+    static Board parseGame(String ggf) {
+        Board position = new ReversiBoard(Player.HUMAN);
+        int open = ggf.indexOf('[');
+        while (open >= 0) {
+            int tagStart = open;
+            while (tagStart > 0
+                    && Character.isUpperCase(ggf.charAt(tagStart - 1))) {
+                --tagStart;
+            }
+            int close = ggf.indexOf(']', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated tag");
+            }
+            String tag = ggf.substring(tagStart, open);
+            String value = ggf.substring(open + 1, close);
+            if (tag.equals("BO")) {
+                position = parsePosition(value);
+            } else if (tag.equals("B") || tag.equals("W")) {
+                position = applyMove(position, value);
+            }
+            open = ggf.indexOf('[', close);
+        }
+        return position;
+    }
+
+    /**
+     * Parses the position of a {@code BO} tag: the size, one char per slot
+     * row by row ({@code -} empty, {@code *} black, {@code O} white) and the
+     * player with the turn.
+     *
+     * @param value The value of the tag.
+     * @return The position.
+     */
+    private static Board parsePosition(String value) {
+        String[] parts = value.trim().split("\\s+", 2);
+        if (parts.length < 2 || Integer.parseInt(parts[0]) != Board.SIZE) {
+            throw new IllegalArgumentException("Unsupported board " + value);
+        }
+        String slots = parts[1].replaceAll("\\s+", "");
+        if (slots.length() != Board.SIZE * Board.SIZE + 1) {
+            throw new IllegalArgumentException("Invalid board " + value);
+        }
+        Player[][] owners = new Player[Board.SIZE][Board.SIZE];
+        for (int i = 0; i < Board.SIZE * Board.SIZE; ++i) {
+            owners[i / Board.SIZE][i % Board.SIZE] = owner(slots.charAt(i));
+        }
+        Player toMove = owner(slots.charAt(Board.SIZE * Board.SIZE));
+        if (toMove == null) {
+            throw new IllegalArgumentException("No player to move " + value);
+        }
+        return ReversiBoard.of(owners, toMove, Player.HUMAN);
+    }
+
+    /**
+     * Maps a char of a GGF board to the player owning the slot.
+     *
+     * @param slot The char.
+     * @return The human for black, the machine for white, {@code null} for
+     *         an empty slot.
+     */
+    private static Player owner(char slot) {
+        switch (slot) {
+            case '*':
+            case 'X':
+            case 'x':
+                return Player.HUMAN;
+            case 'O':
+            case 'o':
+                return Player.AI;
+            case '-':
+            case '.':
+                return null;
+            default:
+                throw new IllegalArgumentException("Invalid slot " + slot);
+        }
+    }
+
+    /**
+     * Executes a move like {@code F5} or {@code PA}, optionally followed by
+     * evaluation and time separated by slashes.
+     *
+     * @param position The position before the move.
+     * @param move     The move.
+     * @return The position after the move.
+     */
+    private static Board applyMove(Board position, String move) {
+        String square = move.split("/", 2)[0].trim().toUpperCase();
+        if (square.equals("PA") || square.equals("PASS")) {
+            if (canMove(position)) {
+                throw new IllegalArgumentException("Pass not allowed");
+            }
+            return position.play(0, 0);
+        }
+        if (square.length() < 2) {
+            throw new IllegalArgumentException("Invalid move " + move);
+        }
+        int col = square.charAt(0) - 'A';
+        int row = Integer.parseInt(square.substring(1)) - 1;
+        if (row < 0 || row >= Board.SIZE || col < 0 || col >= Board.SIZE) {
+            throw new IllegalArgumentException("Invalid move " + move);
+        }
+        Board executed = position.play(row, col);
+        if (executed == null || !canMove(position)) {
+            throw new IllegalArgumentException("Illegal move " + move);
+        }
+        return executed;
+    }
+
+    /**
+     * Tests if the player with the turn can make a move.
+     *
+     * @param position The position to test.
+     * @return {@code true} if the player does not have to pass.
+     */
+    private static boolean canMove(Board position) {
+        if (position.gameOver()) {
+            return false;
+        }
+        for (int row = 0; row < Board.SIZE; ++row) {
+            for (int col = 0; col < Board.SIZE; ++col) {
+                if (position.getSlot(row, col) == null
+                        && position.play(row, col) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Formats the move of a search result like {@code F5}.
+     *
+     * @param result The search result.
+     * @return The move in NBoard notation.
+     */
+    private static String format(SearchResult result) {
+        return (char) ('A' + result.getColumn()) + ""
+                + (result.getRow() + 1);
+    }
+
+    /**
+     * Formats the score of a search result in tiles, as NBoard expects.
+     * Scores of solved positions are exact tile differences already.
+     *
+     * @param result The search result.
+     * @return The score in tiles with two decimals.
+     */
+    private static String score(SearchResult result) {
+        return String.format(Locale.ROOT, "%.2f", engine.toTiles(result));
+    }
+
+    /**
+     * Formats a duration in seconds.
+     *
+     * @param millis The duration in milliseconds.
+     * @return The duration in seconds with two decimals.
+     */
+    private static String seconds(long millis) {
+        return String.format(Locale.ROOT, "%.2f", millis / 1000.0);
+    }
+
+    /**
+     * Gets a word of a command line.
+     *
+     * @param words The words of the line.
+     * @param index The index of the word.
+     * @return The word.
+     * @throws IllegalArgumentException If the line is too short.
+     */
+    private static String argument(String[] words, int index) {
+        if (index >= words.length) {
+            throw new IllegalArgumentException("Missing parameter");
+        }
+        return words[index];
+    }
+
+}
@@ -3,11 +3,30 @@ package reversi.cli;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
 import java.util.Scanner;
-
+import java.util.concurrent.Flow;
+
+import reversi.model.GameEvent;
+import reversi.model.GameRecord;
+import reversi.model.GameRecordReader;
+import reversi.model.GameRecordWriter;
+import reversi.model.GameSession;
+import reversi.model.PositionCache;
+import reversi.model.PositionDatabase;
+import reversi.model.PositionNotation;
 import reversi.model.ReversiBoard;
 import reversi.model.Board;
 import reversi.model.Player;
+import reversi.model.SearchEngines;
+import reversi.model.SearchLimits;
+import reversi.model.SearchResult;
 
 /**
  * User interface to play the game Reversi(Othello) via the system Shell
@@ -23,23 +42,73 @@ public final class Shell {
     /**
      * Maximum level of the AI look ahead.
      */
-    private static final int MAX_LVL = 5;
+    private static final int MAX_LVL = SearchLimits.MAX_DEPTH;
 
     /**
      * Lowest index of a slot on the Reversi board.
      */
     private static final int MIN_INDEX = 1;
 
+    /**
+     * Number of bytes of a megabyte.
+     */
+    private static final long MEGABYTE = 1024 * 1024;
+
     /**
      * Level of AI look ahead that is currently set by the user.
      */
     private static int currentLevel = 3;
 
     /**
-     * The {@code Board} object where all operations are executed.
+     * Name of the engine the AI uses, that is currently set by the user.
+     */
+    private static String currentEngine = SearchEngines.DEFAULT;
+
+    /**
+     * Number of positions the AI may visit per move, that is currently set
+     * by the user.
+     */
+    private static long currentNodes = SearchLimits.MAX_NODES;
+
+    /**
+     * Time in milliseconds the AI may take per move, that is currently set
+     * by the user.
+     */
+    private static long currentMillis = SearchLimits.MAX_MILLIS;
+
+    /**
+     * Bytes the search structures of the AI may occupy per move, that is
+     * currently set by the user.
+     */
+    private static long currentMemory = SearchLimits.MAX_MEMORY;
+
+    /**
+     * Number of threads the search of the AI may use, that is currently set
+     * by the user.
+     */
+    private static int currentThreads = 1;
+
+    /**
+     * The game, whose events the shell prints.
+     */
+    private static GameSession session;
+
+    /**
+     * The current board of the game, as of the last event of the session.
      */
     private static Board playingBoard;
 
+    /**
+     * Persistent cache of earlier searches, {@code null} if it could not be
+     * opened.
+     */
+    private static PositionCache positionCache;
+
+    /**
+     * Database of earlier games, {@code null} if there is none.
+     */
+    private static PositionDatabase positionDatabase;
+
     /**
      * Variable that indicates if the game is already over.
      */
@@ -68,8 +137,24 @@ public final class Shell {
         BufferedReader shellInput = new BufferedReader(new InputStreamReader(
                 System.in));
         boolean quitExecution = false;
-        playingBoard = new ReversiBoard(Player.HUMAN);
-        playingBoard.setLevel(currentLevel);
+        try {
+            positionCache = PositionCache.openDefault();
+        } catch (IOException cacheFailure) {
+            errorMessage("Position cache unavailable: "
+                    + cacheFailure.getMessage());
+        }
+        try {
+            positionDatabase = PositionDatabase.openDefault();
+        } catch (IOException databaseFailure) {
+            errorMessage("Position database unavailable: "
+                    + databaseFailure.getMessage());
+        }
+
+        // Events are delivered in this thread, so they print in order.
+        session = new GameSession(new ReversiBoard(Player.HUMAN),
+                Runnable::run);
+        session.subscribe(new EventPrinter());
+        startGame(Player.HUMAN);
 
         while (!quitExecution) {
             if (aiHasTurn && !gameIsWon) {
@@ -87,7 +172,26 @@ public final class Shell {
 
                 switch (firstLetter) {
                     case 'l':
-                        cmdLevel(userInput);
+                        if (command.equals("load")) {
+                            cmdLoad(userInput);
+                        } else {
+                            cmdLevel(userInput);
+                        }
+                        break;
+                    case 'e':
+                        cmdEngine(userInput);
+                        break;
+                    case 'a':
+                        cmdAnalyze(userInput);
+                        break;
+                    case 'd':
+                        cmdDatabase(userInput);
+                        break;
+                    case 'b':
+                        cmdBudget(userInput);
+                        break;
+                    case 't':
+                        cmdThreads(userInput);
                         break;
                     case 'm':
                         cmdMove(userInput);
@@ -99,7 +203,11 @@ public final class Shell {
                         printHelp();
                         break;
                     case 's':
-                        cmdSwitch(userInput);
+                        if (command.equals("save")) {
+                            cmdSave(userInput);
+                        } else {
+                            cmdSwitch(userInput);
+                        }
                         break;
                     case 'p':
                         cmdPrint(userInput);
@@ -118,6 +226,13 @@ public final class Shell {
             userInput.close();
         }
 
+        session.close();
+        if (positionCache != null) {
+            positionCache.close();
+        }
+        if (positionDatabase != null) {
+            positionDatabase.close();
+        }
     }
 
     /**
@@ -147,6 +262,32 @@ public final class Shell {
         }
     }
 
+    /**
+     * Starts a new game on a board with the current settings.
+     *
+     * @param starter The player who makes the opening move.
+     */
+    private static void startGame(Player starter) {
+        Board board = new ReversiBoard(starter);
+        applySettings(board);
+        session.start(board);
+    }
+
+    /**
+     * Applies the current settings of the AI to a board.
+     *
+     * @param board The board to configure.
+     */
+    private static void applySettings(Board board) {
+        board.setLevel(currentLevel);
+        board.setEngine(currentEngine);
+        board.setBudget(currentNodes, currentMillis);
+        board.setMemoryBudget(currentMemory);
+        board.setThreads(currentThreads);
+        board.setPositionCache(positionCache);
+        board.setPositionDatabase(positionDatabase);
+    }
+
     /**
      * Initializes a new Reversi board with the same parameters as the
      * board used before.
@@ -155,11 +296,7 @@ public final class Shell {
      */
     private static void cmdNew(Scanner userInput) {
         if (!hasAdditionalInput(userInput)) {
-            Player currentStarter = playingBoard.getFirstPlayer();
-            playingBoard = new ReversiBoard(currentStarter);
-            playingBoard.setLevel(currentLevel);
-            gameIsWon = false;
-            aiHasTurn = currentStarter.equals(Player.AI);
+            startGame(playingBoard.getFirstPlayer());
         }
     }
 
@@ -214,6 +351,152 @@ public final class Shell {
         }
     }
 
+    /**
+     * Limits the positions, the time and optionally the memory in megabytes
+     * the AI may use per move by searching a input String for numbers.
+     * Without numbers the current budget is printed.
+     *
+     * @param userInput The user input that will be searched.
+     */
+    private static void cmdBudget(Scanner userInput) {
+        if (!userInput.hasNext()) {
+            System.out.println("Budget " + currentNodes + " nodes "
+                    + currentMillis + " ms " + currentMemory / MEGABYTE
+                    + " MB");
+        } else if (!userInput.hasNextLong()) {
+            errorMessage("A int is needed for this command");
+        } else {
+
+            long nodes = userInput.nextLong();
+            if (!userInput.hasNextLong()) {
+                errorMessage("A int is needed for this command");
+            } else {
+                long millis = userInput.nextLong();
+                long memory = currentMemory;
+                if (userInput.hasNextLong()) {
+                    memory = userInput.nextLong() * MEGABYTE;
+                }
+                if (nodes < 1 || nodes > SearchLimits.MAX_NODES
+                        || millis < 1 || millis > SearchLimits.MAX_MILLIS
+                        || memory < MEGABYTE
+                        || memory > SearchLimits.MAX_MEMORY) {
+                    errorMessage("Budget must be 1.." + SearchLimits.MAX_NODES
+                            + " nodes, 1.." + SearchLimits.MAX_MILLIS
+                            + " ms and 1.." + SearchLimits.MAX_MEMORY
+                            / MEGABYTE + " MB");
+                } else if (!hasAdditionalInput(userInput)) {
+                    currentNodes = nodes;
+                    currentMillis = millis;
+                    currentMemory = memory;
+                    playingBoard.setBudget(currentNodes, currentMillis);
+                    playingBoard.setMemoryBudget(currentMemory);
+                }
+            }
+
+        }
+    }
+
+    /**
+     * Sets the number of threads the search of the AI may use. Without a
+     * number the current number is printed.
+     *
+     * @param userInput The user input that will be searched.
+     */
+    private static void cmdThreads(Scanner userInput) {
+        if (!userInput.hasNext()) {
+            System.out.println("Threads " + currentThreads);
+        } else if (!userInput.hasNextInt()) {
+            errorMessage("A int is needed for this command");
+        } else {
+
+            int threads = userInput.nextInt();
+            if (threads < 1 || threads > SearchLimits.MAX_THREADS) {
+                errorMessage("Threads must be 1.."
+                        + SearchLimits.MAX_THREADS);
+            } else if (!hasAdditionalInput(userInput)) {
+                currentThreads = threads;
+                playingBoard.setThreads(currentThreads);
+            }
+
+        }
+    }
+
+    /**
+     * Selects the engine the AI uses by its name. Without a name the
+     * current and all available engines are printed.
+     *
+     * @param userInput The user input that will be searched.
+     */
+    private static void cmdEngine(Scanner userInput) {
+        if (!userInput.hasNext()) {
+            System.out.println("Engine " + currentEngine + " of "
+                    + SearchEngines.names());
+        } else {
+
+            String engine = userInput.next();
+            if (!hasAdditionalInput(userInput)) {
+                try {
+                    playingBoard.setEngine(engine);
+                    currentEngine = playingBoard.getEngineName();
+                } catch (IllegalArgumentException unknown) {
+                    errorMessage(unknown.getMessage());
+                }
+            }
+
+        }
+    }
+
+    /**
+     * Scores every move of the human with the engine and prints them, the
+     * best first. The depth is the current level, unless a number is given.
+     *
+     * @param userInput The user input that will be searched.
+     */
+    private static void cmdAnalyze(Scanner userInput) {
+        int depth = currentLevel;
+        if (userInput.hasNextInt()) {
+            depth = userInput.nextInt();
+        }
+
+        if (gameIsWon) {
+            errorMessage("Cant analyze a won Board");
+        } else if (depth > MAX_LVL || depth < MIN_LVL) {
+            errorMessage("This level setting is not supported");
+        } else if (!hasAdditionalInput(userInput)) {
+            List<SearchResult> lines = playingBoard.analyze(depth);
+            if (lines.isEmpty()) {
+                System.out.println("Human has to miss a turn");
+            }
+            for (int i = 0; i < lines.size(); ++i) {
+                SearchResult line = lines.get(i);
+                System.out.printf("%2d. (%d, %d) %10.2f%n", i + 1,
+                        line.getRow() + 1, line.getColumn() + 1,
+                        line.getScore());
+            }
+            if (!lines.isEmpty()) {
+                SearchResult best = lines.get(0);
+                System.out.println("Depth " + best.getDepth() + ", "
+                        + best.getNodes() + " nodes in " + best.getMillis()
+                        + " ms");
+            }
+        }
+    }
+
+    /**
+     * Prints how often the current position was reached in the games of the
+     * database, which moves were played and how they ended.
+     *
+     * @param userInput User input that will be searched for additional input.
+     */
+    private static void cmdDatabase(Scanner userInput) {
+        if (positionDatabase == null) {
+            errorMessage("No position database at "
+                    + PositionDatabase.defaultFile());
+        } else if (!hasAdditionalInput(userInput)) {
+            DatabaseTool.print(positionDatabase.lookup(playingBoard));
+        }
+    }
+
     /**
      * Switches the user that will make the opening move of the game(Human
      * or AI) and initializes a new board.
@@ -225,78 +508,217 @@ public final class Shell {
             Player currentStarter = playingBoard.getFirstPlayer();
 
             if (currentStarter.equals(Player.AI)) {
-                playingBoard = new ReversiBoard(Player.HUMAN);
-                aiHasTurn = false;
+                startGame(Player.HUMAN);
             } else {
-                playingBoard = new ReversiBoard(Player.AI);
-                aiHasTurn = true;
+                startGame(Player.AI);
+            }
+        }
+    }
+
+    /**
+     * Saves the current game. Without a file the position is printed in
+     * the position notation. Files ending with {@code .pos} get the
+     * position appended as a line, any other file the game as record.
+     *
+     * @param userInput The user input that will be searched for the file.
+     */
+    private static void cmdSave(Scanner userInput) {
+        if (!userInput.hasNext()) {
+            System.out.println(PositionNotation.format(playingBoard));
+        } else {
+
+            Path file = Paths.get(userInput.next());
+            if (hasAdditionalInput(userInput)) {
+                return;
+            }
+            try {
+                if (isPositionFile(file)) {
+                    Files.write(file, Collections.singletonList(
+                            PositionNotation.format(playingBoard)),
+                            StandardCharsets.US_ASCII,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.APPEND);
+                    System.out.println("Saved the position to " + file);
+                } else {
+                    List<Board> history = session.getHistory();
+                    try (GameRecordWriter writer
+                                 = GameRecordWriter.open(file)) {
+                        writer.write(GameRecord.of(history,
+                                session.getStartMillis(),
+                                System.currentTimeMillis()));
+                    }
+                    System.out.println("Saved " + (history.size() - 1)
+                            + " moves to " + file);
+                }
+            } catch (IOException | IllegalArgumentException saveFailure) {
+                errorMessage("Cant save the game: "
+                        + saveFailure.getMessage());
             }
 
-            playingBoard.setLevel(currentLevel);
-            gameIsWon = false;
         }
     }
 
     /**
-     * Prints the String representation of the Board.
+     * Continues a game at a position given in the position notation or
+     * loaded out of a file. Files ending with {@code .pos} hold one
+     * position per line, any other file holds game records, which are
+     * continued at their last position. The first position or game of a
+     * file is loaded, unless a number is given.
      *
-     * @param userInput user input that will be searched for additional input.
+     * @param userInput The user input that will be searched for the
+     *                  position or the file and the number.
      */
-    private static void cmdPrint(Scanner userInput) {
-        if (!hasAdditionalInput(userInput)) {
-            System.out.println(playingBoard.toString());
+    private static void cmdLoad(Scanner userInput) {
+        if (!userInput.hasNext()) {
+            errorMessage("A position or file is needed for this command");
+            return;
+        }
+        String argument = userInput.next();
+        if (PositionNotation.isPosition(argument)) {
+            StringBuilder notation = new StringBuilder(argument);
+            while (userInput.hasNext()) {
+                notation.append(' ').append(userInput.next());
+            }
+            try {
+                continueAt(Collections.singletonList(
+                        PositionNotation.parse(notation)),
+                        System.currentTimeMillis());
+            } catch (IllegalArgumentException invalid) {
+                errorMessage(invalid.getMessage());
+            }
+            return;
+        }
+
+        Path file = Paths.get(argument);
+        long number = 1;
+        if (userInput.hasNextLong()) {
+            number = userInput.nextLong();
+        }
+        if (number < 1) {
+            errorMessage("Positions and games are numbered from 1");
+        } else if (!hasAdditionalInput(userInput)) {
+            try {
+                if (isPositionFile(file)) {
+                    loadPosition(file, number);
+                } else {
+                    loadGame(file, number);
+                }
+            } catch (IOException | IllegalArgumentException failure) {
+                errorMessage("Cant load " + file + ": "
+                        + failure.getMessage());
+            }
         }
     }
 
     /**
-     * Executes a human move on the board. And checks the result for validity
-     * of the move, game over. Uses the index of the Board.
+     * Tests if a file holds positions in the position notation instead of
+     * game records.
      *
-     * @param row Index of the row, where the new token will be set.
-     * @param col Index of the column, where the new token will be set.
+     * @param file The file.
+     * @return {@code true} if the name of the file ends with {@code .pos}.
      */
-    private static void humanTurn(int row, int col) {
-        Board executed = playingBoard.move(row, col);
+    private static boolean isPositionFile(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".pos");
+    }
 
-        if (executed != null && executed.gameOver()) {
-            winMessage(executed);
-            playingBoard = executed;
-            aiHasTurn = true;
-        } else {
-            if (executed == null) {
-                row = row + 1;
-                col = col + 1;
-                errorMessage("Invalid move at " + "("
-                        + row + ", " + col + ")");
-                aiHasTurn = false;
-            } else {
-                if (checkEquality(executed, playingBoard)) {
-                    System.out.println("Human has to miss a turn");
+    /**
+     * Replaces the current game with a position of a file.
+     *
+     * @param file   The file with one position per line.
+     * @param number The number of the position in the file, from 1.
+     * @throws IOException              If the file can't be read.
+     * @throws IllegalArgumentException If the position is not valid.
+     */
+    private static void loadPosition(Path file, long number)
+            throws IOException {
+        try (PositionNotation.Reader reader = new PositionNotation.Reader(
+                Files.newInputStream(file))) {
+            long found = 0;
+            while (found < number) {
+                if (!reader.next()) {
+                    errorMessage("There is no position " + number + " in "
+                            + file);
+                    return;
                 }
-                playingBoard = executed;
-                aiHasTurn = true;
+                ++found;
             }
+            continueAt(Collections.singletonList(reader.toBoard()),
+                    System.currentTimeMillis());
         }
+    }
 
+    /**
+     * Replaces the current game with a game of a file of game records.
+     *
+     * @param file   The file of game records.
+     * @param number The number of the game in the file, from 1.
+     * @throws IOException              If the file can't be read.
+     * @throws IllegalArgumentException If the record contains an illegal
+     *                                  move.
+     */
+    private static void loadGame(Path file, long number) throws IOException {
+        try (GameRecordReader reader = GameRecordReader.open(file)) {
+            boolean found = reader.next();
+            while (found && reader.getIndex() < number - 1) {
+                found = reader.next();
+            }
+            if (!found) {
+                errorMessage("There is no game " + number + " in " + file);
+                return;
+            }
+            GameRecord record = reader.toRecord();
+            continueAt(record.replay(), record.getStartMillis());
+        }
     }
 
     /**
-     * Executes a move by the AI. The move will be calculated by using
-     * the board´s algorithm and the level setting.
+     * Continues a game at its last position with the current settings and
+     * prints it.
+     *
+     * @param positions   The positions of the game from its start.
+     * @param startMillis The start of the game in milliseconds since the
+     *                    epoch.
      */
-    private static void aiTurn() {
-        Board executed = playingBoard.machineMove();
+    private static void continueAt(List<Board> positions, long startMillis) {
+        Board position = positions.get(positions.size() - 1);
+        applySettings(position);
+        System.out.println(position.toString());
+        session.continueGame(positions, startMillis);
+    }
 
-        if (executed.gameOver()) {
-            winMessage(executed);
+    /**
+     * Prints the String representation of the Board.
+     *
+     * @param userInput user input that will be searched for additional input.
+     */
+    private static void cmdPrint(Scanner userInput) {
+        if (!hasAdditionalInput(userInput)) {
+            System.out.println(playingBoard.toString());
         }
+    }
 
-        if (checkEquality(executed, playingBoard)) {
-            System.out.println("The bot has to miss a turn");
+    /**
+     * Executes a human move in the session. The result is printed by the
+     * {@link EventPrinter}. Uses the index of the Board.
+     *
+     * @param row Index of the row, where the new token will be set.
+     * @param col Index of the column, where the new token will be set.
+     */
+    private static void humanTurn(int row, int col) {
+        if (session.move(row, col) == null) {
+            row = row + 1;
+            col = col + 1;
+            errorMessage("Invalid move at " + "("
+                    + row + ", " + col + ")");
         }
+    }
 
-        playingBoard = executed;
-        aiHasTurn = false;
+    /**
+     * Executes a move by the AI in the session. The move will be calculated
+     * by using the board´s algorithm and the level setting.
+     */
+    private static void aiTurn() {
+        session.machineMove();
     }
 
     /**
@@ -315,24 +737,6 @@ public final class Shell {
         gameIsWon = true;
     }
 
-    /**
-     * Checks to boards for their equality by comparing each spot individually.
-     *
-     * @param left  The first board that will be used to compare.
-     * @param right The second board that will be used to compare.
-     * @return {@code true}, when they are equal, else {@code false}.
-     */
-    private static boolean checkEquality(Board left, Board right) {
-        for (int i = 0; i < Board.SIZE; ++i) {
-            for (int j = 0; j < Board.SIZE; ++j) {
-                if (!(left.getSlot(i, j) == (right.getSlot(i, j)))) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
     /**
      * Prints text to give the user a detailed documentation upon using the
      * 'HELP' command.
@@ -343,12 +747,118 @@ public final class Shell {
                 + "parameters except HELP \n"
                 + "Following commands are available"
                 + "(in lower- and uppercase)\n" + "NEW - starts new game \n"
-                + "LEVEL lvl - sets difficulty \n"
+                + "LEVEL lvl - sets difficulty (1-" + MAX_LVL + ") \n"
+                + "BUDGET [nodes ms [mb]] - limits or shows the nodes, "
+                + "time and memory per AI move \n"
+                + "THREADS [n] - sets or shows the threads of the AI "
+                + "search \n"
+                + "ENGINE [name] - selects or shows the AI engine \n"
                 + "MOVE row col - places a token at the position\n"
+                + "ANALYZE [depth] - scores all your moves \n"
+                + "DATABASE - shows the games of the position \n"
                 + "SWITCH - starts a new game and switches the "
-                + "player order \n" + "PRINT - prints a visual representation "
+                + "player order \n"
+                + "SAVE [file] - prints the position or appends it "
+                + "(*.pos) or the game to a file \n"
+                + "LOAD position | file [n] - continues at a position or "
+                + "the n-th position (*.pos) or game of a file \n"
+                + "PRINT - prints a visual representation "
                 + "of the board \n" + "HELP - Help text \n"
                 + "QUIT - end the programm");
     }
 
+    /**
+     * Subscriber, that keeps the state of the shell up to date with the
+     * events of the session and prints them. Runs in the thread of the
+     * shell.
+     */
+    private static final class EventPrinter
+            implements Flow.Subscriber<GameEvent> {
+
+        /**
+         * The subscription to the session.
+         */
+        private Flow.Subscription subscription;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        /**
+         * Updates the board and whose turn it is and prints the depths and
+         * results of searches, passes and the end of the game.
+         *
+         * @param event The event of the session.
+         */
+        @Override
+        public void onNext(GameEvent event) {
+            Board board = event.getBoard();
+            switch (event.getType()) {
+                case RESET:
+                    playingBoard = board;
+                    gameIsWon = false;
+                    aiHasTurn = !board.gameOver()
+                            && board.next().equals(Player.HUMAN);
+                    break;
+                case SEARCH_PROGRESS:
+                    SearchResult line = event.getSearch();
+                    System.out.printf("Depth %d: (%d, %d), %d nodes in %d"
+                            + " ms%n", line.getDepth(), line.getRow() + 1,
+                            line.getColumn() + 1, line.getNodes(),
+                            line.getMillis());
+                    break;
+                case SEARCH_FINISHED:
+                    SearchResult search = event.getSearch();
+                    if (search != null) {
+                        System.out.printf("Machine searched depth %d, %d"
+                                + " nodes in %d ms, %.1f MB, %d re-searches,"
+                                + " %d failed windows%n", search.getDepth(),
+                                search.getNodes(), search.getMillis(),
+                                search.getPeakBytes() / (double) MEGABYTE,
+                                search.getResearches(),
+                                search.getWindowFails());
+                    }
+                    break;
+                case PASS:
+                    System.out.println(event.getPlayer() == Player.HUMAN
+                            ? "Human has to miss a turn"
+                            : "The bot has to miss a turn");
+                    playingBoard = board;
+                    aiHasTurn = event.getPlayer() == Player.HUMAN;
+                    break;
+                case MOVE:
+                    playingBoard = board;
+                    aiHasTurn = event.getPlayer() == Player.HUMAN;
+                    break;
+                case GAME_OVER:
+                    winMessage(board);
+                    break;
+                default:
+                    break;
+            }
+            subscription.request(1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onError(Throwable failure) {
+            errorMessage(failure.getMessage());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onComplete() {
+        }
+
+    }
+
 }
\ No newline at end of file
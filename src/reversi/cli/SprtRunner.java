@@ -0,0 +1,327 @@
+package reversi.cli;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import reversi.model.EngineMatch;
+
+/**
+ * Runs a sequential probability ratio test of a contestant against a base.
+ * Game pairs are played in parallel, both games of a pair from the same
+ * random opening with each contestant moving first once. After every pair
+ * the log-likelihood ratio of the hypothesis, that the contestant is
+ * {@code elo1} stronger, against the one, that it is {@code elo0} stronger,
+ * is updated. The test stops as soon as the ratio leaves the bounds given
+ * by the error rates {@link #ALPHA} and {@link #BETA}.
+ * <p>
+ * The ratio is the normal approximation of the generalized test on the
+ * scores of the pairs (pentanomial model), which accounts for the
+ * correlation of the two games of a pair.
+ */
+public final class SprtRunner {
+
+    /**
+     * Probability to accept the contestant, though it is not stronger.
+     */
+    private static final double ALPHA = 0.05;
+
+    /**
+     * Probability to reject the contestant, though it is stronger.
+     */
+    private static final double BETA = 0.05;
+
+    /**
+     * Default Elo difference of the hypothesis, that is rejected.
+     */
+    private static final double ELO0 = 0;
+
+    /**
+     * Default Elo difference of the hypothesis, that is accepted.
+     */
+    private static final double ELO1 = 10;
+
+    /**
+     * Default most game pairs, after which the test ends undecided.
+     */
+    private static final int MAX_PAIRS = 20000;
+
+    /**
+     * Number of random moves of each opening.
+     */
+    private static final int OPENING_PLIES = 8;
+
+    /**
+     * Number of pairs per thread, that are played ahead.
+     */
+    private static final int PAIRS_PER_THREAD = 2;
+
+    /**
+     * The contestant tested.
+     */
+    private final EngineMatch.Contestant tested;
+
+    /**
+     * The contestant it is compared with.
+     */
+    private final EngineMatch.Contestant base;
+
+    /**
+     * Expected score of the rejected hypothesis.
+     */
+    private final double score0;
+
+    /**
+     * Expected score of the accepted hypothesis.
+     */
+    private final double score1;
+
+    /**
+     * Number of pairs by the points of the tested contestant, from
+     * {@code 0} to {@code 4} half points.
+     */
+    private final long[] pairs = new long[5];
+
+    /**
+     * Number of games won, tied and lost by the tested contestant.
+     */
+    private final long[] games = new long[3];
+
+    /**
+     * Creates a test.
+     *
+     * @param tested The contestant tested.
+     * @param base   The contestant it is compared with.
+     * @param elo0   The Elo difference of the hypothesis to reject.
+     * @param elo1   The Elo difference of the hypothesis to accept.
+     */
+    private SprtRunner(EngineMatch.Contestant tested,
+                       EngineMatch.Contestant base, double elo0,
+                       double elo1) {
+        this.tested = tested;
+        this.base = base;
+        this.score0 = expectedScore(elo0);
+        this.score1 = expectedScore(elo1);
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when starting a
+     * test: {@code tested base [elo0 elo1 [threads [pairs [seed]]]]}. The
+     * contestants are given as {@code engine:level[:millis]}, the threads
+     * default to the number of cores and the seed of the openings to the
+     * current time. Exits with {@code 0} if the tested contestant is
+     * accepted, {@code 1} if it is rejected and {@code 2} if the test ends
+     * undecided.
+     *
+     * @param args The parameters.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Reversi SPRT runner\n"
+                    + "tested base [elo0 elo1 [threads [pairs [seed]]]] - "
+                    + "plays game pairs until the tested contestant is "
+                    + "accepted or rejected\n"
+                    + "Contestants are given as engine:level[:millis].");
+            return;
+        }
+        EngineMatch.Contestant tested = EngineMatch.Contestant.parse(args[0]);
+        EngineMatch.Contestant base = EngineMatch.Contestant.parse(args[1]);
+        double elo0 = args.length > 3 ? Double.parseDouble(args[2]) : ELO0;
+        double elo1 = args.length > 3 ? Double.parseDouble(args[3]) : ELO1;
+        int threads = args.length > 4 ? Integer.parseInt(args[4])
+                : Runtime.getRuntime().availableProcessors();
+        int maxPairs = args.length > 5 ? Integer.parseInt(args[5])
+                : MAX_PAIRS;
+        long seed = args.length > 6 ? Long.parseLong(args[6])
+                : System.currentTimeMillis();
+        if (elo0 >= elo1 || threads < 1 || maxPairs < 1) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+
+        SprtRunner runner = new SprtRunner(tested, base, elo0, elo1);
+        System.out.printf(Locale.ROOT, "SPRT %s vs %s, H0 %+.1f Elo, H1 "
+                + "%+.1f Elo, LLR bounds [%.2f, %.2f]%n", tested, base,
+                elo0, elo1, lowerBound(), upperBound());
+        int decision = runner.run(threads, maxPairs, new Random(seed));
+        System.exit(decision);
+    }
+
+    /**
+     * Plays pairs until the test is decided or the most pairs are played.
+     *
+     * @param threads  The number of threads playing.
+     * @param maxPairs The most pairs to play.
+     * @param random   Chooses the openings.
+     * @return {@code 0} if the tested contestant is accepted, {@code 1} if
+     *         it is rejected and {@code 2} if the test is undecided.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    private int run(int threads, int maxPairs, Random random)
+            throws InterruptedException {
+
+        // Games still running after the decision must not keep the JVM.
+        ExecutorService pool = Executors.newFixedThreadPool(threads,
+                task -> {
+                    Thread thread = new Thread(task, "sprt");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            CompletionService<int[]> played =
+                    new ExecutorCompletionService<>(pool);
+            int submitted = 0;
+            for (; submitted < maxPairs
+                    && submitted < threads * PAIRS_PER_THREAD; ++submitted) {
+                int[] opening = EngineMatch.randomOpening(random,
+                        OPENING_PLIES);
+                played.submit(() -> playPair(opening));
+            }
+            for (int finished = 1; finished <= maxPairs; ++finished) {
+                int[] results;
+                try {
+                    results = played.take().get();
+                } catch (ExecutionException failed) {
+                    throw new IllegalStateException("Game failed",
+                            failed.getCause());
+                }
+                if (submitted < maxPairs) {
+                    int[] opening = EngineMatch.randomOpening(random,
+                            OPENING_PLIES);
+                    played.submit(() -> playPair(opening));
+                    ++submitted;
+                }
+                count(results);
+                double llr = llr();
+                System.out.print("\r" + status(finished, llr));
+                System.out.flush();
+                if (llr >= upperBound()) {
+                    System.out.println("\nH1 accepted: " + tested
+                            + " is stronger");
+                    return 0;
+                } else if (llr <= lowerBound()) {
+                    System.out.println("\nH0 accepted: " + tested
+                            + " is not stronger");
+                    return 1;
+                }
+            }
+            System.out.println("\nUndecided after " + maxPairs + " pairs");
+            return 2;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays both games of a pair.
+     *
+     * @param opening The moves of the opening.
+     * @return The final tile differences from the view of the tested
+     *         contestant.
+     */
+    private int[] playPair(int[] opening) {
+        return new int[]{
+            EngineMatch.play(tested, base, opening).getDifference(),
+            -EngineMatch.play(base, tested, opening).getDifference()};
+    }
+
+    /**
+     * Counts the games of a pair.
+     *
+     * @param differences The final tile differences from the view of the
+     *                    tested contestant.
+     */
+    private void count(int[] differences) {
+        int halfPoints = 0;
+        for (int difference : differences) {
+            if (difference > 0) {
+                ++games[0];
+                halfPoints += 2;
+            } else if (difference == 0) {
+                ++games[1];
+                ++halfPoints;
+            } else {
+                ++games[2];
+            }
+        }
+        ++pairs[halfPoints];
+    }
+
+    /**
+     * Computes the log-likelihood ratio of the accepted against the
+     * rejected hypothesis out of mean and variance of the pair scores.
+     *
+     * @return The ratio, {@code 0} while the scores do not vary.
+     */
+    private double llr() {
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < pairs.length; ++i) {
+            total += pairs[i];
+            sum += pairs[i] * i / 4.0;
+        }
+        double mean = sum / total;
+        double variance = 0;
+        for (int i = 0; i < pairs.length; ++i) {
+            double deviation = i / 4.0 - mean;
+            variance += pairs[i] * deviation * deviation;
+        }
+        variance /= total;
+        if (variance <= 0) {
+            return 0;
+        }
+        return (score1 - score0) * (2 * mean - score0 - score1) * total
+                / (2 * variance);
+    }
+
+    /**
+     * Formats the state of the test for the live line in the terminal.
+     *
+     * @param pairCount The number of finished pairs.
+     * @param llr       The current log-likelihood ratio.
+     * @return The line without line break.
+     */
+    private String status(int pairCount, double llr) {
+        double score = (games[0] + 0.5 * games[1])
+                / (games[0] + games[1] + games[2]);
+        double elo = score <= 0 || score >= 1 ? Double.NaN
+                : -400 * Math.log10(1 / score - 1);
+        return String.format(Locale.ROOT, "%6d pairs  +%d =%d -%d  "
+                + "score %5.1f%%  Elo %+6.1f  LLR %6.3f [%.2f, %.2f]",
+                pairCount, games[0], games[1], games[2], score * 100, elo,
+                llr, lowerBound(), upperBound());
+    }
+
+    /**
+     * Maps an Elo difference to the expected score in the logistic model.
+     *
+     * @param elo The Elo difference.
+     * @return The expected score between 0 and 1.
+     */
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Gets the ratio, below which the rejected hypothesis is accepted.
+     *
+     * @return The lower bound.
+     */
+    private static double lowerBound() {
+        return Math.log(BETA / (1 - ALPHA));
+    }
+
+    /**
+     * Gets the ratio, above which the tested contestant is accepted.
+     *
+     * @return The upper bound.
+     */
+    private static double upperBound() {
+        return Math.log((1 - BETA) / ALPHA);
+    }
+
+}
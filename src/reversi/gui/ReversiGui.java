@@ -3,6 +3,7 @@ package reversi.gui;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Container;
+import java.awt.Cursor;
 import java.awt.EventQueue;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
@@ -10,19 +11,36 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
 import java.util.Stack;
+import java.util.concurrent.Flow;
 
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
 import reversi.model.Board;
+import reversi.model.GameEvent;
+import reversi.model.GameRecord;
+import reversi.model.GameRecordReader;
+import reversi.model.GameRecordWriter;
+import reversi.model.GameSession;
 import reversi.model.Player;
+import reversi.model.PositionCache;
+import reversi.model.PositionDatabase;
 import reversi.model.ReversiBoard;
+import reversi.model.SearchEngines;
+import reversi.model.SearchLimits;
+import reversi.model.SearchResult;
 
 /**
  * GUI for the Reversi game. Is a window that contains buttons for to edit
@@ -38,10 +56,15 @@ public class ReversiGui extends JFrame {
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Title of the window, while the machine does not search.
+     */
+    private static final String TITLE = "Reversi";
+
     /**
      * Maximum level supported by the game.
      */
-    private final static int MAX_LEVEL = 5;
+    private final static int MAX_LEVEL = SearchLimits.MAX_DEPTH;
 
     /**
      * Minimum level supported by the game.
@@ -49,8 +72,18 @@ public class ReversiGui extends JFrame {
     private final static int MIN_LEVEL = 1;
 
     /**
-     * Board saved in this object, that will be used to execute the operation
-     * issued via the the buttons on the GUI.
+     * Times in milliseconds the ai may take per move, that can be selected.
+     */
+    private static final long[] TIME_BUDGETS = {10, 100, 1000, 5000, 10000,
+            30000, SearchLimits.MAX_MILLIS};
+
+    /**
+     * The game, whose events are shown. Moves are executed in the session.
+     */
+    private final GameSession session;
+
+    /**
+     * Board of the last event of the session, that is shown on the GUI.
      * Initialized with the default setting.
      */
     private Board playingField = new ReversiBoard(Player.HUMAN);
@@ -103,19 +136,48 @@ public class ReversiGui extends JFrame {
      */
     private volatile int currentLevel = 3;
 
+    /**
+     * Name of the engine the ai currently uses in this game.
+     */
+    private volatile String currentEngine = SearchEngines.DEFAULT;
+
+    /**
+     * Time in milliseconds the ai may take per move in this game.
+     */
+    private volatile long currentMillis = SearchLimits.MAX_MILLIS;
+
+    /**
+     * Persistent cache of earlier searches, {@code null} if it could not be
+     * opened.
+     */
+    private PositionCache positionCache;
+
+    /**
+     * Database of earlier games, {@code null} if there is none or it could
+     * not be opened.
+     */
+    private PositionDatabase positionDatabase;
+
+    /**
+     * Indicates if the scores of the human moves are shown on the slots.
+     */
+    private volatile boolean showScores = false;
+
     /**
      * Creates a new object of the {@code ReversiGUI} class, with a 850x850
      * pixel size, all buttons and the game model initialized and tooltips
      * and visible for the user.
      */
     public ReversiGui() {
-        super("Reversi");
+        super(TITLE);
         JPanel upperNumberLabel = new JPanel();
         JPanel sideNumberLabel = new JPanel();
         JPanel boardGrid = new JPanel();
         JPanel taskBar = new JPanel();
 
         JComboBox<String> level = initializeLvl();
+        JComboBox<String> engine = initializeEngine();
+        JComboBox<String> time = initializeTime();
 
         JButton newComand = createButton("NEW", 'N',
                 "Start a new game. ALT + N", new NewListener());
@@ -126,9 +188,22 @@ public class ReversiGui extends JFrame {
                 new QuitListener());
         undo = createButton("UNDO", 'U',
                 "Nullifies the last human move. ALT + N", new UndoListener());
+        JButton book = createButton("BOOK", 'B',
+                "Shows the earlier games of the position. ALT + B",
+                new BookListener());
+        JButton save = createButton("SAVE", 'V',
+                "Appends the game to a file. ALT + V", new SaveListener());
+        JButton load = createButton("LOAD", 'L',
+                "Continues the first game of a file. ALT + L",
+                new LoadListener());
+        JCheckBox scores = new JCheckBox("SCORES");
+        scores.setMnemonic('C');
+        scores.setToolTipText("Shows the scores of your moves. ALT + C");
+        scores.addActionListener(new ScoresListener());
         taskBar.setLayout(new FlowLayout());
-        attachComponents(taskBar, humanTiles, level, newComand, switchComand,
-                undo, quit, machineTiles);
+        attachComponents(taskBar, humanTiles, level, engine, time, newComand,
+                switchComand, undo, book, save, load, scores, quit,
+                machineTiles);
 
         humanTiles.setToolTipText("Number of human tiles on the field");
         humanTiles.setForeground(Color.BLUE);
@@ -149,6 +224,23 @@ public class ReversiGui extends JFrame {
         c.add(sideNumberLabel, BorderLayout.WEST);
         c.add(boardGrid, BorderLayout.CENTER);
         c.add(taskBar, BorderLayout.SOUTH);
+        try {
+            positionCache = PositionCache.openDefault();
+        } catch (IOException cacheFailure) {
+            JOptionPane.showMessageDialog(null,
+                    "Position cache unavailable: " + cacheFailure.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        try {
+            positionDatabase = PositionDatabase.openDefault();
+        } catch (IOException databaseFailure) {
+            JOptionPane.showMessageDialog(null,
+                    "Position database unavailable: "
+                            + databaseFailure.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        session = new GameSession(new ReversiBoard(Player.HUMAN));
+        session.subscribe(new SessionListener());
         initiateNewGame(Player.HUMAN);
         updateCompleteField();
     }
@@ -198,6 +290,40 @@ public class ReversiGui extends JFrame {
         return toReturn;
     }
 
+    /**
+     * Initializes a new drag and drop menu to select the engine of the ai.
+     *
+     * @return Drag and drop menu to select the engine.
+     */
+    private JComboBox<String> initializeEngine() {
+        JComboBox<String> toReturn = new JComboBox<>();
+        for (String name : SearchEngines.names()) {
+            toReturn.addItem(name);
+        }
+        toReturn.setSelectedItem(currentEngine);
+        toReturn.addActionListener(new EngineListener());
+        toReturn.setToolTipText("Switches the AI engine.");
+        return toReturn;
+    }
+
+    /**
+     * Initializes a new drag and drop menu to limit the time of the ai per
+     * move.
+     *
+     * @return Drag and drop menu to select the time.
+     */
+    private JComboBox<String> initializeTime() {
+        JComboBox<String> toReturn = new JComboBox<>();
+        for (long millis : TIME_BUDGETS) {
+            toReturn.addItem(millis < 1000 ? millis + " ms"
+                    : millis / 1000 + " s");
+        }
+        toReturn.setSelectedIndex(TIME_BUDGETS.length - 1);
+        toReturn.addActionListener(new TimeListener());
+        toReturn.setToolTipText("Limits the time of the AI per move.");
+        return toReturn;
+    }
+
     /**
      * Updates the visual the visual representation of the board in the slots,
      * that were changed and upadtes the number of tiles each player has on the
@@ -206,6 +332,16 @@ public class ReversiGui extends JFrame {
     private void updateCompleteField() {
         humanTiles.setText("" + playingField.getNumberOfHumanTiles());
         machineTiles.setText("" + playingField.getNumberOfMachineTiles());
+        SearchResult search = playingField.getLastSearch();
+        if (search != null) {
+            machineTiles.setToolTipText(String.format("Number of machine"
+                    + " Tiles on the field. Last search: depth %d, %d nodes"
+                    + " in %d ms, %.1f MB, %d re-searches, %d failed"
+                    + " windows", search.getDepth(), search.getNodes(),
+                    search.getMillis(),
+                    search.getPeakBytes() / (1024.0 * 1024.0),
+                    search.getResearches(), search.getWindowFails()));
+        }
         int k = 0;
 
         // Go through the whole board and repaint every slot with a new owner.
@@ -218,21 +354,148 @@ public class ReversiGui extends JFrame {
                 ++k;
             }
         }
+        refreshScores();
+    }
+
+    /**
+     * Removes the scores from the slots and starts the analysis of the
+     * human moves, if the scores are shown and the human has the turn.
+     */
+    private void refreshScores() {
+        for (Slot slot : boardRepresentation) {
+            slot.showScore(null, false);
+        }
+        if (showScores && !playingField.gameOver()
+                && playingField.next().equals(Player.AI)) {
+            new AnalysisThread(playingField).start();
+        }
+    }
+
+    /**
+     * Paints the scores of an analysis on the slots of the moves, if the
+     * board was not changed meanwhile.
+     *
+     * @param analyzed The board the analysis was done on.
+     * @param lines    The moves with their scores, the best first.
+     */
+    private void paintScores(Board analyzed, List<SearchResult> lines) {
+        if (showScores && analyzed == playingField) {
+            for (int i = 0; i < lines.size(); ++i) {
+                SearchResult line = lines.get(i);
+                double score = line.getScore();
+                String text = Math.abs(score) < 10
+                        ? String.format("%.2f", score)
+                        : String.format("%.0f", score);
+                boardRepresentation[line.getRow() * Board.SIZE
+                        + line.getColumn()].showScore(text, i == 0);
+            }
+        }
     }
 
     /**
-     * Starts a new game, by creating a new board object with the saved
-     * parameters.
+     * Starts a new game in the session, by creating a new board object with
+     * the saved parameters.
      *
      * @param starter The player, that will be the starter of the new game.
      */
     private void initiateNewGame(Player starter) {
-        playingField = new ReversiBoard(starter);
+        Board board = new ReversiBoard(starter);
+        configure(board);
         undoStack = new Stack<>();
-        updateCompleteField();
-        playingField.setLevel(currentLevel);
-        gameIsWon = false;
         undo.setEnabled(false);
+        session.start(board);
+    }
+
+    /**
+     * Applies the saved parameters to a board.
+     *
+     * @param board The board, whose ai will use the parameters.
+     */
+    private void configure(Board board) {
+        board.setLevel(currentLevel);
+        board.setEngine(currentEngine);
+        board.setBudget(SearchLimits.MAX_NODES, currentMillis);
+        board.setPositionCache(positionCache);
+        board.setPositionDatabase(positionDatabase);
+    }
+
+    /**
+     * Shows an event of the session: updates the board and the tile
+     * counters, shows the search by the cursor and the depths it finished
+     * in the title and informs the user about passes and the end of the
+     * game.
+     *
+     * @param event The event of the session.
+     */
+    private void showEvent(GameEvent event) {
+        switch (event.getType()) {
+            case RESET:
+                playingField = event.getBoard();
+                gameIsWon = false;
+                setCursor(Cursor.getDefaultCursor());
+                updateCompleteField();
+                break;
+            case SEARCH_STARTED:
+                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                break;
+            case SEARCH_PROGRESS:
+                SearchResult line = event.getSearch();
+                setTitle(String.format("%s - depth %d: (%d, %d)", TITLE,
+                        line.getDepth(), line.getRow() + 1,
+                        line.getColumn() + 1));
+                break;
+            case SEARCH_FINISHED:
+                setTitle(TITLE);
+                setCursor(Cursor.getDefaultCursor());
+                break;
+            case MOVE:
+                playingField = event.getBoard();
+                updateCompleteField();
+                break;
+            case PASS:
+                playingField = event.getBoard();
+                updateCompleteField();
+                JOptionPane.showMessageDialog(null,
+                        event.getPlayer().equals(Player.AI)
+                                ? "AI has to skip a turn!"
+                                : "Human has to skip a turn!", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                break;
+            case GAME_OVER:
+                playingField = event.getBoard();
+                checkWinner();
+                break;
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Closes the window, ends the session, writes the position cache back
+     * to the disk and closes the position database.
+     */
+    @Override
+    public void dispose() {
+        super.dispose();
+        session.close();
+        if (positionCache != null) {
+            try {
+                positionCache.close();
+            } catch (IOException closeFailure) {
+                System.err.println("Position cache not saved: "
+                        + closeFailure.getMessage());
+            }
+            positionCache = null;
+        }
+        if (positionDatabase != null) {
+            try {
+                positionDatabase.close();
+            } catch (IOException closeFailure) {
+                System.err.println("Position database not closed: "
+                        + closeFailure.getMessage());
+            }
+            positionDatabase = null;
+        }
     }
 
     /**
@@ -270,10 +533,10 @@ public class ReversiGui extends JFrame {
     }
 
     /**
-     * Executes a human move on the board model on the same position
+     * Executes a human move in the session on the same position
      * as the slot, that was selected by the user in the GUI.
      * If the move is legit, it will be performed, the visual representation
-     * will updated and a machine move follows.
+     * will updated by its events and a machine move follows.
      * Else a error message will be printed on the screen.
      *
      * @param tile The slot the user clicked.
@@ -286,22 +549,18 @@ public class ReversiGui extends JFrame {
             Slot executingSlot = (Slot) tile;
             int row = executingSlot.getRow();
             int col = executingSlot.getCol();
-            Board temporaryBoard = playingField.move(row - 1, col - 1);
+            Board previousBoard = session.getBoard();
+            Board temporaryBoard = session.move(row - 1, col - 1);
 
             if (temporaryBoard == null) {
                 JOptionPane.showMessageDialog(null,
                         "Illegal human move! Please try again.", "Error",
                         JOptionPane.ERROR_MESSAGE);
             } else {
-                undoStack.add(playingField);
+                undoStack.add(previousBoard);
                 undo.setEnabled(true);
-                playingField = temporaryBoard;
 
-                if (playingField.gameOver()) {
-                    updateCompleteField();
-                    checkWinner();
-                } else {
-                    updateCompleteField();
+                if (!temporaryBoard.gameOver()) {
                     startAiMove();
                 }
 
@@ -413,7 +672,79 @@ public class ReversiGui extends JFrame {
                 } else {
                     newLevel = newLevel + 1;
                     currentLevel = newLevel;
-                    playingField.setLevel(currentLevel);
+                    session.getBoard().setLevel(currentLevel);
+                }
+
+            } else {
+                throw new IllegalArgumentException();
+            }
+        }
+
+    }
+
+    /**
+     * {@code Listener} for a drag and drop menu, that will change the engine
+     * the ai of a {@code Board} object uses.
+     */
+    private class EngineListener implements ActionListener {
+
+        /**
+         * Upon selecting a new engine in the drag and drop menu this method
+         * will change the engine of the board saved in the GUI object. A
+         * running machine move finishes with the old engine.
+         *
+         * @param action Action performed by the user(selecting a new engine).
+         */
+        @Override
+        public void actionPerformed(ActionEvent action) {
+            Object source = action.getSource();
+
+            if (source instanceof JComboBox) {
+                @SuppressWarnings("rawtypes")
+                JComboBox sourceBox = (JComboBox) source;
+                Object selected = sourceBox.getSelectedItem();
+
+                if (selected == null) {
+                    throw new IllegalArgumentException();
+                } else {
+                    currentEngine = selected.toString();
+                    session.getBoard().setEngine(currentEngine);
+                }
+
+            } else {
+                throw new IllegalArgumentException();
+            }
+        }
+
+    }
+
+    /**
+     * {@code Listener} for a drag and drop menu, that will limit the time
+     * the ai of a {@code Board} object may take per move.
+     */
+    private class TimeListener implements ActionListener {
+
+        /**
+         * Upon selecting a new time in the drag and drop menu this method
+         * will change the budget of the board saved in the GUI object.
+         *
+         * @param action Action performed by the user(selecting a new time).
+         */
+        @Override
+        public void actionPerformed(ActionEvent action) {
+            Object source = action.getSource();
+
+            if (source instanceof JComboBox) {
+                @SuppressWarnings("rawtypes")
+                JComboBox sourceBox = (JComboBox) source;
+                int selected = sourceBox.getSelectedIndex();
+
+                if (selected == -1) {
+                    throw new IllegalArgumentException();
+                } else {
+                    currentMillis = TIME_BUDGETS[selected];
+                    session.getBoard().setBudget(SearchLimits.MAX_NODES,
+                            currentMillis);
                 }
 
             } else {
@@ -423,6 +754,167 @@ public class ReversiGui extends JFrame {
 
     }
 
+    /**
+     * {@code Listener} for a check box, that shows or hides the scores of
+     * the human moves.
+     */
+    private class ScoresListener implements ActionListener {
+
+        /**
+         * Upon selecting or deselecting the check box this method shows
+         * or hides the scores on the slots.
+         *
+         * @param action Action performed by the user on the check box.
+         */
+        @Override
+        public void actionPerformed(ActionEvent action) {
+            Object source = action.getSource();
+
+            if (source instanceof JCheckBox) {
+                showScores = ((JCheckBox) source).isSelected();
+                refreshScores();
+            } else {
+                throw new IllegalArgumentException();
+            }
+        }
+
+    }
+
+    /**
+     * {@code Listener} for a book-button. Shows the moves played in the
+     * current position in the games of the position database.
+     */
+    private class BookListener implements ActionListener {
+
+        /**
+         * Looks up the current position and shows its moves with the number
+         * of games and the results in a dialog.
+         *
+         * @param action Action performed by the user on this button.
+         */
+        @Override
+        public void actionPerformed(ActionEvent action) {
+            if (positionDatabase == null) {
+                JOptionPane.showMessageDialog(null, "No position database at "
+                        + PositionDatabase.defaultFile(), "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            for (PositionDatabase.MoveStatistics move
+                    : positionDatabase.lookup(playingField)) {
+                text.append(String.format("(%d, %d): %d games, %d won,"
+                        + " %d drawn, %d lost%n", move.getRow() + 1,
+                        move.getColumn() + 1, move.getGames(),
+                        move.getWins(), move.getDraws(), move.getLosses()));
+            }
+            if (text.length() == 0) {
+                text.append("Position not in the database");
+            }
+            JOptionPane.showMessageDialog(null, text.toString(), "Book",
+                    JOptionPane.INFORMATION_MESSAGE);
+        }
+
+    }
+
+    /**
+     * {@code Listener} for a save-button. Appends the current game to a
+     * file of game records the user selects.
+     */
+    private class SaveListener implements ActionListener {
+
+        /**
+         * Lets the user select a file and appends the game to it. Not
+         * possible, while the ai computes its move.
+         *
+         * @param action Action performed by the user on this button.
+         */
+        @Override
+        public void actionPerformed(ActionEvent action) {
+            if (threadIsRunning) {
+                JOptionPane.showMessageDialog(null,
+                        "AI currently has the turn!", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showSaveDialog(ReversiGui.this)
+                    == JFileChooser.APPROVE_OPTION) {
+                try (GameRecordWriter writer = GameRecordWriter.open(
+                        chooser.getSelectedFile().toPath())) {
+                    writer.write(GameRecord.of(session.getHistory(),
+                            session.getStartMillis(),
+                            System.currentTimeMillis()));
+                } catch (IOException saveFailure) {
+                    JOptionPane.showMessageDialog(null,
+                            "Cant save the game: " + saveFailure.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * {@code Listener} for a load-button. Replaces the current game with
+     * the first game of a file of game records the user selects.
+     */
+    private class LoadListener implements ActionListener {
+
+        /**
+         * Lets the user select a file and continues its first game at its
+         * last position. If a additional thread to compute the ai move is
+         * running, it will be forcibly closed.
+         *
+         * @param action Action performed by the user on this button.
+         */
+        @Override
+        public void actionPerformed(ActionEvent action) {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(ReversiGui.this)
+                    != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            GameRecord record = null;
+            try (GameRecordReader reader = GameRecordReader.open(
+                    chooser.getSelectedFile().toPath())) {
+                if (reader.next()) {
+                    record = reader.toRecord();
+                }
+            } catch (IOException loadFailure) {
+                JOptionPane.showMessageDialog(null,
+                        "Cant load the game: " + loadFailure.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            List<Board> positions;
+            try {
+                positions = record == null ? null : record.replay();
+            } catch (IllegalArgumentException illegal) {
+                positions = null;
+            }
+            if (positions == null) {
+                JOptionPane.showMessageDialog(null,
+                        "The file contains no valid game.", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            if (threadIsRunning) {
+                abortMachineThread();
+            }
+            Board last = positions.get(positions.size() - 1);
+            configure(last);
+            undoStack = new Stack<>();
+            undo.setEnabled(false);
+            session.continueGame(positions, record.getStartMillis());
+            if (!last.gameOver() && last.next().equals(Player.HUMAN)) {
+                startAiMove();
+            }
+        }
+
+    }
+
     /**
      * {@code Listener} for a quit-button. Stops the whole program.
      */
@@ -468,8 +960,9 @@ public class ReversiGui extends JFrame {
                 abortMachineThread();
             }
 
-            initiateNewGame(playingField.getFirstPlayer());
-            if (playingField.getFirstPlayer().equals(Player.AI)) {
+            Player starter = session.getBoard().getFirstPlayer();
+            initiateNewGame(starter);
+            if (starter.equals(Player.AI)) {
                 startAiMove();
             }
         }
@@ -563,17 +1056,15 @@ public class ReversiGui extends JFrame {
                 abortMachineThread();
             }
 
-            playingField = undoStack.pop();
+            Board previousBoard = undoStack.pop();
+            List<Board> history = session.getHistory();
+            session.continueGame(history.subList(0,
+                    history.lastIndexOf(previousBoard) + 1),
+                    session.getStartMillis());
 
             if (undoStack.isEmpty()) {
                 undo.setEnabled(false);
             }
-
-            updateCompleteField();
-
-            if (gameIsWon) {
-                gameIsWon = false;
-            }
         }
 
     }
@@ -599,7 +1090,7 @@ public class ReversiGui extends JFrame {
                 abortMachineThread();
             }
 
-            if (playingField.getFirstPlayer().equals(Player.AI)) {
+            if (session.getBoard().getFirstPlayer().equals(Player.AI)) {
                 initiateNewGame(Player.HUMAN);
             } else {
                 initiateNewGame(Player.AI);
@@ -618,68 +1109,172 @@ public class ReversiGui extends JFrame {
         aiComputation.start();
     }
 
+    /**
+     * Class to score the human moves in a additional thread.
+     */
+    private class AnalysisThread extends Thread {
+
+        /**
+         * The board, whose moves will be scored.
+         */
+        private final Board analyzed;
+
+        /**
+         * Creates a new thread, that won't keep the program running.
+         *
+         * @param analyzed The board, whose moves will be scored.
+         */
+        AnalysisThread(Board analyzed) {
+            this.analyzed = analyzed;
+            setDaemon(true);
+        }
+
+        /**
+         * Scores the moves on a copy with the current level and engine and
+         * passes the result to the EventQueue to paint it.
+         */
+        @Override
+        public void run() {
+            Board clone = analyzed.clone();
+            clone.setEngine(currentEngine);
+            clone.setBudget(SearchLimits.MAX_NODES, currentMillis);
+            final List<SearchResult> lines = clone.analyze(currentLevel);
+
+            EventQueue.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    paintScores(analyzed, lines);
+                }
+            });
+        }
+
+    }
+
+    /**
+     * Subscriber, that shows the events of the session. Each event is
+     * passed to the EventQueue and the next one is requested at once, as
+     * the session waits for room for its moves. The events are shown one
+     * after another, so a dialog holds back the following events.
+     */
+    private class SessionListener implements Flow.Subscriber<GameEvent> {
+
+        /**
+         * The subscription to the session.
+         */
+        private Flow.Subscription subscription;
+
+        /**
+         * Events passed to the EventQueue, that are not shown yet. Only
+         * used in the EventQueue.
+         */
+        private final Queue<GameEvent> pending = new ArrayDeque<>();
+
+        /**
+         * Indicates if an event is being shown, e.g. by a dialog, that
+         * lets the EventQueue run meanwhile.
+         */
+        private boolean showing = false;
+
+        /**
+         * Requests the first event.
+         *
+         * @param subscription The subscription to the session.
+         */
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        /**
+         * Passes the event to the EventQueue and requests the next one.
+         *
+         * @param event The event of the session.
+         */
+        @Override
+        public void onNext(final GameEvent event) {
+            EventQueue.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    pending.add(event);
+                    showPending();
+                }
+            });
+            subscription.request(1);
+        }
+
+        /**
+         * Shows the pending events in their order, unless an earlier event
+         * is still being shown.
+         */
+        private void showPending() {
+            if (showing) {
+                return;
+            }
+            showing = true;
+            try {
+                while (!pending.isEmpty()) {
+                    showEvent(pending.remove());
+                }
+            } finally {
+                showing = false;
+            }
+        }
+
+        /**
+         * Informs the user about a failed delivery.
+         *
+         * @param failure The cause.
+         */
+        @Override
+        public void onError(final Throwable failure) {
+            EventQueue.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    JOptionPane.showMessageDialog(null,
+                            "Game events lost: " + failure.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+        }
+
+        /**
+         * Not in use.
+         */
+        @Override
+        public void onComplete() {
+        }
+
+    }
+
     /**
      * Class to compute the ai move in a additional thread.
      */
     private class MachineThread extends Thread {
 
         /**
-         * Performs a machine move on a copy, replaces the board
-         * in the GUI object with the result and issues a update on
-         * the visual representation.
-         * Adds task to the EventQueue in case the game is over or
-         * the ai had to skip a turn to inform the user with a dialog.
+         * Performs a machine move in the session with the current settings.
+         * The session publishes the move, a pass of the ai and the end of
+         * the game, which the {@link SessionListener} shows.
          * Tests if the user has to skip the next turn and if this is the
-         * case, it issues a dialog to inform a user and immediately performs
+         * case, it passes the turn in the session and immediately performs
          * the next move.
          */
         @Override
         public void run() {
             if (threadIsRunning) {
-                Board clone = playingField.clone();
-                Board result = clone.machineMove();
-
-                if (checkEquality(playingField, result)) {
-                    EventQueue.invokeLater(new Runnable() {
-                        @Override
-                        public void run() {
-                            JOptionPane.showMessageDialog(null,
-                                    "AI has to skip a turn!", "Error",
-                                    JOptionPane.ERROR_MESSAGE);
-                        }
-                    });
-                }
-
-                playingField = result;
-                playingField.setLevel(currentLevel);
-
-                EventQueue.invokeLater(new Runnable() {
-                    @Override
-                    public void run() {
-                        updateCompleteField();
+                configure(session.getBoard());
+                Board result = session.machineMove();
+
+                // The game was replaced meanwhile, if there is no result.
+                while (result != null && !result.gameOver()
+                        && !testPossibleHumanMoves(result)) {
+                    Board passed = session.move(1, 1);
+                    if (passed == null) {
+                        break;
                     }
-                });
-
-                if (playingField.gameOver()) {
-                    EventQueue.invokeLater(new Runnable() {
-                        @Override
-                        public void run() {
-                            checkWinner();
-                        }
-                    });
-                } else if (!testPossibleHumanMoves()) {
-                    EventQueue.invokeLater(new Runnable() {
-                        @Override
-                        public void run() {
-                            JOptionPane.showMessageDialog(null,
-                                    "Human has to skip a turn!", "Error",
-                                    JOptionPane.ERROR_MESSAGE);
-                        }
-                    });
-                    playingField = playingField.move(1, 1);
-                    playingField.setLevel(currentLevel);
-                    MachineThread nextTurn = new MachineThread();
-                    nextTurn.run();
+                    configure(passed);
+                    result = session.machineMove();
                 }
                 threadIsRunning = false;
             } else {
@@ -691,12 +1286,15 @@ public class ReversiGui extends JFrame {
          * Tests if the user can perform a move, by using the features of the
          * game, that a board can only stay the same if a player has to skip a
          * turn.
+         *
+         * @param board The board, where the user has the turn.
+         * @return {@code True}, if the user has a move. Else {@code false}.
          */
-        private boolean testPossibleHumanMoves() {
-            Board temp = playingField.move(1, 1);
-            return temp == null || !checkEquality(temp, playingField);
+        private boolean testPossibleHumanMoves(Board board) {
+            Board temp = board.move(1, 1);
+            return temp == null || !checkEquality(temp, board);
         }
 
     }
 
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package reversi.gui;
 
 import java.awt.Color;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.geom.Ellipse2D;
@@ -30,6 +31,12 @@ class Slot extends JPanel {
     /** The column position this slot has on a grid. */
     private int column;
 
+    /** Score of a move on this slot, {@code null} if none is shown. */
+    private String score;
+
+    /** Indicates if the score belongs to the best move. */
+    private boolean bestScore;
+
     /**
      * Paints this slot with a green background and a black border. When a
      * player has ownership over this slot, a token in his color will be painted
@@ -60,6 +67,12 @@ class Slot extends JPanel {
         } else if (owner == Player.HUMAN) {
             visuals2D.setColor(Color.BLUE);
             visuals2D.fill(circle);
+        } else if (score != null) {
+            visuals2D.setColor(bestScore ? Color.YELLOW : Color.DARK_GRAY);
+            FontMetrics metrics = visuals2D.getFontMetrics();
+            visuals2D.drawString(score,
+                    (maxWidth - metrics.stringWidth(score)) / 2,
+                    (maxHeight + metrics.getAscent()) / 2);
         }
 
     }
@@ -95,6 +108,18 @@ class Slot extends JPanel {
         repaint();
     }
 
+    /**
+     * Shows the score of a move on this empty slot or removes it.
+     *
+     * @param newScore The score as text or {@code null} to remove it.
+     * @param best     {@code True}, if the score is the best of all moves.
+     */
+    void showScore(String newScore, boolean best) {
+        score = newScore;
+        bestScore = best;
+        repaint();
+    }
+
     /**
      * Tests if a certain player has a token on this slot.
      *
@@ -0,0 +1,935 @@
+package reversi.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Memory bounded engine. Computes the same values as the
+ * {@link MinimaxEngine}, but walks the game tree depth first with alpha-beta
+ * pruning instead of keeping it in memory. Its only structures are the path
+ * of the search and a {@link TranspositionTable}, which is sized to fit into
+ * the memory budget next to the path and evicts old entries once it is full.
+ * If not even the path of a depth fits, the search stays shallower. Deep
+ * results are stored in and taken from the position cache of the board, if
+ * it has one.
+ * <p>
+ * If the depth reaches the end of the game and only a few slots are free,
+ * the position is solved instead: the moves are scored by the final
+ * difference of the tiles, and subtrees are cut off as soon as the stable
+ * tiles of either player decide them. Solved results are not cached, as
+ * their scores are no evaluations.
+ * <p>
+ * With more than one thread in the limits, helper threads search the same
+ * position next to the main thread (Lazy SMP). Every other helper runs one
+ * depth ahead and each starts with a different move of the root. They share
+ * nothing but the table and the node budget, so they only speed up the main
+ * thread by filling the table. Only the main thread decides, and as the
+ * table holds exact bounds, it selects the same move with the same score as
+ * a single thread does at each depth it finishes.
+ * <p>
+ * In the principal variation mode, only the first move of a position is
+ * searched with the full window. The others are only tested with a null
+ * window, whether they beat it, and searched again with the full window if
+ * they do. The best move of the root is searched within a window around the
+ * score expected from the last two depths, and again with an open side if
+ * the score leaves it. The windows only change how many positions are
+ * visited, not the move or its score.
+ * <p>
+ * The selective mode adds Multi-ProbCut to the principal variation mode: a
+ * position is cut off, if a search two plies shallower predicts the value
+ * to leave the window with high probability. The predictions come from the
+ * regressions of {@link ProbCut}. Selective searches reach deeper in the
+ * same time, but may miss the best move, so their results are not cached.
+ */
+public final class AlphaBetaEngine implements SearchEngine {
+
+    /**
+     * Minimal depth of a search, whose result is worth to be stored in the
+     * position cache.
+     */
+    private static final int CACHE_MIN_DEPTH = 4;
+
+    /**
+     * Estimated bytes of one ply of the path: two boards and a move buffer.
+     */
+    private static final long PLY_BYTES = 1248;
+
+    /**
+     * Largest size of the table as power of 2.
+     */
+    private static final int MAX_TABLE_BITS = 20;
+
+    /**
+     * Largest number of free slots of a position, that is solved.
+     */
+    private static final int MAX_SOLVE_EMPTIES = 12;
+
+    /**
+     * Half the width of the window around the expected score of the root.
+     */
+    private static final double ASPIRATION_WINDOW = 2500;
+
+    /**
+     * Indicates if the search uses principal variation and aspiration
+     * windows.
+     */
+    private final boolean principalVariation;
+
+    /**
+     * Indicates if the search prunes with Multi-ProbCut.
+     */
+    private final boolean selective;
+
+    /**
+     * The parameters of the pruning, {@code null} if the search does not
+     * prune or there are no parameters.
+     */
+    private final ProbCut probCut;
+
+    /**
+     * Initializes the engine with plain alpha-beta windows.
+     */
+    public AlphaBetaEngine() {
+        this(false, false);
+    }
+
+    /**
+     * Initializes the engine.
+     *
+     * @param principalVariation {@code True} to use principal variation and
+     *                           aspiration windows.
+     * @param selective          {@code True} to prune with Multi-ProbCut
+     *                           as well.
+     */
+    AlphaBetaEngine(boolean principalVariation, boolean selective) {
+        this.principalVariation = principalVariation || selective;
+        this.selective = selective;
+        this.probCut = selective ? ProbCut.load() : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        if (selective) {
+            return "mpc";
+        } else if (principalVariation) {
+            return "pvs";
+        } else {
+            return "alphabeta";
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchResult search(Board position, SearchLimits limits) {
+        ReversiBoard board = SearchEngines.toReversiBoard(position);
+        List<SearchResult> solved = solve(board, limits, false);
+        if (solved != null) {
+            return solved.get(0);
+        }
+
+        // The cache only holds scores of the exact search.
+        PositionCache positionCache = selective ? null
+                : board.getPositionCache();
+        if (positionCache != null) {
+            SearchResult cached = positionCache.lookup(board,
+                    limits.getDepth());
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        SearchResult best = deepen(board, limits, false).get(0);
+        if (positionCache != null && best.getDepth() >= CACHE_MIN_DEPTH) {
+            positionCache.store(board, best.getDepth(),
+                    best.getRow() * Board.SIZE + best.getColumn(),
+                    best.getScore());
+        }
+        return best;
+    }
+
+    /**
+     * Scores every move with an open window, so each score is exact.
+     *
+     * @param position {@inheritDoc}
+     * @param limits   {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public List<SearchResult> analyze(Board position, SearchLimits limits) {
+        ReversiBoard board = SearchEngines.toReversiBoard(position);
+        List<SearchResult> solved = solve(board, limits, true);
+        if (solved != null) {
+            return solved;
+        } else {
+            return deepen(board, limits, true);
+        }
+    }
+
+    /**
+     * Solves a position, if the depth of the limits reaches the end of the
+     * game and it has at most {@link #MAX_SOLVE_EMPTIES} free slots.
+     *
+     * @param board    The position to solve.
+     * @param limits   The limits of the search.
+     * @param allMoves {@code True} to score all moves, {@code false} to
+     *                 only search the best one.
+     * @return The solved lines, the best first. {@code null}, if the
+     *         position is not solved or the budget was used up.
+     */
+    private static List<SearchResult> solve(ReversiBoard board,
+                                            SearchLimits limits,
+                                            boolean allMoves) {
+        long filled = board.discMask(Player.AI)
+                | board.discMask(Player.HUMAN);
+        int empties = Rays.SQUARES - Long.bitCount(filled);
+        if (Rays.SQUARES != Long.SIZE || empties > MAX_SOLVE_EMPTIES
+                || empties > limits.getDepth()) {
+            return null;
+        } else {
+            return new Search(board, limits, empties, false, null).solve(
+                    empties, allMoves);
+        }
+    }
+
+    /**
+     * Computes the value of a position with a full window and without any
+     * pruning by predictions, as the inner nodes of a search see it.
+     *
+     * @param board The position.
+     * @param depth The remaining depth, at least 1.
+     * @return The value from the view of the ai, {@code NaN} if the default
+     *         budget was used up.
+     */
+    static double value(ReversiBoard board, int depth) {
+        Search search = new Search(board, new SearchLimits(depth), depth,
+                true, null);
+        double value = search.value(board, depth, 0,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        return search.aborted ? Double.NaN : value;
+    }
+
+    /**
+     * Searches with increasing depth until the depth of the limits is
+     * reached or the budget is used up. The first ply is always finished.
+     * The helper threads of the limits run until the main thread is done.
+     * The best line of each finished depth is reported to the listener of
+     * the limits.
+     *
+     * @param board    The position to search.
+     * @param limits   The limits of the search.
+     * @param allMoves {@code True} to score all moves, {@code false} to
+     *                 only search the best one.
+     * @return The lines of the deepest finished depth, the best first. The
+     *         nodes of the lines include those of the helpers.
+     */
+    private List<SearchResult> deepen(ReversiBoard board,
+                                      SearchLimits limits,
+                                      boolean allMoves) {
+        Search search = new Search(board, limits, limits.getDepth(),
+                principalVariation, probCut);
+        List<Search> helpers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 1; i < limits.getThreads(); ++i) {
+            Search helper = new Search(search, limits, i);
+            Thread thread = new Thread(() -> helper.help(limits.getDepth()));
+            thread.setDaemon(true);
+            thread.start();
+            helpers.add(helper);
+            threads.add(thread);
+        }
+
+        double[] values = new double[limits.getDepth() + 1];
+        List<SearchResult> lines = search.rank(1, allMoves,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        values[1] = search.rootValue;
+        limits.getProgress().accept(lines.get(0));
+        for (int depth = 2; depth <= limits.getDepth(); ++depth) {
+            List<SearchResult> deeper;
+            if (principalVariation && !allMoves && depth > 2) {
+                deeper = aspire(search, depth,
+                        2 * values[depth - 1] - values[depth - 2]);
+            } else {
+                deeper = search.rank(depth, allMoves,
+                        Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+            }
+            if (deeper == null) {
+                break;
+            }
+            lines = deeper;
+            values[depth] = search.rootValue;
+            limits.getProgress().accept(lines.get(0));
+        }
+
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+        for (int i = 0; i < threads.size(); ++i) {
+            try {
+                threads.get(i).join();
+            } catch (InterruptedException interrupt) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (helpers.isEmpty()) {
+            return lines;
+        }
+
+        // The helpers went on counting, after the lines were ranked.
+        long nodes = search.budget.getNodes();
+        List<SearchResult> total = new ArrayList<>(lines.size());
+        for (SearchResult line : lines) {
+            total.add(new SearchResult(line.getRow(), line.getColumn(),
+                    line.getScore(), line.getDepth(),
+                    nodes, line.getMillis(),
+                    line.getPeakBytes(), line.getResearches(),
+                    line.getWindowFails()));
+        }
+        return total;
+    }
+
+    /**
+     * Searches the best move of a depth within a window around its expected
+     * value. If the value leaves the window, the depth is searched again
+     * with the failed side of the window open.
+     *
+     * @param search   The search.
+     * @param depth    The depth of the search.
+     * @param expected The expected value from the view of the ai.
+     * @return The line of the best move, {@code null} if the budget was used
+     *         up before the depth was finished.
+     */
+    private static List<SearchResult> aspire(Search search, int depth,
+                                             double expected) {
+        double lower = expected - ASPIRATION_WINDOW;
+        double upper = expected + ASPIRATION_WINDOW;
+        List<SearchResult> lines = search.rank(depth, false, lower, upper);
+        if (lines != null && search.rootValue <= lower) {
+            ++search.windowFails;
+            lines = search.rank(depth, false, Double.NEGATIVE_INFINITY,
+                    upper);
+        } else if (lines != null && search.rootValue >= upper) {
+            ++search.windowFails;
+            lines = search.rank(depth, false, lower,
+                    Double.POSITIVE_INFINITY);
+        }
+        return lines;
+    }
+
+    /**
+     * Gets a bound for the value of a child, so that the points of its
+     * parent plus any value up to the bound stay at most at the bound of
+     * the parent. Rounding is taken into account.
+     *
+     * @param bound  The lower bound of the parent.
+     * @param points The points of the parent.
+     * @return The lower bound of the child.
+     */
+    private static double below(double bound, double points) {
+        double child = bound - points;
+        while (points + child > bound) {
+            child = Math.nextDown(child);
+        }
+        return child;
+    }
+
+    /**
+     * Gets a bound for the value of a child, so that the points of its
+     * parent plus any value from the bound on stay at least at the bound of
+     * the parent. Rounding is taken into account.
+     *
+     * @param bound  The upper bound of the parent.
+     * @param points The points of the parent.
+     * @return The upper bound of the child.
+     */
+    private static double above(double bound, double points) {
+        double child = bound - points;
+        while (points + child < bound) {
+            child = Math.nextUp(child);
+        }
+        return child;
+    }
+
+    /**
+     * State of a single search from one position.
+     */
+    private static final class Search {
+
+        /**
+         * The position to search.
+         */
+        private final ReversiBoard root;
+
+        /**
+         * The budget of the whole search.
+         */
+        private final SearchBudget budget;
+
+        /**
+         * The values of positions searched before, {@code null} if it
+         * does not fit into the memory budget.
+         */
+        private final TranspositionTable table;
+
+        /**
+         * The reusable move buffers of the search.
+         */
+        private final MoveBuffer buffer;
+
+        /**
+         * Receives the entries found in the table.
+         */
+        private final TranspositionTable.Entry hit =
+                new TranspositionTable.Entry();
+
+        /**
+         * The move of the root searched first, 0 for the main thread.
+         */
+        private final int rotation;
+
+        /**
+         * Indicates if moves after the first are tested with a null window.
+         */
+        private final boolean principalVariation;
+
+        /**
+         * The parameters of the pruning, {@code null} if positions are not
+         * cut off by predictions.
+         */
+        private final ProbCut probCut;
+
+        /**
+         * The value of the best move of the last depth from the view of the
+         * ai. Only a bound, if it lies outside the window of the root.
+         */
+        private double rootValue;
+
+        /**
+         * The number of moves searched again after a null window failed.
+         */
+        private long researches;
+
+        /**
+         * The number of depths searched again after the window of the root
+         * failed.
+         */
+        private long windowFails;
+
+        /**
+         * Indicates if the budget was used up during the current depth.
+         */
+        private boolean aborted;
+
+        /**
+         * Indicates if a helper has to stop, as the main thread is done.
+         */
+        private volatile boolean stopped;
+
+        /**
+         * Prepares a search and allocates its table.
+         *
+         * @param root   The position to search.
+         * @param limits The limits of the search.
+         * @param depth  The largest depth, that will be searched.
+         * @param principalVariation {@code True} to test moves after the
+         *                           first with a null window.
+         * @param probCut            The parameters of the pruning,
+         *                           {@code null} to search all positions.
+         */
+        private Search(ReversiBoard root, SearchLimits limits, int depth,
+                       boolean principalVariation, ProbCut probCut) {
+            this.root = root;
+            this.budget = new SearchBudget(limits);
+            this.buffer = new MoveBuffer(depth);
+            this.rotation = 0;
+            this.principalVariation = principalVariation;
+            this.probCut = probCut;
+
+            // Shallow searches visit few positions, a small table does.
+            int bits = Math.min(MAX_TABLE_BITS, 3 * depth + 4);
+            long pathBytes = depth * PLY_BYTES;
+            while (bits >= 0 && !budget.fits(TranspositionTable.bytes(bits)
+                    + pathBytes)) {
+                --bits;
+            }
+            if (bits >= 0) {
+                table = new TranspositionTable(bits);
+                budget.allocate(TranspositionTable.bytes(bits));
+            } else {
+                table = null;
+            }
+        }
+
+        /**
+         * Prepares a helper of a search, that shares its table and its node
+         * budget.
+         *
+         * @param main   The search of the main thread.
+         * @param limits The limits of the search.
+         * @param index  The number of the helper, starting at 1.
+         */
+        private Search(Search main, SearchLimits limits, int index) {
+            this.root = main.root;
+            this.budget = new SearchBudget(main.budget);
+            this.buffer = new MoveBuffer(limits.getDepth());
+            this.table = main.table;
+            this.rotation = index;
+            this.principalVariation = main.principalVariation;
+            this.probCut = main.probCut;
+        }
+
+        /**
+         * Fills the table as a helper until the main thread is done. Every
+         * other helper runs one depth ahead.
+         *
+         * @param maxDepth The depth of the limits.
+         */
+        private void help(int maxDepth) {
+            for (int depth = 1 + rotation % 2; depth <= maxDepth
+                    && !stopped; ++depth) {
+                if (rank(depth, false, Double.NEGATIVE_INFINITY,
+                        Double.POSITIVE_INFINITY) == null) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Lets a helper stop as soon as possible.
+         */
+        private void stop() {
+            stopped = true;
+        }
+
+        /**
+         * Scores the moves of the root at a certain depth. Without all
+         * moves, only the best one gets an exact score, if it lies within
+         * the window.
+         *
+         * @param depth    The depth of the search.
+         * @param allMoves {@code True} to score all moves with an open
+         *                 window.
+         * @param lower    The lower end of the window from the view of the
+         *                 ai.
+         * @param upper    The upper end of the window from the view of the
+         *                 ai.
+         * @return The lines, the best first. Moves of equal score keep the
+         *         order they were generated in. {@code null}, if the budget
+         *         was used up before the depth was finished.
+         */
+        private List<SearchResult> rank(int depth, boolean allMoves,
+                                        double lower, double upper) {
+            long pathBytes = depth * PLY_BYTES;
+            if (depth > 1 && !budget.fits(pathBytes)) {
+                return null;
+            }
+            budget.allocate(pathBytes);
+            aborted = false;
+
+            int[] moves = buffer.ply(0);
+            int count = ReversiBoard.generateMoves(root, root.getColor(),
+                    moves);
+            budget.spend(count);
+            boolean maximize = !root.isHumanToMove();
+            double[] values = new double[count];
+            double best = maximize ? Double.NEGATIVE_INFINITY
+                    : Double.POSITIVE_INFINITY;
+            int bestIndex = 0;
+            for (int k = 0; k < count && !aborted; ++k) {
+                int i = (k + rotation) % count;
+                double alpha = maximize ? Math.max(best, lower) : lower;
+                double beta = maximize ? upper : Math.min(best, upper);
+
+                // The best move so far already left the window.
+                if (!allMoves && alpha >= beta) {
+                    break;
+                }
+                ReversiBoard child = (ReversiBoard) root.makeMove(moves[i]);
+                if (allMoves) {
+                    values[i] = value(child, depth - 1, 1,
+                            Double.NEGATIVE_INFINITY,
+                            Double.POSITIVE_INFINITY);
+                } else if (k > 0 && principalVariation) {
+                    values[i] = test(child, depth - 1, 1, alpha, beta,
+                            maximize);
+                } else {
+                    values[i] = value(child, depth - 1, 1, alpha, beta);
+                }
+                if (maximize ? values[i] > best : values[i] < best) {
+                    best = values[i];
+                    bestIndex = i;
+                }
+            }
+            budget.free(pathBytes);
+            if (aborted) {
+                return null;
+            }
+            rootValue = best;
+
+            // Scores are reported from the view of the player with the turn.
+            List<SearchResult> lines = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                if (allMoves || i == bestIndex) {
+                    lines.add(new SearchResult(Rays.ROW[moves[i]],
+                            Rays.COL[moves[i]],
+                            maximize ? values[i] : -values[i], depth,
+                            budget.getNodes(), budget.getElapsed(),
+                            budget.getPeakBytes(), researches, windowFails));
+                }
+            }
+            Collections.sort(lines, (left, right) -> Double.compare(
+                    right.getScore(), left.getScore()));
+            return lines;
+        }
+
+        /**
+         * Tests with a null window, if a move beats the best move so far,
+         * and computes its value with the full window only if it does.
+         *
+         * @param child     The position after the move.
+         * @param remaining The remaining depth of the search.
+         * @param ply       The distance to the root.
+         * @param alpha     The value the ai is already sure of.
+         * @param beta      The value the human is already sure of.
+         * @param maximize  {@code True} if the ai made the move.
+         * @return The value like {@link #value}.
+         */
+        private double test(ReversiBoard child, int remaining, int ply,
+                            double alpha, double beta, boolean maximize) {
+            // A leaf is evaluated at once, a null window would not help.
+            if (remaining == 0) {
+                return value(child, remaining, ply, alpha, beta);
+            } else if (maximize && Math.nextUp(alpha) < beta) {
+                double tested = value(child, remaining, ply, alpha,
+                        Math.nextUp(alpha));
+                if (aborted || tested <= alpha || tested >= beta) {
+                    return tested;
+                }
+                ++researches;
+            } else if (!maximize && Math.nextDown(beta) > alpha) {
+                double tested = value(child, remaining, ply,
+                        Math.nextDown(beta), beta);
+                if (aborted || tested >= beta || tested <= alpha) {
+                    return tested;
+                }
+                ++researches;
+            }
+            return value(child, remaining, ply, alpha, beta);
+        }
+
+        /**
+         * Scores the moves of the root by the final difference of the tiles
+         * with perfect play of both players. Without all moves, only the
+         * best one gets an exact score. The positions below the root are
+         * only kept as bit masks of both players and played with
+         * {@link Bitboards}.
+         *
+         * @param empties  The number of free slots of the root.
+         * @param allMoves {@code True} to score all moves.
+         * @return The lines, the best first. Moves of equal score keep the
+         *         order they were generated in. {@code null}, if the budget
+         *         was used up before the position was solved.
+         */
+        private List<SearchResult> solve(int empties, boolean allMoves) {
+            aborted = false;
+            long ai = root.discMask(Player.AI);
+            long human = root.discMask(Player.HUMAN);
+            boolean maximize = !root.isHumanToMove();
+            long own = maximize ? ai : human;
+            long enemy = maximize ? human : ai;
+
+            int[] moves = buffer.ply(0);
+            int count = Bitboards.toSquares(Bitboards.moves(own, enemy),
+                    moves);
+            budget.spend(count);
+            int[] values = new int[count];
+            int best = maximize ? -Rays.SQUARES - 1 : Rays.SQUARES + 1;
+            int bestIndex = 0;
+            for (int i = 0; i < count && !aborted; ++i) {
+                long flipped = Bitboards.flips(own, enemy, moves[i]);
+                long moved = own | flipped | 1L << moves[i];
+                long left = enemy & ~flipped;
+                int alpha = -Rays.SQUARES - 1;
+                int beta = Rays.SQUARES + 1;
+                if (!allMoves && maximize) {
+                    alpha = best;
+                } else if (!allMoves) {
+                    beta = best;
+                }
+                values[i] = maximize ? exact(moved, left, true, alpha, beta)
+                        : exact(left, moved, false, alpha, beta);
+                if (maximize ? values[i] > best : values[i] < best) {
+                    best = values[i];
+                    bestIndex = i;
+                }
+            }
+            if (aborted) {
+                return null;
+            }
+
+            // Scores are reported from the view of the player with the turn.
+            List<SearchResult> lines = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                if (allMoves || i == bestIndex) {
+                    lines.add(new SearchResult(Rays.ROW[moves[i]],
+                            Rays.COL[moves[i]],
+                            maximize ? values[i] : -values[i], empties,
+                            budget.getNodes(), budget.getElapsed(),
+                            budget.getPeakBytes(), true));
+                }
+            }
+            Collections.sort(lines, (left, right) -> Double.compare(
+                    right.getScore(), left.getScore()));
+            return lines;
+        }
+
+        /**
+         * Computes the final difference of the tiles of ai and human, if
+         * both play perfectly from a position on. The stable tiles of both
+         * players bound the difference, so the position is cut off, if the
+         * bounds already lie outside the window. Solved positions are stored
+         * in the table with a remaining depth of 0.
+         *
+         * @param ai          The tiles of the ai.
+         * @param human       The tiles of the human.
+         * @param humanToMove {@code true} if the human has the turn.
+         * @param alpha       The difference the ai is already sure of.
+         * @param beta        The difference the human is already sure of.
+         * @return The exact difference, if it lies within the window. Else
+         *         an upper bound at most {@code alpha} or a lower bound at
+         *         least {@code beta}.
+         */
+        private int exact(long ai, long human, boolean humanToMove,
+                          int alpha, int beta) {
+            if (table != null && table.probe(ai, human, humanToMove, 0, hit)) {
+                int stored = (int) hit.getValue();
+                int bound = hit.getBound();
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && stored >= beta
+                        || bound == TranspositionTable.UPPER
+                        && stored <= alpha) {
+                    return stored;
+                }
+            }
+
+            // Stable tiles keep their owner until the end of the game.
+            int upper = Rays.SQUARES - 2 * StableDiscs.count(human, ai);
+            if (upper <= alpha) {
+                return upper;
+            }
+            int lower = 2 * StableDiscs.count(ai, human) - Rays.SQUARES;
+            if (lower >= beta) {
+                return lower;
+            }
+            if (budget.exhausted()) {
+                aborted = true;
+                return 0;
+            }
+
+            boolean humanMoves = humanToMove;
+            long moves = humanMoves ? Bitboards.moves(human, ai)
+                    : Bitboards.moves(ai, human);
+
+            // The enemy moves on, if the player has to pass.
+            if (moves == 0) {
+                humanMoves = !humanMoves;
+                moves = humanMoves ? Bitboards.moves(human, ai)
+                        : Bitboards.moves(ai, human);
+                if (moves == 0) {
+                    return Long.bitCount(ai) - Long.bitCount(human);
+                }
+            }
+            budget.spend(Long.bitCount(moves));
+
+            boolean maximize = !humanMoves;
+            int low = alpha;
+            int high = beta;
+            int best = maximize ? -Rays.SQUARES - 1 : Rays.SQUARES + 1;
+            for (long rest = moves; rest != 0 && low < high;
+                 rest &= rest - 1) {
+                int square = Long.numberOfTrailingZeros(rest);
+                int childValue;
+                if (maximize) {
+                    long flipped = Bitboards.flips(ai, human, square);
+                    childValue = exact(ai | flipped | 1L << square,
+                            human & ~flipped, true, low, high);
+                } else {
+                    long flipped = Bitboards.flips(human, ai, square);
+                    childValue = exact(ai & ~flipped,
+                            human | flipped | 1L << square, false, low,
+                            high);
+                }
+                if (aborted) {
+                    return 0;
+                }
+                if (maximize ? childValue > best : childValue < best) {
+                    best = childValue;
+                }
+                if (maximize && best > low) {
+                    low = best;
+                } else if (!maximize && best < high) {
+                    high = best;
+                }
+            }
+
+            if (table != null) {
+                int bound = best <= alpha ? TranspositionTable.UPPER
+                        : best >= beta ? TranspositionTable.LOWER
+                        : TranspositionTable.EXACT;
+                table.store(ai, human, humanToMove, 0, best, bound);
+            }
+            return best;
+        }
+
+        /**
+         * Predicts with a shallow search, if the value of a position leaves
+         * the window by more than the threshold of the regression.
+         *
+         * @param position  The position.
+         * @param remaining The remaining depth of the search.
+         * @param ply       The distance to the root.
+         * @param alpha     The value the ai is already sure of.
+         * @param beta      The value the human is already sure of.
+         * @param stage     The stage of the game of the position.
+         * @return {@code beta} or {@code alpha}, if the value is predicted
+         *         to lie beyond it. {@code NaN}, if the position has to be
+         *         searched.
+         */
+        private double predict(ReversiBoard position, int remaining, int ply,
+                               double alpha, double beta, int stage) {
+            if (!probCut.covers(remaining, stage)) {
+                return Double.NaN;
+            }
+            int shallow = ProbCut.shallowDepth(remaining);
+            double slope = probCut.getSlope(remaining, stage);
+            double intercept = probCut.getIntercept(remaining, stage);
+            double margin = probCut.getThreshold()
+                    * probCut.getDeviation(remaining, stage);
+
+            if (beta != Double.POSITIVE_INFINITY) {
+                double bound = (beta + margin - intercept) / slope;
+                if (value(position, shallow, ply, Math.nextDown(bound),
+                        bound) >= bound) {
+                    return aborted ? Double.NaN : beta;
+                }
+            }
+            if (alpha != Double.NEGATIVE_INFINITY && !aborted) {
+                double bound = (alpha - margin - intercept) / slope;
+                if (value(position, shallow, ply, bound,
+                        Math.nextUp(bound)) <= bound) {
+                    return aborted ? Double.NaN : alpha;
+                }
+            }
+            return Double.NaN;
+        }
+
+        /**
+         * Computes the value of a position like a node of the Min-Max tree:
+         * its own points plus the value of the best move, from the view of
+         * the ai. Values outside the window are only bounds.
+         *
+         * @param position  The position.
+         * @param remaining The remaining depth of the search.
+         * @param ply       The distance to the root.
+         * @param alpha     The value the ai is already sure of.
+         * @param beta      The value the human is already sure of.
+         * @return The exact value, if it lies within the window. Else an
+         *         upper bound at most {@code alpha} or a lower bound at least
+         *         {@code beta}.
+         */
+        private double value(ReversiBoard position, int remaining, int ply,
+                             double alpha, double beta) {
+            if (remaining == 0) {
+                return Evaluation.evaluateBoard(position);
+            }
+            long ai = position.discMask(Player.AI);
+            long human = position.discMask(Player.HUMAN);
+            boolean humanToMove = position.isHumanToMove();
+            if (table != null
+                    && table.probe(ai, human, humanToMove, remaining, hit)) {
+                double stored = hit.getValue();
+                int bound = hit.getBound();
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && stored >= beta
+                        || bound == TranspositionTable.UPPER
+                        && stored <= alpha) {
+                    return stored;
+                }
+            }
+            if (stopped || budget.exhausted()) {
+                aborted = true;
+                return 0;
+            }
+            if (probCut != null && remaining >= ProbCut.MIN_DEPTH) {
+                double cut = predict(position, remaining, ply, alpha, beta,
+                        ProbCut.stage(ai | human));
+                if (aborted) {
+                    return 0;
+                } else if (!Double.isNaN(cut)) {
+                    return cut;
+                }
+            }
+
+            double points = Evaluation.evaluateBoard(position);
+            ReversiBoard mover = position;
+            int[] moves = buffer.ply(ply);
+            int count = ReversiBoard.generateMoves(position,
+                    position.getColor(), moves);
+
+            // The enemy moves on, if the player has to pass.
+            if (count == 0) {
+                mover = position.passTurn();
+                count = ReversiBoard.generateMoves(mover, mover.getColor(),
+                        moves);
+                if (count == 0) {
+                    return points;
+                }
+            }
+            budget.spend(count);
+
+            boolean maximize = !mover.isHumanToMove();
+            double low = below(alpha, points);
+            double high = above(beta, points);
+            double best = maximize ? Double.NEGATIVE_INFINITY
+                    : Double.POSITIVE_INFINITY;
+            for (int i = 0; i < count && low < high; ++i) {
+                ReversiBoard child = (ReversiBoard) mover.makeMove(moves[i]);
+                double childValue;
+                if (i > 0 && principalVariation) {
+                    childValue = test(child, remaining - 1, ply + 1, low,
+                            high, maximize);
+                } else {
+                    childValue = value(child, remaining - 1, ply + 1, low,
+                            high);
+                }
+                if (aborted) {
+                    return 0;
+                }
+                if (maximize ? childValue > best : childValue < best) {
+                    best = childValue;
+                }
+                if (maximize && best > low) {
+                    low = best;
+                } else if (!maximize && best < high) {
+                    high = best;
+                }
+            }
+
+            double result = points + best;
+            if (table != null) {
+                int bound = result <= alpha ? TranspositionTable.UPPER
+                        : result >= beta ? TranspositionTable.LOWER
+                        : TranspositionTable.EXACT;
+                table.store(ai, human, humanToMove, remaining, result, bound);
+            }
+            return result;
+        }
+
+    }
+
+}
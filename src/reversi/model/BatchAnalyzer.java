@@ -0,0 +1,395 @@
+package reversi.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyzes a file of positions in {@link PositionNotation} on all cores and
+ * writes the best move, its score and the statistics of the search of each
+ * position into an output file, one line per position.
+ * <p>
+ * The positions are streamed: only a few of them per thread are read ahead,
+ * so the memory does not grow with the input. The results are written in
+ * the order of the input as soon as they are complete. An interrupted run
+ * is resumed by starting it again with the same files, as the output then
+ * continues behind the last position written completely.
+ * <p>
+ * Lines of the output, separated by tabs: the line number of the position
+ * in the input, the move like {@code f5} ({@code pa} for a pass, {@code --}
+ * at the end of the game), the score from the view of the player with the
+ * turn, the finished depth, the visited nodes and the milliseconds of the
+ * search. A line that is no valid position gets {@code error} and the
+ * reason instead.
+ */
+public final class BatchAnalyzer {
+
+    /**
+     * Depth of the searches, unless another one is given.
+     */
+    static final int DEPTH = 6;
+
+    /**
+     * Number of positions per thread, that may be read ahead or wait to be
+     * written.
+     */
+    private static final int WINDOW_PER_THREAD = 4;
+
+    /**
+     * Most milliseconds written results stay buffered.
+     */
+    private static final long FLUSH_MILLIS = 1000;
+
+    /**
+     * Number of positions after which the progress is printed.
+     */
+    private static final int PROGRESS = 10000;
+
+    /**
+     * Header of the output.
+     */
+    private static final String HEADER =
+            "# line\tmove\tscore\tdepth\tnodes\tmillis";
+
+    /**
+     * The engine searching the positions.
+     */
+    private final SearchEngine engine;
+
+    /**
+     * The limits of each search.
+     */
+    private final SearchLimits limits;
+
+    /**
+     * The output.
+     */
+    private final BufferedWriter out;
+
+    /**
+     * Permits to read another position, one per free slot of
+     * {@link #pending}.
+     */
+    private final Semaphore window;
+
+    /**
+     * The results not yet written, indexed by their sequence number modulo
+     * the length.
+     */
+    private final String[] pending;
+
+    /**
+     * Sequence number of the next result to write.
+     */
+    private long written;
+
+    /**
+     * When the output was flushed last.
+     */
+    private long flushed = System.currentTimeMillis();
+
+    /**
+     * The first failure to write the output.
+     */
+    private IOException failure;
+
+    /**
+     * Creates an analyzer.
+     *
+     * @param engine  The engine searching the positions.
+     * @param limits  The limits of each search.
+     * @param out     The output.
+     * @param threads The number of threads searching.
+     */
+    private BatchAnalyzer(SearchEngine engine, SearchLimits limits,
+                          BufferedWriter out, int threads) {
+        this.engine = engine;
+        this.limits = limits;
+        this.out = out;
+        this.pending = new String[threads * WINDOW_PER_THREAD];
+        this.window = new Semaphore(pending.length);
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when starting the
+     * analysis: {@code input output [depth [millis [threads [engine]]]]}.
+     * The time limit applies to each search, the threads default to the
+     * number of cores and the engine to the default engine.
+     *
+     * @param args The parameters.
+     * @throws IOException          If a file can't be read or written.
+     * @throws InterruptedException If the analysis is interrupted.
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        if (args.length < 2) {
+            printHelp();
+            return;
+        }
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : DEPTH;
+        long millis = args.length > 3 ? Long.parseLong(args[3])
+                : SearchLimits.MAX_MILLIS;
+        int threads = args.length > 4 ? Integer.parseInt(args[4])
+                : Runtime.getRuntime().availableProcessors();
+        SearchEngine engine = args.length > 5
+                ? SearchEngines.forName(args[5]) : SearchEngines.getDefault();
+        if (threads < 1 || threads > SearchLimits.MAX_THREADS) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+
+        // The searches share the memory limit, each runs on a single thread.
+        SearchLimits limits = new SearchLimits(depth, SearchLimits.MAX_NODES,
+                millis, SearchLimits.MAX_MEMORY / threads, 1);
+        long start = System.currentTimeMillis();
+        long analyzed = run(Paths.get(args[0]), Paths.get(args[1]), engine,
+                limits, threads);
+        System.out.println("Analyzed " + analyzed + " positions in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Analyzes the positions of a file, that are not yet in the output.
+     *
+     * @param input   The file of positions.
+     * @param output  The output, continued if it exists.
+     * @param engine  The engine searching the positions.
+     * @param limits  The limits of each search.
+     * @param threads The number of threads searching.
+     * @return The number of positions analyzed by this run.
+     * @throws IOException          If a file can't be read or written.
+     * @throws InterruptedException If the analysis is interrupted.
+     */
+    public static long run(Path input, Path output, SearchEngine engine,
+                           SearchLimits limits, int threads)
+            throws IOException, InterruptedException {
+        long done = resume(output);
+        if (done > 0) {
+            System.out.println("Resuming behind line " + done);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (InputStream in = Files.newInputStream(input);
+             PositionNotation.Reader reader = new PositionNotation.Reader(in);
+             BufferedWriter out = Files.newBufferedWriter(output,
+                     StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                     StandardOpenOption.APPEND)) {
+            if (done < 0) {
+                out.write(HEADER);
+                out.newLine();
+            }
+            BatchAnalyzer analyzer = new BatchAnalyzer(engine, limits, out,
+                    threads);
+            long sequence = analyzer.submitAll(reader, done, pool);
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            analyzer.checkFailure();
+            return sequence;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the positions behind a line and hands them to the threads,
+     * waiting while the window is full. All boards are started by the
+     * human, see {@link ReversiBoard#ReversiBoard(Player)}.
+     *
+     * @param reader The reader of the positions.
+     * @param done   The number of the last line already analyzed.
+     * @param pool   The threads searching.
+     * @return The number of positions handed over.
+     * @throws IOException          If the input can't be read or the output
+     *                              can't be written.
+     * @throws InterruptedException If the analysis is interrupted.
+     */
+    private long submitAll(PositionNotation.Reader reader, long done,
+                           ExecutorService pool)
+            throws IOException, InterruptedException {
+        long sequence = 0;
+        while (true) {
+            String error = null;
+            try {
+                if (!reader.next()) {
+                    return sequence;
+                }
+            } catch (IllegalArgumentException invalid) {
+                error = invalid.getMessage();
+            }
+            long line = reader.getLineNumber();
+            if (line <= done) {
+                continue;
+            }
+            window.acquire();
+            checkFailure();
+            long index = sequence++;
+            if (index > 0 && index % PROGRESS == 0) {
+                System.out.println(index + " positions read, line " + line);
+            }
+            if (error != null) {
+                complete(index, line + "\terror\t" + error);
+            } else {
+                ReversiBoard board = ReversiBoard.of(reader.getHumanTiles(),
+                        reader.getMachineTiles(), reader.getPlayerToMove(),
+                        Player.HUMAN);
+                pool.execute(() -> complete(index, analyze(line, board)));
+            }
+        }
+    }
+
+    /**
+     * Searches a single position.
+     *
+     * @param line  The number of its line in the input.
+     * @param board The position.
+     * @return The line of the output.
+     */
+    private String analyze(long line, ReversiBoard board) {
+        if (board.gameOver()) {
+            int human = board.getNumberOfHumanTiles();
+            int machine = board.getNumberOfMachineTiles();
+            int difference = board.isHumanToMove() ? human - machine
+                    : machine - human;
+            return line + "\t--\t" + difference + "\t0\t0\t0";
+        }
+        boolean pass = ReversiBoard.legalMask(board, board.getColor()) == 0;
+        SearchResult result;
+        try {
+            result = engine.search(pass ? board.passTurn() : board, limits);
+        } catch (RuntimeException failed) {
+            return line + "\terror\t" + failed;
+        }
+        String move = pass ? "pa" : "" + (char) ('a' + result.getColumn())
+                + (result.getRow() + 1);
+        double score = pass ? -result.getScore() : result.getScore();
+        return String.format(Locale.ROOT, "%d\t%s\t%s\t%d\t%d\t%d", line,
+                move, Double.toString(score), result.getDepth(),
+                result.getNodes(), result.getMillis());
+    }
+
+    /**
+     * Stores the result of a position and writes all results, whose
+     * predecessors are written.
+     *
+     * @param index  The sequence number of the position.
+     * @param result The line of the output.
+     */
+    private synchronized void complete(long index, String result) {
+        pending[(int) (index % pending.length)] = result;
+        int slot = (int) (written % pending.length);
+        while (pending[slot] != null) {
+            try {
+                if (failure == null) {
+                    out.write(pending[slot]);
+                    out.newLine();
+                }
+            } catch (IOException writeFailed) {
+                failure = writeFailed;
+            }
+            pending[slot] = null;
+            ++written;
+            window.release();
+            slot = (int) (written % pending.length);
+        }
+        long now = System.currentTimeMillis();
+        if (failure == null && now - flushed >= FLUSH_MILLIS) {
+            try {
+                out.flush();
+            } catch (IOException flushFailed) {
+                failure = flushFailed;
+            }
+            flushed = now;
+        }
+    }
+
+    /**
+     * Throws the first failure to write the output.
+     *
+     * @throws IOException If the output could not be written.
+     */
+    private synchronized void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Prepares an existing output to be continued. A line, that was only
+     * partially written, is cut off.
+     *
+     * @param output The output.
+     * @return The number of the last input line in the output, {@code 0}
+     *         if it has no results and {@code -1} if it needs the header.
+     * @throws IOException If the output can't be read or written.
+     */
+    private static long resume(Path output) throws IOException {
+        if (!Files.exists(output)) {
+            return -1;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(output.toFile(),
+                "rw")) {
+            long end = file.length();
+            while (end > 0 && readByte(file, end - 1) != '\n') {
+                --end;
+            }
+            file.setLength(end);
+            if (end == 0) {
+                return -1;
+            }
+            long start = end - 1;
+            while (start > 0 && readByte(file, start - 1) != '\n') {
+                --start;
+            }
+            file.seek(start);
+            byte[] last = new byte[(int) (end - start)];
+            file.readFully(last);
+            String text = new String(last, StandardCharsets.UTF_8).trim();
+            int tab = text.indexOf('\t');
+            if (text.startsWith("#") || tab < 0) {
+                return 0;
+            }
+            try {
+                return Long.parseLong(text.substring(0, tab));
+            } catch (NumberFormatException notNumber) {
+                throw new IOException(output + " is no output of an"
+                        + " analysis");
+            }
+        }
+    }
+
+    /**
+     * Reads a single byte of a file.
+     *
+     * @param file     The file.
+     * @param position The position of the byte.
+     * @return The byte.
+     * @throws IOException If the file can't be read.
+     */
+    private static int readByte(RandomAccessFile file, long position)
+            throws IOException {
+        file.seek(position);
+        return file.read();
+    }
+
+    /**
+     * Prints the usage of the tool.
+     */
+    private static void printHelp() {
+        System.out.println("Reversi batch analysis\n"
+                + "input output [depth [millis [threads [engine]]]] - "
+                + "analyzes one position per line of the input\n"
+                + "Starting again with the same output continues an "
+                + "interrupted analysis.\n"
+                + "Engines: " + SearchEngines.names());
+    }
+
+}
@@ -0,0 +1,611 @@
+package reversi.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Micro benchmarks for the hot paths of the engine. Each benchmark runs on a
+ * fixed corpus of positions taken from random games, is warmed up first and
+ * then prints the average time per call.
+ */
+public final class Benchmark {
+
+    /**
+     * Number of positions in the corpus.
+     */
+    private static final int CORPUS_SIZE = 2000;
+
+    /**
+     * Seed of the random games the corpus is taken from.
+     */
+    private static final long SEED = 20170217L;
+
+    /**
+     * Number of passes over the corpus before measuring.
+     */
+    private static final int WARMUP_ROUNDS = 200;
+
+    /**
+     * Number of measured passes over the corpus.
+     */
+    private static final int MEASURED_ROUNDS = 500;
+
+    /**
+     * Number of games per level in the Monte Carlo match.
+     */
+    private static final int MATCH_GAMES = 10;
+
+    /**
+     * Number of playouts per move of the Monte Carlo search in the match.
+     */
+    private static final long MATCH_PLAYOUTS = 5000;
+
+    /**
+     * Number of positions of the corpus the analysis is measured on.
+     */
+    private static final int ANALYSIS_POSITIONS = 100;
+
+    /**
+     * Number of positions of the corpus the parallel search is measured on.
+     */
+    private static final int SMP_POSITIONS = 20;
+
+    /**
+     * Deepest depth the parallel search is measured at.
+     */
+    private static final int SMP_DEPTH = 6;
+
+    /**
+     * Time budgets in milliseconds the selective search is compared at.
+     */
+    private static final long[] MPC_MILLIS = {100, 500};
+
+    /**
+     * Number of positions of the corpus the selective search is compared
+     * on.
+     */
+    private static final int MPC_POSITIONS = 40;
+
+    /**
+     * Prevents the JIT from removing the benchmarked calls.
+     */
+    private static long sink;
+
+    /**
+     * Private constructor to ensure no Benchmark object can be initialized.
+     */
+    private Benchmark() {
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when starting the
+     * benchmarks.
+     *
+     * @param args The names of the benchmarks to run. Runs all, if empty.
+     */
+    public static void main(String[] args) {
+        List<ReversiBoard> corpus = corpus(CORPUS_SIZE, SEED);
+        boolean all = args.length == 0;
+        for (String name : all ? new String[]{"movegen", "kernel",
+                "stability", "nnue", "analyze", "pvs", "mpc", "smp", "mcts"}
+                : args) {
+            switch (name) {
+                case "movegen":
+                    benchMoveGeneration(corpus);
+                    break;
+                case "kernel":
+                    benchKernels(corpus);
+                    break;
+                case "stability":
+                    benchStability(corpus);
+                    break;
+                case "nnue":
+                    benchNetwork(corpus);
+                    break;
+                case "analyze":
+                    benchAnalysis(corpus);
+                    break;
+                case "pvs":
+                    benchWindows(corpus);
+                    break;
+                case "mpc":
+                    benchProbCut(corpus);
+                    break;
+                case "smp":
+                    benchParallelSearch(corpus);
+                    break;
+                case "mcts":
+                    benchMonteCarlo();
+                    break;
+                default:
+                    System.out.println("Unknown benchmark " + name);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Collects positions by playing random games from the start position.
+     *
+     * @param count The number of positions to collect.
+     * @param seed  The seed of the random games.
+     * @return The collected positions.
+     */
+    static List<ReversiBoard> corpus(int count, long seed) {
+        Random random = new Random(seed);
+        List<ReversiBoard> positions = new ArrayList<>(count);
+        ReversiBoard current = new ReversiBoard(Player.HUMAN);
+        while (positions.size() < count) {
+            if (current.gameOver()) {
+                current = new ReversiBoard(Player.HUMAN);
+            }
+            List<Move> moves = ReversiBoard.computePossibleMoves(current);
+            if (moves.isEmpty()) {
+                current = current.passTurn();
+            } else {
+                Move move = moves.get(random.nextInt(moves.size()));
+                current = (ReversiBoard) current.makeMove(move);
+                positions.add(current);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Measures the computation of all possible moves of a position.
+     *
+     * @param corpus The positions to use.
+     */
+    private static void benchMoveGeneration(List<ReversiBoard> corpus) {
+        int[] moves = new int[Rays.SQUARES];
+        Runnable pass = () -> {
+            for (ReversiBoard position : corpus) {
+                sink += ReversiBoard.generateMoves(position,
+                        position.getColor(), moves);
+            }
+        };
+        report("movegen", corpus.size(), pass);
+    }
+
+    /**
+     * Compares the move generation on the rays with the one on the bit
+     * masks, regardless of which one the board uses, and the flipping of
+     * tiles on the board with the flips on bare bit masks. Every flip on the
+     * board works on a fresh copy of the position and updates its slots and
+     * masks, so the copy alone is measured as well.
+     *
+     * @param corpus The positions to use.
+     */
+    private static void benchKernels(List<ReversiBoard> corpus) {
+        int[] moves = new int[Rays.SQUARES];
+        Runnable scanned = () -> {
+            for (ReversiBoard position : corpus) {
+                sink += ReversiBoard.scanMoves(position, position.getColor(),
+                        moves);
+            }
+        };
+        report("moves rays", corpus.size(), scanned);
+        if (Rays.SQUARES != Long.SIZE) {
+            return;
+        }
+        Runnable masked = () -> {
+            for (ReversiBoard position : corpus) {
+                sink += Bitboards.toSquares(ReversiBoard.legalMask(position,
+                        position.getColor()), moves);
+            }
+        };
+        report("moves masks", corpus.size(), masked);
+
+        List<ReversiBoard> flipped = new ArrayList<>();
+        List<Integer> squares = new ArrayList<>();
+        for (ReversiBoard position : corpus) {
+            int count = ReversiBoard.scanMoves(position, position.getColor(),
+                    moves);
+            if (count > 0) {
+                flipped.add(position);
+                squares.add(moves[count / 2]);
+            }
+        }
+        Runnable copy = () -> {
+            for (ReversiBoard position : flipped) {
+                sink += position.clone().hashCode();
+            }
+        };
+        report("copy", flipped.size(), copy);
+        Runnable flipBoard = () -> {
+            for (int i = 0; i < flipped.size(); ++i) {
+                ReversiBoard played = (ReversiBoard) flipped.get(i).clone();
+                played.playInPlace(squares.get(i));
+                sink += played.hashCode();
+            }
+        };
+        report("flip board", flipped.size(), flipBoard);
+        long[] own = new long[flipped.size()];
+        long[] enemy = new long[flipped.size()];
+        for (int i = 0; i < flipped.size(); ++i) {
+            ReversiBoard position = flipped.get(i);
+            Player mover = position.isHumanToMove() ? Player.HUMAN
+                    : Player.AI;
+            own[i] = position.discMask(mover);
+            enemy[i] = position.discMask(position.next());
+        }
+        Runnable flipMasks = () -> {
+            for (int i = 0; i < own.length; ++i) {
+                sink += Bitboards.flips(own[i], enemy[i], squares.get(i));
+            }
+        };
+        report("flip masks", own.length, flipMasks);
+    }
+
+    /**
+     * Measures the search of the stable tiles of both players and, for
+     * comparison, the whole evaluation of a position.
+     *
+     * @param corpus The positions to use.
+     */
+    private static void benchStability(List<ReversiBoard> corpus) {
+        long[] ai = new long[corpus.size()];
+        long[] human = new long[corpus.size()];
+        for (int i = 0; i < corpus.size(); ++i) {
+            ai[i] = corpus.get(i).discMask(Player.AI);
+            human[i] = corpus.get(i).discMask(Player.HUMAN);
+        }
+        Runnable stable = () -> {
+            for (int i = 0; i < ai.length; ++i) {
+                sink += StableDiscs.stable(ai[i], human[i])
+                        ^ StableDiscs.stable(human[i], ai[i]);
+            }
+        };
+        report("stability", corpus.size(), stable);
+        Runnable evaluate = () -> {
+            for (ReversiBoard position : corpus) {
+                sink += (long) Evaluation.evaluateBoard(position);
+            }
+        };
+        report("evaluate", corpus.size(), evaluate);
+    }
+
+    /**
+     * Compares the heuristic evaluation with the network: the output of the
+     * network from a finished accumulator, and the update of both
+     * accumulators for the tiles a move places and flips. The heuristic is
+     * only measured, if the network is not active.
+     *
+     * @param corpus The positions to use.
+     */
+    private static void benchNetwork(List<ReversiBoard> corpus) {
+        Network network = Network.ACTIVE != null ? Network.ACTIVE
+                : Network.load();
+        if (Network.ACTIVE == null) {
+            Runnable heuristic = () -> {
+                for (ReversiBoard position : corpus) {
+                    sink += (long) Evaluation.evaluateBoard(position);
+                }
+            };
+            report("heuristic", corpus.size(), heuristic);
+        }
+        if (network == null) {
+            System.out.println("nnue: no network found");
+            return;
+        }
+
+        short[][] accumulators = new short[corpus.size()][];
+        for (int i = 0; i < corpus.size(); ++i) {
+            ReversiBoard position = corpus.get(i);
+            accumulators[i] = network.accumulate(
+                    position.discMask(Player.AI),
+                    position.discMask(Player.HUMAN));
+        }
+        Runnable evaluate = () -> {
+            for (short[] accumulator : accumulators) {
+                sink += (long) network.evaluate(accumulator);
+            }
+        };
+        report("network", corpus.size(), evaluate);
+
+        int[] moves = new int[Rays.SQUARES];
+        List<short[]> red = new ArrayList<>();
+        List<short[]> blue = new ArrayList<>();
+        List<Integer> squares = new ArrayList<>();
+        List<Long> flips = new ArrayList<>();
+        for (ReversiBoard position : corpus) {
+            int count = ReversiBoard.generateMoves(position,
+                    position.getColor(), moves);
+            if (count > 0) {
+                long own = position.discMask(position.isHumanToMove()
+                        ? Player.HUMAN : Player.AI);
+                long enemy = position.discMask(position.next());
+                red.add(network.accumulate(own, enemy));
+                blue.add(network.accumulate(enemy, own));
+                squares.add(moves[count / 2]);
+                flips.add(Bitboards.flips(own, enemy, moves[count / 2]));
+            }
+        }
+        Runnable update = () -> {
+            for (int i = 0; i < squares.size(); ++i) {
+                short[] own = red.get(i).clone();
+                short[] enemy = blue.get(i).clone();
+                network.update(own, enemy, squares.get(i), Token.FREE,
+                        Token.RED);
+                for (long rest = flips.get(i); rest != 0;
+                     rest &= rest - 1) {
+                    network.update(own, enemy,
+                            Long.numberOfTrailingZeros(rest), Token.BLUE,
+                            Token.RED);
+                }
+                sink += own[0] + enemy[0];
+            }
+        };
+        report("net update", squares.size(), update);
+    }
+
+    /**
+     * Measures the average and the slowest multi-PV analysis of the default
+     * engine at the depths 1 to 5.
+     *
+     * @param corpus The positions to use.
+     */
+    private static void benchAnalysis(List<ReversiBoard> corpus) {
+        SearchEngine engine = SearchEngines.getDefault();
+        int step = corpus.size() / ANALYSIS_POSITIONS;
+        for (int depth = 1; depth <= 5; ++depth) {
+            SearchLimits limits = new SearchLimits(depth);
+            long total = 0;
+            long slowest = 0;
+            int count = 0;
+            for (int i = 0; i < corpus.size(); i += step) {
+                ReversiBoard position = corpus.get(i);
+                if (hasMove(position)) {
+                    long start = System.nanoTime();
+                    sink += engine.analyze(position, limits).size();
+                    long duration = System.nanoTime() - start;
+                    total += duration;
+                    slowest = Math.max(slowest, duration);
+                    ++count;
+                }
+            }
+            System.out.printf("analyze depth %d %8.1f ms avg %8.1f ms max%n",
+                    depth, total / 1e6 / count, slowest / 1e6);
+        }
+    }
+
+    /**
+     * Compares the plain alpha-beta search with the principal variation
+     * search at the depths 1 to 5: the nodes and the time per search, and
+     * how often the narrow windows failed and had to be searched again.
+     *
+     * @param corpus The positions to use.
+     */
+    private static void benchWindows(List<ReversiBoard> corpus) {
+        SearchEngine plain = new AlphaBetaEngine();
+        SearchEngine principal = new PvsEngine();
+        int step = corpus.size() / ANALYSIS_POSITIONS;
+        for (int depth = 1; depth <= 5; ++depth) {
+            SearchLimits limits = new SearchLimits(depth);
+            long plainNodes = 0;
+            long plainNanos = 0;
+            long nodes = 0;
+            long nanos = 0;
+            long researches = 0;
+            long windowFails = 0;
+            int count = 0;
+            for (int i = 0; i < corpus.size(); i += step) {
+                ReversiBoard position = corpus.get(i);
+                if (hasMove(position)) {
+                    long start = System.nanoTime();
+                    plainNodes += plain.search(position, limits).getNodes();
+                    long middle = System.nanoTime();
+                    SearchResult result = principal.search(position, limits);
+                    nanos += System.nanoTime() - middle;
+                    plainNanos += middle - start;
+                    nodes += result.getNodes();
+                    researches += result.getResearches();
+                    windowFails += result.getWindowFails();
+                    ++count;
+                }
+            }
+            System.out.printf("pvs depth %d: alphabeta %9d nodes %7.1f ms,"
+                    + " pvs %9d nodes %7.1f ms, %6.2f re-searches"
+                    + " %4.2f failed windows per search%n", depth,
+                    plainNodes / count, plainNanos / 1e6 / count,
+                    nodes / count, nanos / 1e6 / count,
+                    researches / (double) count,
+                    windowFails / (double) count);
+        }
+    }
+
+    /**
+     * Compares the principal variation search with and without Multi-ProbCut
+     * at equal time: the average depth each finishes within the budget, how
+     * often both choose the same move, and a match between both, where each
+     * side moves within the smallest budget.
+     *
+     * @param corpus The positions to use.
+     */
+    private static void benchProbCut(List<ReversiBoard> corpus) {
+        SearchEngine full = new PvsEngine();
+        SearchEngine selective = new MpcEngine();
+        int step = corpus.size() / MPC_POSITIONS;
+        for (long millis : MPC_MILLIS) {
+            SearchLimits limits = new SearchLimits(SearchLimits.MAX_DEPTH,
+                    SearchLimits.MAX_NODES, millis);
+            long fullDepth = 0;
+            long selectiveDepth = 0;
+            int same = 0;
+            int count = 0;
+            for (int i = 0; i < corpus.size(); i += step) {
+                ReversiBoard position = corpus.get(i);
+                if (hasMove(position)) {
+                    SearchResult left = full.search(position, limits);
+                    SearchResult right = selective.search(position, limits);
+                    fullDepth += left.getDepth();
+                    selectiveDepth += right.getDepth();
+                    if (left.getRow() == right.getRow()
+                            && left.getColumn() == right.getColumn()) {
+                        ++same;
+                    }
+                    ++count;
+                }
+            }
+            System.out.printf("mpc %4d ms: pvs depth %5.2f, mpc depth %5.2f,"
+                    + " %3d%% same moves%n", millis,
+                    fullDepth / (double) count,
+                    selectiveDepth / (double) count, same * 100 / count);
+        }
+
+        SearchLimits limits = new SearchLimits(SearchLimits.MAX_DEPTH,
+                SearchLimits.MAX_NODES, MPC_MILLIS[0]);
+        int[] score = new int[3];
+        for (int game = 0; game < MATCH_GAMES; ++game) {
+            // Start from different positions, each with both colors.
+            ReversiBoard board = corpus.get(game / 2);
+            boolean selectiveIsAi = game % 2 == 0;
+            while (!board.gameOver()) {
+                if (!hasMove(board)) {
+                    board = board.passTurn();
+                } else {
+                    boolean aiToMove = !board.isHumanToMove();
+                    SearchEngine engine = aiToMove == selectiveIsAi
+                            ? selective : full;
+                    SearchResult best = engine.search(board, limits);
+                    board = (ReversiBoard) board.makeMove(best.getRow()
+                            * Board.SIZE + best.getColumn());
+                }
+            }
+            Player winner = board.getWinner();
+            if (winner == Player.TIE) {
+                ++score[2];
+            } else if ((winner == Player.AI) == selectiveIsAi) {
+                ++score[0];
+            } else {
+                ++score[1];
+            }
+        }
+        System.out.printf("mpc vs pvs at %d ms: %d wins %d losses %d ties%n",
+                MPC_MILLIS[0], score[0], score[1], score[2]);
+    }
+
+    /**
+     * Measures how the alpha-beta search scales with its threads: the nodes
+     * per second of all threads and the average time to finish each depth,
+     * for 1, 2, 4 and so on up to the number of cores.
+     *
+     * @param corpus The positions to use.
+     */
+    private static void benchParallelSearch(List<ReversiBoard> corpus) {
+        SearchEngine engine = new AlphaBetaEngine();
+        int cores = Runtime.getRuntime().availableProcessors();
+        int step = corpus.size() / SMP_POSITIONS;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            StringBuilder curve = new StringBuilder();
+            long nodes = 0;
+            long nanos = 0;
+            for (int depth = 1; depth <= SMP_DEPTH; ++depth) {
+                SearchLimits limits = new SearchLimits(depth,
+                        SearchLimits.MAX_NODES, SearchLimits.MAX_MILLIS,
+                        SearchLimits.MAX_MEMORY, threads);
+                long depthNanos = 0;
+                int count = 0;
+                for (int i = 0; i < corpus.size(); i += step) {
+                    ReversiBoard position = corpus.get(i);
+                    if (hasMove(position)) {
+                        long start = System.nanoTime();
+                        nodes += engine.search(position, limits).getNodes();
+                        depthNanos += System.nanoTime() - start;
+                        ++count;
+                    }
+                }
+                nanos += depthNanos;
+                curve.append(String.format(" %8.1f", depthNanos / 1e6
+                        / count));
+            }
+            System.out.printf("smp %2d thr %10.0f nodes/s, ms to depth 1-%d:"
+                    + "%s%n", threads, nodes * 1e9 / nanos, SMP_DEPTH, curve);
+        }
+    }
+
+    /**
+     * Measures the playouts per second of the Monte Carlo search with one
+     * and with all threads, then lets it play against the default engine of
+     * the levels 1 to 4. The Monte Carlo search plays the human side with a
+     * fixed number of playouts per move, both sides start every other game.
+     */
+    private static void benchMonteCarlo() {
+        ReversiBoard start = new ReversiBoard(Player.HUMAN);
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = cores > 1 ? new int[]{1, cores} : new int[]{1};
+        for (int threads : threadCounts) {
+            MonteCarloSearch search = new MonteCarloSearch(threads, 3000,
+                    Long.MAX_VALUE);
+            search.search(start);
+            System.out.printf("mcts %2d thr %10.0f playouts/s%n", threads,
+                    search.getPlayouts() * 1000.0
+                            / Math.max(1, search.getElapsed()));
+        }
+
+        for (int level = 1; level <= 4; ++level) {
+            int[] score = new int[3];
+            for (int game = 0; game < MATCH_GAMES; ++game) {
+                Player starter = game % 2 == 0 ? Player.HUMAN : Player.AI;
+                Board board = new ReversiBoard(starter);
+                board.setLevel(level);
+                while (!board.gameOver()) {
+                    if (board.next() == Player.HUMAN) {
+                        board = board.machineMove();
+                    } else {
+                        ReversiBoard position = (ReversiBoard) board;
+                        if (hasMove(position)) {
+                            int square = new MonteCarloSearch(cores,
+                                    Long.MAX_VALUE, MATCH_PLAYOUTS)
+                                    .search(position);
+                            board = board.move(Rays.ROW[square],
+                                    Rays.COL[square]);
+                        } else {
+                            board = position.passTurn();
+                        }
+                    }
+                }
+                ++score[board.getWinner().ordinal()];
+            }
+            System.out.printf("mcts vs %s level %d: %d wins %d losses"
+                    + " %d ties%n", SearchEngines.DEFAULT, level,
+                    score[Player.HUMAN.ordinal()],
+                    score[Player.AI.ordinal()], score[Player.TIE.ordinal()]);
+        }
+    }
+
+    /**
+     * Tests if the player with the turn can make a move.
+     *
+     * @param position The position to test.
+     * @return {@code true} if the player has a move.
+     */
+    private static boolean hasMove(ReversiBoard position) {
+        return ReversiBoard.hasMove(position, position.getColor());
+    }
+
+    /**
+     * Runs a pass over the corpus repeatedly and prints the time per call.
+     *
+     * @param name  The name of the benchmark.
+     * @param calls The number of calls in one pass.
+     * @param pass  A single pass over the corpus.
+     */
+    private static void report(String name, int calls, Runnable pass) {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            pass.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; ++i) {
+            pass.run();
+        }
+        double perCall = (System.nanoTime() - start)
+                / ((double) MEASURED_ROUNDS * calls);
+        System.out.printf("%-12s %10.1f ns/call%n", name, perCall);
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+}
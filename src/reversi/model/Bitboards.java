@@ -0,0 +1,156 @@
+package reversi.model;
+
+/**
+ * Move generation and flipping on bit masks, where bit
+ * {@code row * Board.SIZE + col} stands for a slot. Instead of walking the
+ * rays of one square after the other, a single shift moves every tile of a
+ * mask one step into a direction, so each of the 64 bits works like a lane
+ * of its own. Only usable, if the board has exactly 64 slots; otherwise
+ * {@link #ENABLED} is {@code false} and the board walks the rays of
+ * {@link Rays} instead. Setting the system property {@code reversi.kernel}
+ * to {@code scalar} forces the rays as well.
+ */
+final class Bitboards {
+
+    /**
+     * Indicates if the board uses the bit masks for its moves.
+     */
+    static final boolean ENABLED = Rays.SQUARES == Long.SIZE
+            && !"scalar".equals(System.getProperty("reversi.kernel"));
+
+    /**
+     * All slots of the left column.
+     */
+    private static final long LEFT = 0x0101010101010101L;
+
+    /**
+     * All slots of the right column.
+     */
+    private static final long RIGHT = 0x8080808080808080L;
+
+    /**
+     * The shifts of the 4 lines: to the right, down left, down and down
+     * right. Shifting the other way gives the opposite direction.
+     */
+    private static final int[] SHIFTS = {1, 7, 8, 9};
+
+    /**
+     * The slots, that a shift to higher bits may reach without wrapping
+     * around the border, for each line.
+     */
+    private static final long[] UP_MASKS = {~LEFT, ~RIGHT, -1L, ~LEFT};
+
+    /**
+     * The slots, that a shift to lower bits may reach without wrapping
+     * around the border, for each line.
+     */
+    private static final long[] DOWN_MASKS = {~RIGHT, ~LEFT, -1L, ~RIGHT};
+
+    /**
+     * Private constructor to ensure no Bitboards object can be initialized.
+     */
+    private Bitboards() {
+    }
+
+    /**
+     * Computes the possible moves of a player.
+     *
+     * @param own   The tiles of the player.
+     * @param enemy The tiles of the other player.
+     * @return The free slots, that enclose at least one tile of the enemy.
+     */
+    static long moves(long own, long enemy) {
+        long moves = 0;
+        for (int line = 0; line < SHIFTS.length; ++line) {
+            int shift = SHIFTS[line];
+            long upMask = UP_MASKS[line];
+            long downMask = DOWN_MASKS[line];
+
+            // Follow the enemy tiles next to own tiles in both directions.
+            // A line holds at most 6 enemy tiles between two slots.
+            long up = own << shift & upMask & enemy;
+            long down = own >>> shift & downMask & enemy;
+            for (int step = 1; step < Board.SIZE - 2; ++step) {
+                up |= up << shift & upMask & enemy;
+                down |= down >>> shift & downMask & enemy;
+            }
+            moves |= up << shift & upMask | down >>> shift & downMask;
+        }
+        return moves & ~(own | enemy);
+    }
+
+    /**
+     * Computes the tiles a move flips.
+     *
+     * @param own    The tiles of the player, that moves.
+     * @param enemy  The tiles of the other player.
+     * @param square The slot {@code row * Board.SIZE + col} of the move.
+     * @return The enemy tiles, that are enclosed by the move.
+     */
+    static long flips(long own, long enemy, int square) {
+        long move = 1L << square;
+        long flipped = 0;
+        for (int line = 0; line < SHIFTS.length; ++line) {
+            int shift = SHIFTS[line];
+            long upMask = UP_MASKS[line];
+            long downMask = DOWN_MASKS[line];
+
+            long up = 0;
+            long next = move << shift & upMask;
+            while ((next & enemy) != 0) {
+                up |= next;
+                next = next << shift & upMask;
+            }
+            if ((next & own) != 0) {
+                flipped |= up;
+            }
+
+            long down = 0;
+            next = move >>> shift & downMask;
+            while ((next & enemy) != 0) {
+                down |= next;
+                next = next >>> shift & downMask;
+            }
+            if ((next & own) != 0) {
+                flipped |= down;
+            }
+        }
+        return flipped;
+    }
+
+    /**
+     * Counts the free slots next to the tiles of a player, each slot once
+     * for every tile it touches. This is the potential mobility of the
+     * other player.
+     *
+     * @param tiles The tiles of the player.
+     * @param free  The free slots.
+     * @return The number of pairs of a tile and a free neighbor.
+     */
+    static int frontier(long tiles, long free) {
+        int count = 0;
+        for (int line = 0; line < SHIFTS.length; ++line) {
+            int shift = SHIFTS[line];
+            count += Long.bitCount(tiles << shift & UP_MASKS[line] & free)
+                    + Long.bitCount(tiles >>> shift & DOWN_MASKS[line]
+                    & free);
+        }
+        return count;
+    }
+
+    /**
+     * Writes the slots of a mask into a buffer, the lowest first.
+     *
+     * @param mask    The slots.
+     * @param squares The buffer. Must hold every slot of the mask.
+     * @return The number of slots written into the buffer.
+     */
+    static int toSquares(long mask, int[] squares) {
+        int count = 0;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            squares[count++] = Long.numberOfTrailingZeros(rest);
+        }
+        return count;
+    }
+
+}
@@ -1,5 +1,7 @@
 package reversi.model;
 
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for a Reversi game, also known as Othello.
@@ -47,6 +49,21 @@ public interface Board extends Cloneable {
      */
     Board move(int row, int col);
 
+    /**
+     * Executes a move of the player who has the turn, be it the human or the
+     * machine. Apart from that it behaves like {@link #move(int, int)}: if
+     * the player can't make any move, the turn is passed regardless of the
+     * given slot.
+     *
+     * @param row The slot's row number where a tile should be placed on.
+     * @param col The slot's column number where a tile should be placed on.
+     * @return A new board with the move executed or {@code null}, if the
+     * move is not valid.
+     * @throws IllegalMoveException     If the game is already over.
+     * @throws IllegalArgumentException If the provided parameters are invalid.
+     */
+    Board play(int row, int col);
+
     /**
      * Executes a machine move. This method does not change the state of this
      * instance, which is treated here as immutable. Instead, a new board/game
@@ -58,13 +75,123 @@ public interface Board extends Cloneable {
      */
     Board machineMove();
 
+    /**
+     * Executes a machine move like {@link #machineMove()} and lets a
+     * listener follow the progress of the search, see
+     * {@link SearchLimits#withProgress}.
+     *
+     * @param progress Receives the best line of each depth the search of the
+     *                 machine finished.
+     * @return A new board with the move executed.
+     * @throws IllegalMoveException     If the game is already over, or it is
+     *                                  not the machine's turn.
+     * @throws IllegalArgumentException If the listener is {@code null}.
+     */
+    Board machineMove(Consumer<SearchResult> progress);
+
+    /**
+     * Lets the engine of the machine score every move of the player with
+     * the turn, without executing any of them.
+     *
+     * @param depth The depth of the analysis, between 1 and
+     *              {@link SearchLimits#MAX_DEPTH}. The budget of the board
+     *              applies.
+     * @return The moves with their scores from the view of the player with
+     *         the turn, the best first. Empty if the player has to pass.
+     * @throws IllegalMoveException     If the game is already over.
+     * @throws IllegalArgumentException If the depth is out of its range.
+     */
+    List<SearchResult> analyze(int depth);
+
+    /**
+     * Gets the statistics of the search, that selected the move of the
+     * machine leading to this board, like its depth, nodes, time and peak
+     * memory.
+     *
+     * @return The search or {@code null}, if the last move was not searched
+     *         by the machine. Copies of this board return {@code null}.
+     */
+    SearchResult getLastSearch();
+
     /**
      * Sets the skill level of the machine.
      *
-     * @param level The skill as a number, must be at least 1.
+     * @param level The skill as a number, must be at least 1. Levels above
+     *              {@link SearchLimits#MAX_DEPTH} are reduced to it.
      */
     void setLevel(int level);
 
+    /**
+     * Limits the positions the machine may visit and the time it may take
+     * per move. A search that reaches one of them before the depth of the
+     * level is done, uses the deepest result it finished. Copies of this
+     * board keep the budget.
+     *
+     * @param nodes  The number of positions, between 1 and
+     *               {@link SearchLimits#MAX_NODES}.
+     * @param millis The time in milliseconds, between 1 and
+     *               {@link SearchLimits#MAX_MILLIS}.
+     * @throws IllegalArgumentException If a budget is out of its range.
+     */
+    void setBudget(long nodes, long millis);
+
+    /**
+     * Limits the memory the search structures of the machine may occupy per
+     * move. A search that would need more stays shallower or forgets older
+     * results, depending on the engine. Copies of this board keep the
+     * budget.
+     *
+     * @param bytes The number of bytes, between 1 and
+     *              {@link SearchLimits#MAX_MEMORY}.
+     * @throws IllegalArgumentException If the budget is out of its range.
+     */
+    void setMemoryBudget(long bytes);
+
+    /**
+     * Sets the number of threads the search of the machine may use. Engines
+     * without threads ignore it. Copies of this board keep the number.
+     *
+     * @param threads The number of threads, between 1 and
+     *                {@link SearchLimits#MAX_THREADS}.
+     * @throws IllegalArgumentException If the number is out of its range.
+     */
+    void setThreads(int threads);
+
+    /**
+     * Selects the engine the machine uses to search its moves. The level
+     * sets the strength within the engine. Copies of this board keep the
+     * engine.
+     *
+     * @param name The name of the engine, see {@link SearchEngines#names()}.
+     * @throws IllegalArgumentException If there is no engine of that name.
+     */
+    void setEngine(String name);
+
+    /**
+     * Gets the name of the engine the machine uses to search its moves.
+     *
+     * @return The name of the engine.
+     */
+    String getEngineName();
+
+    /**
+     * Sets the persistent cache, which is consulted before the machine
+     * searches for a move and which stores the results of deep searches.
+     * Copies of this board share the cache.
+     *
+     * @param cache The cache to use or {@code null} to use none.
+     */
+    void setPositionCache(PositionCache cache);
+
+    /**
+     * Sets the database of earlier games, whose best results the machine
+     * plays instead of searching, as long as a position was reached often
+     * enough. Copies of this board share the database.
+     *
+     * @param database The database to use or {@code null} to use none.
+     */
+    void setPositionDatabase(PositionDatabase database);
+
     /**
      * Checks if the game is over. Either one player has won or there is a tie,
      * i.e., no player can perform a move any more.
@@ -0,0 +1,263 @@
+package reversi.model;
+
+import java.util.Random;
+
+/**
+ * Plays games between two configurations of the machine. Every move is made
+ * by {@link Board#machineMove()} on a board, on which the player to move is
+ * the machine and which has the settings of that player, so both sides
+ * search exactly like the machine of a game against a human.
+ * <p>
+ * All boards are started by the human, see
+ * {@link ReversiBoard#ReversiBoard(Player)}, so games may be played by
+ * several threads in parallel.
+ */
+public final class EngineMatch {
+
+    /**
+     * Private constructor to ensure no EngineMatch object can be
+     * initialized.
+     */
+    private EngineMatch() {
+    }
+
+    /**
+     * Plays random moves from the initial position.
+     *
+     * @param random Chooses the moves.
+     * @param plies  The number of moves.
+     * @return The squares {@code row * SIZE + col} of the moves. Passes are
+     *         not part of it, an opening never reaches the end of a game.
+     */
+    public static int[] randomOpening(Random random, int plies) {
+        int[] opening = new int[plies];
+        int[] moves = new int[Rays.SQUARES];
+        ReversiBoard position = new ReversiBoard(Player.HUMAN);
+        for (int ply = 0; ply < plies; ++ply) {
+            int count = ReversiBoard.generateMoves(position,
+                    position.getColor(), moves);
+            if (count == 0) {
+                position = position.passTurn();
+                count = ReversiBoard.generateMoves(position,
+                        position.getColor(), moves);
+            }
+            opening[ply] = moves[random.nextInt(count)];
+            position = (ReversiBoard) position.makeMove(opening[ply]);
+        }
+        return opening;
+    }
+
+    /**
+     * Plays a game from an opening to its end.
+     *
+     * @param first   The player to move after the opening.
+     * @param second  The other player.
+     * @param opening The squares of the moves of the opening, that are
+     *                played alternately, the last one by the second.
+     * @return The result from the view of the first player.
+     * @throws IllegalArgumentException If a move of the opening is illegal.
+     */
+    public static Result play(Contestant first, Contestant second,
+                              int[] opening) {
+        long start = System.currentTimeMillis();
+        ReversiBoard position = new ReversiBoard(Player.HUMAN);
+        for (int square : opening) {
+            if (ReversiBoard.legalMask(position, position.getColor()) == 0) {
+                position = position.passTurn();
+            }
+            position = (ReversiBoard) GameRecord.play(position, square);
+        }
+
+        // The tiles of the player to move and of the other player.
+        long mover = position.discMask(position.isHumanToMove()
+                ? Player.HUMAN : Player.AI);
+        long other = position.discMask(position.isHumanToMove()
+                ? Player.AI : Player.HUMAN);
+        boolean firstToMove = true;
+        int moves = 0;
+        while (true) {
+            ReversiBoard board = ReversiBoard.of(other, mover, Player.AI,
+                    Player.HUMAN);
+            if (board.gameOver()) {
+                break;
+            }
+            (firstToMove ? first : second).apply(board);
+            ReversiBoard after = (ReversiBoard) board.machineMove();
+            long moved = after.discMask(Player.AI);
+            mover = after.discMask(Player.HUMAN);
+            other = moved;
+            firstToMove = !firstToMove;
+            ++moves;
+        }
+        int difference = Long.bitCount(mover) - Long.bitCount(other);
+        return new Result(firstToMove ? difference : -difference, moves,
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * The settings of the machine for one side of a game.
+     */
+    public static final class Contestant {
+
+        /**
+         * Separates the parts of the text form.
+         */
+        private static final String SEPARATOR = ":";
+
+        /**
+         * The name of the engine.
+         */
+        private final String engine;
+
+        /**
+         * The level, the depth of the search.
+         */
+        private final int level;
+
+        /**
+         * The time per move in milliseconds.
+         */
+        private final long millis;
+
+        /**
+         * Creates a contestant.
+         *
+         * @param engine The name of the engine, see
+         *               {@link SearchEngines#names()}.
+         * @param level  The level, at least 1.
+         * @param millis The time per move in milliseconds, between 1 and
+         *               {@link SearchLimits#MAX_MILLIS}.
+         * @throws IllegalArgumentException If there is no such engine or a
+         *                                  number is out of its range.
+         */
+        public Contestant(String engine, int level, long millis) {
+            if (level < 1 || millis < 1 || millis > SearchLimits.MAX_MILLIS) {
+                throw new IllegalArgumentException("undefined parameters");
+            }
+            this.engine = SearchEngines.forName(engine).getName();
+            this.level = Math.min(level, SearchLimits.MAX_DEPTH);
+            this.millis = millis;
+        }
+
+        /**
+         * Reads a contestant in the form {@code engine:level[:millis]}, as
+         * written by {@link #toString()}. The time defaults to
+         * {@link SearchLimits#MAX_MILLIS}.
+         *
+         * @param text The text form.
+         * @return The contestant.
+         * @throws IllegalArgumentException If the text is no contestant.
+         */
+        public static Contestant parse(String text) {
+            String[] parts = text.trim().split(SEPARATOR);
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Contestant " + text
+                        + " is not engine:level[:millis]");
+            }
+            try {
+                return new Contestant(parts[0], Integer.parseInt(parts[1]),
+                        parts.length > 2 ? Long.parseLong(parts[2])
+                                : SearchLimits.MAX_MILLIS);
+            } catch (NumberFormatException noNumber) {
+                throw new IllegalArgumentException("Contestant " + text
+                        + " is not engine:level[:millis]");
+            }
+        }
+
+        /**
+         * Applies the settings to a board.
+         *
+         * @param board The board.
+         */
+        void apply(Board board) {
+            board.setEngine(engine);
+            board.setLevel(level);
+            board.setBudget(SearchLimits.MAX_NODES, millis);
+        }
+
+        /**
+         * Gets the text form, that {@link #parse(String)} reads.
+         *
+         * @return The text form.
+         */
+        @Override
+        public String toString() {
+            return engine + SEPARATOR + level + SEPARATOR + millis;
+        }
+
+    }
+
+    /**
+     * The result of a game.
+     */
+    public static final class Result {
+
+        /**
+         * The final tile difference from the view of the first player.
+         */
+        private final int difference;
+
+        /**
+         * The number of moves after the opening, including passes.
+         */
+        private final int moves;
+
+        /**
+         * The duration of the game in milliseconds.
+         */
+        private final long millis;
+
+        /**
+         * Creates a result.
+         *
+         * @param difference The final tile difference from the view of the
+         *                   first player.
+         * @param moves      The number of moves after the opening.
+         * @param millis     The duration of the game in milliseconds.
+         */
+        public Result(int difference, int moves, long millis) {
+            this.difference = difference;
+            this.moves = moves;
+            this.millis = millis;
+        }
+
+        /**
+         * Gets the final tile difference.
+         *
+         * @return The difference from the view of the first player.
+         */
+        public int getDifference() {
+            return difference;
+        }
+
+        /**
+         * Gets the points of the first player.
+         *
+         * @return {@code 1} for a win, {@code 0.5} for a tie and {@code 0}
+         *         for a loss.
+         */
+        public double getScore() {
+            return difference > 0 ? 1 : difference == 0 ? 0.5 : 0;
+        }
+
+        /**
+         * Gets the number of moves after the opening.
+         *
+         * @return The number of moves, including passes.
+         */
+        public int getMoves() {
+            return moves;
+        }
+
+        /**
+         * Gets the duration of the game.
+         *
+         * @return The duration in milliseconds.
+         */
+        public long getMillis() {
+            return millis;
+        }
+
+    }
+
+}
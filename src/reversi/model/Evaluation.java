@@ -0,0 +1,223 @@
+package reversi.model;
+
+/**
+ * The evaluation of a board used by the Min-Max search. Adds up the state,
+ * mobility, potential mobility and stable tiles of both human and ai from
+ * the point of view of the ai. All terms are computed from the bit masks of
+ * the tiles, that the board keeps up to date with every move, so a leaf
+ * does not scan the slots of the board. If a {@link Network} is active, its
+ * output replaces the heuristic.
+ */
+final class Evaluation {
+
+    /**
+     * Values of each field on the board to evaluate the state of the board.
+     */
+    private final static double[][] FIELD_VALUE = {
+            {9999, 5, 500, 200, 200, 500, 5, 9999},
+            {5, 1, 50, 150, 150, 50, 1, 5},
+            {500, 50, 250, 100, 100, 250, 50, 500},
+            {200, 150, 100, 50, 50, 100, 150, 200},
+            {200, 150, 100, 50, 50, 100, 150, 200},
+            {500, 50, 250, 100, 100, 250, 50, 500},
+            {5, 1, 50, 150, 150, 50, 1, 5},
+            {9999, 5, 500, 200, 200, 500, 5, 9999}};
+
+    /**
+     * Value of a tile, that can never be flipped again.
+     */
+    private static final double STABLE_VALUE = 150;
+
+    /**
+     * Points of a single evaluation of the heuristic per tile of the final
+     * tile difference. Fitted by least squares on the scores of depth 1 to
+     * 4 searches of self-play positions, divided by their depth, and the
+     * final difference of their games. The fit of each depth lies within
+     * 1% of this value.
+     */
+    private static final double HEURISTIC_TILE_POINTS = 1470;
+
+    /**
+     * Private constructor to ensure no Evaluation object can be initialized.
+     */
+    private Evaluation() {
+    }
+
+    /**
+     * Gets the scale of the evaluation: the points of a single evaluation,
+     * that predict a final tile difference of one tile. Search scores add
+     * up one evaluation per ply, so they have to be divided by their depth
+     * first.
+     *
+     * @return The points per tile of the heuristic or the active network.
+     */
+    static double pointsPerTile() {
+        return Network.ACTIVE != null
+                ? Network.OUTPUT_SCALE / Rays.SQUARES
+                : HEURISTIC_TILE_POINTS;
+    }
+
+    /**
+     * Evaluates a board by evaluating the state, potential mobility,
+     * mobility and stable tiles of both human and ai and adding up those
+     * numbers.
+     *
+     * @param toEval The board that will be evaluated.
+     * @return The value the board gets according to the way of measuring it.
+     * @throws IllegalArgumentExecption When giving the method null.
+     */
+    static double evaluateBoard(Board toEval) {
+        if (toEval == null) {
+            throw new IllegalArgumentException("Cant eval null");
+        } else {
+
+            ReversiBoard position = (ReversiBoard) toEval;
+            short[] accumulator = position.accumulator(Player.AI);
+            if (accumulator != null) {
+                return Network.ACTIVE.evaluate(accumulator);
+            }
+            long human = position.discMask(Player.HUMAN);
+            long ai = position.discMask(Player.AI);
+            double totalTiles = Long.bitCount(human) + Long.bitCount(ai);
+            PointPair potential = potentialMobility(position, human, ai);
+            double humanPotential = potential.getHumanPoints();
+            double aiPotential = potential.getAiPoints();
+            PointPair statePoints = evaluateState(human, ai);
+            double humanState = statePoints.getHumanPoints();
+            double aiState = statePoints.getAiPoints();
+            PointPair mobility = mobility(position, human, ai);
+            double humanMobility = mobility.getHumanPoints();
+            double aiMobility = mobility.getAiPoints();
+            PointPair stable = stability(human, ai);
+            double humanStable = stable.getHumanPoints();
+            double aiStable = stable.getAiPoints();
+
+            return (aiState - 1.5 * humanState) + (64.0 / totalTiles)
+                    * (3.0 * aiMobility - 4.0 * humanMobility)
+                    + (64.0 / (2.0 * totalTiles))
+                    * (2.5 * aiPotential - 3.0 * humanPotential)
+                    + STABLE_VALUE * (aiStable - humanStable);
+        }
+    }
+
+    /**
+     * Calculates the mobility of both players by counting the amount of
+     * possible moves, regardless of who has the turn.
+     *
+     * @param position The board that will be used for calculation.
+     * @param human    The tiles of the human.
+     * @param ai       The tiles of the ai.
+     * @return The amount of possible moves of both human and ai in a wrapper
+     *         class.
+     */
+    private static PointPair mobility(ReversiBoard position, long human,
+                                      long ai) {
+        if (Bitboards.ENABLED) {
+            return new PointPair(Long.bitCount(Bitboards.moves(human, ai)),
+                    Long.bitCount(Bitboards.moves(ai, human)));
+        } else {
+            return new PointPair(ReversiBoard.countMoves(position,
+                    position.colorOf(Player.HUMAN)),
+                    ReversiBoard.countMoves(position,
+                            position.colorOf(Player.AI)));
+        }
+    }
+
+    /**
+     * Evaluates the points each player for the state of the board
+     * by using the predefined values.
+     *
+     * @param human The tiles of the human.
+     * @param ai    The tiles of the ai.
+     * @return Both human and ai points in a wrapper class.
+     */
+    private static PointPair evaluateState(long human, long ai) {
+        return new PointPair(fieldValues(human), fieldValues(ai));
+    }
+
+    /**
+     * Adds up the predefined values of the slots of a player, row by row.
+     *
+     * @param tiles The tiles of the player.
+     * @return The sum of the values.
+     */
+    private static double fieldValues(long tiles) {
+        double sum = 0;
+        for (long rest = tiles; rest != 0; rest &= rest - 1) {
+            int square = Long.numberOfTrailingZeros(rest);
+            sum = sum + FIELD_VALUE[Rays.ROW[square]][Rays.COL[square]];
+        }
+        return sum;
+    }
+
+    /**
+     * Evaluates the points each player gets for the tiles, that can never be
+     * flipped again.
+     *
+     * @param human The tiles of the human.
+     * @param ai    The tiles of the ai.
+     * @return The number of stable tiles of both human and ai in a wrapper
+     *         class.
+     */
+    private static PointPair stability(long human, long ai) {
+        return new PointPair(StableDiscs.count(human, ai),
+                StableDiscs.count(ai, human));
+    }
+
+    /**
+     * Evaluates the points each player gets for the potential mobility by
+     * adding up the free spaces on the board around tokens of the opposing
+     * player.
+     *
+     * @param position The board that will be evaluated.
+     * @param human    The tiles of the human.
+     * @param ai       The tiles of the ai.
+     * @return Both human and ai points in a wrapper class.
+     */
+    private static PointPair potentialMobility(ReversiBoard position,
+                                               long human, long ai) {
+        if (Bitboards.ENABLED) {
+            long free = ~(human | ai);
+            return new PointPair(Bitboards.frontier(ai, free),
+                    Bitboards.frontier(human, free));
+        }
+
+        double humanPotential = 0;
+        double aiPotential = 0;
+        for (int i = 0; i < Board.SIZE; ++i) {
+            for (int j = 0; j < Board.SIZE; ++j) {
+                Player currentSlot = position.getSlot(i, j);
+                if (currentSlot == Player.HUMAN) {
+                    aiPotential += slotPotential(i, j, position);
+                } else if (currentSlot == Player.AI) {
+                    humanPotential += slotPotential(i, j, position);
+                }
+            }
+        }
+        return new PointPair(humanPotential, aiPotential);
+    }
+
+    /**
+     * Evaluates the potential mobility of a single spot by adding up
+     * all the free spaces around it.
+     *
+     * @param row The row index of the spot to be evaluated.
+     * @param col The column index of the spot to be evaluated.
+     * @param toCheck The Board the spot is on.
+     * @return The amount of free fields around one spot.
+     */
+    private static double slotPotential(int row, int col,
+                                        ReversiBoard toCheck) {
+        double potential = 0;
+
+        // Look at all neighbors and sum up all free spaces.
+        for (int neighbor : Rays.NEIGHBORS[row * Board.SIZE + col]) {
+            if (toCheck.tokenAt(neighbor) == Token.FREE) {
+                potential = potential + 1;
+            }
+        }
+
+        return potential;
+    }
+
+}
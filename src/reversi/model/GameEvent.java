@@ -0,0 +1,215 @@
+package reversi.model;
+
+/**
+ * Something that happened in a {@link GameSession}. Every event carries the
+ * board after it happened, so an observer, that missed events, still knows
+ * the current position.
+ */
+public final class GameEvent {
+
+    /**
+     * The kinds of events.
+     */
+    public enum Type {
+
+        /**
+         * The session was started or continued at a new position, e.g. by
+         * a new game, a loaded game or an undo.
+         */
+        RESET,
+
+        /**
+         * The machine started to search its move.
+         */
+        SEARCH_STARTED,
+
+        /**
+         * The search of the machine finished a depth, the event has the
+         * best line found so far. Events of this kind may be dropped for
+         * a subscriber, that does not keep up.
+         */
+        SEARCH_PROGRESS,
+
+        /**
+         * The machine finished its search, the event has its statistics
+         * unless the machine had to pass.
+         */
+        SEARCH_FINISHED,
+
+        /**
+         * A player set a tile.
+         */
+        MOVE,
+
+        /**
+         * A player had to pass.
+         */
+        PASS,
+
+        /**
+         * The game is over, the player of the event is the winner.
+         */
+        GAME_OVER
+
+    }
+
+    /**
+     * The kind of the event.
+     */
+    private final Type type;
+
+    /**
+     * The number of the event in its session, starting at 0.
+     */
+    private final long sequence;
+
+    /**
+     * The board after the event.
+     */
+    private final Board board;
+
+    /**
+     * The player who moved, passed, searched or won.
+     */
+    private final Player player;
+
+    /**
+     * The square {@code row * SIZE + col} of a move, {@code -1} for other
+     * events.
+     */
+    private final int square;
+
+    /**
+     * The statistics of a finished search or depth, {@code null} for other
+     * events.
+     */
+    private final SearchResult search;
+
+    /**
+     * When the event happened in milliseconds since the epoch.
+     */
+    private final long millis;
+
+    /**
+     * Creates an event.
+     *
+     * @param type     The kind of the event.
+     * @param sequence The number of the event in its session.
+     * @param board    The board after the event.
+     * @param player   The player who moved, passed, searched or won,
+     *                 {@code null} for a reset.
+     * @param square   The square of a move, {@code -1} for other events.
+     * @param search   The statistics of a finished search or depth.
+     */
+    GameEvent(Type type, long sequence, Board board, Player player,
+              int square, SearchResult search) {
+        this.type = type;
+        this.sequence = sequence;
+        this.board = board;
+        this.player = player;
+        this.square = square;
+        this.search = search;
+        this.millis = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the kind of the event.
+     *
+     * @return The type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the number of the event in its session. Gaps show that an
+     * observer missed events.
+     *
+     * @return The number, starting at 0.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the board after the event.
+     *
+     * @return The board.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets the player the event is about: the one who moved or passed, the
+     * machine for searches and the winner at the end of the game.
+     *
+     * @return The player, {@code TIE} for a tie, {@code null} for a reset.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the row of a move.
+     *
+     * @return The row index, starting at 0, {@code -1} if the event is no
+     *         move.
+     */
+    public int getRow() {
+        return square < 0 ? -1 : square / Board.SIZE;
+    }
+
+    /**
+     * Gets the column of a move.
+     *
+     * @return The column index, starting at 0, {@code -1} if the event is
+     *         no move.
+     */
+    public int getColumn() {
+        return square < 0 ? -1 : square % Board.SIZE;
+    }
+
+    /**
+     * Gets the statistics of a finished search or, for progress, of the
+     * best line of a finished depth.
+     *
+     * @return The search, {@code null} for events of other kinds and if the
+     *         machine had to pass.
+     */
+    public SearchResult getSearch() {
+        return search;
+    }
+
+    /**
+     * Gets the time of the event.
+     *
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Creates a one-line description of the event for logs.
+     *
+     * @return The description.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append('#').append(sequence).append(' ').append(type);
+        if (player != null) {
+            text.append(' ').append(player);
+        }
+        if (square >= 0) {
+            text.append(" (").append(getRow() + 1).append(", ")
+                    .append(getColumn() + 1).append(')');
+        }
+        if (search != null) {
+            text.append(' ').append(search);
+        }
+        return text.toString();
+    }
+
+}
@@ -0,0 +1,378 @@
+package reversi.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The record of a single game: the starter, one byte per move including
+ * passes, the result and when the game was played. Records are written by
+ * {@link GameRecordWriter} and read by {@link GameRecordReader}.
+ * <p>
+ * A file starts with {@link #FILE_HEADER_BYTES} bytes of header followed by
+ * the records without any separator. A record takes {@link #HEADER_BYTES}
+ * bytes followed by its moves, all numbers little endian:
+ * <ul>
+ * <li>byte 0: the number of moves</li>
+ * <li>byte 1: flags, bit 0 set if the machine started, bits 1 and 2 the
+ * result ({@code 0} unfinished, {@code 1} human won, {@code 2} machine won,
+ * {@code 3} tie)</li>
+ * <li>byte 2 and 3: the tiles of the human and the machine at the end</li>
+ * <li>byte 4 to 11: the start of the game in milliseconds since the
+ * epoch</li>
+ * <li>byte 12 to 15: the duration of the game in milliseconds</li>
+ * <li>one byte per move: the square {@code row * SIZE + col} or
+ * {@link #PASS}</li>
+ * </ul>
+ */
+public final class GameRecord {
+
+    /**
+     * The move of a player, who has to pass.
+     */
+    public static final int PASS = Rays.SQUARES;
+
+    /**
+     * Identifies a file of records, reads 'RVRSGAME'.
+     */
+    static final long MAGIC = 0x5256525347414D45L;
+
+    /**
+     * Version of the file layout.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Number of bytes of a file in front of its first record: the magic
+     * number, the version and the size of the board.
+     */
+    static final int FILE_HEADER_BYTES = 16;
+
+    /**
+     * Number of bytes of a record in front of its moves.
+     */
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * Most moves a record may have, including passes.
+     */
+    static final int MAX_MOVES = 0xff;
+
+    /**
+     * Flag of a record, whose game was started by the machine.
+     */
+    static final int AI_STARTED = 1;
+
+    /**
+     * The player who made the first move.
+     */
+    private final Player starter;
+
+    /**
+     * The moves of the game.
+     */
+    private final byte[] moves;
+
+    /**
+     * The winner, {@code TIE} for a tie, {@code null} if the game is not
+     * over.
+     */
+    private final Player winner;
+
+    /**
+     * The tiles of the human at the end.
+     */
+    private final int humanTiles;
+
+    /**
+     * The tiles of the machine at the end.
+     */
+    private final int machineTiles;
+
+    /**
+     * The start of the game in milliseconds since the epoch.
+     */
+    private final long startMillis;
+
+    /**
+     * The duration of the game in milliseconds.
+     */
+    private final int durationMillis;
+
+    /**
+     * Creates a record.
+     *
+     * @param starter        The player who made the first move.
+     * @param moves          The moves, each the square or {@link #PASS}.
+     * @param winner         The winner, {@code null} if the game is not
+     *                       over.
+     * @param humanTiles     The tiles of the human at the end.
+     * @param machineTiles   The tiles of the machine at the end.
+     * @param startMillis    The start of the game.
+     * @param durationMillis The duration of the game.
+     */
+    GameRecord(Player starter, byte[] moves, Player winner, int humanTiles,
+               int machineTiles, long startMillis, int durationMillis) {
+        this.starter = starter;
+        this.moves = moves;
+        this.winner = winner;
+        this.humanTiles = humanTiles;
+        this.machineTiles = machineTiles;
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Creates the record of a game out of its positions.
+     *
+     * @param positions   The position at the start of the game and after
+     *                    each move or pass, in the order they were played.
+     * @param startMillis The start of the game in milliseconds since the
+     *                    epoch.
+     * @param endMillis   The end of the game or the time it was saved.
+     * @return The record.
+     * @throws IllegalArgumentException If there are no positions, the first
+     *                                  one is not the initial position or
+     *                                  two positions are not one move
+     *                                  apart.
+     */
+    public static GameRecord of(List<Board> positions, long startMillis,
+                                long endMillis) {
+        if (positions.isEmpty() || positions.size() > MAX_MOVES + 1) {
+            throw new IllegalArgumentException("undefined parameters");
+        } else if (!isInitial(positions.get(0))) {
+            throw new IllegalArgumentException("Game does not start at the"
+                    + " initial position");
+        }
+        byte[] moves = new byte[positions.size() - 1];
+        for (int i = 1; i < positions.size(); ++i) {
+            moves[i - 1] = (byte) moveBetween(positions.get(i - 1),
+                    positions.get(i));
+        }
+        Board last = positions.get(positions.size() - 1);
+        return new GameRecord(positions.get(0).getFirstPlayer(), moves,
+                last.gameOver() ? last.getWinner() : null,
+                last.getNumberOfHumanTiles(), last.getNumberOfMachineTiles(),
+                startMillis, (int) Math.min(Integer.MAX_VALUE,
+                Math.max(0, endMillis - startMillis)));
+    }
+
+    /**
+     * Tests if a position is the initial one of a game, i.e. only the four
+     * tiles in the center are set and the starter has the turn.
+     *
+     * @param position The position to test.
+     * @return {@code true} if no move was made yet.
+     */
+    private static boolean isInitial(Board position) {
+        Board initial = new ReversiBoard(position.getFirstPlayer());
+        if (position.next() != initial.next()) {
+            return false;
+        }
+        for (int row = 0; row < Board.SIZE; ++row) {
+            for (int col = 0; col < Board.SIZE; ++col) {
+                if (position.getSlot(row, col)
+                        != initial.getSlot(row, col)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the move, that leads from one position to the next.
+     *
+     * @param before The position before the move.
+     * @param after  The position after the move.
+     * @return The square {@code row * SIZE + col} of the move or
+     *         {@link #PASS}.
+     * @throws IllegalArgumentException If the positions are not one move
+     *                                  apart.
+     */
+    private static int moveBetween(Board before, Board after) {
+        int move = PASS;
+        for (int square = 0; square < Rays.SQUARES; ++square) {
+            if (before.getSlot(Rays.ROW[square], Rays.COL[square]) == null
+                    && after.getSlot(Rays.ROW[square], Rays.COL[square])
+                    != null) {
+                if (move != PASS) {
+                    throw new IllegalArgumentException("Positions more than"
+                            + " one move apart");
+                }
+                move = square;
+            }
+        }
+        return move;
+    }
+
+    /**
+     * Plays the game of this record from the start.
+     *
+     * @return The position at the start and after each move, the last one
+     *         is the end of the record.
+     * @throws IllegalArgumentException If a move of the record is illegal.
+     */
+    public List<Board> replay() {
+        List<Board> positions = new ArrayList<>(moves.length + 1);
+        Board position = new ReversiBoard(starter);
+        positions.add(position);
+        for (int i = 0; i < moves.length; ++i) {
+            position = play(position, moves[i] & 0xff);
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    /**
+     * Plays a single move of a record.
+     *
+     * @param position The position before the move.
+     * @param move     The square {@code row * SIZE + col} or {@link #PASS}.
+     * @return The position after the move.
+     * @throws IllegalArgumentException If the move is illegal.
+     */
+    static Board play(Board position, int move) {
+        if (position.gameOver()) {
+            throw new IllegalArgumentException("Move after the end");
+        } else if (move == PASS) {
+            ReversiBoard board = (ReversiBoard) position;
+            if (ReversiBoard.legalMask(board, board.getColor()) != 0) {
+                throw new IllegalArgumentException("Pass not allowed");
+            }
+            return board.passTurn();
+        } else if (!((ReversiBoard) position).isLegal(move)) {
+            throw new IllegalArgumentException("Illegal move " + move);
+        } else {
+            return ((ReversiBoard) position).makeMove(move);
+        }
+    }
+
+    /**
+     * Writes this record into a buffer at its position.
+     *
+     * @param buffer The buffer in little endian order with at least
+     *               {@link #size()} bytes remaining.
+     */
+    void writeTo(ByteBuffer buffer) {
+        int result = 0;
+        if (winner == Player.HUMAN) {
+            result = 1;
+        } else if (winner == Player.AI) {
+            result = 2;
+        } else if (winner == Player.TIE) {
+            result = 3;
+        }
+        buffer.put((byte) moves.length);
+        buffer.put((byte) ((starter == Player.AI ? AI_STARTED : 0)
+                | result << 1));
+        buffer.put((byte) humanTiles);
+        buffer.put((byte) machineTiles);
+        buffer.putLong(startMillis);
+        buffer.putInt(durationMillis);
+        buffer.put(moves);
+    }
+
+    /**
+     * Maps the result bits of the flags of a record to the winner.
+     *
+     * @param flags The flags of the record.
+     * @return The winner, {@code null} if the game was not over.
+     */
+    static Player winner(int flags) {
+        switch (flags >> 1 & 3) {
+            case 1:
+                return Player.HUMAN;
+            case 2:
+                return Player.AI;
+            case 3:
+                return Player.TIE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the number of bytes of this record in a file.
+     *
+     * @return The size of the record.
+     */
+    public int size() {
+        return HEADER_BYTES + moves.length;
+    }
+
+    /**
+     * Gets the player who made the first move.
+     *
+     * @return The starter.
+     */
+    public Player getStarter() {
+        return starter;
+    }
+
+    /**
+     * Gets the number of moves, including passes.
+     *
+     * @return The number of moves.
+     */
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * Gets a move of the game.
+     *
+     * @param index The index of the move, starting at 0.
+     * @return The square {@code row * SIZE + col} or {@link #PASS}.
+     */
+    public int getMove(int index) {
+        return moves[index] & 0xff;
+    }
+
+    /**
+     * Gets the winner of the game.
+     *
+     * @return The winner, {@code TIE} for a tie, {@code null} if the game
+     *         was not over.
+     */
+    public Player getWinner() {
+        return winner;
+    }
+
+    /**
+     * Gets the number of human tiles at the end of the record.
+     *
+     * @return The number of human tiles.
+     */
+    public int getNumberOfHumanTiles() {
+        return humanTiles;
+    }
+
+    /**
+     * Gets the number of machine tiles at the end of the record.
+     *
+     * @return The number of machine tiles.
+     */
+    public int getNumberOfMachineTiles() {
+        return machineTiles;
+    }
+
+    /**
+     * Gets the start of the game.
+     *
+     * @return The start in milliseconds since the epoch.
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Gets the duration of the game.
+     *
+     * @return The duration in milliseconds.
+     */
+    public int getDurationMillis() {
+        return durationMillis;
+    }
+
+}
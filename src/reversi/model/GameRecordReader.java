@@ -0,0 +1,272 @@
+package reversi.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file of {@link GameRecord game records} one record after another.
+ * The file is memory-mapped in windows of up to 1 GB and the fields of the
+ * current record are read directly out of the mapping, so scanning an
+ * archive copies nothing but the fields asked for. A record, that was only
+ * partially written, ends the file.
+ */
+public final class GameRecordReader implements Closeable {
+
+    /**
+     * Most bytes mapped at once.
+     */
+    private static final long WINDOW = 1 << 30;
+
+    /**
+     * Channel of the opened file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Size of the file when it was opened.
+     */
+    private final long size;
+
+    /**
+     * The mapped part of the file, that contains the current record.
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * Position of the first mapped byte in the file.
+     */
+    private long windowStart;
+
+    /**
+     * Position of the current record in the file, {@code -1} before the
+     * first call of {@link #next()}.
+     */
+    private long current = -1;
+
+    /**
+     * Offset of the current record in the window.
+     */
+    private int offset;
+
+    /**
+     * Number of bytes of the current record.
+     */
+    private int recordBytes;
+
+    /**
+     * Number of records passed by {@link #next()}.
+     */
+    private long index = -1;
+
+    /**
+     * Opens a file of records.
+     *
+     * @param file The file.
+     * @return The reader positioned in front of the first record.
+     * @throws IOException If the file can't be read or is no file of game
+     *                     records of this version.
+     */
+    public static GameRecordReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            GameRecordReader reader = new GameRecordReader(channel);
+            if (reader.size < GameRecord.FILE_HEADER_BYTES) {
+                throw new IOException(file + " is no file of game records");
+            }
+            reader.map(0, GameRecord.FILE_HEADER_BYTES);
+            if (reader.window.getLong(0) != GameRecord.MAGIC
+                    || reader.window.getInt(8) != GameRecord.FORMAT_VERSION
+                    || reader.window.getInt(12) != Board.SIZE) {
+                throw new IOException(file + " is no file of game records"
+                        + " of version " + GameRecord.FORMAT_VERSION);
+            }
+            return reader;
+        } catch (IOException | RuntimeException failure) {
+            channel.close();
+            throw failure;
+        }
+    }
+
+    /**
+     * Creates a reader on top of an opened file.
+     *
+     * @param channel Channel of the opened file.
+     * @throws IOException If the size of the file can't be read.
+     */
+    private GameRecordReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return {@code false} if there is no further complete record.
+     * @throws IOException If the file can't be mapped.
+     */
+    public boolean next() throws IOException {
+        long start = current < 0 ? GameRecord.FILE_HEADER_BYTES
+                : current + recordBytes;
+        if (start + GameRecord.HEADER_BYTES > size) {
+            return false;
+        }
+        map(start, GameRecord.HEADER_BYTES);
+        int bytes = GameRecord.HEADER_BYTES
+                + (window.get((int) (start - windowStart)) & 0xff);
+        if (start + bytes > size) {
+            return false;
+        }
+        map(start, bytes);
+        current = start;
+        offset = (int) (start - windowStart);
+        recordBytes = bytes;
+        ++index;
+        return true;
+    }
+
+    /**
+     * Gets the index of the current record in the file.
+     *
+     * @return The index, starting at 0.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the position in the file behind the current record, where the
+     * next record would start.
+     *
+     * @return The position behind the last record read.
+     */
+    long getEnd() {
+        return current < 0 ? GameRecord.FILE_HEADER_BYTES
+                : current + recordBytes;
+    }
+
+    /**
+     * Gets the player who made the first move of the current record.
+     *
+     * @return The starter.
+     */
+    public Player getStarter() {
+        return (window.get(offset + 1) & GameRecord.AI_STARTED) != 0
+                ? Player.AI : Player.HUMAN;
+    }
+
+    /**
+     * Gets the number of moves of the current record, including passes.
+     *
+     * @return The number of moves.
+     */
+    public int getMoveCount() {
+        return recordBytes - GameRecord.HEADER_BYTES;
+    }
+
+    /**
+     * Gets a move of the current record.
+     *
+     * @param move The index of the move, starting at 0.
+     * @return The square {@code row * SIZE + col} or {@link GameRecord#PASS}.
+     * @throws IndexOutOfBoundsException If there is no such move.
+     */
+    public int getMove(int move) {
+        if (move < 0 || move >= getMoveCount()) {
+            throw new IndexOutOfBoundsException("No move " + move);
+        }
+        return window.get(offset + GameRecord.HEADER_BYTES + move) & 0xff;
+    }
+
+    /**
+     * Gets the winner of the current record.
+     *
+     * @return The winner, {@code TIE} for a tie, {@code null} if the game
+     *         was not over.
+     */
+    public Player getWinner() {
+        return GameRecord.winner(window.get(offset + 1));
+    }
+
+    /**
+     * Gets the number of human tiles at the end of the current record.
+     *
+     * @return The number of human tiles.
+     */
+    public int getNumberOfHumanTiles() {
+        return window.get(offset + 2);
+    }
+
+    /**
+     * Gets the number of machine tiles at the end of the current record.
+     *
+     * @return The number of machine tiles.
+     */
+    public int getNumberOfMachineTiles() {
+        return window.get(offset + 3);
+    }
+
+    /**
+     * Gets the start of the game of the current record.
+     *
+     * @return The start in milliseconds since the epoch.
+     */
+    public long getStartMillis() {
+        return window.getLong(offset + 4);
+    }
+
+    /**
+     * Gets the duration of the game of the current record.
+     *
+     * @return The duration in milliseconds.
+     */
+    public int getDurationMillis() {
+        return window.getInt(offset + 12);
+    }
+
+    /**
+     * Copies the current record.
+     *
+     * @return The record.
+     */
+    public GameRecord toRecord() {
+        byte[] moves = new byte[getMoveCount()];
+        for (int i = 0; i < moves.length; ++i) {
+            moves[i] = window.get(offset + GameRecord.HEADER_BYTES + i);
+        }
+        return new GameRecord(getStarter(), moves, getWinner(),
+                getNumberOfHumanTiles(), getNumberOfMachineTiles(),
+                getStartMillis(), getDurationMillis());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Makes sure a range of the file is mapped. If it is not, a new window
+     * starting at the range is mapped.
+     *
+     * @param start  The position of the first byte of the range.
+     * @param length The number of bytes of the range.
+     * @throws IOException If the file can't be mapped.
+     */
+    private void map(long start, int length) throws IOException {
+        if (window == null || start < windowStart
+                || start + length > windowStart + window.capacity()) {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(WINDOW, size - start));
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+package reversi.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends {@link GameRecord game records} to a file through a buffer. A new
+ * file gets the header first. A partially written record at the end of an
+ * existing file, left behind by a crash, is cut off before appending.
+ */
+public final class GameRecordWriter implements Closeable {
+
+    /**
+     * Number of bytes buffered before they are written.
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Channel of the opened file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The records not yet written.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Number of records appended.
+     */
+    private long written;
+
+    /**
+     * Opens a file to append records to. The file is created, if it does
+     * not exist.
+     *
+     * @param file The file.
+     * @return The writer.
+     * @throws IOException If the file can't be written or is no file of game
+     *                     records of this version.
+     */
+    public static GameRecordWriter open(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        long end = GameRecord.FILE_HEADER_BYTES;
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        if (!fresh) {
+            try (GameRecordReader reader = GameRecordReader.open(file)) {
+                boolean complete = reader.next();
+                while (complete) {
+                    complete = reader.next();
+                }
+                end = reader.getEnd();
+            }
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            GameRecordWriter writer = new GameRecordWriter(channel);
+            if (fresh) {
+                channel.truncate(0);
+                writer.buffer.putLong(GameRecord.MAGIC);
+                writer.buffer.putInt(GameRecord.FORMAT_VERSION);
+                writer.buffer.putInt(Board.SIZE);
+            } else {
+                channel.truncate(end);
+            }
+            channel.position(fresh ? 0 : end);
+            return writer;
+        } catch (IOException | RuntimeException failure) {
+            channel.close();
+            throw failure;
+        }
+    }
+
+    /**
+     * Creates a writer on top of an opened file.
+     *
+     * @param channel Channel of the opened file.
+     */
+    private GameRecordWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param record The record.
+     * @throws IOException If the file can't be written.
+     */
+    public void write(GameRecord record) throws IOException {
+        if (buffer.remaining() < record.size()) {
+            flush();
+        }
+        record.writeTo(buffer);
+        ++written;
+    }
+
+    /**
+     * Gets the number of records appended by this writer.
+     *
+     * @return The number of records.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Writes all buffered records into the file.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,293 @@
+package reversi.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A game between the human and the machine, that publishes what happens in
+ * it as {@link GameEvent events}. User interfaces, loggers and spectators
+ * subscribe to the session and request events at their own pace.
+ * <p>
+ * Each subscriber has a buffer of {@link Flow#defaultBufferSize()} events.
+ * Events, that change the game or its search, reach every subscriber in
+ * order: if the buffer of a slow subscriber is full, the session waits for
+ * room. Only {@link GameEvent.Type#SEARCH_PROGRESS progress} events, that
+ * do not fit into the buffer, are dropped for that subscriber and counted.
+ * Subscribers must therefore keep requesting events without waiting for the
+ * session. The search of the machine runs without holding the lock of the
+ * session.
+ */
+public final class GameSession implements Flow.Publisher<GameEvent>,
+        AutoCloseable {
+
+    /**
+     * Delivers the events to the subscribers.
+     */
+    private final SubmissionPublisher<GameEvent> publisher;
+
+    /**
+     * Number of progress events dropped for slow subscribers.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The positions of the game from its start, the last one is the current
+     * board.
+     */
+    private List<Board> history = new ArrayList<>();
+
+    /**
+     * The start of the game in milliseconds since the epoch.
+     */
+    private long startMillis;
+
+    /**
+     * Number of the next event.
+     */
+    private long sequence;
+
+    /**
+     * Creates a session, that delivers its events asynchronously on the
+     * common pool.
+     *
+     * @param board The board of the game, with the settings of the machine.
+     */
+    public GameSession(Board board) {
+        this(board, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a session.
+     *
+     * @param board    The board of the game, with the settings of the
+     *                 machine.
+     * @param executor Runs the delivery of the events. An executor, that
+     *                 runs the tasks in the calling thread, delivers each
+     *                 event before the method publishing it returns.
+     */
+    public GameSession(Board board, Executor executor) {
+        publisher = new SubmissionPublisher<>(executor,
+                Flow.defaultBufferSize());
+        history.add(board);
+        startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super GameEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Gets the current board of the game.
+     *
+     * @return The board after the last move.
+     */
+    public synchronized Board getBoard() {
+        return history.get(history.size() - 1);
+    }
+
+    /**
+     * Gets the positions of the game.
+     *
+     * @return A copy of the positions from the start, the last one is the
+     *         current board.
+     */
+    public synchronized List<Board> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    /**
+     * Gets the start of the game.
+     *
+     * @return The start in milliseconds since the epoch.
+     */
+    public synchronized long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Gets the number of progress events, that were dropped because a
+     * subscriber did not keep up.
+     *
+     * @return The number of dropped events of all subscribers.
+     */
+    public long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    /**
+     * Starts a new game.
+     *
+     * @param board The board of the game, with the settings of the machine.
+     */
+    public void start(Board board) {
+        continueGame(Collections.singletonList(board),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Continues a game at its last position, e.g. a loaded game or a game
+     * with the last moves taken back.
+     *
+     * @param positions   The positions of the game from its start, the last
+     *                    one with the settings of the machine.
+     * @param startMillis The start of the game in milliseconds since the
+     *                    epoch.
+     * @throws IllegalArgumentException If there are no positions.
+     */
+    public synchronized void continueGame(List<Board> positions,
+                                          long startMillis) {
+        if (positions.isEmpty()) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+        history = new ArrayList<>(positions);
+        this.startMillis = startMillis;
+        Board board = getBoard();
+        publish(GameEvent.Type.RESET, board, null, -1, null);
+        if (board.gameOver()) {
+            publish(GameEvent.Type.GAME_OVER, board, board.getWinner(), -1,
+                    null);
+        }
+    }
+
+    /**
+     * Executes a move of the human. If the human has no move, the turn is
+     * passed regardless of the slot.
+     *
+     * @param row The row index of the slot, starting at 0.
+     * @param col The column index of the slot, starting at 0.
+     * @return The board after the move, {@code null} if the move is not
+     *         valid.
+     * @throws IllegalMoveException     If the game is over or the machine
+     *                                  has the turn.
+     * @throws IllegalArgumentException If the slot is not on the board.
+     */
+    public synchronized Board move(int row, int col) {
+        Board before = getBoard();
+        Board after = before.move(row, col);
+        if (after != null) {
+            advance(before, after, Player.HUMAN);
+        }
+        return after;
+    }
+
+    /**
+     * Lets the machine search and execute its move. The search runs on a
+     * copy of the board without holding the lock of the session, so the
+     * game may be replaced meanwhile; the move is then discarded. Each
+     * depth the search finishes is published as progress.
+     *
+     * @return The board after the move, {@code null} if the game was
+     *         replaced during the search.
+     * @throws IllegalMoveException If the game is over or the human has the
+     *                              turn.
+     */
+    public Board machineMove() {
+        Board before;
+        synchronized (this) {
+            before = getBoard();
+            if (before.gameOver() || before.next() != Player.HUMAN) {
+                throw new IllegalMoveException();
+            }
+            publish(GameEvent.Type.SEARCH_STARTED, before, Player.AI, -1,
+                    null);
+        }
+        Board after = before.clone().machineMove(line -> {
+            synchronized (this) {
+                if (getBoard() == before) {
+                    publish(GameEvent.Type.SEARCH_PROGRESS, before,
+                            Player.AI, -1, line);
+                }
+            }
+        });
+        synchronized (this) {
+            if (getBoard() != before) {
+                return null;
+            }
+            publish(GameEvent.Type.SEARCH_FINISHED, before, Player.AI, -1,
+                    after.getLastSearch());
+            advance(before, after, Player.AI);
+            return after;
+        }
+    }
+
+    /**
+     * Ends the session, the subscribers are completed.
+     */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+
+    /**
+     * Appends a board to the game and publishes the move or pass, that led
+     * to it, and the end of the game.
+     *
+     * @param before The board before the move.
+     * @param after  The board after the move.
+     * @param player The player who made the move.
+     */
+    private void advance(Board before, Board after, Player player) {
+        history.add(after);
+        int square = moveBetween(before, after);
+        publish(square < 0 ? GameEvent.Type.PASS : GameEvent.Type.MOVE,
+                after, player, square, null);
+        if (after.gameOver()) {
+            publish(GameEvent.Type.GAME_OVER, after, after.getWinner(), -1,
+                    null);
+        }
+    }
+
+    /**
+     * Finds the slot, that was set between two boards.
+     *
+     * @param before The board before the move.
+     * @param after  The board after the move.
+     * @return The square {@code row * SIZE + col}, {@code -1} for a pass.
+     */
+    private static int moveBetween(Board before, Board after) {
+        for (int row = 0; row < Board.SIZE; ++row) {
+            for (int col = 0; col < Board.SIZE; ++col) {
+                if (before.getSlot(row, col) == null
+                        && after.getSlot(row, col) != null) {
+                    return row * Board.SIZE + col;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Hands an event to all subscribers. Progress is only offered and
+     * dropped for subscribers without room, other events wait for it.
+     *
+     * @param type   The kind of the event.
+     * @param board  The board after the event.
+     * @param player The player the event is about.
+     * @param square The square of a move, {@code -1} for other events.
+     * @param search The statistics of a finished search or depth.
+     */
+    private void publish(GameEvent.Type type, Board board, Player player,
+                         int square, SearchResult search) {
+        GameEvent event = new GameEvent(type, sequence++, board, player,
+                square, search);
+        if (type == GameEvent.Type.SEARCH_PROGRESS) {
+            publisher.offer(event, (subscriber, lost) -> {
+                dropped.incrementAndGet();
+                return false;
+            });
+        } else {
+            publisher.submit(event);
+        }
+    }
+
+}
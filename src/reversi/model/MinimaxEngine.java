@@ -0,0 +1,222 @@
+package reversi.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The default engine. Builds the complete game tree up to the search depth,
+ * evaluates every node with the {@link Evaluation} and picks the move with a
+ * Min-Max algorithm. The tree is deepened one ply at a time, so a search
+ * that runs out of its node, time or memory budget returns the result of the
+ * last depth it finished. As the whole tree is kept until it is evaluated,
+ * the memory budget limits its size, see {@link AlphaBetaEngine} for an
+ * engine that needs far less. Deep results are stored in and taken from the
+ * position cache of the board, if it has one.
+ */
+public final class MinimaxEngine implements SearchEngine {
+
+    /**
+     * Minimal depth of a search, whose result is worth to be stored in the
+     * position cache.
+     */
+    private static final int CACHE_MIN_DEPTH = 4;
+
+    /**
+     * Measured bytes of a node of the tree with its board.
+     */
+    private static final long NODE_BYTES = 528;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return "minimax";
+    }
+
+    /**
+     * Calculates the best move, using the state, mobility and potential
+     * mobility to evaluate each move and an MinMax algorithm in case there
+     * is a look ahead. The ai picks the highest, the human the lowest score.
+     *
+     * @param position {@inheritDoc}
+     * @param limits   {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public SearchResult search(Board position, SearchLimits limits) {
+        ReversiBoard board = SearchEngines.toReversiBoard(position);
+        int depth = limits.getDepth();
+        PositionCache positionCache = board.getPositionCache();
+
+        if (positionCache != null) {
+            SearchResult cached = positionCache.lookup(board, depth);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        SearchResult best = deepen(board, limits).get(0);
+        if (positionCache != null && best.getDepth() >= CACHE_MIN_DEPTH) {
+            positionCache.store(board, best.getDepth(),
+                    best.getRow() * Board.SIZE + best.getColumn(),
+                    best.getScore());
+        }
+        return best;
+    }
+
+    /**
+     * Scores all moves with a single game tree, so the lines share the
+     * generated positions and their evaluations.
+     *
+     * @param position {@inheritDoc}
+     * @param limits   {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public List<SearchResult> analyze(Board position, SearchLimits limits) {
+        return deepen(SearchEngines.toReversiBoard(position), limits);
+    }
+
+    /**
+     * Ranks the moves with increasing depth until the depth of the limits
+     * is reached or the budget is used up. The first ply is always
+     * finished, whatever the budget. The best line of each finished depth
+     * is reported to the listener of the limits.
+     *
+     * @param board  The position to search.
+     * @param limits The limits of the search.
+     * @return The moves of the deepest finished depth with their scores,
+     *         the best first.
+     */
+    private static List<SearchResult> deepen(ReversiBoard board,
+                                             SearchLimits limits) {
+        SearchBudget budget = new SearchBudget(limits);
+        List<SearchResult> lines = rank(board, 1, budget);
+        limits.getProgress().accept(lines.get(0));
+        for (int depth = 2; depth <= limits.getDepth(); ++depth) {
+            List<SearchResult> deeper = rank(board, depth, budget);
+            if (deeper == null) {
+                break;
+            }
+            lines = deeper;
+            limits.getProgress().accept(lines.get(0));
+        }
+        return lines;
+    }
+
+    /**
+     * Builds the game tree of a position and scores each move of the root
+     * with the Min-Max algorithm.
+     *
+     * @param board  The position to search.
+     * @param depth  The depth of the tree.
+     * @param budget The budget of the whole search.
+     * @return The moves with their scores from the view of the player with
+     *         the turn, the best first. Moves of equal score keep the order
+     *         they were generated in. {@code null}, if the budget was used
+     *         up before the tree was complete.
+     */
+    private static List<SearchResult> rank(ReversiBoard board, int depth,
+                                           SearchBudget budget) {
+        long before = budget.getNodes();
+        budget.allocate(NODE_BYTES);
+        Node root = new Node(board.clone());
+        buildTree(root, depth, new MoveBuffer(depth), 0, budget);
+        long treeBytes = (budget.getNodes() - before + 1) * NODE_BYTES;
+        if (depth > 1 && budget.exhausted()) {
+            budget.free(treeBytes);
+            return null;
+        }
+        List<Node> children = root.getChildren();
+        boolean maximize = !board.isHumanToMove();
+
+        // Scores are reported from the view of the player with the turn.
+        double[] scores = new double[children.size()];
+        for (int i = 0; i < scores.length; ++i) {
+            double points = children.get(i).minMax();
+            scores[i] = maximize ? points : -points;
+        }
+        long millis = budget.getElapsed();
+        budget.free(treeBytes);
+
+        List<SearchResult> lines = new ArrayList<>(scores.length);
+        for (int i = 0; i < scores.length; ++i) {
+            int move = children.get(i).getMove();
+            lines.add(new SearchResult(Rays.ROW[move], Rays.COL[move],
+                    scores[i], depth, budget.getNodes(), millis,
+                    budget.getPeakBytes()));
+        }
+        lines.sort((left, right) -> Double.compare(right.getScore(),
+                left.getScore()));
+        return lines;
+    }
+
+    /**
+     * Builds a game tree recursively using a using the possible moves
+     * of a board to create new Nodes until the maximum level(depth) is
+     * reached or the budget is used up. The start node of the tree is
+     * always expanded.
+     *
+     * @param start The Node that is used to build the tree.
+     * @param maxDepth The maximum depth/look ahead of the tree. Equals
+     *                 the AI level.
+     * @param buffer The reusable move buffers of the search.
+     * @param ply The distance of the start node to the root.
+     * @param budget The budget the added nodes are counted in.
+     */
+    private static void buildTree(Node start, int maxDepth, MoveBuffer buffer,
+                                  int ply, SearchBudget budget) {
+        if (start != null && maxDepth > 0
+                && (ply == 0 || !budget.exhausted())) {
+            ReversiBoard current = (ReversiBoard) start.getBoard();
+            int[] moves = buffer.ply(ply);
+            int count = ReversiBoard.generateMoves(current, current.getColor(),
+                    moves);
+
+            // Does the player have moves?
+            if (count > 0) {
+
+                // Execute all possible player moves and add the result.
+                for (int i = 0; i < count; ++i) {
+                    Board temp = current.makeMove(moves[i]);
+                    Node toAdd = new Node(temp);
+                    toAdd.savePoints(Evaluation.evaluateBoard(temp));
+                    toAdd.saveMove(moves[i]);
+                    start.addChild(toAdd);
+                }
+                budget.spend(count);
+                budget.allocate(count * NODE_BYTES);
+
+                // Recursively go one step deeper.
+                for (Node goFurther : start.getChildren()) {
+                    buildTree(goFurther, (maxDepth - 1), buffer, ply + 1,
+                            budget);
+                }
+
+                // Does the enemy have moves?
+            } else if (!current.gameOver()) {
+                ReversiBoard switched = current.passTurn();
+                count = ReversiBoard.generateMoves(switched,
+                        switched.getColor(), moves);
+
+                for (int i = 0; i < count; ++i) {
+                    Board temp = switched.makeMove(moves[i]);
+                    Node toAdd = new Node(temp);
+                    toAdd.saveMove(moves[i]);
+                    toAdd.savePoints(Evaluation.evaluateBoard(temp));
+                    start.addChild(toAdd);
+                }
+                budget.spend(count);
+                budget.allocate(count * NODE_BYTES);
+
+                for (Node goFurther : start.getChildren()) {
+                    buildTree(goFurther, (maxDepth - 1), buffer, ply + 1,
+                            budget);
+                }
+            }
+
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package reversi.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Engine that selects its moves with a Monte Carlo tree search on all cores.
+ * The depth of the limits sets its budget of time and random games, the node
+ * and time budgets of the limits cap it. Every random game counts as node
+ * and may add a node to the tree, so the memory budget caps the number of
+ * random games as well.
+ */
+public final class MonteCarloEngine implements SearchEngine {
+
+    /**
+     * Number of random games the search may play per level.
+     */
+    private static final long PLAYOUTS_PER_LEVEL = 5000;
+
+    /**
+     * Milliseconds the search may take per level.
+     */
+    private static final long MILLIS_PER_LEVEL = 1000;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return "mcts";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchResult search(Board position, SearchLimits limits) {
+        ReversiBoard board = SearchEngines.toReversiBoard(position);
+        MonteCarloSearch search = createSearch(limits);
+        int move = search.search(board);
+        return new SearchResult(Rays.ROW[move], Rays.COL[move],
+                search.getScore(), limits.getDepth(), search.getPlayouts(),
+                search.getElapsed(), search.getPeakBytes());
+    }
+
+    /**
+     * Scores all moves with a single search tree by the share of the random
+     * games they won, so the lines share the playouts of the budget.
+     *
+     * @param position {@inheritDoc}
+     * @param limits   {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public List<SearchResult> analyze(Board position, SearchLimits limits) {
+        ReversiBoard board = SearchEngines.toReversiBoard(position);
+        MonteCarloSearch search = createSearch(limits);
+        search.search(board);
+        int[] moves = search.getRankedMoves();
+        double[] scores = search.getRankedScores();
+        List<SearchResult> lines = new ArrayList<>(moves.length);
+        for (int i = 0; i < moves.length; ++i) {
+            lines.add(new SearchResult(Rays.ROW[moves[i]],
+                    Rays.COL[moves[i]], scores[i], limits.getDepth(),
+                    search.getPlayouts(), search.getElapsed(),
+                    search.getPeakBytes()));
+        }
+        return lines;
+    }
+
+    /**
+     * Maps the share of won random games linearly onto the tile difference,
+     * from all games lost to all games won. Only a rough estimate, as the
+     * search does not count tiles.
+     *
+     * @param result {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public double toTiles(SearchResult result) {
+        return (2 * result.getScore() - 1) * Rays.SQUARES;
+    }
+
+    /**
+     * Creates a search on all cores with the budget of the limits.
+     *
+     * @param limits The limits of the search.
+     * @return The new search.
+     */
+    private static MonteCarloSearch createSearch(SearchLimits limits) {
+        long memory = new SearchBudget(limits).getMaxBytes();
+        long playouts = Math.min(PLAYOUTS_PER_LEVEL * limits.getDepth(),
+                limits.getNodes());
+        playouts = Math.min(playouts,
+                Math.max(1, memory / MonteCarloSearch.NODE_BYTES));
+        return new MonteCarloSearch(Runtime.getRuntime().availableProcessors(),
+                Math.min(MILLIS_PER_LEVEL * limits.getDepth(),
+                        limits.getMillis()), playouts);
+    }
+
+}
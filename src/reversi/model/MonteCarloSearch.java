@@ -0,0 +1,494 @@
+package reversi.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monte Carlo tree search (UCT) for the best move of a position. Random games
+ * are played to the end from the leaves of a growing tree, and the results
+ * steer the tree towards the most promising moves. Several threads can share
+ * one tree, a thread descending into a node adds a virtual loss to it, so the
+ * other threads spread out over different lines meanwhile.
+ */
+final class MonteCarloSearch {
+
+    /**
+     * Weight of the exploration term of the UCT formula.
+     */
+    private static final double EXPLORATION = 1.4;
+
+    /**
+     * Number of losses added to a node while a thread descends through it.
+     */
+    private static final int VIRTUAL_LOSS = 1;
+
+    /**
+     * Squares of the corners, which are preferred by the playouts.
+     */
+    private static final int[] CORNERS = {0, Board.SIZE - 1,
+            Rays.SQUARES - Board.SIZE, Rays.SQUARES - 1};
+
+    /**
+     * Marks a pass in the move of a tree node.
+     */
+    private static final int PASS = -1;
+
+    /**
+     * Estimated bytes of a tree node with its list of children and its
+     * array of untried moves.
+     */
+    static final long NODE_BYTES = 400;
+
+    /**
+     * Number of threads playing in parallel.
+     */
+    private final int threads;
+
+    /**
+     * Maximal time of a search in milliseconds.
+     */
+    private final long timeLimit;
+
+    /**
+     * Maximal number of playouts of a search.
+     */
+    private final long playoutLimit;
+
+    /**
+     * Number of playouts of the last search.
+     */
+    private final AtomicLong playouts = new AtomicLong();
+
+    /**
+     * Number of nodes in the tree of the last search.
+     */
+    private final AtomicLong treeNodes = new AtomicLong();
+
+    /**
+     * Duration of the last search in milliseconds.
+     */
+    private long elapsed;
+
+    /**
+     * Share of the games won with the move selected by the last search.
+     */
+    private double score;
+
+    /**
+     * All moves of the root of the last search, the most visited first.
+     */
+    private int[] rankedMoves = new int[0];
+
+    /**
+     * Share of the games won with each move of {@code rankedMoves}.
+     */
+    private double[] rankedScores = new double[0];
+
+    /**
+     * Initializes a new search with its budget. The search stops as soon as
+     * one of the limits is reached.
+     *
+     * @param threads      Number of threads playing in parallel.
+     * @param timeLimit    Maximal time of a search in milliseconds.
+     * @param playoutLimit Maximal number of playouts of a search.
+     */
+    MonteCarloSearch(int threads, long timeLimit, long playoutLimit) {
+        if (threads < 1 || timeLimit < 1 || playoutLimit < 1) {
+            throw new IllegalArgumentException("Budget must be positive");
+        }
+        this.threads = threads;
+        this.timeLimit = timeLimit;
+        this.playoutLimit = playoutLimit;
+    }
+
+    /**
+     * Searches the best move of the player with the turn.
+     *
+     * @param position The position to search. Is not changed.
+     * @return The square {@code row * SIZE + col} of the most visited move.
+     * @throws IllegalArgumentException If the player has no move.
+     */
+    int search(ReversiBoard position) {
+        TreeNode root = new TreeNode(null, PASS, null, position);
+        if (root.untriedCount == 0) {
+            throw new IllegalArgumentException("No move to search");
+        }
+        playouts.set(0);
+        treeNodes.set(1);
+        long start = System.currentTimeMillis();
+        long deadline = timeLimit > Long.MAX_VALUE - start ? Long.MAX_VALUE
+                : start + timeLimit;
+
+        List<Thread> helpers = new ArrayList<>();
+        for (int i = 1; i < threads; ++i) {
+            Thread helper = new Thread(() -> run(root, position, deadline));
+            helper.setDaemon(true);
+            helper.start();
+            helpers.add(helper);
+        }
+        run(root, position, deadline);
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException interrupt) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        elapsed = System.currentTimeMillis() - start;
+
+        rank(root);
+
+        // Without a single playout any move is as good as the other.
+        if (root.children.isEmpty()) {
+            score = 0.5;
+            return root.untried[0];
+        }
+        TreeNode best = null;
+        for (TreeNode child : root.children) {
+            if (best == null || child.visits > best.visits) {
+                best = child;
+            }
+        }
+        score = best.wins / best.visits;
+        return best.move;
+    }
+
+    /**
+     * Gets the number of playouts of the last search.
+     *
+     * @return The number of finished playouts.
+     */
+    long getPlayouts() {
+        return playouts.get();
+    }
+
+    /**
+     * Gets the most memory the tree of the last search occupied.
+     *
+     * @return The estimated peak memory in bytes.
+     */
+    long getPeakBytes() {
+        return treeNodes.get() * NODE_BYTES;
+    }
+
+    /**
+     * Gets the duration of the last search.
+     *
+     * @return The duration in milliseconds.
+     */
+    long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Gets the share of the games won with the move selected by the last
+     * search, from the view of the player with the turn.
+     *
+     * @return The score between 0 and 1.
+     */
+    double getScore() {
+        return score;
+    }
+
+    /**
+     * Gets all moves of the position of the last search.
+     *
+     * @return The squares {@code row * SIZE + col} of the moves, the most
+     *         visited first. Moves never tried come last.
+     */
+    int[] getRankedMoves() {
+        return rankedMoves.clone();
+    }
+
+    /**
+     * Gets the share of the games won with each move of the last search,
+     * from the view of the player with the turn.
+     *
+     * @return The scores between 0 and 1 in the order of
+     *         {@link #getRankedMoves()}, 0.5 for moves never tried.
+     */
+    double[] getRankedScores() {
+        return rankedScores.clone();
+    }
+
+    /**
+     * Ranks the moves of the root by their number of playouts.
+     *
+     * @param root The root of the finished search.
+     */
+    private void rank(TreeNode root) {
+        List<TreeNode> ranked = new ArrayList<>(root.children);
+        ranked.sort((left, right) -> Integer.compare(right.visits,
+                left.visits));
+        int count = ranked.size() + root.untriedCount;
+        rankedMoves = new int[count];
+        rankedScores = new double[count];
+        for (int i = 0; i < ranked.size(); ++i) {
+            TreeNode child = ranked.get(i);
+            rankedMoves[i] = child.move;
+            rankedScores[i] = child.wins / child.visits;
+        }
+        for (int i = ranked.size(); i < count; ++i) {
+            rankedMoves[i] = root.untried[i - ranked.size()];
+            rankedScores[i] = 0.5;
+        }
+    }
+
+    /**
+     * Repeats select, expand, playout and update until the budget is used up.
+     *
+     * @param root     The root of the shared tree.
+     * @param position The position of the root.
+     * @param deadline The time the search has to stop.
+     */
+    private void run(TreeNode root, ReversiBoard position, long deadline) {
+        int[] moves = new int[Rays.SQUARES];
+        while (playouts.get() < playoutLimit
+                && System.currentTimeMillis() < deadline
+                && !Thread.currentThread().isInterrupted()) {
+            ReversiBoard scratch = (ReversiBoard) position.clone();
+            TreeNode node = root;
+
+            // Descend along the best UCT values until a node can grow.
+            while (true) {
+                TreeNode next;
+                boolean grown;
+                synchronized (node) {
+                    if (node.untriedCount > 0) {
+                        next = node.expand(scratch);
+                        grown = true;
+                    } else if (node.children.isEmpty()) {
+                        break;
+                    } else {
+                        next = node.select();
+                        next.play(scratch);
+                        grown = false;
+                    }
+                    synchronized (next) {
+                        next.visits += VIRTUAL_LOSS;
+                    }
+                }
+                node = next;
+                if (grown) {
+                    treeNodes.incrementAndGet();
+                    break;
+                }
+            }
+
+            Player winner = playout(scratch, moves);
+            playouts.incrementAndGet();
+
+            // Replace the virtual losses by the real result.
+            for (TreeNode update = node; update != root;
+                 update = update.parent) {
+                synchronized (update) {
+                    update.visits += 1 - VIRTUAL_LOSS;
+                    if (winner == update.mover) {
+                        update.wins += 1;
+                    } else if (winner == Player.TIE) {
+                        update.wins += 0.5;
+                    }
+                }
+            }
+            synchronized (root) {
+                ++root.visits;
+            }
+        }
+    }
+
+    /**
+     * Plays random moves until the game is over. Corners are taken with
+     * preference, which keeps the playouts a bit closer to real games.
+     *
+     * @param scratch The position to play on. Is changed.
+     * @param moves   Buffer for the possible moves.
+     * @return The winner of the game or {@code TIE}.
+     */
+    private static Player playout(ReversiBoard scratch, int[] moves) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean passed = false;
+        while (true) {
+            int count = ReversiBoard.generateMoves(scratch,
+                    scratch.getColor(), moves);
+            if (count == 0) {
+                if (passed) {
+                    break;
+                }
+                scratch.passInPlace();
+                passed = true;
+            } else {
+                int move = moves[random.nextInt(count)];
+                for (int i = 0; i < count; ++i) {
+                    if (isCorner(moves[i]) && random.nextBoolean()) {
+                        move = moves[i];
+                        break;
+                    }
+                }
+                scratch.playInPlace(move);
+                passed = false;
+            }
+        }
+
+        int human = scratch.getNumberOfHumanTiles();
+        int ai = scratch.getNumberOfMachineTiles();
+        if (human > ai) {
+            return Player.HUMAN;
+        } else if (ai > human) {
+            return Player.AI;
+        } else {
+            return Player.TIE;
+        }
+    }
+
+    /**
+     * Tests if a square is a corner of the board.
+     *
+     * @param square The square to test.
+     * @return {@code true} for the four corners.
+     */
+    private static boolean isCorner(int square) {
+        for (int corner : CORNERS) {
+            if (corner == square) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Node of the search tree. All fields except the move, the mover and the
+     * parent are guarded by the lock of the node. Locks are only nested from
+     * a parent to its child.
+     */
+    private static final class TreeNode {
+
+        /**
+         * The node this node was expanded from.
+         */
+        private final TreeNode parent;
+
+        /**
+         * Square of the move leading to this node or {@code PASS}.
+         */
+        private final int move;
+
+        /**
+         * The player who made the move leading to this node.
+         */
+        private final Player mover;
+
+        /**
+         * Children already expanded.
+         */
+        private final List<TreeNode> children = new ArrayList<>();
+
+        /**
+         * Moves not yet expanded, the first {@code untriedCount} are valid.
+         */
+        private final int[] untried;
+
+        /**
+         * Number of moves not yet expanded.
+         */
+        private int untriedCount;
+
+        /**
+         * Sum of the results of all playouts through this node from the view
+         * of the mover.
+         */
+        private double wins;
+
+        /**
+         * Number of playouts through this node, including virtual losses.
+         */
+        private int visits;
+
+        /**
+         * Creates a node and collects the moves of the position it stands
+         * for. If the player with the turn can't move but the other one can,
+         * the only move is a pass.
+         *
+         * @param parent   The node this node was expanded from.
+         * @param move     Square of the move leading to this node.
+         * @param mover    The player who made this move.
+         * @param position The position after the move.
+         */
+        private TreeNode(TreeNode parent, int move, Player mover,
+                         ReversiBoard position) {
+            this.parent = parent;
+            this.move = move;
+            this.mover = mover;
+            int[] moves = new int[Rays.SQUARES];
+            int count = ReversiBoard.generateMoves(position,
+                    position.getColor(), moves);
+            if (count == 0 && ReversiBoard.hasMove(position,
+                    position.opponentColor())) {
+                moves[0] = PASS;
+                count = 1;
+            }
+            untried = moves;
+            untriedCount = count;
+        }
+
+        /**
+         * Expands a random untried move and plays it on the scratch board.
+         *
+         * @param scratch The position of this node. Is changed.
+         * @return The new child.
+         */
+        private TreeNode expand(ReversiBoard scratch) {
+            int index = ThreadLocalRandom.current().nextInt(untriedCount);
+            int square = untried[index];
+            untried[index] = untried[--untriedCount];
+            Player player = scratch.isHumanToMove() ? Player.HUMAN : Player.AI;
+            if (square == PASS) {
+                scratch.passInPlace();
+            } else {
+                scratch.playInPlace(square);
+            }
+            TreeNode child = new TreeNode(this, square, player, scratch);
+            children.add(child);
+            return child;
+        }
+
+        /**
+         * Selects the child with the best UCT value.
+         *
+         * @return The selected child.
+         */
+        private TreeNode select() {
+            double logVisits = Math.log(Math.max(visits, 1));
+            TreeNode best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (TreeNode child : children) {
+                double value;
+                synchronized (child) {
+                    value = child.wins / child.visits + EXPLORATION
+                            * Math.sqrt(logVisits / child.visits);
+                }
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Plays the move of this node on a scratch board.
+         *
+         * @param scratch The position of the parent. Is changed.
+         */
+        private void play(ReversiBoard scratch) {
+            if (move == PASS) {
+                scratch.passInPlace();
+            } else {
+                scratch.playInPlace(move);
+            }
+        }
+
+    }
+
+}
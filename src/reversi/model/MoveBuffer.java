@@ -0,0 +1,34 @@
+package reversi.model;
+
+/**
+ * Reusable buffers for the moves of each ply of a search, so generating the
+ * moves of a position allocates nothing. A move is stored as the index
+ * {@code row * Board.SIZE + col} of its square.
+ */
+final class MoveBuffer {
+
+    /**
+     * One buffer for each ply, large enough for a move on every square.
+     */
+    private final int[][] plies;
+
+    /**
+     * Initializes the buffers for a search of a certain depth.
+     *
+     * @param depth The maximal number of plies of the search.
+     */
+    MoveBuffer(int depth) {
+        plies = new int[depth + 1][Rays.SQUARES];
+    }
+
+    /**
+     * Returns the buffer of a ply.
+     *
+     * @param ply The distance to the root of the search.
+     * @return The buffer, that the moves of the ply can be written into.
+     */
+    int[] ply(int ply) {
+        return plies[ply];
+    }
+
+}
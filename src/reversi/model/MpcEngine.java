@@ -0,0 +1,42 @@
+package reversi.model;
+
+import java.util.List;
+
+/**
+ * Engine that searches like the {@link PvsEngine} and prunes positions with
+ * Multi-ProbCut. It reaches deeper in the same time, but may choose other
+ * moves with other scores. Without parameters of {@link ProbCut} it searches
+ * exactly like the {@link PvsEngine}. Its results are never cached.
+ */
+public final class MpcEngine implements SearchEngine {
+
+    /**
+     * The alpha-beta search in selective mode.
+     */
+    private final AlphaBetaEngine search = new AlphaBetaEngine(true, true);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return search.getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchResult search(Board position, SearchLimits limits) {
+        return search.search(position, limits);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SearchResult> analyze(Board position, SearchLimits limits) {
+        return search.analyze(position, limits);
+    }
+
+}
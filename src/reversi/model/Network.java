@@ -0,0 +1,357 @@
+package reversi.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Small neural network, that evaluates a position in place of the heuristic
+ * of {@link Evaluation}. Its 128 inputs tell for each slot, if it holds a
+ * tile of the own or of the enemy color. A single hidden layer with a
+ * clipped linear activation feeds one output, the value from the view of
+ * the own color.
+ * <p>
+ * The weighted sums of the hidden layer, the accumulator, only change by
+ * one row of weights when a tile is placed or flipped. Each board therefore
+ * keeps the accumulators of both colors and updates them with every change,
+ * so an evaluation only has to activate the hidden layer. Weights and
+ * accumulators are 16 bit integers scaled by {@link #ACTIVATION_SCALE}, the
+ * output is summed up in 32 bit.
+ * <p>
+ * The network is only used, if the system property {@code reversi.eval} is
+ * {@code nnue}. Its weights are fitted by {@link NetworkTrainer} and read
+ * from the file given by the system property {@code reversi.network}, or
+ * else from the file {@code network.txt} bundled next to this class.
+ */
+final class Network {
+
+    /**
+     * Name of the bundled weight file.
+     */
+    static final String RESOURCE = "network.txt";
+
+    /**
+     * Number of inputs: the own tiles, followed by the enemy tiles.
+     */
+    static final int INPUTS = 2 * Rays.SQUARES;
+
+    /**
+     * Number of neurons of the hidden layer.
+     */
+    static final int HIDDEN = 32;
+
+    /**
+     * Integer value of an activation of 1, the upper end of the clipping.
+     */
+    static final int ACTIVATION_SCALE = 127;
+
+    /**
+     * Integer value of an output weight of 1.
+     */
+    static final int WEIGHT_SCALE = 64;
+
+    /**
+     * Points of the evaluation per unit of output. An output of 1 predicts
+     * that the own color owns every slot at the end of the game.
+     */
+    static final double OUTPUT_SCALE = 20000;
+
+    /**
+     * First line of a weight file.
+     */
+    private static final String HEADER = "reversi-network 1";
+
+    /**
+     * The network the evaluation uses, {@code null} if the heuristic is
+     * used.
+     */
+    static final Network ACTIVE = "nnue".equals(
+            System.getProperty("reversi.eval")) ? load() : null;
+
+    /**
+     * Weights of the hidden layer, {@code HIDDEN} for each input.
+     */
+    private final short[] weights;
+
+    /**
+     * Biases of the hidden layer, the accumulator of an empty board.
+     */
+    private final short[] biases;
+
+    /**
+     * Weights of the output for each hidden neuron.
+     */
+    private final int[] outputWeights;
+
+    /**
+     * Bias of the output.
+     */
+    private final int outputBias;
+
+    /**
+     * Creates a network from its quantized weights.
+     *
+     * @param weights       The weights of the hidden layer, {@code HIDDEN}
+     *                      for each input.
+     * @param biases        The biases of the hidden layer.
+     * @param outputWeights The weights of the output, each within the range
+     *                      of a {@code short}.
+     * @param outputBias    The bias of the output.
+     * @throws IllegalArgumentException If an array has the wrong length.
+     */
+    Network(short[] weights, short[] biases, int[] outputWeights,
+            int outputBias) {
+        if (weights.length != INPUTS * HIDDEN || biases.length != HIDDEN
+                || outputWeights.length != HIDDEN) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+        this.weights = weights.clone();
+        this.biases = biases.clone();
+        this.outputWeights = outputWeights.clone();
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Loads the weights of the system property {@code reversi.network} or
+     * else the bundled ones.
+     *
+     * @return The network, {@code null} if there are no weights.
+     */
+    static Network load() {
+        String file = System.getProperty("reversi.network");
+        try {
+            if (file != null) {
+                try (Reader in = Files.newBufferedReader(Paths.get(file),
+                        StandardCharsets.UTF_8)) {
+                    return read(in);
+                }
+            } else {
+                try (InputStream in = Network.class.getResourceAsStream(
+                        RESOURCE)) {
+                    if (in == null) {
+                        return null;
+                    }
+                    return read(new InputStreamReader(in,
+                            StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException | IllegalArgumentException broken) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the weights in the format {@link #write} writes.
+     *
+     * @param in The weights.
+     * @return The network.
+     * @throws IOException              If the weights can't be read.
+     * @throws IllegalArgumentException If the weights are malformed.
+     */
+    static Network read(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        List<String> numbers = new ArrayList<>();
+        boolean headerFound = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            } else if (!headerFound) {
+                if (!line.equals(HEADER + " " + INPUTS + " " + HIDDEN)) {
+                    throw new IllegalArgumentException("Unknown format "
+                            + line);
+                }
+                headerFound = true;
+            } else {
+                for (String number : line.split("\\s+")) {
+                    numbers.add(number);
+                }
+            }
+        }
+        if (numbers.size() != INPUTS * HIDDEN + 2 * HIDDEN + 1) {
+            throw new IllegalArgumentException("Wrong number of weights");
+        }
+
+        int next = 0;
+        short[] biases = new short[HIDDEN];
+        for (int i = 0; i < HIDDEN; ++i) {
+            biases[i] = Short.parseShort(numbers.get(next++));
+        }
+        short[] weights = new short[INPUTS * HIDDEN];
+        for (int i = 0; i < weights.length; ++i) {
+            weights[i] = Short.parseShort(numbers.get(next++));
+        }
+        int[] outputWeights = new int[HIDDEN];
+        for (int i = 0; i < HIDDEN; ++i) {
+            outputWeights[i] = Short.parseShort(numbers.get(next++));
+        }
+        return new Network(weights, biases, outputWeights,
+                Integer.parseInt(numbers.get(next)));
+    }
+
+    /**
+     * Writes the weights: the header, the biases of the hidden layer, a line
+     * of weights for each input, the output weights and the output bias.
+     *
+     * @param out     Receives the weights.
+     * @param comment A comment written in front of the weights.
+     */
+    void write(Writer out, String comment) {
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("# " + comment);
+        writer.println(HEADER + " " + INPUTS + " " + HIDDEN);
+        writeRow(writer, biases, 0);
+        for (int input = 0; input < INPUTS; ++input) {
+            writeRow(writer, weights, input * HIDDEN);
+        }
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < HIDDEN; ++i) {
+            row.append(i == 0 ? "" : " ").append(outputWeights[i]);
+        }
+        writer.println(row);
+        writer.println(outputBias);
+        writer.flush();
+    }
+
+    /**
+     * Writes the weights into a file.
+     *
+     * @param file    The file.
+     * @param comment A comment written in front of the weights.
+     * @throws IOException If the file can't be written.
+     */
+    void write(Path file, String comment) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file,
+                StandardCharsets.UTF_8)) {
+            write(out, comment);
+        }
+    }
+
+    /**
+     * Writes {@code HIDDEN} weights as one line.
+     *
+     * @param writer Receives the line.
+     * @param values The weights.
+     * @param offset The index of the first weight.
+     */
+    private static void writeRow(PrintWriter writer, short[] values,
+                                 int offset) {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < HIDDEN; ++i) {
+            row.append(i == 0 ? "" : " ").append(values[offset + i]);
+        }
+        writer.println(row);
+    }
+
+    /**
+     * Gets the input of a slot.
+     *
+     * @param own    {@code True} for a tile of the own color.
+     * @param square The slot {@code row * SIZE + col}.
+     * @return The index of the input.
+     */
+    static int input(boolean own, int square) {
+        return own ? square : Rays.SQUARES + square;
+    }
+
+    /**
+     * Creates the accumulator of a position from scratch.
+     *
+     * @param own   The tiles of the own color.
+     * @param enemy The tiles of the enemy color.
+     * @return The accumulator.
+     */
+    short[] accumulate(long own, long enemy) {
+        short[] accumulator = biases.clone();
+        for (long rest = own; rest != 0; rest &= rest - 1) {
+            add(accumulator, input(true, Long.numberOfTrailingZeros(rest)));
+        }
+        for (long rest = enemy; rest != 0; rest &= rest - 1) {
+            add(accumulator, input(false, Long.numberOfTrailingZeros(rest)));
+        }
+        return accumulator;
+    }
+
+    /**
+     * Updates the accumulators of both colors, when the token on a slot
+     * changes.
+     *
+     * @param red      The accumulator of the red color.
+     * @param blue     The accumulator of the blue color.
+     * @param square   The slot {@code row * SIZE + col}.
+     * @param previous The token on the slot before.
+     * @param token    The token on the slot now.
+     */
+    void update(short[] red, short[] blue, int square, Token previous,
+                Token token) {
+        if (previous == Token.RED) {
+            remove(red, input(true, square));
+            remove(blue, input(false, square));
+        } else if (previous == Token.BLUE) {
+            remove(red, input(false, square));
+            remove(blue, input(true, square));
+        }
+        if (token == Token.RED) {
+            add(red, input(true, square));
+            add(blue, input(false, square));
+        } else if (token == Token.BLUE) {
+            add(red, input(false, square));
+            add(blue, input(true, square));
+        }
+    }
+
+    /**
+     * Adds the weights of an input to an accumulator.
+     *
+     * @param accumulator The accumulator.
+     * @param input       The input, that became active.
+     */
+    private void add(short[] accumulator, int input) {
+        int offset = input * HIDDEN;
+        for (int i = 0; i < HIDDEN; ++i) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    /**
+     * Subtracts the weights of an input from an accumulator.
+     *
+     * @param accumulator The accumulator.
+     * @param input       The input, that became inactive.
+     */
+    private void remove(short[] accumulator, int input) {
+        int offset = input * HIDDEN;
+        for (int i = 0; i < HIDDEN; ++i) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    /**
+     * Computes the output of the network from an accumulator.
+     *
+     * @param accumulator The accumulator from the view of a color.
+     * @return The value of the position in points of the evaluation from
+     *         the view of the color.
+     */
+    double evaluate(short[] accumulator) {
+        int sum = outputBias;
+        for (int i = 0; i < HIDDEN; ++i) {
+            int activation = Math.min(ACTIVATION_SCALE,
+                    Math.max(0, accumulator[i]));
+            sum += activation * outputWeights[i];
+        }
+        return sum * OUTPUT_SCALE / (ACTIVATION_SCALE * WEIGHT_SCALE);
+    }
+
+}
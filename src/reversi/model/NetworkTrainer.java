@@ -0,0 +1,427 @@
+package reversi.model;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Trains the weights of the {@link Network} on self-play. The principal
+ * variation engine plays games against itself at a low depth, starting with
+ * a few random moves. Every position is learned from the view of both
+ * colors with the final tile difference as target, each time under a random
+ * symmetry of the board. Every tenth game is held back to compare the
+ * network with the heuristic of {@link Evaluation}.
+ */
+public final class NetworkTrainer {
+
+    /**
+     * Default number of games to play.
+     */
+    private static final int GAMES = 20000;
+
+    /**
+     * Default number of passes over the positions.
+     */
+    private static final int EPOCHS = 12;
+
+    /**
+     * Number of random moves at the start of each game.
+     */
+    private static final int RANDOM_MOVES = 8;
+
+    /**
+     * Depth the engine plays the games with.
+     */
+    private static final int PLAY_DEPTH = 2;
+
+    /**
+     * Games of which every one is held back for validation.
+     */
+    private static final int VALIDATION = 10;
+
+    /**
+     * Learning rate of the first pass, it decays linearly to a tenth.
+     */
+    private static final double LEARNING_RATE = 0.01;
+
+    /**
+     * Largest weight of the hidden layer, so that the accumulator of a full
+     * board stays within 16 bit.
+     */
+    private static final double WEIGHT_LIMIT = (double) Short.MAX_VALUE
+            / Network.ACTIVATION_SCALE / (Rays.SQUARES + 1);
+
+    /**
+     * Seed of the random moves and the initial weights.
+     */
+    private static final long SEED = 20170315L;
+
+    /**
+     * Tiles of the own color of each position.
+     */
+    private long[] own = new long[1024];
+
+    /**
+     * Tiles of the enemy color of each position.
+     */
+    private long[] enemy = new long[1024];
+
+    /**
+     * Final tile difference from the view of the own color, divided by the
+     * number of slots.
+     */
+    private double[] targets = new double[1024];
+
+    /**
+     * Heuristic value of each position from the view of the own color,
+     * {@code NaN} if the own color is not the ai.
+     */
+    private double[] heuristics = new double[1024];
+
+    /**
+     * Indicates for each position, if it is held back for validation.
+     */
+    private boolean[] held = new boolean[1024];
+
+    /**
+     * Number of positions.
+     */
+    private int count;
+
+    /**
+     * Weights of the hidden layer, {@code HIDDEN} for each input.
+     */
+    private final double[] weights = new double[Network.INPUTS
+            * Network.HIDDEN];
+
+    /**
+     * Biases of the hidden layer.
+     */
+    private final double[] biases = new double[Network.HIDDEN];
+
+    /**
+     * Weights of the output.
+     */
+    private final double[] outputWeights = new double[Network.HIDDEN];
+
+    /**
+     * Bias of the output.
+     */
+    private double outputBias;
+
+    /**
+     * Receives the gradient of each hidden neuron.
+     */
+    private final double[] gradients = new double[Network.HIDDEN];
+
+    /**
+     * Private constructor, the trainer is only used by {@link #main}.
+     */
+    private NetworkTrainer() {
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when training the
+     * network.
+     *
+     * @param args The number of games, the number of passes and the file to
+     *             write, all optional. Writes {@code network.txt} by
+     *             default.
+     * @throws IOException If the file can't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : GAMES;
+        int epochs = args.length > 1 ? Integer.parseInt(args[1]) : EPOCHS;
+        String file = args.length > 2 ? args[2] : Network.RESOURCE;
+        if (games < VALIDATION || epochs < 1) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+
+        Random random = new Random(SEED);
+        NetworkTrainer trainer = new NetworkTrainer();
+        trainer.play(games, random);
+        trainer.train(epochs, random);
+        Network network = trainer.quantize();
+        trainer.report(network);
+        network.write(Paths.get(file), "Trained on " + trainer.count
+                + " positions of " + games + " games in " + epochs
+                + " passes");
+    }
+
+    /**
+     * Plays games of the principal variation engine against itself and
+     * collects their positions.
+     *
+     * @param games  The number of games.
+     * @param random Chooses the random moves at the start.
+     */
+    private void play(int games, Random random) {
+        SearchEngine engine = new PvsEngine();
+        SearchLimits limits = new SearchLimits(PLAY_DEPTH);
+        int[] moves = new int[Rays.SQUARES];
+        for (int game = 0; game < games; ++game) {
+            Player starter = game % 2 == 0 ? Player.HUMAN : Player.AI;
+            ReversiBoard position = new ReversiBoard(starter);
+            int first = count;
+            int ply = 0;
+            while (!position.gameOver()) {
+                int moveCount = ReversiBoard.generateMoves(position,
+                        position.getColor(), moves);
+                if (moveCount == 0) {
+                    position = position.passTurn();
+                } else if (ply < RANDOM_MOVES) {
+                    position = (ReversiBoard) position.makeMove(
+                            moves[random.nextInt(moveCount)]);
+                    ++ply;
+                } else {
+                    long ai = position.discMask(Player.AI);
+                    long human = position.discMask(Player.HUMAN);
+                    boolean validation = game % VALIDATION == 0;
+                    add(ai, human, Evaluation.evaluateBoard(position),
+                            validation);
+                    add(human, ai, Double.NaN, validation);
+                    SearchResult best = engine.search(position, limits);
+                    position = (ReversiBoard) position.makeMove(
+                            best.getRow() * Board.SIZE + best.getColumn());
+                    ++ply;
+                }
+            }
+
+            // The own color of the positions alternates with ai first.
+            double difference = (double) (position.getNumberOfMachineTiles()
+                    - position.getNumberOfHumanTiles()) / Rays.SQUARES;
+            for (int i = first; i < count; ++i) {
+                targets[i] = (i - first) % 2 == 0 ? difference : -difference;
+            }
+        }
+    }
+
+    /**
+     * Adds a position without its target.
+     *
+     * @param ownTiles   The tiles of the own color.
+     * @param enemyTiles The tiles of the enemy color.
+     * @param heuristic  The heuristic value from the view of the own color.
+     * @param validation {@code True} to hold the position back.
+     */
+    private void add(long ownTiles, long enemyTiles, double heuristic,
+                     boolean validation) {
+        if (count == own.length) {
+            int size = 2 * count;
+            own = Arrays.copyOf(own, size);
+            enemy = Arrays.copyOf(enemy, size);
+            targets = Arrays.copyOf(targets, size);
+            heuristics = Arrays.copyOf(heuristics, size);
+            held = Arrays.copyOf(held, size);
+        }
+        own[count] = ownTiles;
+        enemy[count] = enemyTiles;
+        heuristics[count] = heuristic;
+        held[count] = validation;
+        ++count;
+    }
+
+    /**
+     * Fits the weights with stochastic gradient descent on the squared
+     * error.
+     *
+     * @param epochs The number of passes over the positions.
+     * @param random Shuffles the positions and chooses the symmetries.
+     */
+    private void train(int epochs, Random random) {
+        for (int i = 0; i < weights.length; ++i) {
+            weights[i] = (random.nextDouble() - 0.5) * 0.1;
+        }
+        for (int i = 0; i < Network.HIDDEN; ++i) {
+            biases[i] = 0.5;
+            outputWeights[i] = (random.nextDouble() - 0.5) * 0.2;
+        }
+
+        int[] order = new int[count];
+        for (int i = 0; i < count; ++i) {
+            order[i] = i;
+        }
+        int[] inputs = new int[Rays.SQUARES];
+        double[] sums = new double[Network.HIDDEN];
+        for (int epoch = 0; epoch < epochs; ++epoch) {
+            double rate = LEARNING_RATE * (1 - 0.9 * epoch / epochs);
+            for (int i = count - 1; i > 0; --i) {
+                int swap = random.nextInt(i + 1);
+                int kept = order[i];
+                order[i] = order[swap];
+                order[swap] = kept;
+            }
+            double error = 0;
+            int learned = 0;
+            for (int sample : order) {
+                if (held[sample]) {
+                    continue;
+                }
+                int symmetry = random.nextInt(8);
+                int active = inputs(PositionCache.symmetric(own[sample],
+                        symmetry), PositionCache.symmetric(enemy[sample],
+                        symmetry), inputs);
+                double delta = forward(inputs, active, sums)
+                        - targets[sample];
+                error += delta * delta;
+                ++learned;
+                backward(inputs, active, sums, delta * rate);
+            }
+            System.out.printf("pass %2d: rmse %.2f tiles%n", epoch + 1,
+                    Math.sqrt(error / learned) * Rays.SQUARES);
+        }
+    }
+
+    /**
+     * Collects the active inputs of a position.
+     *
+     * @param ownTiles   The tiles of the own color.
+     * @param enemyTiles The tiles of the enemy color.
+     * @param inputs     Receives the active inputs.
+     * @return The number of active inputs.
+     */
+    private static int inputs(long ownTiles, long enemyTiles, int[] inputs) {
+        int active = 0;
+        for (long rest = ownTiles; rest != 0; rest &= rest - 1) {
+            inputs[active++] = Network.input(true,
+                    Long.numberOfTrailingZeros(rest));
+        }
+        for (long rest = enemyTiles; rest != 0; rest &= rest - 1) {
+            inputs[active++] = Network.input(false,
+                    Long.numberOfTrailingZeros(rest));
+        }
+        return active;
+    }
+
+    /**
+     * Computes the output of the network in floating point.
+     *
+     * @param inputs The active inputs.
+     * @param active The number of active inputs.
+     * @param sums   Receives the weighted sums of the hidden layer.
+     * @return The output.
+     */
+    private double forward(int[] inputs, int active, double[] sums) {
+        System.arraycopy(biases, 0, sums, 0, Network.HIDDEN);
+        for (int k = 0; k < active; ++k) {
+            int offset = inputs[k] * Network.HIDDEN;
+            for (int i = 0; i < Network.HIDDEN; ++i) {
+                sums[i] += weights[offset + i];
+            }
+        }
+        double output = outputBias;
+        for (int i = 0; i < Network.HIDDEN; ++i) {
+            output += outputWeights[i] * Math.min(1, Math.max(0, sums[i]));
+        }
+        return output;
+    }
+
+    /**
+     * Moves the weights against the gradient of the squared error.
+     *
+     * @param inputs The active inputs.
+     * @param active The number of active inputs.
+     * @param sums   The weighted sums of the hidden layer.
+     * @param step   The error of the output times the learning rate.
+     */
+    private void backward(int[] inputs, int active, double[] sums,
+                          double step) {
+        double[] hidden = gradients;
+        for (int i = 0; i < Network.HIDDEN; ++i) {
+            hidden[i] = sums[i] > 0 && sums[i] < 1
+                    ? step * outputWeights[i] : 0;
+            outputWeights[i] -= step * Math.min(1, Math.max(0, sums[i]));
+            biases[i] -= hidden[i];
+        }
+        outputBias -= step;
+        for (int k = 0; k < active; ++k) {
+            int offset = inputs[k] * Network.HIDDEN;
+            for (int i = 0; i < Network.HIDDEN; ++i) {
+                double weight = weights[offset + i] - hidden[i];
+                weights[offset + i] = Math.max(-WEIGHT_LIMIT,
+                        Math.min(WEIGHT_LIMIT, weight));
+            }
+        }
+    }
+
+    /**
+     * Rounds the weights to the integers of the network.
+     *
+     * @return The network.
+     */
+    private Network quantize() {
+        short[] hiddenWeights = new short[weights.length];
+        for (int i = 0; i < weights.length; ++i) {
+            hiddenWeights[i] = toShort(weights[i]
+                    * Network.ACTIVATION_SCALE);
+        }
+        short[] hiddenBiases = new short[Network.HIDDEN];
+        int[] output = new int[Network.HIDDEN];
+        for (int i = 0; i < Network.HIDDEN; ++i) {
+            hiddenBiases[i] = toShort(biases[i] * Network.ACTIVATION_SCALE);
+            output[i] = toShort(outputWeights[i] * Network.WEIGHT_SCALE);
+        }
+        return new Network(hiddenWeights, hiddenBiases, output,
+                (int) Math.round(outputBias * Network.ACTIVATION_SCALE
+                        * Network.WEIGHT_SCALE));
+    }
+
+    /**
+     * Rounds a value to the nearest {@code short}.
+     *
+     * @param value The value.
+     * @return The rounded value, clipped to the range of a {@code short}.
+     */
+    private static short toShort(double value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE,
+                Math.round(value)));
+    }
+
+    /**
+     * Prints the error of the network and of the heuristic on the held back
+     * positions of the ai. The heuristic is scaled to the tile difference by
+     * a linear regression on the other positions of the ai.
+     *
+     * @param network The quantized network.
+     */
+    private void report(Network network) {
+        double sumX = 0;
+        double sumY = 0;
+        double sumXX = 0;
+        double sumXY = 0;
+        int fitted = 0;
+        for (int i = 0; i < count; ++i) {
+            if (!held[i] && !Double.isNaN(heuristics[i])) {
+                sumX += heuristics[i];
+                sumY += targets[i];
+                sumXX += heuristics[i] * heuristics[i];
+                sumXY += heuristics[i] * targets[i];
+                ++fitted;
+            }
+        }
+        double slope = (fitted * sumXY - sumX * sumY)
+                / (fitted * sumXX - sumX * sumX);
+        double intercept = (sumY - slope * sumX) / fitted;
+
+        double heuristicError = 0;
+        double networkError = 0;
+        int validated = 0;
+        for (int i = 0; i < count; ++i) {
+            if (held[i] && !Double.isNaN(heuristics[i])) {
+                double heuristic = slope * heuristics[i] + intercept
+                        - targets[i];
+                double output = network.evaluate(network.accumulate(own[i],
+                        enemy[i])) / Network.OUTPUT_SCALE - targets[i];
+                heuristicError += heuristic * heuristic;
+                networkError += output * output;
+                ++validated;
+            }
+        }
+        System.out.printf("validation on %d positions: heuristic rmse %.2f"
+                + " tiles, network rmse %.2f tiles%n", validated,
+                Math.sqrt(heuristicError / validated) * Rays.SQUARES,
+                Math.sqrt(networkError / validated) * Rays.SQUARES);
+    }
+
+}
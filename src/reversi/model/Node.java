@@ -1,7 +1,7 @@
 package reversi.model;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.LinkedList;
 
 /**
  * Node for a game tree to calculate moves. Contains the board, the resulting
@@ -15,9 +15,10 @@ class Node {
     private Board reversi;
 
     /**
-     * The move that resulted to the board, that is saved in this node.
+     * The square {@code row * SIZE + col} of the move that resulted to the
+     * board, that is saved in this node.
      */
-    private Move executedMove;
+    private int executedMove;
 
     /**
      * List of children nodes.
@@ -31,12 +32,13 @@ class Node {
 
     /**
      * Initializes a new object of the Node class and saves a object of the
-     * Board class in it.
+     * Board class in it. The board is not copied, so it must not be changed
+     * afterwards.
      *
      * @param saved The board, that will be saved in this node.
      */
     Node(Board saved) {
-        reversi = saved.clone();
+        reversi = saved;
     }
 
     /**
@@ -46,7 +48,7 @@ class Node {
      */
     void addChild(Node toAdd) {
         if (children == null) {
-            children = new LinkedList<Node>();
+            children = new ArrayList<Node>();
         }
         children.add(toAdd);
     }
@@ -72,18 +74,19 @@ class Node {
     /**
      * Saves the move, that resulted to the board saved in this node.
      *
-     * @param toSave The move that will be saved.
+     * @param toSave The square {@code row * SIZE + col} of the move that
+     *               will be saved.
      */
-    void saveMove(Move toSave) {
+    void saveMove(int toSave) {
         executedMove = toSave;
     }
 
     /**
      * Returns the move, that is saved in this object.
      *
-     * @return Saved move.
+     * @return Square {@code row * SIZE + col} of the saved move.
      */
-    Move getMove() {
+    int getMove() {
         return executedMove;
     }
 
@@ -112,7 +115,7 @@ class Node {
      */
     @Override
     public String toString() {
-        return "(" + executedMove.getRow() + ", " + executedMove.getColumn()
+        return "(" + Rays.ROW[executedMove] + ", " + Rays.COL[executedMove]
                 + ") " + points;
     }
 
@@ -130,10 +133,11 @@ class Node {
         } else {
             Node firstChild = children.get(0);
             double temporary = firstChild.minMax();
+            int count = children.size();
 
             // AI has the turn so best result will be picked.
             if (firstChild.nextPlayer().equals(Player.AI)) {
-                for (int i = 1; i < children.size(); ++i) {
+                for (int i = 1; i < count; ++i) {
                     Node child = children.get(i);
                     if (child.minMax() > temporary) {
                         temporary = child.getPoints();
@@ -142,7 +146,7 @@ class Node {
 
                 // Human has the turn so worst result will be picked.
             } else {
-                for (int i = 1; i < children.size(); ++i) {
+                for (int i = 1; i < count; ++i) {
                     Node child = children.get(i);
                     if (child.minMax() < temporary) {
                         temporary = child.getPoints();
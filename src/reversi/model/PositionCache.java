@@ -0,0 +1,730 @@
+package reversi.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Persistent cache of search results that survives between sessions. The
+ * results are stored in a memory-mapped file of fixed size that is divided
+ * into slots of equal length. Each slot holds one position in its canonical
+ * orientation (the smallest of the 8 symmetric variants), the search depth,
+ * the best move and the score.
+ * <p>
+ * Every slot carries a checksum that is written last, so a slot that was only
+ * partially written when the program crashed is treated as empty on the next
+ * start.
+ */
+public final class PositionCache implements Closeable {
+
+    /**
+     * Identifies a cache file, reads 'RVRSCACH'.
+     */
+    private static final long MAGIC = 0x5256525343414348L;
+
+    /**
+     * Version of the file layout. Has to be raised, whenever the layout or
+     * the evaluation of the board changes, as old scores are useless then.
+     */
+    static final int FORMAT_VERSION = 2;
+
+    /**
+     * Number of bytes in front of the first slot.
+     */
+    private static final int HEADER_BYTES = 32;
+
+    /**
+     * Number of bytes used by a single slot.
+     */
+    private static final int SLOT_BYTES = 32;
+
+    /**
+     * Number of consecutive slots that are probed for a position.
+     */
+    private static final int BUCKET = 4;
+
+    /**
+     * Number of slots of a newly created default cache.
+     */
+    public static final int DEFAULT_SLOTS = 1 << 18;
+
+    /**
+     * Flag in the meta data of a slot that marks it as used.
+     */
+    private static final int USED = 1 << 31;
+
+    /**
+     * Flag in the meta data of a slot that marks the human to move.
+     */
+    private static final int HUMAN_TO_MOVE = 1 << 30;
+
+    /**
+     * Number of squares on the board.
+     */
+    private static final int SQUARES = Board.SIZE * Board.SIZE;
+
+    /**
+     * Maps each square to its position under the 8 symmetries of the board.
+     */
+    private static final int[][] SYMMETRY = new int[8][SQUARES];
+
+    /**
+     * Maps each square back from its position under the 8 symmetries.
+     */
+    private static final int[][] INVERSE = new int[8][SQUARES];
+
+    static {
+        final int last = Board.SIZE - 1;
+        for (int row = 0; row < Board.SIZE; ++row) {
+            for (int col = 0; col < Board.SIZE; ++col) {
+                int[] rows = {row, col, last - row, last - col, row,
+                        last - row, col, last - col};
+                int[] cols = {col, last - row, last - col, row, last - col,
+                        col, row, last - row};
+                int square = row * Board.SIZE + col;
+                for (int s = 0; s < 8; ++s) {
+                    int target = rows[s] * Board.SIZE + cols[s];
+                    SYMMETRY[s][square] = target;
+                    INVERSE[s][target] = square;
+                }
+            }
+        }
+    }
+
+    /**
+     * The file the cache is stored in.
+     */
+    private final Path file;
+
+    /**
+     * Channel of the opened file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped content of the file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Number of slots in the file.
+     */
+    private final int slots;
+
+    /**
+     * Opens the cache stored in a file. If the file does not exist, is of an
+     * unknown format or was written by another version, a new empty cache
+     * with the given number of slots is created instead.
+     *
+     * @param file  The file the cache is stored in.
+     * @param slots The number of slots used, when a new file is created.
+     * @return The opened cache.
+     * @throws IOException If the file can't be read or written.
+     */
+    public static PositionCache open(Path file, int slots)
+            throws IOException {
+        if (SQUARES > Long.SIZE) {
+            throw new IllegalStateException("Board too large for the cache");
+        } else if (slots < BUCKET
+                || slots > (Integer.MAX_VALUE - HEADER_BYTES) / SLOT_BYTES) {
+            throw new IllegalArgumentException("Unsupported number of slots");
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            int existing = readSlotCount(channel);
+            boolean fresh = existing < 0;
+            int used = fresh ? slots : existing;
+            if (fresh) {
+                channel.truncate(0);
+            }
+            MappedByteBuffer mapped = channel.map(
+                    FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + (long) used * SLOT_BYTES);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (fresh) {
+                mapped.putInt(12, Board.SIZE);
+                mapped.putInt(16, used);
+                mapped.putInt(8, FORMAT_VERSION);
+                mapped.putLong(0, MAGIC);
+            }
+            return new PositionCache(file, channel, mapped, used);
+        } catch (IOException | RuntimeException failure) {
+            channel.close();
+            throw failure;
+        }
+    }
+
+    /**
+     * Opens the cache of the current user, which is stored in the home
+     * directory.
+     *
+     * @return The opened cache.
+     * @throws IOException If the file can't be read or written.
+     */
+    public static PositionCache openDefault() throws IOException {
+        return open(defaultFile(), DEFAULT_SLOTS);
+    }
+
+    /**
+     * Gets the file the cache of the current user is stored in.
+     *
+     * @return The location of the default cache.
+     */
+    public static Path defaultFile() {
+        return Paths.get(System.getProperty("user.home"), ".reversi",
+                "positions.cache");
+    }
+
+    /**
+     * Reads the number of slots out of the header of an existing file.
+     *
+     * @param channel The opened file.
+     * @return The number of slots or {@code -1}, if the file is no valid cache
+     *         of this version.
+     * @throws IOException If the file can't be read.
+     */
+    private static int readSlotCount(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            return -1;
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY,
+                0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        int count = header.getInt(16);
+        if (header.getLong(0) != MAGIC || header.getInt(8) != FORMAT_VERSION
+                || header.getInt(12) != Board.SIZE || count < BUCKET
+                || channel.size() < HEADER_BYTES + (long) count * SLOT_BYTES) {
+            return -1;
+        } else {
+            return count;
+        }
+    }
+
+    /**
+     * Creates a cache on top of an already mapped file.
+     *
+     * @param file    The file the cache is stored in.
+     * @param channel Channel of the opened file.
+     * @param buffer  The mapped content of the file.
+     * @param slots   Number of slots in the file.
+     */
+    private PositionCache(Path file, FileChannel channel,
+                          MappedByteBuffer buffer, int slots) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slots = slots;
+    }
+
+    /**
+     * Looks up the result of an earlier search of a position.
+     *
+     * @param board    The position to look up.
+     * @param minDepth The minimal depth the stored search must have had.
+     * @return The stored move in the orientation of the given board and its
+     *         score, or {@code null} if there is no suitable entry.
+     */
+    synchronized SearchResult lookup(ReversiBoard board, int minDepth) {
+        long ai = board.discMask(Player.AI);
+        long human = board.discMask(Player.HUMAN);
+        int symmetry = canonicalSymmetry(ai, human);
+        long keyAi = transform(ai, SYMMETRY[symmetry]);
+        long keyHuman = transform(human, SYMMETRY[symmetry]);
+        int side = board.isHumanToMove() ? HUMAN_TO_MOVE : 0;
+        int slot = findSlot(keyAi, keyHuman, side);
+        if (slot < 0) {
+            return null;
+        }
+        int base = offset(slot);
+        int meta = buffer.getInt(base + 24);
+        int move = INVERSE[symmetry][move(meta)];
+        if (depth(meta) < minDepth || !board.isLegal(move)) {
+            return null;
+        } else {
+            return new SearchResult(Rays.ROW[move], Rays.COL[move],
+                    Double.longBitsToDouble(buffer.getLong(base + 16)),
+                    depth(meta), 0, 0, 0);
+        }
+    }
+
+    /**
+     * Stores the result of a search. A stored search of the same position
+     * is only replaced, if it was not deeper than the new one.
+     *
+     * @param board The searched position.
+     * @param depth The depth of the search.
+     * @param move  The best move as {@code row * SIZE + col}.
+     * @param score The score of the best move from the view of the player
+     *              with the turn.
+     */
+    synchronized void store(ReversiBoard board, int depth, int move,
+                            double score) {
+        long ai = board.discMask(Player.AI);
+        long human = board.discMask(Player.HUMAN);
+        int symmetry = canonicalSymmetry(ai, human);
+        long keyAi = transform(ai, SYMMETRY[symmetry]);
+        long keyHuman = transform(human, SYMMETRY[symmetry]);
+        int side = board.isHumanToMove() ? HUMAN_TO_MOVE : 0;
+        int meta = USED | side | (Math.min(depth, 0xff) << 8)
+                | SYMMETRY[symmetry][move];
+        int existing = findSlot(keyAi, keyHuman, side);
+
+        if (existing >= 0) {
+            if (depth(buffer.getInt(offset(existing) + 24)) <= depth) {
+                writeSlot(existing, keyAi, keyHuman, score, meta);
+            }
+        } else {
+            int start = bucketStart(keyAi, keyHuman, side);
+            int victim = start;
+            int shallowest = Integer.MAX_VALUE;
+
+            // Take the first free slot, else replace the shallowest search.
+            for (int i = 0; i < BUCKET; ++i) {
+                int slot = (start + i) % slots;
+                if (!isValid(slot)) {
+                    victim = slot;
+                    break;
+                }
+                int stored = depth(buffer.getInt(offset(slot) + 24));
+                if (stored < shallowest) {
+                    shallowest = stored;
+                    victim = slot;
+                }
+            }
+            writeSlot(victim, keyAi, keyHuman, score, meta);
+        }
+    }
+
+    /**
+     * Gets the number of slots that contain a valid entry.
+     *
+     * @return The number of stored positions.
+     */
+    public synchronized int size() {
+        int count = 0;
+        for (int slot = 0; slot < slots; ++slot) {
+            if (isValid(slot)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of slots of this cache.
+     *
+     * @return The maximal number of stored positions.
+     */
+    public int capacity() {
+        return slots;
+    }
+
+    /**
+     * Gets the file the cache is stored in.
+     *
+     * @return The location of the cache.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Passes every valid entry of this cache to a consumer.
+     *
+     * @param action The consumer of the entries.
+     */
+    public synchronized void forEach(Consumer<Entry> action) {
+        for (int slot = 0; slot < slots; ++slot) {
+            if (isValid(slot)) {
+                int base = offset(slot);
+                action.accept(new Entry(buffer.getLong(base),
+                        buffer.getLong(base + 8),
+                        Double.longBitsToDouble(buffer.getLong(base + 16)),
+                        buffer.getInt(base + 24)));
+            }
+        }
+    }
+
+    /**
+     * Copies all entries of at least a certain depth into a new cache file.
+     * Torn and shallow entries are left behind, so the copy is denser.
+     *
+     * @param target   The file of the new cache. Must not exist yet.
+     * @param slots    The number of slots of the new cache.
+     * @param minDepth The minimal depth of copied entries.
+     * @return The number of copied entries.
+     * @throws IOException If the new file can't be created.
+     */
+    public synchronized int compactTo(Path target, int slots, int minDepth)
+            throws IOException {
+        if (Files.exists(target)) {
+            throw new IllegalArgumentException(target + " already exists");
+        }
+        int[] copied = {0};
+        try (PositionCache copy = open(target, slots)) {
+            forEach(entry -> {
+                if (entry.getDepth() >= minDepth && copy.insert(entry)) {
+                    ++copied[0];
+                }
+            });
+        }
+        return copied[0];
+    }
+
+    /**
+     * Writes all changes back to the disk.
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Inserts an entry that is already in canonical orientation.
+     *
+     * @param entry The entry to insert.
+     * @return {@code true} if the entry was stored.
+     */
+    private boolean insert(Entry entry) {
+        int side = entry.isHumanToMove() ? HUMAN_TO_MOVE : 0;
+        int existing = findSlot(entry.ai, entry.human, side);
+        if (existing < 0) {
+            int start = bucketStart(entry.ai, entry.human, side);
+            for (int i = 0; i < BUCKET; ++i) {
+                int slot = (start + i) % slots;
+                if (!isValid(slot)) {
+                    writeSlot(slot, entry.ai, entry.human, entry.score,
+                            entry.meta);
+                    return true;
+                }
+            }
+            return false;
+        } else if (depth(buffer.getInt(offset(existing) + 24))
+                <= entry.getDepth()) {
+            writeSlot(existing, entry.ai, entry.human, entry.score,
+                    entry.meta);
+        }
+        return false;
+    }
+
+    /**
+     * Searches the slot of a canonical position.
+     *
+     * @param ai    The canonical tiles of the ai.
+     * @param human The canonical tiles of the human.
+     * @param side  The side flag of the position.
+     * @return The index of the slot or {@code -1}, if it is not stored.
+     */
+    private int findSlot(long ai, long human, int side) {
+        int start = bucketStart(ai, human, side);
+        for (int i = 0; i < BUCKET; ++i) {
+            int slot = (start + i) % slots;
+            int base = offset(slot);
+            if (isValid(slot) && buffer.getLong(base) == ai
+                    && buffer.getLong(base + 8) == human
+                    && (buffer.getInt(base + 24) & HUMAN_TO_MOVE) == side) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes a slot. The checksum is cleared first and written last, so an
+     * interrupted write leaves an invalid slot behind.
+     *
+     * @param slot  The index of the slot.
+     * @param ai    The canonical tiles of the ai.
+     * @param human The canonical tiles of the human.
+     * @param score The score of the search.
+     * @param meta  Flags, depth and move of the search.
+     */
+    private void writeSlot(int slot, long ai, long human, double score,
+                           int meta) {
+        int base = offset(slot);
+        long scoreBits = Double.doubleToLongBits(score);
+        buffer.putInt(base + 28, 0);
+        buffer.putLong(base, ai);
+        buffer.putLong(base + 8, human);
+        buffer.putLong(base + 16, scoreBits);
+        buffer.putInt(base + 24, meta);
+        buffer.putInt(base + 28, checksum(ai, human, scoreBits, meta));
+    }
+
+    /**
+     * Tests if a slot contains a completely written entry.
+     *
+     * @param slot The index of the slot.
+     * @return {@code true} if the slot is in use and its checksum matches.
+     */
+    private boolean isValid(int slot) {
+        int base = offset(slot);
+        int meta = buffer.getInt(base + 24);
+        return (meta & USED) != 0 && buffer.getInt(base + 28)
+                == checksum(buffer.getLong(base), buffer.getLong(base + 8),
+                buffer.getLong(base + 16), meta);
+    }
+
+    /**
+     * Computes the first slot of the bucket of a canonical position.
+     *
+     * @param ai    The canonical tiles of the ai.
+     * @param human The canonical tiles of the human.
+     * @param side  The side flag of the position.
+     * @return The index of the first slot to probe.
+     */
+    private int bucketStart(long ai, long human, int side) {
+        long hash = mix(ai * 0x9E3779B97F4A7C15L ^ mix(human) ^ side);
+        return (int) Long.remainderUnsigned(hash, slots);
+    }
+
+    /**
+     * Gets the byte offset of a slot in the file.
+     *
+     * @param slot The index of the slot.
+     * @return The position of the first byte of the slot.
+     */
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    /**
+     * Computes the checksum of the content of a slot.
+     *
+     * @param ai    The tiles of the ai.
+     * @param human The tiles of the human.
+     * @param score The bits of the score.
+     * @param meta  Flags, depth and move.
+     * @return The checksum.
+     */
+    private static int checksum(long ai, long human, long score, int meta) {
+        long hash = mix(ai ^ mix(human ^ mix(score ^ mix(meta))));
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Scrambles the bits of a number (finalizer of MurmurHash3).
+     *
+     * @param value The number to scramble.
+     * @return The scrambled number.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Gets the depth out of the meta data of a slot.
+     *
+     * @param meta The meta data.
+     * @return The stored depth.
+     */
+    private static int depth(int meta) {
+        return (meta >>> 8) & 0xff;
+    }
+
+    /**
+     * Gets the move out of the meta data of a slot.
+     *
+     * @param meta The meta data.
+     * @return The stored move in canonical orientation.
+     */
+    private static int move(int meta) {
+        return meta & 0xff;
+    }
+
+    /**
+     * Selects the symmetry that maps a position to its canonical form, which
+     * is the variant with the smallest ai and then human tiles.
+     *
+     * @param ai    The tiles of the ai.
+     * @param human The tiles of the human.
+     * @return The index of the symmetry.
+     */
+    static int canonicalSymmetry(long ai, long human) {
+        int best = 0;
+        long bestAi = ai;
+        long bestHuman = human;
+        for (int s = 1; s < 8; ++s) {
+            long tAi = transform(ai, SYMMETRY[s]);
+            int compared = Long.compareUnsigned(tAi, bestAi);
+            if (compared < 0 || compared == 0 && Long.compareUnsigned(
+                    transform(human, SYMMETRY[s]), bestHuman) < 0) {
+                best = s;
+                bestAi = tAi;
+                bestHuman = transform(human, SYMMETRY[s]);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Maps a mask to its variant under one of the 8 symmetries of the board.
+     *
+     * @param mask     The mask to map.
+     * @param symmetry The symmetry, from 0 for the identity to 7.
+     * @return The mapped mask.
+     */
+    static long symmetric(long mask, int symmetry) {
+        return transform(mask, SYMMETRY[symmetry]);
+    }
+
+    /**
+     * Maps a square to its position under one of the 8 symmetries.
+     *
+     * @param square   The square {@code row * SIZE + col}.
+     * @param symmetry The symmetry, from 0 for the identity to 7.
+     * @return The mapped square.
+     */
+    static int symmetricSquare(int square, int symmetry) {
+        return SYMMETRY[symmetry][square];
+    }
+
+    /**
+     * Maps a square back from its position under one of the 8 symmetries.
+     *
+     * @param square   The mapped square.
+     * @param symmetry The symmetry, from 0 for the identity to 7.
+     * @return The square {@code row * SIZE + col} before the mapping.
+     */
+    static int originalSquare(int square, int symmetry) {
+        return INVERSE[symmetry][square];
+    }
+
+    /**
+     * Moves every set bit of a mask to the square given by a table.
+     *
+     * @param mask  The mask to transform.
+     * @param table The target square of every square.
+     * @return The transformed mask.
+     */
+    private static long transform(long mask, int[] table) {
+        long result = 0;
+        while (mask != 0) {
+            int square = Long.numberOfTrailingZeros(mask);
+            result |= 1L << table[square];
+            mask &= mask - 1;
+        }
+        return result;
+    }
+
+    /**
+     * A single stored search result in canonical orientation.
+     */
+    public static final class Entry {
+
+        /**
+         * The tiles of the ai.
+         */
+        private final long ai;
+
+        /**
+         * The tiles of the human.
+         */
+        private final long human;
+
+        /**
+         * The score of the search.
+         */
+        private final double score;
+
+        /**
+         * Flags, depth and move.
+         */
+        private final int meta;
+
+        /**
+         * Creates a new entry out of the content of a slot.
+         *
+         * @param ai    The tiles of the ai.
+         * @param human The tiles of the human.
+         * @param score The score of the search.
+         * @param meta  Flags, depth and move.
+         */
+        private Entry(long ai, long human, double score, int meta) {
+            this.ai = ai;
+            this.human = human;
+            this.score = score;
+            this.meta = meta;
+        }
+
+        /**
+         * Gets the tiles of the ai, one bit per square.
+         *
+         * @return The tiles as bit mask.
+         */
+        public long getAiTiles() {
+            return ai;
+        }
+
+        /**
+         * Gets the tiles of the human, one bit per square.
+         *
+         * @return The tiles as bit mask.
+         */
+        public long getHumanTiles() {
+            return human;
+        }
+
+        /**
+         * Checks who has the turn in the stored position.
+         *
+         * @return {@code true} if the human has the turn.
+         */
+        public boolean isHumanToMove() {
+            return (meta & HUMAN_TO_MOVE) != 0;
+        }
+
+        /**
+         * Gets the depth of the stored search.
+         *
+         * @return The depth.
+         */
+        public int getDepth() {
+            return depth(meta);
+        }
+
+        /**
+         * Gets the best move found by the search.
+         *
+         * @return The move as {@code row * SIZE + col}.
+         */
+        public int getMove() {
+            return move(meta);
+        }
+
+        /**
+         * Gets the score of the best move.
+         *
+         * @return The score.
+         */
+        public double getScore() {
+            return score;
+        }
+
+    }
+
+}
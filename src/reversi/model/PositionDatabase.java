@@ -0,0 +1,499 @@
+package reversi.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only database of the positions reached in earlier games. For every
+ * position and move played in it, the file holds how often it was played
+ * and how those games ended, from the view of the player who made the move.
+ * <p>
+ * Positions are keyed by a hash of their canonical orientation (the
+ * smallest of the 8 symmetric variants) with the tiles of the player to
+ * move first, so transpositions and mirrored games share their entries. The
+ * records are sorted by key and move and the file is memory-mapped, so a
+ * query is a binary search without reading the file. Databases are written
+ * by {@link PositionDatabaseBuilder}.
+ */
+public final class PositionDatabase implements Closeable {
+
+    /**
+     * Identifies a database file, reads 'RVRSPODB'.
+     */
+    static final long MAGIC = 0x52565253504F4442L;
+
+    /**
+     * Version of the file layout.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Number of bytes in front of the first record.
+     */
+    static final int HEADER_BYTES = 32;
+
+    /**
+     * Number of bytes used by a single record: key, move and the number of
+     * games, wins, draws and losses.
+     */
+    static final int RECORD_BYTES = 28;
+
+    /**
+     * Number of records mapped by one buffer, as a buffer can't exceed
+     * 2 GB.
+     */
+    private static final int SEGMENT_RECORDS = (1 << 30) / RECORD_BYTES;
+
+    /**
+     * Number of bits of a key. The lowest 8 bits and the sign bit of a hash
+     * are left free, so key, move and result can be sorted as a single
+     * positive number.
+     */
+    static final int KEY_BITS = 55;
+
+    /**
+     * The file the database is stored in.
+     */
+    private final Path file;
+
+    /**
+     * Channel of the opened file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped records, {@link #SEGMENT_RECORDS} per buffer.
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Number of records in the file.
+     */
+    private final long records;
+
+    /**
+     * Number of games the database was built from.
+     */
+    private final long games;
+
+    /**
+     * Opens an existing database.
+     *
+     * @param file The file the database is stored in.
+     * @return The opened database.
+     * @throws IOException If the file can't be read or is no database of
+     *                     this version.
+     */
+    public static PositionDatabase open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(file + " is no position database");
+            }
+            MappedByteBuffer header = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            long count = header.getLong(16);
+            if (header.getLong(0) != MAGIC
+                    || header.getInt(8) != FORMAT_VERSION
+                    || header.getInt(12) != Board.SIZE || count < 0
+                    || channel.size() < HEADER_BYTES + count * RECORD_BYTES) {
+                throw new IOException(file + " is no position database of"
+                        + " version " + FORMAT_VERSION);
+            }
+            int segmentCount = (int) ((count + SEGMENT_RECORDS - 1)
+                    / SEGMENT_RECORDS);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; ++i) {
+                long first = (long) i * SEGMENT_RECORDS;
+                long length = Math.min(SEGMENT_RECORDS, count - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * RECORD_BYTES,
+                        length * RECORD_BYTES);
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new PositionDatabase(file, channel, segments, count,
+                    header.getLong(24));
+        } catch (IOException | RuntimeException failure) {
+            channel.close();
+            throw failure;
+        }
+    }
+
+    /**
+     * Opens the database of the current user, if there is one.
+     *
+     * @return The opened database or {@code null}, if the current user has
+     *         no database.
+     * @throws IOException If the file can't be read.
+     */
+    public static PositionDatabase openDefault() throws IOException {
+        Path file = defaultFile();
+        return Files.exists(file) ? open(file) : null;
+    }
+
+    /**
+     * Gets the file the database of the current user is stored in.
+     *
+     * @return The location of the default database.
+     */
+    public static Path defaultFile() {
+        return Paths.get(System.getProperty("user.home"), ".reversi",
+                "positions.db");
+    }
+
+    /**
+     * Creates a database on top of an already mapped file.
+     *
+     * @param file     The file the database is stored in.
+     * @param channel  Channel of the opened file.
+     * @param segments The mapped records.
+     * @param records  Number of records in the file.
+     * @param games    Number of games the database was built from.
+     */
+    private PositionDatabase(Path file, FileChannel channel,
+                             MappedByteBuffer[] segments, long records,
+                             long games) {
+        this.file = file;
+        this.channel = channel;
+        this.segments = segments;
+        this.records = records;
+        this.games = games;
+    }
+
+    /**
+     * Looks up the moves played in a position.
+     *
+     * @param board The position to look up.
+     * @return The moves in the orientation of the given board with their
+     *         games, the most played first. Empty if the position was never
+     *         reached or the game is over.
+     */
+    public List<MoveStatistics> lookup(Board board) {
+        long own = 0;
+        long opponent = 0;
+        Player toMove = board.next() == Player.AI ? Player.HUMAN : Player.AI;
+        for (int square = 0; square < Rays.SQUARES; ++square) {
+            Player owner = board.getSlot(Rays.ROW[square], Rays.COL[square]);
+            if (owner == toMove) {
+                own |= 1L << square;
+            } else if (owner != null) {
+                opponent |= 1L << square;
+            }
+        }
+        return lookup(own, opponent);
+    }
+
+    /**
+     * Looks up the moves played in a position given as bit masks.
+     *
+     * @param own      The tiles of the player to move.
+     * @param opponent The tiles of the other player.
+     * @return The moves in the orientation of the given masks, the most
+     *         played first. Empty if the position was never reached.
+     */
+    List<MoveStatistics> lookup(long own, long opponent) {
+        int symmetry = PositionCache.canonicalSymmetry(own, opponent);
+        long key = key(PositionCache.symmetric(own, symmetry),
+                PositionCache.symmetric(opponent, symmetry));
+        long first = firstRecord(key);
+        if (first >= records || keyAt(first) != key) {
+            return Collections.emptyList();
+        }
+        List<MoveStatistics> moves = new ArrayList<>();
+        for (long index = first; index < records && keyAt(index) == key;
+             ++index) {
+            MappedByteBuffer segment = segment(index);
+            int base = offset(index);
+            int square = PositionCache.originalSquare(
+                    segment.getInt(base + 8), symmetry);
+            moves.add(new MoveStatistics(Rays.ROW[square], Rays.COL[square],
+                    segment.getInt(base + 12), segment.getInt(base + 16),
+                    segment.getInt(base + 20), segment.getInt(base + 24)));
+        }
+        moves.sort((left, right) -> Integer.compare(right.games, left.games));
+        return moves;
+    }
+
+    /**
+     * Selects the move with the best results in a position, that was played
+     * in enough games to trust them.
+     *
+     * @param board    The position.
+     * @param minGames The minimal number of finished games of the move.
+     * @return The move with its share of won games from -1 to 1 as score,
+     *         or {@code null} if no legal move was played often enough.
+     */
+    SearchResult bookMove(ReversiBoard board, int minGames) {
+        MoveStatistics best = null;
+        for (MoveStatistics move : lookup(board)) {
+            if (move.getFinished() >= minGames
+                    && board.isLegal(move.row * Board.SIZE + move.column)
+                    && (best == null || move.getScore() > best.getScore())) {
+                best = move;
+            }
+        }
+        if (best == null) {
+            return null;
+        } else {
+            return new SearchResult(best.row, best.column,
+                    2 * best.getScore() - 1, 0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Gets the number of records, i.e. of distinct positions and moves.
+     *
+     * @return The number of records.
+     */
+    public long size() {
+        return records;
+    }
+
+    /**
+     * Gets the number of games the database was built from.
+     *
+     * @return The number of games.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the file the database is stored in.
+     *
+     * @return The location of the database.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Computes the key of a position in canonical orientation.
+     *
+     * @param own      The canonical tiles of the player to move.
+     * @param opponent The canonical tiles of the other player.
+     * @return The key with {@link #KEY_BITS} bits, never negative.
+     */
+    static long key(long own, long opponent) {
+        long hash = mix(own * 0x9E3779B97F4A7C15L ^ mix(opponent));
+        return hash >>> (Long.SIZE - KEY_BITS);
+    }
+
+    /**
+     * Searches the first record with a key not smaller than the given one.
+     *
+     * @param key The key to search.
+     * @return The index of the record or the number of records, if all keys
+     *         are smaller.
+     */
+    private long firstRecord(long key) {
+        long low = 0;
+        long high = records;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (keyAt(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Reads the key of a record.
+     *
+     * @param index The index of the record.
+     * @return The key.
+     */
+    private long keyAt(long index) {
+        return segment(index).getLong(offset(index));
+    }
+
+    /**
+     * Gets the buffer, that maps a record.
+     *
+     * @param index The index of the record.
+     * @return The buffer.
+     */
+    private MappedByteBuffer segment(long index) {
+        return segments[(int) (index / SEGMENT_RECORDS)];
+    }
+
+    /**
+     * Gets the byte offset of a record in its buffer.
+     *
+     * @param index The index of the record.
+     * @return The position of the first byte of the record.
+     */
+    private static int offset(long index) {
+        return (int) (index % SEGMENT_RECORDS) * RECORD_BYTES;
+    }
+
+    /**
+     * Scrambles the bits of a number (finalizer of MurmurHash3).
+     *
+     * @param value The number to scramble.
+     * @return The scrambled number.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * The games of a move played in a position. The results are from the
+     * view of the player who made the move.
+     */
+    public static final class MoveStatistics {
+
+        /**
+         * The row index of the move.
+         */
+        private final int row;
+
+        /**
+         * The column index of the move.
+         */
+        private final int column;
+
+        /**
+         * The number of games the move was played in.
+         */
+        private final int games;
+
+        /**
+         * The number of those games won.
+         */
+        private final int wins;
+
+        /**
+         * The number of those games ending in a tie.
+         */
+        private final int draws;
+
+        /**
+         * The number of those games lost.
+         */
+        private final int losses;
+
+        /**
+         * Creates the statistics of a move.
+         *
+         * @param row    The row index of the move.
+         * @param column The column index of the move.
+         * @param games  The number of games the move was played in.
+         * @param wins   The number of those games won.
+         * @param draws  The number of those games ending in a tie.
+         * @param losses The number of those games lost.
+         */
+        MoveStatistics(int row, int column, int games, int wins, int draws,
+                       int losses) {
+            this.row = row;
+            this.column = column;
+            this.games = games;
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+        }
+
+        /**
+         * Gets the row index of the move.
+         *
+         * @return The row index.
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * Gets the column index of the move.
+         *
+         * @return The column index.
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * Gets the number of games the move was played in, including
+         * unfinished ones.
+         *
+         * @return The number of games.
+         */
+        public int getGames() {
+            return games;
+        }
+
+        /**
+         * Gets the number of games won by the player who made the move.
+         *
+         * @return The number of wins.
+         */
+        public int getWins() {
+            return wins;
+        }
+
+        /**
+         * Gets the number of games ending in a tie.
+         *
+         * @return The number of draws.
+         */
+        public int getDraws() {
+            return draws;
+        }
+
+        /**
+         * Gets the number of games lost by the player who made the move.
+         *
+         * @return The number of losses.
+         */
+        public int getLosses() {
+            return losses;
+        }
+
+        /**
+         * Gets the number of games with a known result.
+         *
+         * @return The number of finished games.
+         */
+        public int getFinished() {
+            return wins + draws + losses;
+        }
+
+        /**
+         * Gets the share of points of the player who made the move, a draw
+         * counting half.
+         *
+         * @return The score from 0 to 1, 0.5 if no game was finished.
+         */
+        public double getScore() {
+            int finished = getFinished();
+            return finished == 0 ? 0.5 : (wins + draws / 2.0) / finished;
+        }
+
+    }
+
+}
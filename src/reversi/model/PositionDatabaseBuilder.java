@@ -0,0 +1,536 @@
+package reversi.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Builds a {@link PositionDatabase} out of game transcripts. Every move of a
+ * game becomes an entry of its position, move and result, which is
+ * collected in a run of fixed size. Full runs are sorted, merged with
+ * equal entries and written to a temporary file, and all runs are merged
+ * into the database at the end, so the memory needed does not depend on
+ * the number of games.
+ */
+public final class PositionDatabaseBuilder implements Closeable {
+
+    /**
+     * Number of entries of a run, if none is given.
+     */
+    public static final int DEFAULT_RUN = 1 << 22;
+
+    /**
+     * Result of an unfinished game.
+     */
+    private static final int UNKNOWN = 0;
+
+    /**
+     * Result of a lost game.
+     */
+    private static final int LOSS = 1;
+
+    /**
+     * Result of a game ending in a tie.
+     */
+    private static final int DRAW = 2;
+
+    /**
+     * Result of a won game.
+     */
+    private static final int WIN = 3;
+
+    /**
+     * Position of the first record in the database file.
+     */
+    private static final long HEADER_POSITION = PositionDatabase.HEADER_BYTES;
+
+    /**
+     * Number of records buffered by a reader or writer of a run.
+     */
+    private static final int BUFFERED_RECORDS = 4096;
+
+    /**
+     * Most moves a game may have, including passes.
+     */
+    private static final int MAX_PLIES = 2 * Rays.SQUARES;
+
+    /**
+     * The file the database is written to.
+     */
+    private final Path target;
+
+    /**
+     * Entries of the current run, each the key shifted by 8 bits, the
+     * canonical move shifted by 2 bits and the result.
+     */
+    private final long[] run;
+
+    /**
+     * Number of entries in the current run.
+     */
+    private int size;
+
+    /**
+     * Temporary files of the full runs.
+     */
+    private final List<Path> runFiles = new ArrayList<>();
+
+    /**
+     * Entries of the game currently added, without result.
+     */
+    private final long[] plies = new long[MAX_PLIES];
+
+    /**
+     * Whether the human made each move of the game currently added.
+     */
+    private final boolean[] humanMoves = new boolean[MAX_PLIES];
+
+    /**
+     * Number of games added.
+     */
+    private long games;
+
+    /**
+     * Creates a builder of a database.
+     *
+     * @param target  The file the database is written to. An existing one
+     *                is only replaced by {@link #finish()}.
+     * @param runSize The number of entries sorted in memory at once.
+     * @throws IllegalArgumentException If the run size is not positive.
+     */
+    public PositionDatabaseBuilder(Path target, int runSize) {
+        if (runSize < 1) {
+            throw new IllegalArgumentException("Unsupported run size");
+        }
+        this.target = target.toAbsolutePath();
+        this.run = new long[runSize];
+    }
+
+    /**
+     * Adds a game given as transcript of its moves like
+     * {@code f5d6c3d3c4}, starting at the initial position with the human
+     * as the first player. Whitespace is ignored and a pass may be written
+     * as {@code pa}, but may also be left out. The result is known, if the
+     * transcript leads to the end of the game.
+     *
+     * @param transcript The moves of the game.
+     * @throws IllegalArgumentException If a move is malformed or illegal.
+     * @throws IOException              If a full run can't be written.
+     */
+    public void addTranscript(CharSequence transcript) throws IOException {
+        ReversiBoard board = new ReversiBoard(Player.HUMAN);
+        int count = 0;
+        int i = 0;
+        int length = transcript.length();
+        while (i < length) {
+            char first = Character.toLowerCase(transcript.charAt(i));
+            if (Character.isWhitespace(first)) {
+                ++i;
+                continue;
+            } else if (i + 1 >= length) {
+                throw new IllegalArgumentException("Incomplete move at " + i);
+            }
+            char second = Character.toLowerCase(transcript.charAt(i + 1));
+            boolean canMove = ReversiBoard.legalMask(board,
+                    board.getColor()) != 0;
+            if (first == 'p' && second == 'a') {
+                if (canMove) {
+                    throw new IllegalArgumentException("Pass not allowed at "
+                            + i);
+                }
+                board.passInPlace();
+                i += 2;
+                continue;
+            } else if (!canMove && !board.gameOver()) {
+                board.passInPlace();
+            }
+            int square = (second - '1') * Board.SIZE + first - 'a';
+            if (first < 'a' || first >= 'a' + Board.SIZE || second < '1'
+                    || second >= '1' + Board.SIZE
+                    || !board.isLegal(square)) {
+                throw new IllegalArgumentException("Illegal move at " + i);
+            }
+            boolean human = board.isHumanToMove();
+            plies[count] = entry(board, square);
+            humanMoves[count] = human;
+            ++count;
+            board.playInPlace(square);
+            i += 2;
+        }
+
+        Player winner = board.gameOver() ? board.getWinner() : null;
+        for (int ply = 0; ply < count; ++ply) {
+            int result = UNKNOWN;
+            if (winner == Player.TIE) {
+                result = DRAW;
+            } else if (winner != null) {
+                result = (winner == Player.HUMAN) == humanMoves[ply]
+                        ? WIN : LOSS;
+            }
+            add(plies[ply] | result);
+        }
+        ++games;
+    }
+
+    /**
+     * Gets the number of games added so far.
+     *
+     * @return The number of games.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Merges all added games into the database and replaces the target
+     * file with it.
+     *
+     * @return The number of records written.
+     * @throws IOException If a file can't be read or written.
+     */
+    public long finish() throws IOException {
+        if (size > 0) {
+            writeRun();
+        }
+        Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = target.resolveSibling(target.getFileName()
+                + ".tmp");
+        long written = 0;
+        PriorityQueue<RunReader> heads = new PriorityQueue<>();
+        try (FileChannel out = FileChannel.open(temporary,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path runFile : runFiles) {
+                RunReader reader = new RunReader(runFile);
+                if (reader.next()) {
+                    heads.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            RecordWriter writer = new RecordWriter(out, HEADER_POSITION);
+
+            // Take the smallest record of all runs and sum up equal ones.
+            while (!heads.isEmpty()) {
+                RunReader head = heads.peek();
+                long key = head.key;
+                int move = head.move;
+                long[] counts = new long[4];
+                while (head != null && head.key == key && head.move == move) {
+                    heads.poll();
+                    head.addCountsTo(counts);
+                    if (head.next()) {
+                        heads.add(head);
+                    } else {
+                        head.close();
+                    }
+                    head = heads.peek();
+                }
+                writer.write(key, move, counts);
+                ++written;
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(
+                    PositionDatabase.HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, PositionDatabase.MAGIC);
+            header.putInt(8, PositionDatabase.FORMAT_VERSION);
+            header.putInt(12, Board.SIZE);
+            header.putLong(16, written);
+            header.putLong(24, games);
+            out.write(header, 0);
+            out.force(true);
+        } finally {
+            for (RunReader reader : heads) {
+                reader.close();
+            }
+            close();
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    /**
+     * Deletes the temporary files of the runs.
+     *
+     * @throws IOException If a file can't be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path runFile : runFiles) {
+            Files.deleteIfExists(runFile);
+        }
+        runFiles.clear();
+    }
+
+    /**
+     * Computes the entry of a move without result.
+     *
+     * @param board  The position before the move.
+     * @param square The square {@code row * SIZE + col} of the move.
+     * @return The key shifted by 8 bits and the canonical move shifted by 2
+     *         bits.
+     */
+    private static long entry(ReversiBoard board, int square) {
+        Player toMove = board.isHumanToMove() ? Player.HUMAN : Player.AI;
+        Player other = board.isHumanToMove() ? Player.AI : Player.HUMAN;
+        long own = board.discMask(toMove);
+        long opponent = board.discMask(other);
+        int symmetry = PositionCache.canonicalSymmetry(own, opponent);
+        long key = PositionDatabase.key(
+                PositionCache.symmetric(own, symmetry),
+                PositionCache.symmetric(opponent, symmetry));
+        return key << 8
+                | PositionCache.symmetricSquare(square, symmetry) << 2;
+    }
+
+    /**
+     * Adds an entry to the current run and writes the run, once it is full.
+     *
+     * @param entry The entry with result.
+     * @throws IOException If the run can't be written.
+     */
+    private void add(long entry) throws IOException {
+        run[size++] = entry;
+        if (size == run.length) {
+            writeRun();
+        }
+    }
+
+    /**
+     * Sorts the current run and writes it into a temporary file, merging
+     * the entries of the same position and move.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    private void writeRun() throws IOException {
+        Arrays.parallelSort(run, 0, size);
+        Files.createDirectories(target.getParent());
+        Path runFile = Files.createTempFile(target.getParent(),
+                target.getFileName().toString(), ".run");
+        runFiles.add(runFile);
+        try (FileChannel out = FileChannel.open(runFile,
+                StandardOpenOption.WRITE)) {
+            RecordWriter writer = new RecordWriter(out, 0);
+            int i = 0;
+            while (i < size) {
+                long position = run[i] >>> 2;
+                long[] counts = new long[4];
+                while (i < size && run[i] >>> 2 == position) {
+                    ++counts[(int) (run[i] & 3)];
+                    ++i;
+                }
+                writer.write(position >>> 6, (int) (position & 0x3f),
+                        counts);
+            }
+            writer.flush();
+        }
+        size = 0;
+    }
+
+    /**
+     * Writes records in the layout of the database through a buffer.
+     */
+    private static final class RecordWriter {
+
+        /**
+         * The file written to.
+         */
+        private final FileChannel out;
+
+        /**
+         * The records not yet written.
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocate(
+                BUFFERED_RECORDS * PositionDatabase.RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        /**
+         * The position in the file, the buffer is written to next.
+         */
+        private long position;
+
+        /**
+         * Creates a writer.
+         *
+         * @param out      The file written to.
+         * @param position The position of the first record in the file.
+         */
+        RecordWriter(FileChannel out, long position) {
+            this.out = out;
+            this.position = position;
+        }
+
+        /**
+         * Writes a record.
+         *
+         * @param key    The key of the position.
+         * @param move   The canonical move.
+         * @param counts The number of games by result, indexed by
+         *               {@code UNKNOWN}, {@code LOSS}, {@code DRAW} and
+         *               {@code WIN}.
+         * @throws IOException If the file can't be written.
+         */
+        void write(long key, int move, long[] counts) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            long total = counts[UNKNOWN] + counts[LOSS] + counts[DRAW]
+                    + counts[WIN];
+            buffer.putLong(key);
+            buffer.putInt(move);
+            buffer.putInt(saturate(total));
+            buffer.putInt(saturate(counts[WIN]));
+            buffer.putInt(saturate(counts[DRAW]));
+            buffer.putInt(saturate(counts[LOSS]));
+        }
+
+        /**
+         * Writes all buffered records.
+         *
+         * @throws IOException If the file can't be written.
+         */
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += out.write(buffer, position);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Limits a number of games to the range of a record.
+         *
+         * @param count The number of games.
+         * @return The number, at most {@code Integer.MAX_VALUE}.
+         */
+        private static int saturate(long count) {
+            return (int) Math.min(count, Integer.MAX_VALUE);
+        }
+
+    }
+
+    /**
+     * Reads the records of a run one after another through a buffer.
+     */
+    private static final class RunReader implements Comparable<RunReader>,
+            Closeable {
+
+        /**
+         * The file read from.
+         */
+        private final FileChannel in;
+
+        /**
+         * The records read, but not yet taken.
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocate(
+                BUFFERED_RECORDS * PositionDatabase.RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        /**
+         * The key of the current record.
+         */
+        private long key;
+
+        /**
+         * The canonical move of the current record.
+         */
+        private int move;
+
+        /**
+         * The number of games, wins, draws and losses of the current record.
+         */
+        private final int[] counts = new int[4];
+
+        /**
+         * Opens a run.
+         *
+         * @param file The file of the run.
+         * @throws IOException If the file can't be opened.
+         */
+        RunReader(Path file) throws IOException {
+            in = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        /**
+         * Advances to the next record.
+         *
+         * @return {@code false} if the run has no more records.
+         * @throws IOException If the file can't be read.
+         */
+        boolean next() throws IOException {
+            if (buffer.remaining() < PositionDatabase.RECORD_BYTES) {
+                buffer.compact();
+                int read = 0;
+                while (buffer.position() < PositionDatabase.RECORD_BYTES
+                        && read >= 0) {
+                    read = in.read(buffer);
+                }
+                buffer.flip();
+                if (buffer.remaining() < PositionDatabase.RECORD_BYTES) {
+                    return false;
+                }
+            }
+            key = buffer.getLong();
+            move = buffer.getInt();
+            for (int i = 0; i < counts.length; ++i) {
+                counts[i] = buffer.getInt();
+            }
+            return true;
+        }
+
+        /**
+         * Adds the games of the current record to counts by result.
+         *
+         * @param total The number of games by result, indexed by
+         *              {@code UNKNOWN}, {@code LOSS}, {@code DRAW} and
+         *              {@code WIN}.
+         */
+        void addCountsTo(long[] total) {
+            total[WIN] += counts[1];
+            total[DRAW] += counts[2];
+            total[LOSS] += counts[3];
+            total[UNKNOWN] += counts[0] - counts[1] - counts[2] - counts[3];
+        }
+
+        /**
+         * Orders the readers by key and move of their current records.
+         *
+         * @param other The reader compared to.
+         * @return The order of the current records.
+         */
+        @Override
+        public int compareTo(RunReader other) {
+            int compared = Long.compare(key, other.key);
+            return compared != 0 ? compared : Integer.compare(move,
+                    other.move);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,448 @@
+package reversi.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One-line text notation of a position: one char per slot row by row
+ * ({@code X} human, {@code O} machine, {@code .} empty), the player with the
+ * turn and the player who started the game, each of the three parts
+ * separated by a single space.
+ * <p>
+ * The parser also accepts {@code *}, {@code x} and {@code o} for tiles,
+ * {@code -} for empty slots and any whitespace between the three parts, so
+ * the slots of GGF boards can be pasted. It works on the chars in place and
+ * only allocates the board it returns. {@link Reader} streams a file of
+ * positions, one per line, without allocating per line.
+ */
+public final class PositionNotation {
+
+    /**
+     * Number of slot chars of a position.
+     */
+    public static final int SLOTS = Board.SIZE * Board.SIZE;
+
+    /**
+     * Index of the mask of the human tiles in a parsed position.
+     */
+    private static final int HUMAN = 0;
+
+    /**
+     * Index of the mask of the machine tiles in a parsed position.
+     */
+    private static final int MACHINE = 1;
+
+    /**
+     * Index of the flags of a parsed position.
+     */
+    private static final int FLAGS = 2;
+
+    /**
+     * Flag of a parsed position, in which the machine has the turn.
+     */
+    private static final long MACHINE_TO_MOVE = 1;
+
+    /**
+     * Flag of a parsed position, whose game the machine started.
+     */
+    private static final long MACHINE_STARTED = 2;
+
+    /**
+     * Private constructor to ensure no PositionNotation object can be
+     * initialized.
+     */
+    private PositionNotation() {
+    }
+
+    /**
+     * Writes a position in this notation.
+     *
+     * @param board The position.
+     * @return The notation with a single space in front of the player with
+     *         the turn and the starter.
+     */
+    public static String format(Board board) {
+        StringBuilder text = new StringBuilder(SLOTS + 4);
+        for (int row = 0; row < Board.SIZE; ++row) {
+            for (int col = 0; col < Board.SIZE; ++col) {
+                text.append(symbol(board.getSlot(row, col)));
+            }
+        }
+        Player toMove = board.next() == Player.AI ? Player.HUMAN : Player.AI;
+        text.append(' ').append(symbol(toMove));
+        text.append(' ').append(symbol(board.getFirstPlayer()));
+        return text.toString();
+    }
+
+    /**
+     * Reads a position in this notation.
+     *
+     * @param text The notation.
+     * @return A new board with the position.
+     * @throws IllegalArgumentException If the text is no valid notation.
+     */
+    public static Board parse(CharSequence text) {
+        long[] parsed = new long[3];
+        parse(text, 0, text.length(), parsed);
+        return toBoard(parsed);
+    }
+
+    /**
+     * Tests if a text starts like a position in this notation, i.e. with a
+     * slot char for every slot.
+     *
+     * @param text The text to test.
+     * @return {@code true} if the text may be a position.
+     */
+    public static boolean isPosition(CharSequence text) {
+        if (text.length() < SLOTS) {
+            return false;
+        }
+        for (int i = 0; i < SLOTS; ++i) {
+            if (slot(text.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a position out of a range of chars into masks and flags.
+     *
+     * @param text   The chars.
+     * @param start  The index of the first char of the position.
+     * @param end    The index behind the last char of the position.
+     * @param parsed Receives the human tiles, the machine tiles and the
+     *               flags.
+     * @throws IllegalArgumentException If the chars are no valid notation.
+     */
+    private static void parse(CharSequence text, int start, int end,
+                              long[] parsed) {
+        long human = 0;
+        long machine = 0;
+        int i = start;
+        for (int square = 0; square < SLOTS; ++square, ++i) {
+            if (i >= end) {
+                throw new IllegalArgumentException("Position too short");
+            }
+            switch (slot(text.charAt(i))) {
+                case 1:
+                    human |= 1L << square;
+                    break;
+                case 2:
+                    machine |= 1L << square;
+                    break;
+                case 0:
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid slot "
+                            + text.charAt(i));
+            }
+        }
+        long flags = 0;
+        for (int part = 0; part < 2; ++part) {
+            while (i < end && Character.isWhitespace(text.charAt(i))) {
+                ++i;
+            }
+            int player = i < end ? slot(text.charAt(i)) : -1;
+            if (player == 2) {
+                flags |= part == 0 ? MACHINE_TO_MOVE : MACHINE_STARTED;
+            } else if (player != 1) {
+                throw new IllegalArgumentException(part == 0
+                        ? "No player to move" : "No starter");
+            }
+            ++i;
+        }
+        while (i < end && Character.isWhitespace(text.charAt(i))) {
+            ++i;
+        }
+        if (i < end) {
+            throw new IllegalArgumentException("Position too long");
+        }
+        parsed[HUMAN] = human;
+        parsed[MACHINE] = machine;
+        parsed[FLAGS] = flags;
+    }
+
+    /**
+     * Creates the board of a parsed position.
+     *
+     * @param parsed The human tiles, the machine tiles and the flags.
+     * @return A new board.
+     */
+    private static Board toBoard(long[] parsed) {
+        return ReversiBoard.of(parsed[HUMAN], parsed[MACHINE],
+                (parsed[FLAGS] & MACHINE_TO_MOVE) != 0
+                        ? Player.AI : Player.HUMAN,
+                (parsed[FLAGS] & MACHINE_STARTED) != 0
+                        ? Player.AI : Player.HUMAN);
+    }
+
+    /**
+     * Maps a char to the content of a slot.
+     *
+     * @param symbol The char.
+     * @return {@code 0} for an empty slot, {@code 1} for the human,
+     *         {@code 2} for the machine, {@code -1} for any other char.
+     */
+    private static int slot(char symbol) {
+        switch (symbol) {
+            case '.':
+            case '-':
+                return 0;
+            case 'X':
+            case 'x':
+            case '*':
+                return 1;
+            case 'O':
+            case 'o':
+                return 2;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Maps the owner of a slot to its char.
+     *
+     * @param owner The owner, {@code null} for an empty slot.
+     * @return The char.
+     */
+    private static char symbol(Player owner) {
+        if (owner == Player.HUMAN) {
+            return 'X';
+        } else if (owner == Player.AI) {
+            return 'O';
+        } else {
+            return '.';
+        }
+    }
+
+    /**
+     * Reads positions out of a stream, one per line. Empty lines and lines
+     * starting with {@code #} are skipped. The lines are parsed directly out
+     * of a byte buffer, so reading allocates nothing but the boards asked
+     * for.
+     */
+    public static final class Reader implements Closeable {
+
+        /**
+         * Number of bytes read from the stream at once.
+         */
+        private static final int BUFFER_BYTES = 1 << 16;
+
+        /**
+         * The stream read from.
+         */
+        private final InputStream in;
+
+        /**
+         * The bytes read, but not yet parsed.
+         */
+        private byte[] buffer = new byte[BUFFER_BYTES];
+
+        /**
+         * Index of the first byte not yet parsed.
+         */
+        private int position;
+
+        /**
+         * Index behind the last byte read.
+         */
+        private int limit;
+
+        /**
+         * The chars of the current line as view on the buffer.
+         */
+        private final Line line = new Line();
+
+        /**
+         * The human tiles, the machine tiles and the flags of the current
+         * position.
+         */
+        private final long[] parsed = new long[3];
+
+        /**
+         * Number of the current line, starting at 1.
+         */
+        private long lineNumber;
+
+        /**
+         * Creates a reader.
+         *
+         * @param in The stream read from.
+         */
+        public Reader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Advances to the next position.
+         *
+         * @return {@code false} if the stream has no more positions.
+         * @throws IOException              If the stream can't be read.
+         * @throws IllegalArgumentException If the line is no valid
+         *                                  position. The reader continues
+         *                                  with the next line.
+         */
+        public boolean next() throws IOException {
+            while (true) {
+                int end = findLineEnd();
+                if (end < 0) {
+                    return false;
+                }
+                ++lineNumber;
+                int start = position;
+                position = Math.min(end + 1, limit);
+                int stop = end;
+                while (stop > start && Character.isWhitespace(
+                        (char) buffer[stop - 1])) {
+                    --stop;
+                }
+                while (start < stop && Character.isWhitespace(
+                        (char) buffer[start])) {
+                    ++start;
+                }
+                if (start < stop && buffer[start] != '#') {
+                    line.start = start;
+                    parse(line, 0, stop - start, parsed);
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Gets the number of the line of the current position.
+         *
+         * @return The line number, starting at 1.
+         */
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Gets the tiles of the human in the current position.
+         *
+         * @return The tiles, bit {@code row * SIZE + col} for each slot.
+         */
+        public long getHumanTiles() {
+            return parsed[HUMAN];
+        }
+
+        /**
+         * Gets the tiles of the machine in the current position.
+         *
+         * @return The tiles, bit {@code row * SIZE + col} for each slot.
+         */
+        public long getMachineTiles() {
+            return parsed[MACHINE];
+        }
+
+        /**
+         * Gets the player with the turn in the current position.
+         *
+         * @return The player to move.
+         */
+        public Player getPlayerToMove() {
+            return (parsed[FLAGS] & MACHINE_TO_MOVE) != 0
+                    ? Player.AI : Player.HUMAN;
+        }
+
+        /**
+         * Creates the board of the current position.
+         *
+         * @return A new board.
+         */
+        public Board toBoard() {
+            return PositionNotation.toBoard(parsed);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        /**
+         * Searches the end of the next line, reading more of the stream if
+         * necessary. The last line needs no line break.
+         *
+         * @return The index of the line break or of the end of the last
+         *         line, {@code -1} at the end of the stream.
+         * @throws IOException If the stream can't be read.
+         */
+        private int findLineEnd() throws IOException {
+            int scan = position;
+            while (true) {
+                while (scan < limit) {
+                    if (buffer[scan] == '\n') {
+                        return scan;
+                    }
+                    ++scan;
+                }
+                if (position > 0) {
+                    System.arraycopy(buffer, position, buffer, 0,
+                            limit - position);
+                    scan -= position;
+                    limit -= position;
+                    position = 0;
+                } else if (limit == buffer.length) {
+                    byte[] larger = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, larger, 0, limit);
+                    buffer = larger;
+                }
+                int read = in.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    return limit > position ? limit : -1;
+                }
+                limit += read;
+            }
+        }
+
+        /**
+         * The chars of a line in the buffer, interpreted as ASCII.
+         */
+        private final class Line implements CharSequence {
+
+            /**
+             * Index of the first char of the line in the buffer.
+             */
+            private int start;
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public char charAt(int index) {
+                return (char) (buffer[start + index] & 0xff);
+            }
+
+            /**
+             * Gets the number of chars up to the end of the buffer, as the
+             * parser gets the end of the line separately.
+             *
+             * @return The number of chars behind the start of the line.
+             */
+            @Override
+            public int length() {
+                return limit - start;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public CharSequence subSequence(int from, int to) {
+                return new String(buffer, start + from, to - from,
+                        StandardCharsets.US_ASCII);
+            }
+
+        }
+
+    }
+
+}
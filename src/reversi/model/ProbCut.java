@@ -0,0 +1,289 @@
+package reversi.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Parameters of the Multi-ProbCut pruning. For each depth and stage of the
+ * game, the value of a deep search is predicted from a search two plies
+ * shallower by a linear regression {@code deep = slope * shallow +
+ * intercept}, whose error has a known standard deviation. A position is cut
+ * off, if the shallow search predicts the deep one to leave the window by
+ * more than {@code threshold} deviations.
+ * <p>
+ * The parameters are fitted by {@link ProbCutFitter} and read from the file
+ * given by the system property {@code reversi.probcut}, or else from the
+ * file {@code probcut.properties} bundled next to this class. Each line
+ * {@code depth.stage=slope intercept deviation} holds one regression.
+ * Depths deeper than the deepest fitted one of a stage use its regression.
+ */
+final class ProbCut {
+
+    /**
+     * Name of the bundled parameter file.
+     */
+    static final String RESOURCE = "probcut.properties";
+
+    /**
+     * Number of stages the game is divided into by its number of tiles.
+     */
+    static final int STAGES = 4;
+
+    /**
+     * Smallest remaining depth, that is pruned.
+     */
+    static final int MIN_DEPTH = 3;
+
+    /**
+     * Largest remaining depth, that can have parameters.
+     */
+    static final int MAX_DEPTH = SearchLimits.MAX_DEPTH;
+
+    /**
+     * Number of deviations a prediction has to leave the window by.
+     */
+    private final double threshold;
+
+    /**
+     * Slope of the regression of each depth and stage.
+     */
+    private final double[][] slopes = new double[MAX_DEPTH + 1][STAGES];
+
+    /**
+     * Intercept of the regression of each depth and stage.
+     */
+    private final double[][] intercepts = new double[MAX_DEPTH + 1][STAGES];
+
+    /**
+     * Standard deviation of the error of the regression of each depth and
+     * stage, 0 if there is no regression.
+     */
+    private final double[][] deviations = new double[MAX_DEPTH + 1][STAGES];
+
+    /**
+     * Creates parameters without any regression.
+     *
+     * @param threshold The number of deviations a prediction has to leave
+     *                  the window by.
+     */
+    ProbCut(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Loads the parameters of the system property {@code reversi.probcut}
+     * or else the bundled ones.
+     *
+     * @return The parameters, {@code null} if there are none.
+     */
+    static ProbCut load() {
+        String file = System.getProperty("reversi.probcut");
+        Properties properties = new Properties();
+        try {
+            if (file != null) {
+                try (InputStream in = Files.newInputStream(Paths.get(file))) {
+                    properties.load(in);
+                }
+            } else {
+                try (InputStream in = ProbCut.class.getResourceAsStream(
+                        RESOURCE)) {
+                    if (in == null) {
+                        return null;
+                    }
+                    properties.load(in);
+                }
+            }
+            return parse(properties);
+        } catch (IOException | IllegalArgumentException broken) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the parameters out of their properties.
+     *
+     * @param properties The threshold and the regressions.
+     * @return The parameters.
+     * @throws IllegalArgumentException If a regression is malformed or out
+     *                                  of range.
+     */
+    static ProbCut parse(Properties properties) {
+        ProbCut parameters = new ProbCut(Double.parseDouble(
+                properties.getProperty("threshold", "1.5")));
+        for (String key : properties.stringPropertyNames()) {
+            if (key.equals("threshold")) {
+                continue;
+            }
+            String[] cell = key.split("\\.");
+            String[] fit = properties.getProperty(key).trim().split("\\s+");
+            if (cell.length != 2 || fit.length != 3) {
+                throw new IllegalArgumentException("Malformed entry " + key);
+            }
+            parameters.set(Integer.parseInt(cell[0]),
+                    Integer.parseInt(cell[1]), Double.parseDouble(fit[0]),
+                    Double.parseDouble(fit[1]), Double.parseDouble(fit[2]));
+        }
+        parameters.extend();
+        return parameters;
+    }
+
+    /**
+     * Sets the regression of a depth and stage.
+     *
+     * @param depth     The remaining depth of the deep search.
+     * @param stage     The stage of the game.
+     * @param slope     The slope of the regression, must be positive.
+     * @param intercept The intercept of the regression.
+     * @param deviation The standard deviation of its error, must be
+     *                  positive.
+     * @throws IllegalArgumentException If a parameter is out of range.
+     */
+    void set(int depth, int stage, double slope, double intercept,
+             double deviation) {
+        if (depth < MIN_DEPTH || depth > MAX_DEPTH || stage < 0
+                || stage >= STAGES || !(slope > 0) || !(deviation > 0)
+                || Double.isInfinite(intercept) || Double.isNaN(intercept)) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+        slopes[depth][stage] = slope;
+        intercepts[depth][stage] = intercept;
+        deviations[depth][stage] = deviation;
+    }
+
+    /**
+     * Copies the deepest regression of each stage to all deeper depths.
+     */
+    private void extend() {
+        for (int depth = MIN_DEPTH + 1; depth <= MAX_DEPTH; ++depth) {
+            for (int stage = 0; stage < STAGES; ++stage) {
+                if (!covers(depth, stage) && covers(depth - 1, stage)) {
+                    slopes[depth][stage] = slopes[depth - 1][stage];
+                    intercepts[depth][stage] = intercepts[depth - 1][stage];
+                    deviations[depth][stage] = deviations[depth - 1][stage];
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the parameters in the format {@link #load} reads.
+     *
+     * @param out     Receives the parameters.
+     * @param comment A comment written in front of the parameters.
+     */
+    void write(Writer out, String comment) {
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("# " + comment);
+        writer.println("# depth.stage=slope intercept deviation");
+        writer.println(String.format(Locale.ROOT, "threshold=%s",
+                threshold));
+        for (int depth = MIN_DEPTH; depth <= MAX_DEPTH; ++depth) {
+            for (int stage = 0; stage < STAGES; ++stage) {
+                if (covers(depth, stage)) {
+                    writer.println(String.format(Locale.ROOT,
+                            "%d.%d=%.6f %.3f %.3f", depth, stage,
+                            slopes[depth][stage], intercepts[depth][stage],
+                            deviations[depth][stage]));
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes the parameters into a file.
+     *
+     * @param file    The file.
+     * @param comment A comment written in front of the parameters.
+     * @throws IOException If the file can't be written.
+     */
+    void write(Path file, String comment) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file)) {
+            write(out, comment);
+        }
+    }
+
+    /**
+     * Gets the stage of the game of a position.
+     *
+     * @param filled The slots holding a tile.
+     * @return The stage, from 0 for the opening to {@code STAGES - 1}.
+     */
+    static int stage(long filled) {
+        int tiles = Long.bitCount(filled);
+        return Math.min(STAGES - 1, Math.max(0, tiles - 4) * STAGES
+                / (Rays.SQUARES - 4));
+    }
+
+    /**
+     * Gets the depth of the shallow search, that predicts a deep one.
+     *
+     * @param depth The remaining depth of the deep search.
+     * @return The remaining depth of the shallow search.
+     */
+    static int shallowDepth(int depth) {
+        return depth - 2;
+    }
+
+    /**
+     * Tests if there is a regression for a depth and stage.
+     *
+     * @param depth The remaining depth of the deep search.
+     * @param stage The stage of the game.
+     * @return {@code true} if positions of the depth and stage are pruned.
+     */
+    boolean covers(int depth, int stage) {
+        return depth >= MIN_DEPTH && depth <= MAX_DEPTH
+                && deviations[depth][stage] > 0;
+    }
+
+    /**
+     * Gets the number of deviations a prediction has to leave the window by.
+     *
+     * @return The threshold.
+     */
+    double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Gets the slope of a regression.
+     *
+     * @param depth The remaining depth of the deep search.
+     * @param stage The stage of the game.
+     * @return The slope.
+     */
+    double getSlope(int depth, int stage) {
+        return slopes[depth][stage];
+    }
+
+    /**
+     * Gets the intercept of a regression.
+     *
+     * @param depth The remaining depth of the deep search.
+     * @param stage The stage of the game.
+     * @return The intercept.
+     */
+    double getIntercept(int depth, int stage) {
+        return intercepts[depth][stage];
+    }
+
+    /**
+     * Gets the standard deviation of the error of a regression.
+     *
+     * @param depth The remaining depth of the deep search.
+     * @param stage The stage of the game.
+     * @return The deviation.
+     */
+    double getDeviation(int depth, int stage) {
+        return deviations[depth][stage];
+    }
+
+}
@@ -0,0 +1,239 @@
+package reversi.model;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fits the parameters of {@link ProbCut} from self-play. The principal
+ * variation engine plays games against itself at a low depth, starting
+ * with a few random moves. Every position of the games is searched at each
+ * depth, and the value of each depth is regressed on the value two plies
+ * shallower, separately for each stage of the game.
+ */
+public final class ProbCutFitter {
+
+    /**
+     * Default number of games to play.
+     */
+    private static final int GAMES = 30;
+
+    /**
+     * Default deepest depth to fit.
+     */
+    private static final int MAX_DEPTH = 8;
+
+    /**
+     * Number of random moves at the start of each game.
+     */
+    private static final int RANDOM_MOVES = 6;
+
+    /**
+     * Depth the engine plays the games with.
+     */
+    private static final int PLAY_DEPTH = 2;
+
+    /**
+     * Threshold written into the parameters.
+     */
+    private static final double THRESHOLD = 1.5;
+
+    /**
+     * Seed of the random moves.
+     */
+    private static final long SEED = 20170301L;
+
+    /**
+     * Private constructor to ensure no ProbCutFitter object can be
+     * initialized.
+     */
+    private ProbCutFitter() {
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when fitting the
+     * parameters.
+     *
+     * @param args The number of games, the deepest depth and the file to
+     *             write, all optional. Writes {@code probcut.properties} by
+     *             default.
+     * @throws IOException If the file can't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : GAMES;
+        int maxDepth = args.length > 1 ? Integer.parseInt(args[1])
+                : MAX_DEPTH;
+        String file = args.length > 2 ? args[2] : ProbCut.RESOURCE;
+        if (games < 1 || maxDepth < ProbCut.MIN_DEPTH
+                || maxDepth > ProbCut.MAX_DEPTH) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+
+        List<ReversiBoard> positions = play(games, new Random(SEED));
+        ProbCut parameters = new ProbCut(THRESHOLD);
+        for (int depth = ProbCut.MIN_DEPTH; depth <= maxDepth; ++depth) {
+            int shallow = ProbCut.shallowDepth(depth);
+            Regression[] stages = new Regression[ProbCut.STAGES];
+            for (int stage = 0; stage < stages.length; ++stage) {
+                stages[stage] = new Regression();
+            }
+            for (ReversiBoard position : positions) {
+                double deep = AlphaBetaEngine.value(position, depth);
+                double predictor = AlphaBetaEngine.value(position, shallow);
+                if (!Double.isNaN(deep) && !Double.isNaN(predictor)) {
+                    stages[ProbCut.stage(position.discMask(Player.AI)
+                            | position.discMask(Player.HUMAN))]
+                            .add(predictor, deep);
+                }
+            }
+            for (int stage = 0; stage < stages.length; ++stage) {
+                Regression fit = stages[stage];
+                if (fit.fits()) {
+                    parameters.set(depth, stage, fit.slope(),
+                            fit.intercept(), fit.deviation());
+                    System.out.printf("depth %d stage %d: %4d positions,"
+                            + " slope %.4f intercept %9.1f deviation"
+                            + " %8.1f%n", depth, stage, fit.count,
+                            fit.slope(), fit.intercept(), fit.deviation());
+                }
+            }
+        }
+        parameters.write(Paths.get(file), "Fitted on " + positions.size()
+                + " positions of " + games + " games up to depth "
+                + maxDepth);
+    }
+
+    /**
+     * Plays games of the principal variation engine against itself.
+     *
+     * @param games  The number of games.
+     * @param random Chooses the random moves at the start.
+     * @return Every position, where the player with the turn has a move.
+     */
+    private static List<ReversiBoard> play(int games, Random random) {
+        SearchEngine engine = new PvsEngine();
+        SearchLimits limits = new SearchLimits(PLAY_DEPTH);
+        int[] moves = new int[Rays.SQUARES];
+        List<ReversiBoard> positions = new ArrayList<>();
+        for (int game = 0; game < games; ++game) {
+            Player starter = game % 2 == 0 ? Player.HUMAN : Player.AI;
+            ReversiBoard position = new ReversiBoard(starter);
+            int ply = 0;
+            while (!position.gameOver()) {
+                int count = ReversiBoard.generateMoves(position,
+                        position.getColor(), moves);
+                if (count == 0) {
+                    position = position.passTurn();
+                } else if (ply < RANDOM_MOVES) {
+                    position = (ReversiBoard) position.makeMove(
+                            moves[random.nextInt(count)]);
+                    ++ply;
+                } else {
+                    positions.add(position);
+                    SearchResult best = engine.search(position, limits);
+                    position = (ReversiBoard) position.makeMove(
+                            best.getRow() * Board.SIZE + best.getColumn());
+                    ++ply;
+                }
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Least squares regression of one variable on another.
+     */
+    private static final class Regression {
+
+        /**
+         * Number of samples.
+         */
+        private int count;
+
+        /**
+         * Sum of the predictors.
+         */
+        private double sumX;
+
+        /**
+         * Sum of the predicted values.
+         */
+        private double sumY;
+
+        /**
+         * Sum of the squared predictors.
+         */
+        private double sumXX;
+
+        /**
+         * Sum of the products of predictor and predicted value.
+         */
+        private double sumXY;
+
+        /**
+         * Sum of the squared predicted values.
+         */
+        private double sumYY;
+
+        /**
+         * Adds a sample.
+         *
+         * @param x The predictor.
+         * @param y The predicted value.
+         */
+        private void add(double x, double y) {
+            ++count;
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+            sumYY += y * y;
+        }
+
+        /**
+         * Tests if there are enough samples for a usable regression.
+         *
+         * @return {@code true} if the slope and deviation are positive.
+         */
+        private boolean fits() {
+            return count > 2 && slope() > 0 && deviation() > 0;
+        }
+
+        /**
+         * Gets the slope of the regression.
+         *
+         * @return The slope.
+         */
+        private double slope() {
+            double varianceX = count * sumXX - sumX * sumX;
+            return (count * sumXY - sumX * sumY) / varianceX;
+        }
+
+        /**
+         * Gets the intercept of the regression.
+         *
+         * @return The intercept.
+         */
+        private double intercept() {
+            return (sumY - slope() * sumX) / count;
+        }
+
+        /**
+         * Gets the standard deviation of the error of the regression.
+         *
+         * @return The deviation.
+         */
+        private double deviation() {
+            double slope = slope();
+            double intercept = intercept();
+            double squares = sumYY - 2 * slope * sumXY - 2 * intercept * sumY
+                    + slope * slope * sumXX + 2 * slope * intercept * sumX
+                    + count * intercept * intercept;
+            return Math.sqrt(Math.max(0, squares / (count - 2)));
+        }
+
+    }
+
+}
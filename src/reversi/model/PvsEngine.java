@@ -0,0 +1,42 @@
+package reversi.model;
+
+import java.util.List;
+
+/**
+ * Engine that searches like the {@link AlphaBetaEngine} with principal
+ * variation and aspiration windows. It selects the same moves with the same
+ * scores, but usually visits fewer positions. The number of searches, that
+ * had to be repeated with a wider window, is part of its results.
+ */
+public final class PvsEngine implements SearchEngine {
+
+    /**
+     * The alpha-beta search in principal variation mode.
+     */
+    private final AlphaBetaEngine search = new AlphaBetaEngine(true, false);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return search.getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchResult search(Board position, SearchLimits limits) {
+        return search.search(position, limits);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SearchResult> analyze(Board position, SearchLimits limits) {
+        return search.analyze(position, limits);
+    }
+
+}
@@ -0,0 +1,98 @@
+package reversi.model;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed tables of the squares, that can be reached from each square of
+ * the board in the 8 directions. Walking these tables replaces the loops over
+ * all directions with their bound checks. A square is identified by its
+ * index {@code row * Board.SIZE + col}.
+ */
+final class Rays {
+
+    /**
+     * Number of squares on the board.
+     */
+    static final int SQUARES = Board.SIZE * Board.SIZE;
+
+    /**
+     * Row of each square.
+     */
+    static final int[] ROW = new int[SQUARES];
+
+    /**
+     * Column of each square.
+     */
+    static final int[] COL = new int[SQUARES];
+
+    /**
+     * For each square the rays in all directions, that contain at least two
+     * squares. Only those can enclose tiles of the enemy. The squares of a
+     * ray are ordered by their distance to the start square.
+     */
+    static final int[][][] FLIP_RAYS = new int[SQUARES][][];
+
+    /**
+     * For each square all squares directly next to it.
+     */
+    static final int[][] NEIGHBORS = new int[SQUARES][];
+
+    /**
+     * For each square all squares directly next to it as bit mask. Only
+     * filled, if the board has at most 64 squares.
+     */
+    static final long[] NEIGHBOR_MASKS = new long[SQUARES];
+
+    static {
+        for (int square = 0; square < SQUARES; ++square) {
+            ROW[square] = square / Board.SIZE;
+            COL[square] = square % Board.SIZE;
+        }
+
+        for (int square = 0; square < SQUARES; ++square) {
+            int[][] rays = new int[8][];
+            int rayCount = 0;
+            int[] neighbors = new int[8];
+            int neighborCount = 0;
+
+            // Go into all 8 directions and collect the squares until the
+            // border of the board is reached.
+            for (int xAxis = -1; xAxis < 2; ++xAxis) {
+                for (int yAxis = -1; yAxis < 2; ++yAxis) {
+                    if (xAxis == 0 && yAxis == 0) {
+                        continue;
+                    }
+                    int[] ray = new int[Board.SIZE];
+                    int length = 0;
+                    int row = ROW[square] + xAxis;
+                    int col = COL[square] + yAxis;
+                    while (row >= 0 && row < Board.SIZE && col >= 0
+                            && col < Board.SIZE) {
+                        ray[length++] = row * Board.SIZE + col;
+                        row += xAxis;
+                        col += yAxis;
+                    }
+                    if (length > 0) {
+                        neighbors[neighborCount++] = ray[0];
+                        if (SQUARES <= Long.SIZE) {
+                            NEIGHBOR_MASKS[square] |= 1L << ray[0];
+                        }
+                    }
+                    if (length > 1) {
+                        rays[rayCount++] = Arrays.copyOf(ray, length);
+                    }
+                }
+            }
+
+            FLIP_RAYS[square] = Arrays.copyOf(rays, rayCount);
+            NEIGHBORS[square] = Arrays.copyOf(neighbors, neighborCount);
+        }
+    }
+
+    /**
+     * Private constructor to ensure no Rays object can be initialized.
+     */
+    private Rays() {
+    }
+
+}
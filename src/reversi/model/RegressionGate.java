@@ -0,0 +1,485 @@
+package reversi.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Regression gate for the search. Runs a fixed suite of positions through
+ * several engines at a fixed depth or node count and compares the chosen
+ * moves, scores and node counts with the baseline {@code regression.txt}
+ * bundled next to this class. Those have to match exactly, as every search
+ * runs in a single thread without a time limit. The nodes per second of
+ * each case may drop by at most a threshold against a speed baseline.
+ * <p>
+ * The speed depends on the machine, so the bundled baseline has only the
+ * moves, scores and nodes. The speed baseline is a file on the machine,
+ * that checks against it, by default {@code regression-local.txt} in the
+ * working directory. A check without one records it and fails, so a
+ * passed check has always compared the speed.
+ */
+public final class RegressionGate {
+
+    /**
+     * Name of the bundled baseline.
+     */
+    static final String RESOURCE = "regression.txt";
+
+    /**
+     * Default file of the speed baseline of this machine.
+     */
+    private static final String LOCAL = "regression-local.txt";
+
+    /**
+     * Number of random positions the suite is taken from.
+     */
+    private static final int CORPUS_SIZE = 2000;
+
+    /**
+     * Number of positions in the suite.
+     */
+    private static final int POSITIONS = 40;
+
+    /**
+     * Seed of the random games the suite is taken from.
+     */
+    private static final long SEED = 20170217L;
+
+    /**
+     * Number of measured runs of each case, the fastest one counts.
+     */
+    private static final int RUNS = 3;
+
+    /**
+     * Default drop of the nodes per second in percent, that fails the gate.
+     */
+    private static final double THRESHOLD = 10;
+
+    /**
+     * Private constructor to ensure no RegressionGate object can be
+     * initialized.
+     */
+    private RegressionGate() {
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when starting the
+     * gate. Exits with status 1, if the check fails.
+     * <ul>
+     * <li>{@code record [file]} - runs the suite and writes the speed
+     * baseline with the nodes per second into the file, without a file the
+     * bundled baseline without them next to this class</li>
+     * <li>{@code check [file] [percent]} - runs the suite and compares it
+     * with the bundled baseline and the speed baseline in the file, by
+     * default {@code regression-local.txt}</li>
+     * </ul>
+     *
+     * @param args The command and its parameters.
+     * @throws IOException If the baseline can't be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            printHelp();
+            return;
+        }
+        switch (args[0].toLowerCase()) {
+            case "record":
+                Record recorded = run();
+                Path file = args.length > 1 ? Paths.get(args[1])
+                        : bundled();
+                save(recorded, file, args.length > 1);
+                System.out.println("Recorded " + recorded.results.size()
+                        + " searches into " + file);
+                break;
+            case "check":
+                Record baseline = load();
+                Path local = Paths.get(args.length > 1 ? args[1] : LOCAL);
+                double threshold = args.length > 2
+                        ? Double.parseDouble(args[2]) : THRESHOLD;
+                Record current = run();
+                List<String> failures = compare(baseline, current);
+                if (Files.exists(local)) {
+                    failures.addAll(compareSpeed(read(local), current,
+                            threshold, local));
+                } else {
+                    save(current, local, true);
+                    failures.add("No speed baseline, recorded this run into "
+                            + local + ", check again to compare the speed");
+                }
+                if (failures.isEmpty()) {
+                    System.out.println("Passed");
+                } else {
+                    for (String failure : failures) {
+                        System.out.println(failure);
+                    }
+                    System.out.println("Failed with " + failures.size()
+                            + " differences");
+                    System.exit(1);
+                }
+                break;
+            default:
+                printHelp();
+                break;
+        }
+    }
+
+    /**
+     * Gets the cases of the suite: each engine with its limits.
+     *
+     * @return The cases.
+     */
+    private static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+        cases.add(new Case("alphabeta-d5", new AlphaBetaEngine(),
+                new SearchLimits(5)));
+        cases.add(new Case("pvs-d5", new PvsEngine(), new SearchLimits(5)));
+        cases.add(new Case("mpc-d7", new MpcEngine(), new SearchLimits(7)));
+        cases.add(new Case("pvs-n50000", new PvsEngine(),
+                new SearchLimits(SearchLimits.MAX_DEPTH, 50000,
+                        SearchLimits.MAX_MILLIS)));
+        return cases;
+    }
+
+    /**
+     * Runs every case of the suite once to warm up, then measures it.
+     *
+     * @return The moves, scores and nodes of every search and the nodes per
+     *         second of every case.
+     */
+    private static Record run() {
+        List<ReversiBoard> suite = new ArrayList<>();
+        List<ReversiBoard> corpus = Benchmark.corpus(CORPUS_SIZE, SEED);
+        for (int i = 0; i < corpus.size(); i += CORPUS_SIZE / POSITIONS) {
+            ReversiBoard position = corpus.get(i);
+            if (ReversiBoard.hasMove(position, position.getColor())) {
+                suite.add(position);
+            }
+        }
+
+        Record record = new Record(Network.ACTIVE == null ? "heuristic"
+                : "nnue");
+        for (Case test : cases()) {
+            long fastest = Long.MAX_VALUE;
+            long nodes = 0;
+            for (int run = 0; run <= RUNS; ++run) {
+                nodes = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < suite.size(); ++i) {
+                    SearchResult result = test.engine.search(suite.get(i),
+                            test.limits);
+                    nodes += result.getNodes();
+                    record.results.put(test.name + " #" + i, String.format(
+                            Locale.ROOT, "(%d, %d) %s %d",
+                            result.getRow() + 1, result.getColumn() + 1,
+                            Double.toString(result.getScore()),
+                            result.getNodes()));
+                }
+                long elapsed = System.nanoTime() - start;
+                if (run > 0) {
+                    fastest = Math.min(fastest, elapsed);
+                }
+            }
+            long nps = Math.round(nodes * 1e9 / Math.max(1, fastest));
+            record.nps.put(test.name, nps);
+            System.out.printf("%-12s %10d nodes %10d nodes/s%n", test.name,
+                    nodes, nps);
+        }
+        return record;
+    }
+
+    /**
+     * Gets the file of the bundled baseline next to this class, so a
+     * recorded baseline replaces it.
+     *
+     * @return The file.
+     * @throws IOException If this class is not loaded from a directory.
+     */
+    private static Path bundled() throws IOException {
+        URL self = RegressionGate.class.getResource(
+                RegressionGate.class.getSimpleName() + ".class");
+        if (self == null || !"file".equals(self.getProtocol())) {
+            throw new IOException("Can't write next to the class at "
+                    + self);
+        }
+        try {
+            return Paths.get(self.toURI()).resolveSibling(RESOURCE);
+        } catch (URISyntaxException invalid) {
+            throw new IOException("Can't write next to the class at "
+                    + self, invalid);
+        }
+    }
+
+    /**
+     * Reads a baseline from a file.
+     *
+     * @param file The file of the baseline.
+     * @return The baseline.
+     * @throws IOException If the baseline can't be read.
+     */
+    private static Record read(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            return Record.read(in);
+        }
+    }
+
+    /**
+     * Writes a baseline into a file.
+     *
+     * @param record The baseline.
+     * @param file   The file of the baseline.
+     * @param speed  {@code false} to leave out the nodes per second.
+     * @throws IOException If the baseline can't be written.
+     */
+    private static void save(Record record, Path file, boolean speed)
+            throws IOException {
+        try (Writer out = Files.newBufferedWriter(file,
+                StandardCharsets.UTF_8)) {
+            record.write(out, speed);
+        }
+    }
+
+    /**
+     * Loads the bundled baseline.
+     *
+     * @return The baseline.
+     * @throws IOException If the baseline can't be read or there is none.
+     */
+    private static Record load() throws IOException {
+        try (InputStream in = RegressionGate.class.getResourceAsStream(
+                RESOURCE)) {
+            if (in == null) {
+                throw new IOException("No bundled baseline " + RESOURCE);
+            }
+            return Record.read(new InputStreamReader(in,
+                    StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Compares the moves, scores and nodes of a run with the baseline.
+     *
+     * @param baseline The baseline.
+     * @param current  The run.
+     * @return A readable line for every difference, empty if the run
+     *         passes.
+     */
+    private static List<String> compare(Record baseline, Record current) {
+        List<String> failures = new ArrayList<>();
+        if (!baseline.evaluation.equals(current.evaluation)) {
+            failures.add("evaluation: baseline " + baseline.evaluation
+                    + ", now " + current.evaluation);
+            return failures;
+        }
+        for (Map.Entry<String, String> expected
+                : baseline.results.entrySet()) {
+            String actual = current.results.get(expected.getKey());
+            if (actual == null) {
+                failures.add(expected.getKey() + ": missing, expected "
+                        + expected.getValue());
+            } else if (!actual.equals(expected.getValue())) {
+                failures.add(expected.getKey() + ": move score nodes "
+                        + expected.getValue() + " -> " + actual);
+            }
+        }
+        for (String key : current.results.keySet()) {
+            if (!baseline.results.containsKey(key)) {
+                failures.add(key + ": not in the baseline");
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Compares the nodes per second of a run with the speed baseline.
+     *
+     * @param baseline  The speed baseline.
+     * @param current   The run.
+     * @param threshold The allowed drop of the nodes per second in percent.
+     * @param file      The file of the speed baseline.
+     * @return A readable line for every difference, empty if the run
+     *         passes.
+     */
+    private static List<String> compareSpeed(Record baseline,
+                                             Record current,
+                                             double threshold, Path file) {
+        List<String> failures = new ArrayList<>();
+        if (baseline.nps.isEmpty()) {
+            failures.add("No nodes per second in " + file
+                    + ", record a speed baseline into it");
+            return failures;
+        }
+        for (Map.Entry<String, Long> expected : baseline.nps.entrySet()) {
+            Long actual = current.nps.get(expected.getKey());
+            if (actual == null) {
+                failures.add(expected.getKey() + ": nodes/s missing");
+            } else {
+                double change = 100.0 * (actual - expected.getValue())
+                        / expected.getValue();
+                if (change < -threshold) {
+                    failures.add(String.format(Locale.ROOT,
+                            "%s: nodes/s %d -> %d (%.1f%%, limit -%.1f%%)",
+                            expected.getKey(), expected.getValue(), actual,
+                            change, threshold));
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Prints the usage of the gate.
+     */
+    private static void printHelp() {
+        System.out.println("Reversi search regression gate\n"
+                + "RECORD [file] - runs the suite and writes the speed"
+                + " baseline of this machine into the file, without file"
+                + " the bundled baseline next to the class\n"
+                + "CHECK [file] [percent] - runs the suite and fails, if the"
+                + " search behaves differently than the bundled baseline or"
+                + " the nodes per second drop by more than the percent"
+                + " (default " + THRESHOLD + ") against the speed baseline"
+                + " in the file (default " + LOCAL + "). A missing speed"
+                + " baseline is recorded and fails the check.");
+    }
+
+    /**
+     * An engine with the limits it searches the suite with.
+     */
+    private static final class Case {
+
+        /**
+         * The name of the case in the baseline.
+         */
+        private final String name;
+
+        /**
+         * The engine.
+         */
+        private final SearchEngine engine;
+
+        /**
+         * The limits of each search.
+         */
+        private final SearchLimits limits;
+
+        /**
+         * Creates a case.
+         *
+         * @param name   The name of the case in the baseline.
+         * @param engine The engine.
+         * @param limits The limits of each search.
+         */
+        private Case(String name, SearchEngine engine, SearchLimits limits) {
+            this.name = name;
+            this.engine = engine;
+            this.limits = limits;
+        }
+
+    }
+
+    /**
+     * The outcome of a run of the suite, as stored in a baseline.
+     */
+    private static final class Record {
+
+        /**
+         * The evaluation used, {@code heuristic} or {@code nnue}.
+         */
+        private final String evaluation;
+
+        /**
+         * The move, score and nodes of each search by case and position.
+         */
+        private final Map<String, String> results = new LinkedHashMap<>();
+
+        /**
+         * The nodes per second of each case.
+         */
+        private final Map<String, Long> nps = new LinkedHashMap<>();
+
+        /**
+         * Creates an empty record.
+         *
+         * @param evaluation The evaluation used.
+         */
+        private Record(String evaluation) {
+            this.evaluation = evaluation;
+        }
+
+        /**
+         * Reads a record in the format {@link #write} writes.
+         *
+         * @param in The record.
+         * @return The record.
+         * @throws IOException If the record can't be read or is malformed.
+         */
+        private static Record read(Reader in) throws IOException {
+            BufferedReader reader = new BufferedReader(in);
+            Record record = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(" ", 3);
+                if (parts[0].equals("eval") && parts.length == 2) {
+                    record = new Record(parts[1]);
+                } else if (record == null || parts.length != 3) {
+                    throw new IOException("Malformed baseline: " + line);
+                } else if (parts[0].equals("nps")) {
+                    record.nps.put(parts[1], Long.parseLong(parts[2]));
+                } else {
+                    record.results.put(parts[0] + " " + parts[1], parts[2]);
+                }
+            }
+            if (record == null) {
+                throw new IOException("Empty baseline");
+            }
+            return record;
+        }
+
+        /**
+         * Writes the record: the evaluation, the nodes per second of each
+         * case and then each search.
+         *
+         * @param out   Receives the record.
+         * @param speed {@code false} to leave out the nodes per second, which
+         *              only compare on the same machine.
+         */
+        private void write(Writer out, boolean speed) {
+            PrintWriter writer = new PrintWriter(out);
+            writer.println("# Search regression baseline, case #position"
+                    + " (row, col) score nodes");
+            writer.println("eval " + evaluation);
+            if (speed) {
+                for (Map.Entry<String, Long> entry : nps.entrySet()) {
+                    writer.println("nps " + entry.getKey() + " "
+                            + entry.getValue());
+                }
+            }
+            for (Map.Entry<String, String> entry : results.entrySet()) {
+                writer.println(entry.getKey() + " " + entry.getValue());
+            }
+            writer.flush();
+        }
+
+    }
+
+}
@@ -1,7 +1,9 @@
 package reversi.model;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Class that contains the logic to play the game Reversi (also known as
@@ -10,17 +12,10 @@ import java.util.List;
 public class ReversiBoard implements Board {
 
     /**
-     * Values of each field on the board to evaluate the state of the board.
+     * Number of finished games a move of the position database needs, so
+     * the machine plays it without searching.
      */
-    private final static double[][] FIELD_VALUE = {
-            {9999, 5, 500, 200, 200, 500, 5, 9999},
-            {5, 1, 50, 150, 150, 50, 1, 5},
-            {500, 50, 250, 100, 100, 250, 50, 500},
-            {200, 150, 100, 50, 50, 100, 150, 200},
-            {200, 150, 100, 50, 50, 100, 150, 200},
-            {500, 50, 250, 100, 100, 250, 50, 500},
-            {5, 1, 50, 150, 150, 50, 1, 5},
-            {9999, 5, 500, 200, 200, 500, 5, 9999}};
+    static final int BOOK_MIN_GAMES = 10;
 
     /**
      * Difficulty setting of the AI. Sets the amount of moves the AI
@@ -28,6 +23,32 @@ public class ReversiBoard implements Board {
      */
     private int difficultySetting;
 
+    /**
+     * Number of positions the AI may visit per move.
+     */
+    private long nodeBudget = SearchLimits.MAX_NODES;
+
+    /**
+     * Time the AI may take per move in milliseconds.
+     */
+    private long timeBudget = SearchLimits.MAX_MILLIS;
+
+    /**
+     * Bytes the search structures of the AI may occupy per move.
+     */
+    private long memoryBudget = SearchLimits.MAX_MEMORY;
+
+    /**
+     * Number of threads the search of the AI may use per move.
+     */
+    private int threadCount = 1;
+
+    /**
+     * The search that selected the move leading to this board, {@code null}
+     * if the move was not searched by the AI.
+     */
+    private SearchResult lastSearch;
+
     /**
      * The player, that has the first turn in the game.
      */
@@ -44,13 +65,55 @@ public class ReversiBoard implements Board {
     private Token[][] board;
 
     /**
-     * Root used when building a game tree.
+     * The slots holding a red token as bit mask, kept up to date with every
+     * change of the board.
+     */
+    private long redTiles;
+
+    /**
+     * The slots holding a blue token as bit mask, kept up to date with every
+     * change of the board.
+     */
+    private long blueTiles;
+
+    /**
+     * The accumulator of the network from the view of the red color,
+     * {@code null} if the evaluation does not use a network.
      */
-    private Node root;
+    private short[] redAccumulator;
+
+    /**
+     * The accumulator of the network from the view of the blue color,
+     * {@code null} if the evaluation does not use a network.
+     */
+    private short[] blueAccumulator;
+
+    /**
+     * The engine the machine uses to select its moves.
+     */
+    private SearchEngine engine = SearchEngines.getDefault();
+
+    /**
+     * Persistent cache of earlier search results, {@code null} if none is
+     * used.
+     */
+    private PositionCache positionCache;
+
+    /**
+     * Database of earlier games, {@code null} if none is used.
+     */
+    private PositionDatabase positionDatabase;
 
     /**
      * Initializes a new Reversi board, with a set player, that has the
      * opening move, and the size defined by the Board interface.
+     * <p>
+     * The starter assigns the colors of the tiles to the players through
+     * {@link Token#attachPlayer}, which is shared by all boards: a board
+     * started by the other player changes the owners of the tiles on every
+     * board. Code searching several boards at once, e.g. on several
+     * threads, therefore gives all of them the same starter, which the
+     * search does not depend on.
      *
      * @param starter Player that will get the opening turn.
      */
@@ -62,10 +125,14 @@ public class ReversiBoard implements Board {
                 board[i][j] = Token.FREE;
             }
         }
-        board[SIZE / 2][SIZE / 2] = Token.RED;
-        board[SIZE / 2 - 1][SIZE / 2 - 1] = Token.RED;
-        board[SIZE / 2 - 1][SIZE / 2] = Token.BLUE;
-        board[SIZE / 2][SIZE / 2 - 1] = Token.BLUE;
+        if (Network.ACTIVE != null) {
+            redAccumulator = Network.ACTIVE.accumulate(0, 0);
+            blueAccumulator = Network.ACTIVE.accumulate(0, 0);
+        }
+        place(SIZE / 2 * SIZE + SIZE / 2, Token.RED);
+        place((SIZE / 2 - 1) * SIZE + SIZE / 2 - 1, Token.RED);
+        place((SIZE / 2 - 1) * SIZE + SIZE / 2, Token.BLUE);
+        place(SIZE / 2 * SIZE + SIZE / 2 - 1, Token.BLUE);
         Token.BLUE.attachPlayer(starter);
         currentPlayer = starter;
         if (starter.equals(Player.HUMAN)) {
@@ -75,6 +142,84 @@ public class ReversiBoard implements Board {
         }
     }
 
+    /**
+     * Creates a board with an arbitrary position.
+     *
+     * @param slots   The owner of each slot as {@code slots[row][col]},
+     *                {@code null} for an empty slot. Must have
+     *                {@code SIZE x SIZE} entries.
+     * @param toMove  The player who has the turn.
+     * @param starter The player who made the opening move of the game.
+     * @return A new board with the position.
+     * @throws IllegalArgumentException If the slots are not of the size of
+     *                                  the board or contain a tie.
+     */
+    public static ReversiBoard of(Player[][] slots, Player toMove,
+                                  Player starter) {
+        if (slots.length != SIZE || toMove == Player.TIE
+                || starter == Player.TIE) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+        ReversiBoard created = new ReversiBoard(starter);
+        for (int i = 0; i < SIZE; ++i) {
+            if (slots[i].length != SIZE) {
+                throw new IllegalArgumentException("undefined parameters");
+            }
+            for (int j = 0; j < SIZE; ++j) {
+                if (slots[i][j] == null) {
+                    created.place(i * SIZE + j, Token.FREE);
+                } else if (slots[i][j] == Player.TIE) {
+                    throw new IllegalArgumentException("undefined parameters");
+                } else {
+                    created.place(i * SIZE + j,
+                            created.colorOf(slots[i][j]));
+                }
+            }
+        }
+        created.currentPlayer = toMove;
+        return created;
+    }
+
+    /**
+     * Creates a board with an arbitrary position given as bit masks, bit
+     * {@code row * SIZE + col} for each slot.
+     *
+     * @param human   The tiles of the human.
+     * @param machine The tiles of the machine.
+     * @param toMove  The player who has the turn.
+     * @param starter The player who made the opening move of the game.
+     * @return A new board with the position.
+     * @throws IllegalArgumentException If a slot is owned by both players or
+     *                                  a player is a tie.
+     */
+    static ReversiBoard of(long human, long machine, Player toMove,
+                           Player starter) {
+        if ((human & machine) != 0 || toMove == Player.TIE
+                || starter == Player.TIE) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+        ReversiBoard created = new ReversiBoard(starter);
+        Token humanColor = created.colorOf(Player.HUMAN);
+        Token machineColor = created.colorOf(Player.AI);
+
+        // Only the slots of the initial tiles and the given ones change.
+        long changed = human | machine | created.redTiles
+                | created.blueTiles;
+        while (changed != 0) {
+            int square = Long.numberOfTrailingZeros(changed);
+            if ((human >>> square & 1) != 0) {
+                created.place(square, humanColor);
+            } else if ((machine >>> square & 1) != 0) {
+                created.place(square, machineColor);
+            } else {
+                created.place(square, Token.FREE);
+            }
+            changed &= changed - 1;
+        }
+        created.currentPlayer = toMove;
+        return created;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -134,15 +279,7 @@ public class ReversiBoard implements Board {
      */
     @Override
     public int getNumberOfHumanTiles() {
-        int toReturn = 0;
-        for (int i = 0; i < SIZE; ++i) {
-            for (int j = 0; j < SIZE; ++j) {
-                if (board[i][j].getPlayer() == Player.HUMAN) {
-                    toReturn++;
-                }
-            }
-        }
-        return toReturn;
+        return Long.bitCount(discMask(Player.HUMAN));
     }
 
     /**
@@ -150,15 +287,7 @@ public class ReversiBoard implements Board {
      */
     @Override
     public int getNumberOfMachineTiles() {
-        int toReturn = 0;
-        for (int i = 0; i < SIZE; ++i) {
-            for (int j = 0; j < SIZE; ++j) {
-                if (board[i][j].getPlayer() == Player.AI) {
-                    toReturn++;
-                }
-            }
-        }
-        return toReturn;
+        return Long.bitCount(discMask(Player.AI));
     }
 
     /**
@@ -179,10 +308,85 @@ public class ReversiBoard implements Board {
     @Override
     public void setLevel(int level) {
         if (level > 0) {
-            this.difficultySetting = level;
+            this.difficultySetting = Math.min(level, SearchLimits.MAX_DEPTH);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setBudget(long nodes, long millis) {
+        if (nodes < 1 || nodes > SearchLimits.MAX_NODES || millis < 1
+                || millis > SearchLimits.MAX_MILLIS) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+        this.nodeBudget = nodes;
+        this.timeBudget = millis;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMemoryBudget(long bytes) {
+        if (bytes < 1 || bytes > SearchLimits.MAX_MEMORY) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+        this.memoryBudget = bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setThreads(int threads) {
+        if (threads < 1 || threads > SearchLimits.MAX_THREADS) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+        this.threadCount = threads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchResult getLastSearch() {
+        return lastSearch;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setEngine(String name) {
+        this.engine = SearchEngines.forName(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getEngineName() {
+        return engine.getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setPositionCache(PositionCache cache) {
+        this.positionCache = cache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setPositionDatabase(PositionDatabase database) {
+        this.positionDatabase = database;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -192,12 +396,8 @@ public class ReversiBoard implements Board {
                 == SIZE * SIZE) {
             return true;
         } else {
-            ReversiBoard nextBoard = (ReversiBoard) this.clone();
-            nextBoard.currentPlayer = this.next();
-            List<Move> capability = computePossibleMoves(this);
-            List<Move> nextCapability = computePossibleMoves(nextBoard);
-            return capability.isEmpty()
-                    && nextCapability.isEmpty();
+            return !hasMove(this, getColor())
+                    && !hasMove(this, opposite(getColor()));
         }
     }
 
@@ -237,12 +437,24 @@ public class ReversiBoard implements Board {
         }
 
         copy.difficultySetting = this.difficultySetting;
+        copy.nodeBudget = this.nodeBudget;
+        copy.timeBudget = this.timeBudget;
+        copy.memoryBudget = this.memoryBudget;
+        copy.threadCount = this.threadCount;
+        copy.lastSearch = null;
+        copy.positionCache = this.positionCache;
+        copy.positionDatabase = this.positionDatabase;
+        copy.engine = this.engine;
         copy.startingPlayer = this.startingPlayer;
         copy.currentPlayer = this.currentPlayer;
         copy.board = this.board.clone();
         for (int i = 0; i < SIZE; ++i) {
             copy.board[i] = this.board[i].clone();
         }
+        if (redAccumulator != null) {
+            copy.redAccumulator = this.redAccumulator.clone();
+            copy.blueAccumulator = this.blueAccumulator.clone();
+        }
         return (Board) copy;
 
     }
@@ -252,14 +464,27 @@ public class ReversiBoard implements Board {
      */
     @Override
     public Board move(int row, int col) throws IllegalMoveException {
-        if (gameOver() || currentPlayer.equals(Player.AI)) {
+        if (currentPlayer.equals(Player.AI)) {
+            throw new IllegalMoveException();
+        } else {
+            return play(row, col);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board play(int row, int col) throws IllegalMoveException {
+        if (gameOver()) {
             throw new IllegalMoveException();
         } else if (row < 0 || row >= SIZE || col < 0 || col >= SIZE) {
             throw new IllegalArgumentException("undefined parameters");
-        } else if (checkMove(this, row, col, currentPlayer, next())) {
+        } else if (checkMove(this, row, col, getColor(),
+                opposite(getColor()))) {
             Move playerMove = new Move(row, col);
             return makeMove(playerMove);
-        } else if (computePossibleMoves(this).isEmpty()) {
+        } else if (!hasMove(this, getColor())) {
             ReversiBoard toReturn = (ReversiBoard) this.clone();
             toReturn.currentPlayer = toReturn.next();
             return (Board) toReturn;
@@ -273,426 +498,521 @@ public class ReversiBoard implements Board {
      */
     @Override
     public Board machineMove() throws IllegalMoveException {
+        return executeMachineMove(limits(difficultySetting));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board machineMove(Consumer<SearchResult> progress)
+            throws IllegalMoveException {
+        return executeMachineMove(
+                limits(difficultySetting).withProgress(progress));
+    }
+
+    /**
+     * Executes a machine move on a clone of this board.
+     *
+     * @param limits The limits of the search of the move.
+     * @return A new board with the move executed.
+     * @throws IllegalMoveException If the game is already over, or it is not
+     *                              the machine's turn.
+     */
+    private Board executeMachineMove(SearchLimits limits) {
         if (gameOver() || currentPlayer.equals(Player.HUMAN)) {
             throw new IllegalMoveException();
-        } else if (computePossibleMoves(this).isEmpty()) {
+        } else if (!hasMove(this, getColor())) {
             ReversiBoard toReturn = (ReversiBoard) this.clone();
             toReturn.currentPlayer = toReturn.next();
             return (Board) toReturn;
         } else {
-            Move aiMove = calculateBestMove();
-            return makeMove(aiMove);
+            SearchResult search = calculateBestMove(limits);
+            ReversiBoard toReturn = (ReversiBoard) makeMove(
+                    search.getRow() * SIZE + search.getColumn());
+            toReturn.lastSearch = search;
+            return (Board) toReturn;
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SearchResult> analyze(int depth) {
+        if (gameOver()) {
+            throw new IllegalMoveException();
+        } else if (depth < 1 || depth > SearchLimits.MAX_DEPTH) {
+            throw new IllegalArgumentException("undefined parameters");
+        } else if (!hasMove(this, getColor())) {
+            return Collections.emptyList();
+        } else {
+            return engine.analyze(this, limits(depth));
+        }
+    }
+
+    /**
+     * Lets the engine search the best move of the machine.
+     *
+     * @param limits The limits of the search.
+     * @return The result of the search with the move with the highest
+     *         chance to win.
+     * @throws IllegalStateException If the engine returns an illegal move.
+     */
+    private SearchResult calculateBestMove(SearchLimits limits) {
+        if (positionDatabase != null) {
+            SearchResult book = positionDatabase.bookMove(this,
+                    BOOK_MIN_GAMES);
+            if (book != null) {
+                return book;
+            }
+        }
+        SearchResult result = engine.search(this, limits);
+        int square = result.getRow() * SIZE + result.getColumn();
+        if (!isLegal(square)) {
+            throw new IllegalStateException("Engine " + engine.getName()
+                    + " returned illegal move " + result);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the limits of a search of this board.
+     *
+     * @param depth The depth of the search.
+     * @return The limits with the budgets of this board.
+     */
+    private SearchLimits limits(int depth) {
+        return new SearchLimits(depth, nodeBudget, timeBudget, memoryBudget,
+                threadCount);
+    }
+
+    /**
+     * Gets the persistent cache of earlier search results. The cache holds
+     * scores of the heuristic evaluation only, so it is not used while the
+     * {@link Network#ACTIVE network} evaluates. Every engine takes the
+     * cache from here.
+     *
+     * @return The cache or {@code null}, if none is used or the network
+     *         evaluates.
+     */
+    PositionCache getPositionCache() {
+        return Network.ACTIVE != null ? null : positionCache;
+    }
+
+    /**
+     * Tests if the player with the turn may set a tile on a square.
+     *
+     * @param square The square {@code row * SIZE + col} to test. Squares off
+     *               the board are illegal.
+     * @return {@code true} if the move is legal.
+     */
+    boolean isLegal(int square) {
+        return square >= 0 && square < Rays.SQUARES
+                && checkMove(this, Rays.ROW[square], Rays.COL[square],
+                getColor(), opposite(getColor()));
+    }
+
     /**
      * Executes a move on a clone of the current Board.
      *
      * @param toMove The move that is executed.
      * @return A new board object with the executed move.
      */
-    private Board makeMove(Move toMove) {
+    Board makeMove(Move toMove) {
+        return makeMove(toMove.getRow() * SIZE + toMove.getColumn());
+    }
+
+    /**
+     * Executes a move on a clone of the current Board.
+     *
+     * @param square The square {@code row * SIZE + col} of the move.
+     * @return A new board object with the executed move.
+     */
+    Board makeMove(int square) {
         ReversiBoard toReturn = (ReversiBoard) this.clone();
-        toReturn.reverseTiles(toMove.getRow(), toMove.getColumn());
+        toReturn.reverseTiles(Rays.ROW[square], Rays.COL[square]);
         toReturn.currentPlayer = this.next();
         return (Board) toReturn;
     }
 
     /**
-     * Reverses the tiles when setting a new token on the Board and sets the
-     * position the new token is to the player's color.
-     * Will search in all directions is they fulfill the requirements
-     * and then reverse them when going back to the start position.
+     * Gets the tiles of a player as bit mask. Bit {@code row * SIZE + col}
+     * is set, if the player owns the slot. Only usable, if the board has at
+     * most 64 slots.
      *
-     * @param row The row the new token will be set.
-     * @param col The column the new token will be set.
+     * @param owner The player whose tiles are collected, either the human
+     *              or the ai.
+     * @return The tiles of the player.
      */
-    private void reverseTiles(int row, int col) {
-        Token playerColor = getColor();
-        board[row][col] = playerColor;
-
-        // Go into all 8 possible directions
-        for (int i = -1; i < 2; ++i) {
-            for (int j = -1; j < 2; ++j) {
-                int xPos = row + i;
-                int yPos = col + j;
-                Player onSpot = this.getSlot(xPos, yPos);
-
-                // Is there a enemy tile in the current directions?
-                if (xPos >= 0 && xPos < Board.SIZE && yPos >= 0
-                        && yPos < Board.SIZE && onSpot != null
-                        && onSpot.equals(next())) {
-                    boolean canContinue = true;
-
-                    /* Go further into the direction until you hit a free slot,
-                    /* slot with your own color, or the boundaries of the
-                     * board.
-                     */
-                    while (xPos >= 0 && xPos < Board.SIZE && yPos >= 0
-                            && yPos < Board.SIZE && canContinue) {
-                        Player onSlot = this.getSlot(xPos, yPos);
-                        boolean occupied = onSlot != null;
-                        if (occupied && onSlot.equals(currentPlayer)) {
-                            xPos = xPos - i;
-                            yPos = yPos - j;
-
-                            // Go back to the start point and claim all slots
-                            while (xPos != row || yPos != col) {
-                                board[xPos][yPos] = playerColor;
-                                xPos = xPos - i;
-                                yPos = yPos - j;
-                            }
-
-                            canContinue = false;
-                        } else if (!occupied) {
-                            canContinue = false;
-                        }
-                        xPos = i + xPos;
-                        yPos = j + yPos;
-                    }
-
-                }
-
-            }
+    long discMask(Player owner) {
+        if (owner == Token.RED.getPlayer()) {
+            return redTiles;
+        } else if (owner == Token.BLUE.getPlayer()) {
+            return blueTiles;
+        } else {
+            return 0;
         }
+    }
 
+    /**
+     * Gets the slots of a color as bit mask. Bit {@code row * SIZE + col} is
+     * set, if the slot holds the color. Only usable, if the board has at
+     * most 64 slots.
+     *
+     * @param color The color whose slots are collected.
+     * @return The slots of the color.
+     */
+    private long tokenMask(Token color) {
+        if (color == Token.RED) {
+            return redTiles;
+        } else if (color == Token.BLUE) {
+            return blueTiles;
+        } else {
+            return ~(redTiles | blueTiles);
+        }
     }
 
     /**
-     * Returns the Token type the current player has.
+     * Gets the accumulator of the network from the view of a player.
      *
-     * @return Token of the current player.
+     * @param player Either the human or the ai.
+     * @return The accumulator, {@code null} if the evaluation does not use a
+     *         network.
      */
-    private Token getColor() {
-        Player redPlayer = Token.RED.getPlayer();
-        if (currentPlayer.equals(redPlayer)) {
-            return Token.RED;
+    short[] accumulator(Player player) {
+        if (colorOf(player) == Token.RED) {
+            return redAccumulator;
         } else {
-            return Token.BLUE;
+            return blueAccumulator;
         }
     }
 
     /**
-     * Calculates the best move performed by the AI, using the state,
-     * mobility and potential mobility to evaluate each move and an MinMax
-     * algorithm in case there is a look ahead.
+     * Sets a token on a slot and keeps the bit masks of both colors and the
+     * accumulators of the network up to date.
      *
-     * @return Move with the highest chance to win.
-     */
-    private Move calculateBestMove() {
-        root = new Node(this.clone());
-        buildTree(root, difficultySetting);
-        List<Node> children = root.getChildren();
-
-        Move bestMove = children.get(0).getMove();
-        double max = children.get(0).minMax();
-        for (int i = 1; i < children.size(); ++i) {
-            Node child = children.get(i);
-            double temp = child.minMax();
-            if (temp > max) {
-                max = child.getPoints();
-                bestMove = child.getMove();
-            }
+     * @param square The slot {@code row * SIZE + col}.
+     * @param color  The token to set, {@code FREE} to empty the slot.
+     */
+    private void place(int square, Token color) {
+        long bit = 1L << square;
+        Token previous = board[Rays.ROW[square]][Rays.COL[square]];
+        if (redAccumulator != null && previous != color) {
+            Network.ACTIVE.update(redAccumulator, blueAccumulator, square,
+                    previous, color);
+        }
+        board[Rays.ROW[square]][Rays.COL[square]] = color;
+        redTiles &= ~bit;
+        blueTiles &= ~bit;
+        if (color == Token.RED) {
+            redTiles |= bit;
+        } else if (color == Token.BLUE) {
+            blueTiles |= bit;
         }
+    }
 
-        return bestMove;
+    /**
+     * Checks if the human has the turn on this board.
+     *
+     * @return {@code true} if the human has to make the next move.
+     */
+    boolean isHumanToMove() {
+        return currentPlayer == Player.HUMAN;
     }
 
     /**
-     * Builds a game tree recursively using a using the possible moves
-     * of a board to create new Nodes until the maximum level(depth) is
-     * reached.
+     * Creates a copy of this board, where the other player has the turn.
      *
-     * @param start The Node that is used to build the tree.
-     * @param maxDepth The maximum depth/look ahead of the tree. Equals
-     *                 the AI level.
-     */
-    private void buildTree(Node start, int maxDepth) {
-        if (start != null && maxDepth > 0) {
-            ReversiBoard current = (ReversiBoard) start.getBoard();
-            List<Move> moves = computePossibleMoves(current);
-
-            // Does the player have moves?
-            if (!moves.isEmpty()) {
-
-                // Execute all possible player moves and add the result.
-                for (Move move : moves) {
-                    Board temp = current.makeMove(move);
-                    Node toAdd = new Node(temp);
-                    toAdd.savePoints(evaluateBoard(temp));
-                    toAdd.saveMove(move);
-                    start.addChild(toAdd);
-                }
+     * @return A new board with the turn passed.
+     */
+    ReversiBoard passTurn() {
+        ReversiBoard toReturn = (ReversiBoard) this.clone();
+        toReturn.currentPlayer = this.next();
+        return toReturn;
+    }
 
-                // Recursively go one step deeper.
-                for (Node goFurther : start.getChildren()) {
-                    buildTree(goFurther, (maxDepth - 1));
-                }
+    /**
+     * Executes a move on this board itself instead of a copy. Only meant for
+     * scratch boards of a search.
+     *
+     * @param square The square {@code row * SIZE + col} of the move.
+     */
+    void playInPlace(int square) {
+        reverseTiles(Rays.ROW[square], Rays.COL[square]);
+        currentPlayer = next();
+    }
 
-                // Does the enemy have moves?
-            } else if (!current.gameOver()) {
-                ReversiBoard switched = (ReversiBoard) current.clone();
-                switched.currentPlayer = current.next();
-                List<Move> otherMoves = computePossibleMoves(switched);
+    /**
+     * Passes the turn on this board itself instead of a copy. Only meant for
+     * scratch boards of a search.
+     */
+    void passInPlace() {
+        currentPlayer = next();
+    }
 
+    /**
+     * Reverses the tiles when setting a new token on the Board and sets the
+     * position the new token is to the player's color.
+     * Computes the enclosed enemy tiles on the bit masks, or else walks the
+     * rays in all directions and collects the enemy tiles on those, that end
+     * with a tile of the player.
+     *
+     * @param row The row the new token will be set.
+     * @param col The column the new token will be set.
+     */
+    private void reverseTiles(int row, int col) {
+        Token playerColor = getColor();
+        Token enemyColor = opposite(playerColor);
+        int square = row * SIZE + col;
+        long flipped = 0;
+
+        if (Bitboards.ENABLED) {
+            flipped = Bitboards.flips(tokenMask(playerColor),
+                    tokenMask(enemyColor), square);
+        } else {
+            for (int[] ray : Rays.FLIP_RAYS[square]) {
+                int length = 0;
 
-                for (Move move : otherMoves) {
-                    Board temp = switched.makeMove(move);
-                    Node toAdd = new Node(temp);
-                    toAdd.saveMove(move);
-                    toAdd.savePoints(evaluateBoard(temp));
-                    start.addChild(toAdd);
+                // Count the enemy tiles directly in a row in this direction.
+                while (length < ray.length
+                        && tokenAt(ray[length]) == enemyColor) {
+                    ++length;
                 }
 
-                for (Node goFurther : start.getChildren()) {
-                    buildTree(goFurther, (maxDepth - 1));
+                // Claim them, if they are enclosed by a tile of the player.
+                if (length > 0 && length < ray.length
+                        && tokenAt(ray[length]) == playerColor) {
+                    for (int k = 0; k < length; ++k) {
+                        flipped |= 1L << ray[k];
+                    }
                 }
             }
+        }
 
+        place(square, playerColor);
+        for (long rest = flipped; rest != 0; rest &= rest - 1) {
+            place(Long.numberOfTrailingZeros(rest), playerColor);
         }
     }
 
     /**
-     * Evaluates a board by evaluating the state, potential mobility and
-     * mobility of both human and ai and adding up those numbers.
+     * Returns the Token type of the player without the turn.
      *
-     * @param toEval The board that will be evaluated.
-     * @return The value the board gets according to the way of measuring it.
-     * @throws IllegalArgumentExecption When giving the method null.
+     * @return Token of the other player.
      */
-    private double evaluateBoard(Board toEval) {
-        if (toEval == null) {
-            throw new IllegalArgumentException("Cant eval null");
+    Token opponentColor() {
+        return opposite(getColor());
+    }
+
+    /**
+     * Returns the Token type a player has on this board.
+     *
+     * @param player Either the human or the ai.
+     * @return Token of the player.
+     */
+    Token colorOf(Player player) {
+        if (player.equals(Token.RED.getPlayer())) {
+            return Token.RED;
         } else {
+            return Token.BLUE;
+        }
+    }
 
-            double totalTiles = toEval.getNumberOfHumanTiles()
-                    + toEval.getNumberOfMachineTiles();
-            PointPair potential = potentialMobility(toEval);
-            double humanPotential = potential.getHumanPoints();
-            double aiPotential = potential.getAiPoints();
-            PointPair statePoints = evaluateState(toEval);
-            double humanState = statePoints.getHumanPoints();
-            double aiState = statePoints.getAiPoints();
-            double humanMobility;
-            double aiMobility;
-
-            if (toEval.next().equals(Player.AI)) {
-                humanMobility = mobility(toEval);
-                ReversiBoard temp = (ReversiBoard) toEval.clone();
-                temp.currentPlayer = Player.AI;
-                aiMobility = mobility(temp);
-            } else {
-                aiMobility = mobility(toEval);
-                ReversiBoard temp = (ReversiBoard) toEval.clone();
-                temp.currentPlayer = Player.HUMAN;
-                humanMobility = mobility(temp);
-            }
+    /**
+     * Returns the token on a square of the board.
+     *
+     * @param square The index {@code row * SIZE + col} of the square.
+     * @return The token on the square.
+     */
+    Token tokenAt(int square) {
+        return board[Rays.ROW[square]][Rays.COL[square]];
+    }
 
-            return (aiState - 1.5 * humanState) + (64.0 / totalTiles)
-                    * (3.0 * aiMobility - 4.0 * humanMobility)
-                    + (64.0 / (2.0 * totalTiles))
-                    * (2.5 * aiPotential - 3.0 * humanPotential);
+    /**
+     * Returns the token of the other color.
+     *
+     * @param color Either the red or the blue token.
+     * @return The blue token for red and the red token for blue.
+     */
+    private static Token opposite(Token color) {
+        if (color == Token.RED) {
+            return Token.BLUE;
+        } else {
+            return Token.RED;
         }
     }
 
     /**
-     * Calculates the mobility of the player with the turn by getting
-     * the amount of possible moves.
+     * Returns the Token type the current player has.
      *
-     * @param toCheck Board that will be used for calculation.
-     * @return The amount of possible moves as double.
+     * @return Token of the current player.
      */
-    private static double mobility(Board toCheck) {
-        if (toCheck == null) {
-            throw new IllegalArgumentException("No Board to evaluate");
+    Token getColor() {
+        Player redPlayer = Token.RED.getPlayer();
+        if (currentPlayer.equals(redPlayer)) {
+            return Token.RED;
         } else {
-            return (double) computePossibleMoves(toCheck).size();
+            return Token.BLUE;
         }
     }
 
     /**
      * Computes all possible moves a player has on board by searching every
-     * free space on board and testing if there is a move allowed.
+     * free space on board and testing if there is a move allowed. Only meant
+     * for callers outside of the search, which uses
+     * {@link #generateMoves(ReversiBoard, Token, int[])}.
      *
      * @param toCompute Board that will be used to calculate the moves.
      * @return All possible moves a player has in form of a list.
      */
-    private static List<Move> computePossibleMoves(Board toCompute) {
-        List<Move> computedMoves = new LinkedList<Move>();
-        if (toCompute.getNumberOfHumanTiles() != 0
-                || toCompute.getNumberOfMachineTiles() != 0) {
-            Player player;
-            Player enemy;
-            Player nextPlayer = toCompute.next();
-            if (nextPlayer.equals(Player.AI)) {
-                player = Player.HUMAN;
-                enemy = Player.AI;
-            } else {
-                player = Player.AI;
-                enemy = Player.HUMAN;
-            }
-
-            for (int i = 0; i < Board.SIZE; ++i) {
-                for (int j = 0; j < Board.SIZE; ++j) {
-                    if (checkMove(toCompute, i, j, player, enemy)) {
-
-                        Move toAdd = new Move(i, j);
-                        computedMoves.add(toAdd);
-
-                    }
-                }
-            }
-
+    static List<Move> computePossibleMoves(ReversiBoard toCompute) {
+        int[] squares = new int[Rays.SQUARES];
+        int count = generateMoves(toCompute, toCompute.getColor(), squares);
+        List<Move> computedMoves = new ArrayList<Move>(count);
+        for (int i = 0; i < count; ++i) {
+            computedMoves.add(new Move(Rays.ROW[squares[i]],
+                    Rays.COL[squares[i]]));
         }
         return computedMoves;
     }
 
     /**
-     * Check s a certain spot if there is a move possible, by going into
-     * all directions and testing them for validity.
+     * Writes all possible moves of a player into a buffer, ordered by their
+     * square. Uses the bit masks of {@link Bitboards}, if they are enabled.
      *
-     * @param toCheck The board that will be used to check.
-     * @param row The row index of the spot.
-     * @param col The column index of the spot.
-     * @param player The player that sets the new token.
-     * @param enemy The player that dosen't set the new token.
-     * @return {@code true} if there is any direction a move is possible.
-     *         Else {@code false}
+     * @param toCompute Board that will be used to calculate the moves.
+     * @param player The color of the player whose moves are computed.
+     * @param moves The buffer the squares {@code row * SIZE + col} of the
+     *              moves are written into. Must hold a move for every square.
+     * @return The number of moves written into the buffer.
      */
-    private static boolean checkMove(Board toCheck, int row, int col,
-                                     Player player, Player enemy) {
-        if (toCheck.getSlot(row, col) != null) {
-            return false;
+    static int generateMoves(ReversiBoard toCompute, Token player,
+                             int[] moves) {
+        if (Bitboards.ENABLED) {
+            return Bitboards.toSquares(legalMask(toCompute, player), moves);
         } else {
+            return scanMoves(toCompute, player, moves);
+        }
+    }
 
-            // Go into all 8 directions and check if one allows a move.
-            for (int xAxis = -1; xAxis < 2; ++xAxis) {
-                for (int yAxis = -1; yAxis < 2; ++yAxis) {
-                    Player onSpot = toCheck.getSlot(row + xAxis, col + yAxis);
-                    if (row + xAxis >= 0 && row + xAxis < Board.SIZE
-                            && col + yAxis >= 0 && col + yAxis < Board.SIZE
-                            && onSpot != null && onSpot.equals(enemy)) {
-                        int i = xAxis + xAxis;
-                        int j = yAxis + yAxis;
-                        boolean canContinue = true;
-
-                        /* Go into this direction until you hit your own token
-                         * , leaves the boundaries or hit a free space.
-                         */
-                        while (row + i >= 0 && row + i < Board.SIZE
-                                && col + j >= 0 && col + j < Board.SIZE
-                                && canContinue) {
-                            Player onSlot = toCheck.getSlot(row + i, col + j);
-                            if (onSlot == null) {
-                                canContinue = false;
-
-                                // Token of the player hit so the move is possible.
-                            } else if (onSlot.equals(player)) {
-                                return true;
-                            }
-
-                            i = i + xAxis;
-                            j = j + yAxis;
-                        }
+    /**
+     * Computes the possible moves of a player on the bit masks of both
+     * players. Only usable, if the board has 64 slots.
+     *
+     * @param toCompute Board that will be used to calculate the moves.
+     * @param player The color of the player whose moves are computed.
+     * @return The squares {@code row * SIZE + col} of the moves as bit mask.
+     */
+    static long legalMask(ReversiBoard toCompute, Token player) {
+        return Bitboards.moves(toCompute.tokenMask(player),
+                toCompute.tokenMask(opposite(player)));
+    }
 
-                    }
-                }
+    /**
+     * Writes all possible moves of a player into a buffer by testing every
+     * free space on board, walking the rays from it.
+     *
+     * @param toCompute Board that will be used to calculate the moves.
+     * @param player The color of the player whose moves are computed.
+     * @param moves The buffer the squares {@code row * SIZE + col} of the
+     *              moves are written into. Must hold a move for every square.
+     * @return The number of moves written into the buffer.
+     */
+    static int scanMoves(ReversiBoard toCompute, Token player, int[] moves) {
+        Token enemy = opposite(player);
+        int count = 0;
+        for (int square = 0; square < Rays.SQUARES; ++square) {
+            if (checkMove(toCompute, Rays.ROW[square], Rays.COL[square],
+                    player, enemy)) {
+                moves[count++] = square;
             }
-
         }
-        return false;
+        return count;
     }
 
     /**
-     * Evaluates the points each player for the state of the board
-     * by using the predefined values.
+     * Counts the possible moves of a player.
      *
-     * @param toEval Board that will be evaluated.
-     * @return Both human and ai points in a wrapper class.
+     * @param toCompute Board that will be used to count the moves.
+     * @param player The color of the player whose moves are counted.
+     * @return The number of possible moves.
      */
-    private static PointPair evaluateState(Board toEval) {
-        if (toEval == null) {
-            throw new IllegalArgumentException("No board to evaluate");
-        } else {
-            double human = 0;
-            double ai = 0;
-
-            for (int i = 0; i < Board.SIZE; ++i) {
-                for (int j = 0; j < Board.SIZE; ++j) {
-                    Player currentSlot = toEval.getSlot(i, j);
-                    if (currentSlot != null
-                            && currentSlot.equals(Player.HUMAN)) {
-                        human = human + FIELD_VALUE[i][j];
-                    } else if (currentSlot != null
-                            && currentSlot.equals(Player.AI)) {
-                        ai = ai + FIELD_VALUE[i][j];
-                    }
-                }
+    static int countMoves(ReversiBoard toCompute, Token player) {
+        if (Bitboards.ENABLED) {
+            return Long.bitCount(legalMask(toCompute, player));
+        }
+        Token enemy = opposite(player);
+        int count = 0;
+        for (int square = 0; square < Rays.SQUARES; ++square) {
+            if (checkMove(toCompute, Rays.ROW[square], Rays.COL[square],
+                    player, enemy)) {
+                ++count;
             }
-
-            return new PointPair(human, ai);
         }
+        return count;
     }
 
     /**
-     * Evaluates the points each player gets for the potential mobility by
-     * adding up the free spaces on the board around tokens of the opposing
-     * player.
+     * Tests if a player has at least one possible move.
      *
-     * @param toEval The board that will be evaluated.
-     * @return Both human and ai points in a wrapper class.
+     * @param toCompute Board that will be used to search for a move.
+     * @param player The color of the player.
+     * @return {@code true} if the player can make a move.
      */
-    private static PointPair potentialMobility(Board toEval) {
-        if (toEval == null) {
-            throw new IllegalArgumentException("No board to evaluate");
-        } else {
-            double human = 0;
-            double ai = 0;
-
-            for (int i = 0; i < Board.SIZE; ++i) {
-                for (int j = 0; j < Board.SIZE; ++j) {
-                    Player currentSlot = toEval.getSlot(i, j);
-                    if (currentSlot != null
-                            && currentSlot.equals(Player.HUMAN)) {
-                        ai += slotPotential(i, j, toEval);
-                    } else if (currentSlot != null
-                            && currentSlot.equals(Player.AI)) {
-                        human += slotPotential(i, j, toEval);
-                    }
-                }
+    static boolean hasMove(ReversiBoard toCompute, Token player) {
+        if (Bitboards.ENABLED) {
+            return legalMask(toCompute, player) != 0;
+        }
+        Token enemy = opposite(player);
+        for (int square = 0; square < Rays.SQUARES; ++square) {
+            if (checkMove(toCompute, Rays.ROW[square], Rays.COL[square],
+                    player, enemy)) {
+                return true;
             }
-
-            return new PointPair(human, ai);
         }
+        return false;
     }
 
     /**
-     * Evaluates the potential mobility of a single spot by adding up
-     * all the free spaces around it.
+     * Check s a certain spot if there is a move possible, by walking the rays
+     * into all directions and testing them for validity.
      *
-     * @param row The row index of the spot to be evaluated.
-     * @param col The column index of the spot to be evaluated.
-     * @param toCheck The Board the spot is on.
-     * @return The amount of free fields around one spot.
-     */
-    private static double slotPotential(int row, int col, Board toCheck) {
-        double potential = 0;
-
-        // Look into all 8 directions and sum up all free spaces.
-        for (int xAxis = -1; xAxis < 2; ++xAxis) {
-            for (int yAxis = -1; yAxis < 2; ++yAxis) {
-                int yPos = row + xAxis;
-                int xPos = col + yAxis;
-                if (yPos >= 0 && yPos < Board.SIZE && xPos >= 0
-                        && xPos < Board.SIZE) {
-                    if (toCheck.getSlot(yPos, xPos) == null) {
-                        potential = potential + 1;
+     * @param toCheck The board that will be used to check.
+     * @param row The row index of the spot.
+     * @param col The column index of the spot.
+     * @param player The color of the player that sets the new token.
+     * @param enemy The color of the player that dosen't set the new token.
+     * @return {@code true} if there is any direction a move is possible.
+     *         Else {@code false}
+     */
+    private static boolean checkMove(ReversiBoard toCheck, int row, int col,
+                                     Token player, Token enemy) {
+        if (toCheck.board[row][col] != Token.FREE) {
+            return false;
+        } else {
+
+            // Walk all rays, that start next to an enemy tile.
+            for (int[] ray : Rays.FLIP_RAYS[row * SIZE + col]) {
+                if (toCheck.tokenAt(ray[0]) == enemy) {
+
+                    /* Go into this direction until you hit your own token
+                     * , leaves the boundaries or hit a free space.
+                     */
+                    for (int k = 1; k < ray.length; ++k) {
+                        Token onSlot = toCheck.tokenAt(ray[k]);
+                        if (onSlot == player) {
+                            return true;
+                        } else if (onSlot == Token.FREE) {
+                            break;
+                        }
                     }
+
                 }
             }
-        }
 
-        return potential;
+        }
+        return false;
     }
 
 }
\ No newline at end of file
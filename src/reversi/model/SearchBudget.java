@@ -0,0 +1,165 @@
+package reversi.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the nodes, the time and the memory a search used of its
+ * {@link SearchLimits}. Not thread safe, each thread of a search has its
+ * own, but the threads count their positions together, so the node budget
+ * holds for the whole search. The memory budget is at most half of the
+ * heap, so a search can't run the JVM out of memory even if its limits
+ * allow it.
+ */
+final class SearchBudget {
+
+    /**
+     * The number of positions the search may visit.
+     */
+    private final long maxNodes;
+
+    /**
+     * The time the search was started in milliseconds.
+     */
+    private final long start;
+
+    /**
+     * The time the search has to stop in milliseconds.
+     */
+    private final long deadline;
+
+    /**
+     * The bytes the structures of the search may occupy.
+     */
+    private final long maxBytes;
+
+    /**
+     * The number of positions visited so far by all threads of the search.
+     */
+    private final AtomicLong nodes;
+
+    /**
+     * The bytes the structures of the search occupy right now.
+     */
+    private long bytes;
+
+    /**
+     * The most bytes the structures of the search occupied so far.
+     */
+    private long peakBytes;
+
+    /**
+     * Starts the clock of a new search.
+     *
+     * @param limits The limits of the search.
+     */
+    SearchBudget(SearchLimits limits) {
+        maxNodes = limits.getNodes();
+        start = System.currentTimeMillis();
+        deadline = start + limits.getMillis();
+        maxBytes = Math.min(limits.getMemory(),
+                Runtime.getRuntime().maxMemory() / 2);
+        nodes = new AtomicLong();
+    }
+
+    /**
+     * Joins another thread of a search to its budget. The positions are
+     * counted together and the clock is the same, the memory is counted
+     * for each thread.
+     *
+     * @param shared The budget of the thread, that started the search.
+     */
+    SearchBudget(SearchBudget shared) {
+        maxNodes = shared.maxNodes;
+        start = shared.start;
+        deadline = shared.deadline;
+        maxBytes = shared.maxBytes;
+        nodes = shared.nodes;
+    }
+
+    /**
+     * Counts visited positions.
+     *
+     * @param count The number of positions visited.
+     */
+    void spend(long count) {
+        nodes.addAndGet(count);
+    }
+
+    /**
+     * Counts memory taken by structures of the search.
+     *
+     * @param count The number of bytes taken.
+     */
+    void allocate(long count) {
+        bytes += count;
+        peakBytes = Math.max(peakBytes, bytes);
+    }
+
+    /**
+     * Counts memory given back by structures of the search.
+     *
+     * @param count The number of bytes given back.
+     */
+    void free(long count) {
+        bytes -= count;
+    }
+
+    /**
+     * Tests if a structure of a certain size would fit into the memory
+     * budget.
+     *
+     * @param count The number of bytes of the structure.
+     * @return {@code true} if there is room for it.
+     */
+    boolean fits(long count) {
+        return bytes + count <= maxBytes;
+    }
+
+    /**
+     * Gets the bytes the structures of the search may occupy.
+     *
+     * @return The memory budget in bytes.
+     */
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Tests if the search used up its nodes, its time or its memory.
+     *
+     * @return {@code true} if the search has to stop.
+     */
+    boolean exhausted() {
+        return nodes.get() > maxNodes || bytes > maxBytes
+                || System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * Gets the number of positions all threads of the search visited so
+     * far.
+     *
+     * @return The number of nodes.
+     */
+    long getNodes() {
+        return nodes.get();
+    }
+
+    /**
+     * Gets the most memory the structures of the search occupied so far.
+     *
+     * @return The peak memory in bytes.
+     */
+    long getPeakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * Gets the time since the start of the search.
+     *
+     * @return The duration in milliseconds.
+     */
+    long getElapsed() {
+        return System.currentTimeMillis() - start;
+    }
+
+}
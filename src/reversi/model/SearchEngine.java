@@ -0,0 +1,72 @@
+package reversi.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service interface of an algorithm, that searches the best move of a
+ * position. Implementations are discovered with {@link java.util.ServiceLoader}
+ * and selected by their name, see {@link SearchEngines}. An engine has to be
+ * usable by several threads at once, as boards share their engine.
+ */
+public interface SearchEngine {
+
+    /**
+     * Gets the name the engine is selected by.
+     *
+     * @return The unique name of the engine.
+     */
+    String getName();
+
+    /**
+     * Searches the best move of the player with the turn.
+     *
+     * @param position The position to search. Is not changed.
+     * @param limits   The limits the search has to stay within.
+     * @return The best move found, its score and statistics of the search.
+     * @throws IllegalArgumentException If the player with the turn has no
+     *                                  move or the position is of a board
+     *                                  the engine does not support.
+     */
+    SearchResult search(Board position, SearchLimits limits);
+
+    /**
+     * Scores every move of the player with the turn (multi-PV). Engines
+     * that can only find the best move return it as the single line.
+     *
+     * @param position The position to analyze. Is not changed.
+     * @param limits   The limits the whole analysis has to stay within.
+     * @return The moves with their scores, the best first. The statistics
+     *         of each line are those of the whole analysis.
+     * @throws IllegalArgumentException If the player with the turn has no
+     *                                  move or the position is of a board
+     *                                  the engine does not support.
+     */
+    default List<SearchResult> analyze(Board position, SearchLimits limits) {
+        return Collections.singletonList(search(position, limits));
+    }
+
+    /**
+     * Converts the score of a result of this engine into the expected final
+     * difference of the tiles of the player with the turn and the other
+     * player. Exact scores are that difference already. The default is for
+     * engines scoring by the evaluation of the boards, that add up the
+     * evaluations along the searched line, so it scales the score by its
+     * depth.
+     *
+     * @param result A result of this engine.
+     * @return The difference between {@code -SIZE * SIZE} and
+     *         {@code SIZE * SIZE}.
+     */
+    default double toTiles(SearchResult result) {
+        if (result.isExact()) {
+            return result.getScore();
+        }
+
+        // The score adds up one evaluation per ply of the search.
+        double tiles = result.getScore() / Math.max(1, result.getDepth())
+                / Evaluation.pointsPerTile();
+        return Math.max(-Rays.SQUARES, Math.min(Rays.SQUARES, tiles));
+    }
+
+}
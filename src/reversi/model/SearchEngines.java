@@ -0,0 +1,140 @@
+package reversi.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the available search engines. Engines are discovered once with
+ * {@link ServiceLoader} from the {@code META-INF/services} entries on the
+ * class path. The engines of this package are available even without those
+ * entries.
+ */
+public final class SearchEngines {
+
+    /**
+     * Name of the engine boards use, unless another one is selected.
+     */
+    public static final String DEFAULT = "minimax";
+
+    /**
+     * The engines of this package by their names, in the order of the
+     * service entries.
+     */
+    private static final Map<String, Supplier<SearchEngine>> BUILT_IN =
+            builtIn();
+
+    /**
+     * All discovered engines, in the order they were found.
+     */
+    private static final List<SearchEngine> ENGINES = discover();
+
+    /**
+     * Private constructor to ensure no SearchEngines object can be
+     * initialized.
+     */
+    private SearchEngines() {
+    }
+
+    /**
+     * Gets the engine with a certain name.
+     *
+     * @param name The name of the engine, case is ignored.
+     * @return The engine.
+     * @throws IllegalArgumentException If there is no engine of that name.
+     */
+    public static SearchEngine forName(String name) {
+        for (SearchEngine engine : ENGINES) {
+            if (engine.getName().equalsIgnoreCase(name)) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Unknown engine " + name);
+    }
+
+    /**
+     * Gets the engine boards use, unless another one is selected.
+     *
+     * @return The default engine.
+     */
+    public static SearchEngine getDefault() {
+        return forName(DEFAULT);
+    }
+
+    /**
+     * Gets the names of all available engines.
+     *
+     * @return The names, in the order the engines were discovered.
+     */
+    public static List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (SearchEngine engine : ENGINES) {
+            names.add(engine.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Gets the Reversi board of a position an engine of this package can
+     * search.
+     *
+     * @param position The position to search.
+     * @return The position as Reversi board.
+     * @throws IllegalArgumentException If the position is of another board
+     *                                  or the player with the turn has no
+     *                                  move.
+     */
+    static ReversiBoard toReversiBoard(Board position) {
+        if (!(position instanceof ReversiBoard)) {
+            throw new IllegalArgumentException("Unsupported board");
+        }
+        ReversiBoard board = (ReversiBoard) position;
+        if (!ReversiBoard.hasMove(board, board.getColor())) {
+            throw new IllegalArgumentException("No move to search");
+        }
+        return board;
+    }
+
+    /**
+     * Lists the engines of this package.
+     *
+     * @return The constructors of the engines by their names.
+     */
+    private static Map<String, Supplier<SearchEngine>> builtIn() {
+        Map<String, Supplier<SearchEngine>> engines = new LinkedHashMap<>();
+        engines.put("minimax", MinimaxEngine::new);
+        engines.put("mcts", MonteCarloEngine::new);
+        engines.put("alphabeta", AlphaBetaEngine::new);
+        engines.put("pvs", PvsEngine::new);
+        engines.put("mpc", MpcEngine::new);
+        return engines;
+    }
+
+    /**
+     * Loads all engines registered as service. The engines of this package,
+     * that are not registered, are added after them, so the default engine
+     * is always available, even if the service entries are missing on the
+     * class path.
+     *
+     * @return The discovered engines.
+     */
+    private static List<SearchEngine> discover() {
+        List<SearchEngine> found = new ArrayList<>();
+        Map<String, Supplier<SearchEngine>> missing =
+                new LinkedHashMap<>(BUILT_IN);
+        for (SearchEngine engine : ServiceLoader.load(SearchEngine.class)) {
+            found.add(engine);
+            missing.remove(engine.getName().toLowerCase(Locale.ROOT));
+        }
+        for (Supplier<SearchEngine> engine : missing.values()) {
+            found.add(engine.get());
+        }
+        return Collections.unmodifiableList(found);
+    }
+
+}
@@ -0,0 +1,266 @@
+package reversi.model;
+
+import java.util.function.Consumer;
+
+/**
+ * The limits a search of a {@link SearchEngine} has to stay within: the
+ * depth it looks ahead, the number of positions it may visit, the time it
+ * may take and the memory its structures may occupy. All budgets are always
+ * finite, so a single search can never consume unbounded CPU or heap. The
+ * number of threads the search may use is part of the limits as well, and
+ * a listener, that follows the progress of the search.
+ */
+public final class SearchLimits {
+
+    /**
+     * The deepest look ahead that can be requested.
+     */
+    public static final int MAX_DEPTH = 30;
+
+    /**
+     * The hard cap of positions a single search may visit.
+     */
+    public static final long MAX_NODES = 2000000;
+
+    /**
+     * The longest time a single search may take in milliseconds.
+     */
+    public static final long MAX_MILLIS = 60000;
+
+    /**
+     * The most bytes the structures of a single search may occupy.
+     */
+    public static final long MAX_MEMORY = 512L * 1024 * 1024;
+
+    /**
+     * The most threads a single search may use.
+     */
+    public static final int MAX_THREADS = 64;
+
+    /**
+     * Listener of searches, whose progress nobody follows.
+     */
+    private static final Consumer<SearchResult> NO_PROGRESS = line -> {
+    };
+
+    /**
+     * The number of moves the search looks ahead.
+     */
+    private final int depth;
+
+    /**
+     * The number of positions the search may visit.
+     */
+    private final long nodes;
+
+    /**
+     * The time the search may take in milliseconds.
+     */
+    private final long millis;
+
+    /**
+     * The bytes the structures of the search may occupy.
+     */
+    private final long memory;
+
+    /**
+     * The number of threads the search may use.
+     */
+    private final int threads;
+
+    /**
+     * Receives the best line of each depth the search finished.
+     */
+    private final Consumer<SearchResult> progress;
+
+    /**
+     * Initializes new limits, that only restrict the depth. The budgets are
+     * the hard caps.
+     *
+     * @param depth The number of moves the search looks ahead, equals the
+     *              level of the machine. Engines that do not look ahead
+     *              scale their effort with it.
+     * @throws IllegalArgumentException If the depth is not between 1 and
+     *                                  {@code MAX_DEPTH}.
+     */
+    public SearchLimits(int depth) {
+        this(depth, MAX_NODES, MAX_MILLIS);
+    }
+
+    /**
+     * Initializes new limits, whose memory budget is the hard cap.
+     *
+     * @param depth  The number of moves the search looks ahead.
+     * @param nodes  The number of positions the search may visit, at most
+     *               {@code MAX_NODES}.
+     * @param millis The time the search may take in milliseconds, at most
+     *               {@code MAX_MILLIS}.
+     * @throws IllegalArgumentException If a limit is not positive or above
+     *                                  its maximum.
+     */
+    public SearchLimits(int depth, long nodes, long millis) {
+        this(depth, nodes, millis, MAX_MEMORY);
+    }
+
+    /**
+     * Initializes new limits for a search on a single thread. The search
+     * stops as soon as one of them is reached and returns the result of the
+     * deepest search it finished.
+     *
+     * @param depth  The number of moves the search looks ahead.
+     * @param nodes  The number of positions the search may visit, at most
+     *               {@code MAX_NODES}.
+     * @param millis The time the search may take in milliseconds, at most
+     *               {@code MAX_MILLIS}.
+     * @param memory The bytes the structures of the search may occupy, at
+     *               most {@code MAX_MEMORY}.
+     * @throws IllegalArgumentException If a limit is not positive or above
+     *                                  its maximum.
+     */
+    public SearchLimits(int depth, long nodes, long millis, long memory) {
+        this(depth, nodes, millis, memory, 1);
+    }
+
+    /**
+     * Initializes new limits. The node budget and the memory budget apply
+     * to all threads together.
+     *
+     * @param depth   The number of moves the search looks ahead.
+     * @param nodes   The number of positions the search may visit, at most
+     *                {@code MAX_NODES}.
+     * @param millis  The time the search may take in milliseconds, at most
+     *                {@code MAX_MILLIS}.
+     * @param memory  The bytes the structures of the search may occupy, at
+     *                most {@code MAX_MEMORY}.
+     * @param threads The number of threads the search may use, at most
+     *                {@code MAX_THREADS}. Engines without threads ignore it.
+     * @throws IllegalArgumentException If a limit is not positive or above
+     *                                  its maximum.
+     */
+    public SearchLimits(int depth, long nodes, long millis, long memory,
+                        int threads) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and "
+                    + MAX_DEPTH);
+        } else if (nodes < 1 || nodes > MAX_NODES) {
+            throw new IllegalArgumentException("Nodes must be between 1 and "
+                    + MAX_NODES);
+        } else if (millis < 1 || millis > MAX_MILLIS) {
+            throw new IllegalArgumentException("Time must be between 1 and "
+                    + MAX_MILLIS + " ms");
+        } else if (memory < 1 || memory > MAX_MEMORY) {
+            throw new IllegalArgumentException("Memory must be between 1 and "
+                    + MAX_MEMORY + " bytes");
+        } else if (threads < 1 || threads > MAX_THREADS) {
+            throw new IllegalArgumentException("Threads must be between 1 and "
+                    + MAX_THREADS);
+        }
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.memory = memory;
+        this.threads = threads;
+        this.progress = NO_PROGRESS;
+    }
+
+    /**
+     * Copies limits with another listener.
+     *
+     * @param limits   The limits to copy.
+     * @param progress Receives the best line of each depth the search
+     *                 finished.
+     */
+    private SearchLimits(SearchLimits limits,
+                         Consumer<SearchResult> progress) {
+        this.depth = limits.depth;
+        this.nodes = limits.nodes;
+        this.millis = limits.millis;
+        this.memory = limits.memory;
+        this.threads = limits.threads;
+        this.progress = progress;
+    }
+
+    /**
+     * Gets limits, that let a listener follow the progress of the search.
+     * Engines, that deepen their search one ply at a time, hand it the best
+     * line of each depth they finished, in the thread of the search. Other
+     * engines just return their result.
+     *
+     * @param progress Receives the best line of each finished depth.
+     * @return The same limits with the listener.
+     * @throws IllegalArgumentException If the listener is {@code null}.
+     */
+    public SearchLimits withProgress(Consumer<SearchResult> progress) {
+        if (progress == null) {
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        return new SearchLimits(this, progress);
+    }
+
+    /**
+     * Gets the number of moves the search looks ahead.
+     *
+     * @return The depth of the search.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the number of positions the search may visit.
+     *
+     * @return The node budget.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the time the search may take.
+     *
+     * @return The time budget in milliseconds.
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Gets the bytes the structures of the search may occupy.
+     *
+     * @return The memory budget in bytes.
+     */
+    public long getMemory() {
+        return memory;
+    }
+
+    /**
+     * Gets the number of threads the search may use.
+     *
+     * @return The number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Gets the listener, that follows the progress of the search.
+     *
+     * @return The listener, one that ignores the progress if none was
+     *         given.
+     */
+    public Consumer<SearchResult> getProgress() {
+        return progress;
+    }
+
+    /**
+     * Returns a String representation of these limits.
+     *
+     * @return Depth, nodes, time, memory and threads as String.
+     */
+    @Override
+    public String toString() {
+        return "depth " + depth + ", " + nodes + " nodes, " + millis + " ms, "
+                + memory + " bytes, " + threads + " threads";
+    }
+
+}
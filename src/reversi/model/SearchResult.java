@@ -0,0 +1,265 @@
+package reversi.model;
+
+/**
+ * The result of a search of a {@link SearchEngine}: the best move, its score
+ * and statistics of the search.
+ */
+public final class SearchResult {
+
+    /**
+     * The row index of the best move.
+     */
+    private final int row;
+
+    /**
+     * The column index of the best move.
+     */
+    private final int column;
+
+    /**
+     * The score of the best move from the view of the player with the turn,
+     * higher is better. Its scale depends on the engine.
+     */
+    private final double score;
+
+    /**
+     * The depth of the deepest search that was finished.
+     */
+    private final int depth;
+
+    /**
+     * The number of positions the search visited.
+     */
+    private final long nodes;
+
+    /**
+     * The duration of the search in milliseconds.
+     */
+    private final long millis;
+
+    /**
+     * The most bytes the structures of the search occupied.
+     */
+    private final long peakBytes;
+
+    /**
+     * The number of moves searched again, after a narrow window failed.
+     */
+    private final long researches;
+
+    /**
+     * The number of depths searched again, after the window around the
+     * expected score failed.
+     */
+    private final long windowFails;
+
+    /**
+     * Indicates if the score is the final tile difference with perfect play
+     * of both players.
+     */
+    private final boolean exact;
+
+    /**
+     * Initializes a new result.
+     *
+     * @param row    The row index of the best move.
+     * @param column The column index of the best move.
+     * @param score  The score of the best move.
+     * @param depth  The depth of the deepest search that was finished.
+     * @param nodes  The number of positions the search visited.
+     * @param millis The duration of the search in milliseconds.
+     * @param peakBytes The most bytes the structures of the search
+     *                  occupied.
+     */
+    public SearchResult(int row, int column, double score, int depth,
+                        long nodes, long millis, long peakBytes) {
+        this(row, column, score, depth, nodes, millis, peakBytes, 0, 0,
+                false);
+    }
+
+    /**
+     * Initializes a new result of a search, that may have solved the
+     * position.
+     *
+     * @param row    The row index of the best move.
+     * @param column The column index of the best move.
+     * @param score  The score of the best move.
+     * @param depth  The depth of the deepest search that was finished.
+     * @param nodes  The number of positions the search visited.
+     * @param millis The duration of the search in milliseconds.
+     * @param peakBytes The most bytes the structures of the search
+     *                  occupied.
+     * @param exact  {@code true} if the score is the final tile difference
+     *               with perfect play.
+     */
+    public SearchResult(int row, int column, double score, int depth,
+                        long nodes, long millis, long peakBytes,
+                        boolean exact) {
+        this(row, column, score, depth, nodes, millis, peakBytes, 0, 0,
+                exact);
+    }
+
+    /**
+     * Initializes a new result of a search with windows.
+     *
+     * @param row    The row index of the best move.
+     * @param column The column index of the best move.
+     * @param score  The score of the best move.
+     * @param depth  The depth of the deepest search that was finished.
+     * @param nodes  The number of positions the search visited.
+     * @param millis The duration of the search in milliseconds.
+     * @param peakBytes   The most bytes the structures of the search
+     *                    occupied.
+     * @param researches  The number of moves searched again, after a
+     *                    narrow window failed.
+     * @param windowFails The number of depths searched again, after the
+     *                    window around the expected score failed.
+     */
+    public SearchResult(int row, int column, double score, int depth,
+                        long nodes, long millis, long peakBytes,
+                        long researches, long windowFails) {
+        this(row, column, score, depth, nodes, millis, peakBytes, researches,
+                windowFails, false);
+    }
+
+    /**
+     * Initializes a new result with all its values.
+     *
+     * @param row    The row index of the best move.
+     * @param column The column index of the best move.
+     * @param score  The score of the best move.
+     * @param depth  The depth of the deepest search that was finished.
+     * @param nodes  The number of positions the search visited.
+     * @param millis The duration of the search in milliseconds.
+     * @param peakBytes   The most bytes the structures of the search
+     *                    occupied.
+     * @param researches  The number of moves searched again.
+     * @param windowFails The number of depths searched again.
+     * @param exact       {@code true} if the score is the final tile
+     *                    difference with perfect play.
+     */
+    private SearchResult(int row, int column, double score, int depth,
+                         long nodes, long millis, long peakBytes,
+                         long researches, long windowFails, boolean exact) {
+        this.row = row;
+        this.column = column;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.peakBytes = peakBytes;
+        this.researches = researches;
+        this.windowFails = windowFails;
+        this.exact = exact;
+    }
+
+    /**
+     * Returns the row index of the best move.
+     *
+     * @return Row index, starting at 0.
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Returns the column index of the best move.
+     *
+     * @return Column index, starting at 0.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns the score of the best move from the view of the player with
+     * the turn, higher is better. Its scale depends on the engine.
+     *
+     * @return The score.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Returns if the score is exact: the final difference of the tiles of
+     * the player with the turn and the other player, if both play
+     * perfectly. Else the score is on the scale of the engine.
+     *
+     * @return {@code true} if the search solved the position.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Returns the depth of the deepest search that was finished. It may be
+     * lower than requested, if the search ran out of its budget.
+     *
+     * @return The depth of the search.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of positions the search visited.
+     *
+     * @return The number of nodes.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the duration of the search.
+     *
+     * @return The duration in milliseconds.
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Returns the most memory the structures of the search occupied. The
+     * engines estimate it from the sizes of their structures.
+     *
+     * @return The peak memory in bytes.
+     */
+    public long getPeakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * Returns the number of moves, that were searched again with a wider
+     * window, as the narrow window around the best move so far failed.
+     *
+     * @return The number of re-searches, 0 for engines without windows.
+     */
+    public long getResearches() {
+        return researches;
+    }
+
+    /**
+     * Returns the number of depths, that were searched again with a wider
+     * window, as the score left the window around the expected score.
+     *
+     * @return The number of failed windows, 0 for engines without windows.
+     */
+    public long getWindowFails() {
+        return windowFails;
+    }
+
+    /**
+     * Returns a String representation of this result.
+     *
+     * @return Move, score and statistics as String.
+     */
+    @Override
+    public String toString() {
+        return "(" + (row + 1) + ", " + (column + 1) + ") " + score
+                + " depth " + depth + " " + nodes + " nodes " + millis
+                + " ms " + peakBytes + " bytes";
+    }
+
+}
@@ -0,0 +1,129 @@
+package reversi.model;
+
+/**
+ * Finds the tiles, that can never be flipped again. A tile is stable, if it
+ * can not be enclosed on any of its 4 lines: the line is completely filled,
+ * or the tile touches the border or a stable tile of the same player on that
+ * line. Starting at the corners, the stable tiles grow along the edges until
+ * nothing changes anymore. Works on the bit masks of
+ * {@link ReversiBoard#discMask(Player)}, so it needs a board of 8 x 8 slots.
+ */
+final class StableDiscs {
+
+    /**
+     * All slots of the left column.
+     */
+    private static final long LEFT = 0x0101010101010101L;
+
+    /**
+     * All slots of the right column.
+     */
+    private static final long RIGHT = 0x8080808080808080L;
+
+    /**
+     * All slots of the top row.
+     */
+    private static final long TOP = 0x00000000000000FFL;
+
+    /**
+     * All slots of the bottom row.
+     */
+    private static final long BOTTOM = 0xFF00000000000000L;
+
+    /**
+     * All slots on the border of the board.
+     */
+    private static final long BORDER = LEFT | RIGHT | TOP | BOTTOM;
+
+    /**
+     * The 15 diagonals from the top left to the bottom right.
+     */
+    private static final long[] DIAGONALS = new long[15];
+
+    /**
+     * The 15 diagonals from the top right to the bottom left.
+     */
+    private static final long[] ANTI_DIAGONALS = new long[15];
+
+    static {
+        for (int row = 0; row < Board.SIZE; ++row) {
+            for (int col = 0; col < Board.SIZE; ++col) {
+                long bit = 1L << (row * Board.SIZE + col);
+                DIAGONALS[row - col + 7] |= bit;
+                ANTI_DIAGONALS[row + col] |= bit;
+            }
+        }
+    }
+
+    /**
+     * Private constructor to ensure no StableDiscs object can be initialized.
+     */
+    private StableDiscs() {
+    }
+
+    /**
+     * Computes the stable tiles of a player.
+     *
+     * @param own   The tiles of the player.
+     * @param enemy The tiles of the other player.
+     * @return The stable tiles of the player as bit mask.
+     */
+    static long stable(long own, long enemy) {
+        long filled = own | enemy;
+
+        // Slots whose line in a direction has no free slot left.
+        long fullRows = 0;
+        long fullColumns = 0xFFL;
+        for (int row = 0; row < Board.SIZE; ++row) {
+            long line = TOP << (row * Board.SIZE);
+            if ((filled & line) == line) {
+                fullRows |= line;
+            }
+            fullColumns &= filled >>> (row * Board.SIZE);
+        }
+        fullColumns *= LEFT;
+        long fullDiagonals = 0;
+        long fullAntiDiagonals = 0;
+        for (int i = 0; i < DIAGONALS.length; ++i) {
+            if ((filled & DIAGONALS[i]) == DIAGONALS[i]) {
+                fullDiagonals |= DIAGONALS[i];
+            }
+            if ((filled & ANTI_DIAGONALS[i]) == ANTI_DIAGONALS[i]) {
+                fullAntiDiagonals |= ANTI_DIAGONALS[i];
+            }
+        }
+        long horizontal = fullRows | LEFT | RIGHT;
+        long vertical = fullColumns | TOP | BOTTOM;
+        long diagonal = fullDiagonals | BORDER;
+        long antiDiagonal = fullAntiDiagonals | BORDER;
+
+        // Grow the stable tiles until no neighbor is added anymore.
+        long stable = own & horizontal & vertical & diagonal & antiDiagonal;
+        long previous;
+        do {
+            previous = stable;
+            long safeHorizontal = horizontal | stable << 1 & ~LEFT
+                    | stable >>> 1 & ~RIGHT;
+            long safeVertical = vertical | stable << 8 | stable >>> 8;
+            long safeDiagonal = diagonal | stable << 9 & ~LEFT
+                    | stable >>> 9 & ~RIGHT;
+            long safeAntiDiagonal = antiDiagonal | stable << 7 & ~RIGHT
+                    | stable >>> 7 & ~LEFT;
+            stable = own & safeHorizontal & safeVertical & safeDiagonal
+                    & safeAntiDiagonal;
+        } while (stable != previous);
+        return stable;
+    }
+
+    /**
+     * Counts the stable tiles of a player.
+     *
+     * @param own   The tiles of the player.
+     * @param enemy The tiles of the other player.
+     * @return The number of stable tiles of the player.
+     */
+    static int count(long own, long enemy) {
+        return Long.bitCount(stable(own, enemy));
+    }
+
+}
@@ -0,0 +1,506 @@
+package reversi.model;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Generates training data for the evaluation out of self-play on all cores.
+ * The default engine plays games against itself, each starting with a few
+ * random moves. Every position it searches is stored with the score of the
+ * search and the final tile difference, each from the view of the player to
+ * move, in {@link TrainingShard shards} of {@link #SHARD_POSITIONS}
+ * positions each. Positions with no more free slots than the search depth
+ * are played but not stored: the engine solves them, so their score would
+ * be a tile difference instead of points of the evaluation.
+ * <p>
+ * A position is stored only once: positions are compared in canonical
+ * orientation by a 55 bit key, including the positions of the shards
+ * already in the directory. The keys take 16 to 32 bytes per stored
+ * position.
+ */
+public final class TrainingDataGenerator {
+
+    /**
+     * Number of positions of a full shard.
+     */
+    static final int SHARD_POSITIONS = 1 << 20;
+
+    /**
+     * Default depth of the searches.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Number of random moves at the start of each game.
+     */
+    private static final int RANDOM_MOVES = 8;
+
+    /**
+     * Number of games per thread, that may be played ahead of the writer.
+     */
+    private static final int GAMES_PER_THREAD = 2;
+
+    /**
+     * Number of games after which the progress is printed.
+     */
+    private static final int PROGRESS = 1000;
+
+    /**
+     * Prefix of the names of the shards.
+     */
+    private static final String PREFIX = "shard-";
+
+    /**
+     * Suffix of the names of the shards.
+     */
+    private static final String SUFFIX = ".bin";
+
+    /**
+     * The directory of the shards.
+     */
+    private final Path directory;
+
+    /**
+     * The engine playing the games.
+     */
+    private final SearchEngine engine;
+
+    /**
+     * The limits of each search.
+     */
+    private final SearchLimits limits;
+
+    /**
+     * Seed of the random moves, each game adds its index.
+     */
+    private final long seed;
+
+    /**
+     * Tiles of the player to move of the positions of the current shard.
+     */
+    private final long[] own = new long[SHARD_POSITIONS];
+
+    /**
+     * Tiles of the other player of the positions of the current shard.
+     */
+    private final long[] opponent = new long[SHARD_POSITIONS];
+
+    /**
+     * Scores of the positions of the current shard.
+     */
+    private final float[] scores = new float[SHARD_POSITIONS];
+
+    /**
+     * Results of the positions of the current shard.
+     */
+    private final byte[] results = new byte[SHARD_POSITIONS];
+
+    /**
+     * Number of positions of the current shard.
+     */
+    private int count;
+
+    /**
+     * Index of the next shard to write.
+     */
+    private int shard;
+
+    /**
+     * Open addressed set of the keys of the stored positions plus one, so
+     * {@code 0} marks a free slot.
+     */
+    private long[] keys = new long[1 << 16];
+
+    /**
+     * Number of keys in the set.
+     */
+    private long stored;
+
+    /**
+     * Number of positions left out as duplicates.
+     */
+    private long duplicates;
+
+    /**
+     * Creates a generator.
+     *
+     * @param directory The directory of the shards.
+     * @param engine    The engine playing the games.
+     * @param limits    The limits of each search.
+     * @param seed      Seed of the random moves.
+     */
+    private TrainingDataGenerator(Path directory, SearchEngine engine,
+                                  SearchLimits limits, long seed) {
+        this.directory = directory;
+        this.engine = engine;
+        this.limits = limits;
+        this.seed = seed;
+    }
+
+    /**
+     * {@code Main} method that is used as a entry point when generating
+     * data: {@code directory games [depth [threads [seed]]]}. The threads
+     * default to the number of cores, the seed of the random moves to the
+     * current time. New shards are numbered behind those already in the
+     * directory.
+     *
+     * @param args The parameters.
+     * @throws IOException          If a shard can't be read or written.
+     * @throws InterruptedException If the generation is interrupted.
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Reversi training data generator\n"
+                    + "directory games [depth [threads [seed]]] - plays "
+                    + "games and writes their positions into shards");
+            return;
+        }
+        long games = Long.parseLong(args[1]);
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : DEPTH;
+        int threads = args.length > 3 ? Integer.parseInt(args[3])
+                : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4])
+                : System.currentTimeMillis();
+        if (games < 1 || threads < 1) {
+            throw new IllegalArgumentException("undefined parameters");
+        }
+
+        long start = System.currentTimeMillis();
+        TrainingDataGenerator generator = new TrainingDataGenerator(
+                Paths.get(args[0]), SearchEngines.getDefault(),
+                new SearchLimits(depth), seed);
+        generator.loadExisting();
+        long existing = generator.stored;
+        int firstShard = generator.shard;
+        generator.generate(games, threads);
+        System.out.println("Stored " + (generator.stored - existing)
+                + " positions in " + (generator.shard - firstShard)
+                + " new shards, " + generator.duplicates
+                + " duplicates left out, in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Adds the keys of the shards in the directory to the set and numbers
+     * the next shard behind them.
+     *
+     * @throws IOException If a shard can't be read.
+     */
+    private void loadExisting() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(
+                directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : shards) {
+                String name = file.getFileName().toString();
+                shard = Math.max(shard, Integer.parseInt(name.substring(
+                        PREFIX.length(), name.length() - SUFFIX.length()))
+                        + 1);
+                try (TrainingShard existing = TrainingShard.open(file)) {
+                    for (int i = 0; i < existing.size(); ++i) {
+                        add(PositionDatabase.key(existing.getOwnTiles(i),
+                                existing.getOpponentTiles(i)));
+                    }
+                }
+            }
+        }
+        if (stored > 0) {
+            System.out.println(stored + " positions in " + shard
+                    + " existing shards");
+        }
+    }
+
+    /**
+     * Plays the games on a pool of threads and stores their positions in
+     * the order the games finish. The last shard may not be full.
+     *
+     * @param games   The number of games.
+     * @param threads The number of threads playing.
+     * @throws IOException          If a shard can't be written.
+     * @throws InterruptedException If the generation is interrupted.
+     */
+    private void generate(long games, int threads)
+            throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<Game> played =
+                    new ExecutorCompletionService<>(pool);
+            long submitted = 0;
+            for (; submitted < games
+                    && submitted < (long) threads * GAMES_PER_THREAD;
+                    ++submitted) {
+                long game = submitted;
+                played.submit(() -> play(game));
+            }
+            for (long finished = 1; finished <= games; ++finished) {
+                Game game;
+                try {
+                    game = played.take().get();
+                } catch (ExecutionException failed) {
+                    throw new IllegalStateException("Game failed",
+                            failed.getCause());
+                }
+                if (submitted < games) {
+                    long next = submitted++;
+                    played.submit(() -> play(next));
+                }
+                store(game);
+                if (finished % PROGRESS == 0) {
+                    System.out.println(finished + " games, " + stored
+                            + " positions");
+                }
+            }
+            if (count > 0) {
+                writeShard();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays a single game. All games are started by the human, see
+     * {@link ReversiBoard#ReversiBoard(Player)}. The random moves make up
+     * for it.
+     *
+     * @param index The index of the game, that seeds its random moves.
+     * @return The searched positions of the game.
+     */
+    private Game play(long index) {
+        Random random = new Random(seed + index);
+        Game game = new Game();
+        ReversiBoard position = new ReversiBoard(Player.HUMAN);
+        int[] moves = new int[Rays.SQUARES];
+        int ply = 0;
+        while (!position.gameOver()) {
+            int moveCount = ReversiBoard.generateMoves(position,
+                    position.getColor(), moves);
+            if (moveCount == 0) {
+                position = position.passTurn();
+            } else if (ply < RANDOM_MOVES) {
+                position = (ReversiBoard) position.makeMove(
+                        moves[random.nextInt(moveCount)]);
+                ++ply;
+            } else {
+                SearchResult best = engine.search(position, limits);
+                if (empties(position) > limits.getDepth()) {
+                    game.add(position, (float) best.getScore());
+                }
+                position = (ReversiBoard) position.makeMove(
+                        best.getRow() * Board.SIZE + best.getColumn());
+                ++ply;
+            }
+        }
+        game.finish(position);
+        return game;
+    }
+
+    /**
+     * Counts the free slots of a position.
+     *
+     * @param position The position.
+     * @return The number of slots without a tile.
+     */
+    private static int empties(ReversiBoard position) {
+        return Rays.SQUARES - Long.bitCount(position.discMask(Player.AI)
+                | position.discMask(Player.HUMAN));
+    }
+
+    /**
+     * Stores the positions of a game, that are not yet stored, and writes
+     * the shard when it is full.
+     *
+     * @param game The game.
+     * @throws IOException If the shard can't be written.
+     */
+    private void store(Game game) throws IOException {
+        for (int i = 0; i < game.count; ++i) {
+            if (!add(PositionDatabase.key(game.own[i], game.opponent[i]))) {
+                ++duplicates;
+                continue;
+            }
+            own[count] = game.own[i];
+            opponent[count] = game.opponent[i];
+            scores[count] = game.scores[i];
+            results[count] = game.results[i];
+            if (++count == SHARD_POSITIONS) {
+                writeShard();
+            }
+        }
+    }
+
+    /**
+     * Adds a key to the set of stored positions.
+     *
+     * @param key The key of a position.
+     * @return {@code false} if the key was already in the set.
+     */
+    private boolean add(long key) {
+        if (2 * (stored + 1) > keys.length) {
+            long[] old = keys;
+            keys = new long[2 * old.length];
+            for (long kept : old) {
+                if (kept != 0) {
+                    keys[slot(kept)] = kept;
+                }
+            }
+        }
+        int slot = slot(key + 1);
+        if (keys[slot] == key + 1) {
+            return false;
+        }
+        keys[slot] = key + 1;
+        ++stored;
+        return true;
+    }
+
+    /**
+     * Searches the slot of a key or the free slot it belongs into.
+     *
+     * @param entry The key plus one.
+     * @return The index of the slot.
+     */
+    private int slot(long entry) {
+        int mask = keys.length - 1;
+        int slot = (int) entry & mask;
+        while (keys[slot] != 0 && keys[slot] != entry) {
+            slot = slot + 1 & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Writes the current shard into a temporary file, which then replaces
+     * the shard at once, and starts the next shard.
+     *
+     * @throws IOException If the shard can't be written.
+     */
+    private void writeShard() throws IOException {
+        Path file = directory.resolve(String.format("%s%05d%s", PREFIX,
+                shard, SUFFIX));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_WRITE, 0,
+                    TrainingShard.HEADER_BYTES
+                            + (long) count * TrainingShard.POSITION_BYTES);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(TrainingShard.MAGIC);
+            buffer.putInt(TrainingShard.FORMAT_VERSION);
+            buffer.putInt(Board.SIZE);
+            buffer.putLong(count);
+            buffer.asLongBuffer().put(own, 0, count);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            buffer.asLongBuffer().put(opponent, 0, count);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            buffer.asFloatBuffer().put(scores, 0, count);
+            buffer.position(buffer.position() + count * Float.BYTES);
+            buffer.put(results, 0, count);
+            buffer.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        ++shard;
+        count = 0;
+    }
+
+    /**
+     * The searched positions of a single game in canonical orientation.
+     */
+    private static final class Game {
+
+        /**
+         * Tiles of the player to move of each position.
+         */
+        private long[] own = new long[Rays.SQUARES];
+
+        /**
+         * Tiles of the other player of each position.
+         */
+        private long[] opponent = new long[Rays.SQUARES];
+
+        /**
+         * Score of the search of each position.
+         */
+        private float[] scores = new float[Rays.SQUARES];
+
+        /**
+         * Indicates for each position, if the human was to move.
+         */
+        private boolean[] human = new boolean[Rays.SQUARES];
+
+        /**
+         * Final tile difference of each position, set by
+         * {@link #finish(ReversiBoard)}.
+         */
+        private byte[] results;
+
+        /**
+         * Number of positions.
+         */
+        private int count;
+
+        /**
+         * Adds a searched position.
+         *
+         * @param position The position.
+         * @param score    The score of the search.
+         */
+        void add(ReversiBoard position, float score) {
+            if (count == own.length) {
+                int size = 2 * count;
+                own = Arrays.copyOf(own, size);
+                opponent = Arrays.copyOf(opponent, size);
+                scores = Arrays.copyOf(scores, size);
+                human = Arrays.copyOf(human, size);
+            }
+            boolean humanToMove = position.isHumanToMove();
+            long ownTiles = position.discMask(humanToMove
+                    ? Player.HUMAN : Player.AI);
+            long opponentTiles = position.discMask(humanToMove
+                    ? Player.AI : Player.HUMAN);
+            int symmetry = PositionCache.canonicalSymmetry(ownTiles,
+                    opponentTiles);
+            own[count] = PositionCache.symmetric(ownTiles, symmetry);
+            opponent[count] = PositionCache.symmetric(opponentTiles,
+                    symmetry);
+            scores[count] = score;
+            human[count] = humanToMove;
+            ++count;
+        }
+
+        /**
+         * Sets the results of all positions.
+         *
+         * @param end The position at the end of the game.
+         */
+        void finish(ReversiBoard end) {
+            int difference = end.getNumberOfHumanTiles()
+                    - end.getNumberOfMachineTiles();
+            results = new byte[count];
+            for (int i = 0; i < count; ++i) {
+                results[i] = (byte) (human[i] ? difference : -difference);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,191 @@
+package reversi.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only shard of training positions written by
+ * {@link TrainingDataGenerator}. The file is memory-mapped, so a tool scans
+ * a column without parsing or copying the others.
+ * <p>
+ * A shard starts with {@link #HEADER_BYTES} bytes of header: the magic
+ * number, the version, the size of the board and the number of positions
+ * {@code n}. The columns follow without separator, all numbers little
+ * endian:
+ * <ul>
+ * <li>{@code n} longs: the tiles of the player to move</li>
+ * <li>{@code n} longs: the tiles of the other player</li>
+ * <li>{@code n} floats: the score of the search from the view of the player
+ * to move in points of the evaluation, solved positions are not
+ * stored</li>
+ * <li>{@code n} bytes: the final tile difference from the view of the
+ * player to move</li>
+ * </ul>
+ * The tiles are in canonical orientation (the smallest of the 8 symmetric
+ * variants) with bit {@code row * SIZE + col} for each slot.
+ */
+public final class TrainingShard implements Closeable {
+
+    /**
+     * Identifies a shard, reads 'RVRSTRAI'.
+     */
+    static final long MAGIC = 0x5256525354524149L;
+
+    /**
+     * Version of the file layout.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Number of bytes in front of the first column.
+     */
+    static final int HEADER_BYTES = 24;
+
+    /**
+     * Number of bytes of all columns of a single position.
+     */
+    static final int POSITION_BYTES = 2 * Long.BYTES + Float.BYTES + 1;
+
+    /**
+     * Channel of the opened file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Number of positions of the shard.
+     */
+    private final int count;
+
+    /**
+     * Opens a shard.
+     *
+     * @param file The file of the shard.
+     * @return The opened shard.
+     * @throws IOException If the file can't be read or is no shard of this
+     *                     version.
+     */
+    public static TrainingShard open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException(file + " is no training shard");
+            }
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            long count = buffer.getLong(16);
+            if (buffer.getLong(0) != MAGIC
+                    || buffer.getInt(8) != FORMAT_VERSION
+                    || buffer.getInt(12) != Board.SIZE || count < 0
+                    || size != HEADER_BYTES + count * POSITION_BYTES) {
+                throw new IOException(file + " is no training shard of"
+                        + " version " + FORMAT_VERSION);
+            }
+            return new TrainingShard(channel, buffer, (int) count);
+        } catch (IOException | RuntimeException failure) {
+            channel.close();
+            throw failure;
+        }
+    }
+
+    /**
+     * Creates a shard on top of an opened file.
+     *
+     * @param channel Channel of the opened file.
+     * @param buffer  The mapped file.
+     * @param count   The number of positions.
+     */
+    private TrainingShard(FileChannel channel, MappedByteBuffer buffer,
+                          int count) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.count = count;
+    }
+
+    /**
+     * Gets the number of positions of this shard.
+     *
+     * @return The number of positions.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the tiles of the player to move in a position.
+     *
+     * @param index The index of the position.
+     * @return The tiles in canonical orientation.
+     */
+    public long getOwnTiles(int index) {
+        return buffer.getLong(HEADER_BYTES + checked(index) * Long.BYTES);
+    }
+
+    /**
+     * Gets the tiles of the other player in a position.
+     *
+     * @param index The index of the position.
+     * @return The tiles in canonical orientation.
+     */
+    public long getOpponentTiles(int index) {
+        return buffer.getLong(HEADER_BYTES + (count + checked(index))
+                * Long.BYTES);
+    }
+
+    /**
+     * Gets the score of the search of a position.
+     *
+     * @param index The index of the position.
+     * @return The score from the view of the player to move.
+     */
+    public float getScore(int index) {
+        return buffer.getFloat(HEADER_BYTES + count * 2 * Long.BYTES
+                + checked(index) * Float.BYTES);
+    }
+
+    /**
+     * Gets the result of the game of a position.
+     *
+     * @param index The index of the position.
+     * @return The final tile difference from the view of the player to
+     *         move.
+     */
+    public int getResult(int index) {
+        return buffer.get(HEADER_BYTES + count * (2 * Long.BYTES
+                + Float.BYTES) + checked(index));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Checks the index of a position.
+     *
+     * @param index The index.
+     * @return The index.
+     * @throws IndexOutOfBoundsException If there is no such position.
+     */
+    private int checked(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("No position " + index);
+        }
+        return index;
+    }
+
+}
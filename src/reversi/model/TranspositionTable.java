@@ -0,0 +1,219 @@
+package reversi.model;
+
+/**
+ * Fixed size hash table of the values of positions searched before. An
+ * entry holds the tiles of both players, the player with the turn, the
+ * remaining depth of the search and the value with the kind of bound it is.
+ * A new entry always replaces the old one in its slot, so the table never
+ * grows beyond the size it was created with.
+ * <p>
+ * Several threads may share a table without locks. An entry is written field
+ * by field, so a reader may see parts of two different entries. Each entry
+ * therefore carries a check, that mixes all its fields. An entry whose check
+ * does not match its fields is treated as missing.
+ */
+final class TranspositionTable {
+
+    /**
+     * Bytes of a single entry.
+     */
+    static final long ENTRY_BYTES = 36;
+
+    /**
+     * Marks an exact value.
+     */
+    static final int EXACT = 1;
+
+    /**
+     * Marks a value, that the real value is at least as high as.
+     */
+    static final int LOWER = 2;
+
+    /**
+     * Marks a value, that the real value is at most as high as.
+     */
+    static final int UPPER = 3;
+
+    /**
+     * Tiles of the ai of each entry.
+     */
+    private final long[] aiTiles;
+
+    /**
+     * Tiles of the human of each entry.
+     */
+    private final long[] humanTiles;
+
+    /**
+     * Bits of the value of each entry.
+     */
+    private final long[] values;
+
+    /**
+     * Depth, player with the turn and bound of each entry, 0 if the slot
+     * is empty.
+     */
+    private final int[] infos;
+
+    /**
+     * Check of the fields of each entry.
+     */
+    private final long[] checks;
+
+    /**
+     * Mask of the bits of a hash, that select a slot.
+     */
+    private final int mask;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param bits The number of slots as power of 2.
+     */
+    TranspositionTable(int bits) {
+        int slots = 1 << bits;
+        aiTiles = new long[slots];
+        humanTiles = new long[slots];
+        values = new long[slots];
+        infos = new int[slots];
+        checks = new long[slots];
+        mask = slots - 1;
+    }
+
+    /**
+     * Gets the bytes a table of a certain size occupies.
+     *
+     * @param bits The number of slots as power of 2.
+     * @return The size in bytes.
+     */
+    static long bytes(int bits) {
+        return ENTRY_BYTES << bits;
+    }
+
+    /**
+     * Searches the entry of a position.
+     *
+     * @param ai          The tiles of the ai.
+     * @param human       The tiles of the human.
+     * @param humanToMove {@code true} if the human has the turn.
+     * @param depth       The remaining depth of the search.
+     * @param hit         Receives the value and the bound of the entry.
+     * @return {@code true} if there is an entry.
+     */
+    boolean probe(long ai, long human, boolean humanToMove, int depth,
+                  Entry hit) {
+        int slot = slot(ai, human, humanToMove, depth);
+        long value = values[slot];
+        int info = infos[slot];
+        if (info != 0 && aiTiles[slot] == ai && humanTiles[slot] == human
+                && info >>> 2 == key(humanToMove, depth)
+                && checks[slot] == check(ai, human, value, info)) {
+            hit.value = Double.longBitsToDouble(value);
+            hit.bound = info & 3;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Stores the value of a position, replacing the entry in its slot.
+     *
+     * @param ai          The tiles of the ai.
+     * @param human       The tiles of the human.
+     * @param humanToMove {@code true} if the human has the turn.
+     * @param depth       The remaining depth of the search.
+     * @param value       The value of the position.
+     * @param bound       {@code EXACT}, {@code LOWER} or {@code UPPER}.
+     */
+    void store(long ai, long human, boolean humanToMove, int depth,
+               double value, int bound) {
+        int slot = slot(ai, human, humanToMove, depth);
+        long bits = Double.doubleToLongBits(value);
+        int info = key(humanToMove, depth) << 2 | bound;
+        aiTiles[slot] = ai;
+        humanTiles[slot] = human;
+        values[slot] = bits;
+        infos[slot] = info;
+        checks[slot] = check(ai, human, bits, info);
+    }
+
+    /**
+     * Mixes the fields of an entry into its check.
+     *
+     * @param ai    The tiles of the ai.
+     * @param human The tiles of the human.
+     * @param value The bits of the value.
+     * @param info  The depth, player with the turn and bound.
+     * @return The check.
+     */
+    private static long check(long ai, long human, long value, int info) {
+        return ai ^ Long.rotateLeft(human, 17) ^ Long.rotateLeft(value, 41)
+                ^ info * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Combines the player with the turn and the depth.
+     *
+     * @param humanToMove {@code true} if the human has the turn.
+     * @param depth       The remaining depth of the search.
+     * @return The combined key.
+     */
+    private static int key(boolean humanToMove, int depth) {
+        return depth << 1 | (humanToMove ? 1 : 0);
+    }
+
+    /**
+     * Hashes a position to its slot.
+     *
+     * @param ai          The tiles of the ai.
+     * @param human       The tiles of the human.
+     * @param humanToMove {@code true} if the human has the turn.
+     * @param depth       The remaining depth of the search.
+     * @return The slot.
+     */
+    private int slot(long ai, long human, boolean humanToMove, int depth) {
+        long hash = ai * 0x9E3779B97F4A7C15L
+                ^ Long.rotateLeft(human * 0xC2B2AE3D27D4EB4FL, 31)
+                ^ key(humanToMove, depth) * 0x165667B19E3779F9L;
+        hash ^= hash >>> 29;
+        return (int) hash & mask;
+    }
+
+    /**
+     * The value and the bound of an entry found by {@link #probe}. Each
+     * thread needs its own.
+     */
+    static final class Entry {
+
+        /**
+         * The value of the position.
+         */
+        private double value;
+
+        /**
+         * {@code EXACT}, {@code LOWER} or {@code UPPER}.
+         */
+        private int bound;
+
+        /**
+         * Gets the value of the entry.
+         *
+         * @return The value.
+         */
+        double getValue() {
+            return value;
+        }
+
+        /**
+         * Gets the kind of bound the value of the entry is.
+         *
+         * @return {@code EXACT}, {@code LOWER} or {@code UPPER}.
+         */
+        int getBound() {
+            return bound;
+        }
+
+    }
+
+}